@@ -16,22 +16,34 @@
 package org.krysalis.barcode4j.ant;
 
 import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
-
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.krysalis.barcode4j.BarcodeException;
 import org.krysalis.barcode4j.BarcodeGenerator;
 import org.krysalis.barcode4j.BarcodeUtil;
+import org.krysalis.barcode4j.output.BarcodeCanvasSetupException;
 import org.krysalis.barcode4j.output.bitmap.BitmapCanvasProvider;
 import org.krysalis.barcode4j.output.eps.EPSCanvasProvider;
-import org.krysalis.barcode4j.output.svg.SVGCanvasProvider;
+import org.krysalis.barcode4j.output.svg.StreamingSVGCanvasProvider;
+import org.krysalis.barcode4j.tools.ConfigurationUtil;
 import org.krysalis.barcode4j.tools.MimeTypes;
 
 import org.krysalis.barcode4j.configuration.Configuration;
@@ -39,15 +51,35 @@ import org.krysalis.barcode4j.configuration.ConfigurationException;
 import org.krysalis.barcode4j.configuration.DefaultConfiguration;
 import org.krysalis.barcode4j.configuration.DefaultConfigurationBuilder;
 import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
 import org.apache.tools.ant.Task;
 
 /**
  * Ant task for Barcode4J.
+ * <p>
+ * Besides a single barcode (<code>message</code> and <code>output</code>), the task can generate
+ * a set of barcodes into a directory (<code>destDir</code>): one for every nested
+ * <code>&lt;entry&gt;</code> element and one for every line of a <code>messageFile</code>. These
+ * are rendered on <code>threads</code> threads. A manifest in the target directory records a
+ * hash of the configuration, message, format and resolution of every barcode generated, so
+ * barcodes that are up to date are skipped by later builds. For example:
+ * </p>
+ * <pre>
+ * &lt;barcode symbol="ean-13" format="png" destDir="build/barcodes" threads="4"
+ *          messageFile="skus.txt"&gt;
+ *     &lt;entry message="4006381333931" output="pencil.png"/&gt;
+ * &lt;/barcode&gt;
+ * </pre>
  *
  * @author Didier Donsez
  */
 public class BarcodeTask extends Task {
 
+    /** The default name of the manifest in the target directory */
+    public static final String DEFAULT_MANIFEST = ".barcode4j-manifest";
+
+    private static final String VERSION = String.valueOf(BarcodeUtil.class.getPackage().getImplementationVersion());
+
     /** The barcode symbology to select */
     private String symbol;
 
@@ -71,6 +103,24 @@ public class BarcodeTask extends Task {
     /** the message */
     private String message;
 
+    /** the target directory for entries and the barcodes of the message file */
+    private File destDir;
+
+    /** a file with one message per line */
+    private File messageFile;
+
+    /** the nested entries */
+    private final List<Entry> entries = new ArrayList<>();
+
+    /** the number of threads generating barcodes */
+    private int threads = 1;
+
+    /** the manifest of the barcodes generated, null for the default */
+    private File manifest;
+
+    /** regenerate barcodes even if they are up to date */
+    private boolean force;
+
     /**
      * Handles the command line. The method calls the exit handler upon
      * completion.
@@ -78,58 +128,62 @@ public class BarcodeTask extends Task {
      */
     @Override
     public void execute() throws BuildException {
-
-        if (message == null || message.isEmpty()) {
+        final List<Entry> jobs = getJobs();
+        if (jobs.isEmpty()) {
             throw new BuildException("No message");
         }
 
-        if (output == null) {
-            throw new BuildException("Output file is missing");
-        }
-
         try {
-            OutputStream out = new java.io.FileOutputStream(output);
-
-            format = MimeTypes.expandFormat(format);
-
-            int orientation = 0;
-            log("Generating " + symbol + " in " + format + "...");
-            BarcodeUtil util = BarcodeUtil.getInstance();
-            BarcodeGenerator gen = util.createBarcodeGenerator(getConfiguration());
-
-            if (MimeTypes.MIME_SVG.equals(format)) {
-                // Create Barcode and render it to SVG
-                SVGCanvasProvider svg = new SVGCanvasProvider(false, orientation);
-                gen.generateBarcode(svg, message);
-
-                // Serialize SVG barcode
-                try {
-                    TransformerFactory factory = TransformerFactory.newInstance();
-                    Transformer trans = factory.newTransformer();
-                    Source src = new javax.xml.transform.dom.DOMSource(svg.getDOMFragment());
-                    Result res = new javax.xml.transform.stream.StreamResult(out);
-                    trans.transform(src, res);
-                } catch (TransformerException te) {
-                    throw new BuildException("XML/XSLT library error", te);
+            final boolean compact = MimeTypes.isCompactSVGFormat(format);
+            final String mime = MimeTypes.expandFormat(format);
+            final Configuration cfg = getConfiguration();
+            final BarcodeGenerator gen = BarcodeUtil.getInstance().createBarcodeGenerator(cfg);
+
+            final File manifestFile = getManifestFile();
+            final Map<String, String> hashes = manifestFile != null ? readManifest(manifestFile) : new TreeMap<>();
+            final String settings = getSettingsKey(cfg, mime, compact);
+            final List<Entry> outdated = new ArrayList<>(jobs.size());
+            final List<String> jobHashes = new ArrayList<>(jobs.size());
+            for (final Entry job : jobs) {
+                final String hash = settings != null ? hash(settings + job.message) : null;
+                if (!force && hash != null && job.file.isFile() && hash.equals(hashes.get(getManifestKey(manifestFile, job.file)))) {
+                    continue;
                 }
-            } else if (MimeTypes.MIME_EPS.equals(format)) {
-                EPSCanvasProvider eps = new EPSCanvasProvider(out, orientation);
-                gen.generateBarcode(eps, message);
-                eps.finish();
-            } else {
-                BitmapCanvasProvider bitmap;
-                if (bw) {
-                    bitmap = new BitmapCanvasProvider(out, format, dpi,
-                            BufferedImage.TYPE_BYTE_BINARY, false, orientation);
+                outdated.add(job);
+                jobHashes.add(hash);
+            }
+            if (outdated.isEmpty()) {
+                log(jobs.size() == 1 ? "Barcode is up to date" : "All " + jobs.size() + " barcodes are up to date");
+                return;
+            }
+            log("Generating " + outdated.size() + " of " + jobs.size() + " barcode(s) ("
+                + (symbol != null ? symbol : "configured symbology") + ") in " + mime + "...");
+
+            final Exception[] failures = render(gen, outdated, mime, compact);
+            BuildException error = null;
+            for (int i = 0; i < outdated.size(); i++) {
+                final Entry job = outdated.get(i);
+                final String key = manifestFile != null ? getManifestKey(manifestFile, job.file) : null;
+                if (failures[i] == null) {
+                    if (key != null && jobHashes.get(i) != null) {
+                        hashes.put(key, jobHashes.get(i));
+                    }
                 } else {
-                    bitmap = new BitmapCanvasProvider(out, format, dpi,
-                            BufferedImage.TYPE_BYTE_GRAY, true, orientation);
+                    if (key != null) {
+                        hashes.remove(key);
+                    }
+                    if (error == null) {
+                        error = toBuildException(job, failures[i]);
+                    }
+                    log("Error generating " + job.file + ": " + failures[i].getMessage(), Project.MSG_ERR);
                 }
-                gen.generateBarcode(bitmap, message);
-                bitmap.finish();
             }
-
-            out.close();
+            if (manifestFile != null) {
+                writeManifest(manifestFile, hashes);
+            }
+            if (error != null) {
+                throw error;
+            }
         } catch (IOException ioe) {
             throw new BuildException("Error writing output file: " + ioe.getMessage());
         } catch (ConfigurationException ce) {
@@ -139,6 +193,233 @@ public class BarcodeTask extends Task {
         }
     }
 
+    /**
+     * Collects the barcodes to generate: the single barcode, the nested entries and the lines of
+     * the message file.
+     */
+    private List<Entry> getJobs() {
+        final List<Entry> jobs = new ArrayList<>();
+        if (message != null && !message.isEmpty()) {
+            if (output == null) {
+                throw new BuildException("Output file is missing");
+            }
+            jobs.add(new Entry(message, output));
+        } else if (output != null) {
+            throw new BuildException("No message");
+        }
+        if ((!entries.isEmpty() || messageFile != null) && destDir == null) {
+            throw new BuildException("Nested entries and message files require the destDir attribute");
+        }
+        final String extension = "." + MimeTypes.getFileExtension(format);
+        for (final Entry entry : entries) {
+            if (entry.message == null || entry.message.isEmpty()) {
+                throw new BuildException("No message in entry");
+            }
+            File file = new File(entry.output != null ? entry.output : getFileName(entry.message) + extension);
+            if (!file.isAbsolute()) {
+                file = new File(destDir, file.getPath());
+            }
+            jobs.add(new Entry(entry.message, file));
+        }
+        if (messageFile != null) {
+            try (BufferedReader in = Files.newBufferedReader(messageFile.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        jobs.add(new Entry(line, new File(destDir, getFileName(line) + extension)));
+                    }
+                }
+            } catch (IOException ioe) {
+                throw new BuildException("Error reading message file: " + ioe.getMessage(), ioe);
+            }
+        }
+        final Set<File> files = new HashSet<>();
+        for (final Entry job : jobs) {
+            if (!files.add(job.file.getAbsoluteFile())) {
+                throw new BuildException("More than one barcode would be written to " + job.file);
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * Derives a file name from a message by replacing all characters but letters, digits, '.',
+     * '_' and '-'.
+     */
+    static String getFileName(String message) {
+        final StringBuilder sb = new StringBuilder(message.length());
+        for (int i = 0; i < message.length(); i++) {
+            final char c = message.charAt(i);
+            sb.append(c < 128 && (Character.isLetterOrDigit(c) || c == '.' || c == '_' || c == '-') ? c : '_');
+        }
+        if (sb.charAt(0) == '.') {
+            sb.setCharAt(0, '_');
+        }
+        return sb.toString();
+    }
+
+    private Exception[] render(BarcodeGenerator gen, List<Entry> jobs, String mime, boolean compact) {
+        final Exception[] failures = new Exception[jobs.size()];
+        if (threads <= 1 || jobs.size() == 1) {
+            for (int i = 0; i < jobs.size(); i++) {
+                failures[i] = render(gen, jobs.get(i), mime, compact);
+            }
+            return failures;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, jobs.size()));
+        try {
+            final List<Future<Exception>> results = new ArrayList<>(jobs.size());
+            for (final Entry job : jobs) {
+                results.add(executor.submit(() -> render(gen, job, mime, compact)));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                failures[i] = results.get(i).get();
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new BuildException("Interrupted while generating barcodes", ie);
+        } catch (ExecutionException ee) {
+            throw new BuildException("Error generating the barcode", ee.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return failures;
+    }
+
+    /**
+     * Generates one barcode.
+     * @return the exception if the barcode could not be generated, or null
+     */
+    private Exception render(BarcodeGenerator gen, Entry job, String mime, boolean compact) {
+        final File parent = job.file.getAbsoluteFile().getParentFile();
+        try {
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+            try (OutputStream out = Files.newOutputStream(job.file.toPath())) {
+                writeBarcode(gen, job.message, mime, compact, out);
+            }
+            return null;
+        } catch (IOException | BarcodeException | RuntimeException e) {
+            return e;
+        }
+    }
+
+    private void writeBarcode(BarcodeGenerator gen, String msg, String mime, boolean compact, OutputStream out)
+            throws IOException, BarcodeCanvasSetupException {
+        int orientation = 0;
+        if (MimeTypes.MIME_SVG.equals(mime) || MimeTypes.MIME_SVGZ.equals(mime)) {
+            // Create Barcode and write it as SVG
+            StreamingSVGCanvasProvider svg = new StreamingSVGCanvasProvider(
+                    out, MimeTypes.MIME_SVGZ.equals(mime), orientation);
+            svg.setCompact(compact);
+            gen.generateBarcode(svg, msg);
+            svg.finish();
+        } else if (MimeTypes.MIME_EPS.equals(mime)) {
+            EPSCanvasProvider eps = new EPSCanvasProvider(out, orientation);
+            gen.generateBarcode(eps, msg);
+            eps.finish();
+        } else {
+            BitmapCanvasProvider bitmap;
+            if (bw) {
+                bitmap = new BitmapCanvasProvider(out, mime, dpi,
+                        BufferedImage.TYPE_BYTE_BINARY, false, orientation);
+            } else {
+                bitmap = new BitmapCanvasProvider(out, mime, dpi,
+                        BufferedImage.TYPE_BYTE_GRAY, true, orientation);
+            }
+            gen.generateBarcode(bitmap, msg);
+            bitmap.finish();
+        }
+    }
+
+    private static BuildException toBuildException(Entry job, Exception e) {
+        if (e instanceof IOException) {
+            return new BuildException("Error writing output file: " + e.getMessage());
+        }
+        return new BuildException("Error generating the barcode for " + job.file + ": " + e.getMessage(), e);
+    }
+
+    /**
+     * Returns the manifest: the one set on the task, otherwise the default one in the target
+     * directory, or null if there is neither (only a single barcode is generated).
+     */
+    private File getManifestFile() {
+        if (manifest != null) {
+            return manifest;
+        }
+        return destDir != null ? new File(destDir, DEFAULT_MANIFEST) : null;
+    }
+
+    /**
+     * Returns everything but the message that goes into the hash of a barcode, or null if the
+     * configuration cannot be represented (in which case barcodes are always regenerated).
+     */
+    private String getSettingsKey(Configuration cfg, String mime, boolean compact) {
+        try {
+            return VERSION + '\n' + mime + '\n' + compact + '\n' + dpi + '\n' + bw + '\n'
+                + ConfigurationUtil.toCanonicalString(cfg) + '\n';
+        } catch (UnsupportedOperationException uoe) {
+            return null;
+        }
+    }
+
+    private static String hash(String content) {
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); //every Java platform supports SHA-256
+        }
+        final StringBuilder sb = new StringBuilder(2 * hash.length);
+        for (final byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the key of a barcode in the manifest: its path relative to the manifest's
+     * directory.
+     */
+    private static String getManifestKey(File manifestFile, File file) {
+        final File dir = manifestFile.getAbsoluteFile().getParentFile();
+        return dir.toPath().normalize().relativize(file.getAbsoluteFile().toPath().normalize())
+            .toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Reads a manifest. Every line holds the hash of a barcode and the barcode's path, separated by
+     * a space.
+     */
+    private static Map<String, String> readManifest(File manifestFile) throws IOException {
+        final Map<String, String> hashes = new TreeMap<>();
+        if (manifestFile.isFile()) {
+            for (final String line : Files.readAllLines(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+                final int space = line.indexOf(' ');
+                if (space > 0) {
+                    hashes.put(line.substring(space + 1), line.substring(0, space));
+                }
+            }
+        }
+        return hashes;
+    }
+
+    private static void writeManifest(File manifestFile, Map<String, String> hashes) throws IOException {
+        final File parent = manifestFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            Files.createDirectories(parent.toPath());
+        }
+        try (BufferedWriter out = Files.newBufferedWriter(manifestFile.toPath(), StandardCharsets.UTF_8)) {
+            for (final Map.Entry<String, String> entry : hashes.entrySet()) {
+                out.write(entry.getValue());
+                out.write(' ');
+                out.write(entry.getKey());
+                out.newLine();
+            }
+        }
+    }
+
     private Configuration getConfiguration() {
         if (symbol != null) {
             DefaultConfiguration cfg = new DefaultConfiguration("cfg");
@@ -193,6 +474,8 @@ public class BarcodeTask extends Task {
      * A selection of valid output formats:
      * <ul>
      * <li>SVG: image/svg+xml, svg</li>
+     * <li>SVGZ (gzip compressed SVG): image/svg+xml-compressed, svgz</li>
+     * <li>Compact SVG (all bars in a single path): svg-compact, svgz-compact</li>
      * <li>EPS: image/x-eps, eps</li>
      * <li>PNG: image/x-png, png</li>
      * <li>TIFF: image/tiff, tiff, tif</li>
@@ -245,4 +528,115 @@ public class BarcodeTask extends Task {
             this.message = text;
         }
     }
+
+    /**
+     * Sets the directory the barcodes of nested entries and of the message file are written to.
+     * @param destDir the target directory
+     * @since 2.4.1
+     */
+    public void setDestDir(File destDir) {
+        this.destDir = destDir;
+    }
+
+    /**
+     * Sets a file (UTF-8) with one message per line. Empty lines and lines starting with '#' are
+     * ignored. The barcodes are written to the target directory, named after their message.
+     * @param messageFile the message file
+     * @since 2.4.1
+     */
+    public void setMessageFile(File messageFile) {
+        this.messageFile = messageFile;
+    }
+
+    /**
+     * Sets the number of threads generating barcodes.
+     * @param threads the number of threads (default: 1)
+     * @since 2.4.1
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new BuildException("The number of threads must be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Sets the manifest recording the barcodes generated, by default
+     * {@value #DEFAULT_MANIFEST} in the target directory. A single barcode without target
+     * directory is only checked against a manifest if one is set.
+     * @param manifest the manifest file
+     * @since 2.4.1
+     */
+    public void setManifest(File manifest) {
+        this.manifest = manifest;
+    }
+
+    /**
+     * Controls whether barcodes are generated even if the manifest says they are up to date.
+     * @param force true to regenerate all barcodes
+     * @since 2.4.1
+     */
+    public void setForce(boolean force) {
+        this.force = force;
+    }
+
+    /**
+     * Creates a nested entry: a barcode written to the target directory.
+     * @return the entry
+     * @since 2.4.1
+     */
+    public Entry createEntry() {
+        final Entry entry = new Entry();
+        entries.add(entry);
+        return entry;
+    }
+
+    /**
+     * A barcode generated by the task: a nested <code>&lt;entry&gt;</code> element with a message
+     * and the name of the output file in the target directory.
+     *
+     * @since 2.4.1
+     */
+    public static class Entry {
+
+        private String message;
+        private String output;
+        private File file;
+
+        /**
+         * Creates a new entry.
+         */
+        public Entry() {
+        }
+
+        private Entry(String message, File file) {
+            this.message = message;
+            this.file = file;
+        }
+
+        /**
+         * Sets the barcode message.
+         * @param message the message
+         */
+        public void setMessage(String message) {
+            this.message = message;
+        }
+
+        /**
+         * Adds text to the message.
+         * @param text the text to add to the message
+         */
+        public void addText(String text) {
+            this.message = this.message != null ? this.message + text : text;
+        }
+
+        /**
+         * Sets the name of the output file, relative to the target directory. By default, the file
+         * is named after the message.
+         * @param output the file name
+         */
+        public void setOutput(String output) {
+            this.output = output;
+        }
+    }
 }
@@ -0,0 +1,147 @@
+package org.krysalis.barcode4j.ant;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.tools.ant.BuildException;
+import org.apache.tools.ant.Project;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BarcodeTaskTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dir = Files.createTempDirectory("barcodes");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    void testSingleBarcode() throws Exception {
+        final BarcodeTask task = createTask();
+        task.setSymbol("code128");
+        task.setMessage("12345");
+        task.setOutput(dir.resolve("single.svg").toFile());
+        task.execute();
+        assertTrue(new String(Files.readAllBytes(dir.resolve("single.svg")), StandardCharsets.UTF_8).contains("<svg"));
+        assertFalse(Files.exists(dir.resolve(BarcodeTask.DEFAULT_MANIFEST)));
+
+        final BarcodeTask noOutput = createTask();
+        noOutput.setSymbol("code128");
+        noOutput.setMessage("12345");
+        assertThrows(BuildException.class, noOutput::execute);
+        assertThrows(BuildException.class, () -> createTask().execute());
+    }
+
+    @Test
+    void testIncrementalGeneration() throws Exception {
+        final Path messages = dir.resolve("messages.txt");
+        Files.write(messages, Arrays.asList("# SKUs", "4006381333931", "", "9780201379624"), StandardCharsets.UTF_8);
+        final Path out = dir.resolve("out");
+
+        createFilesetTask(messages, out, 300).execute();
+        final Path first = out.resolve("4006381333931.png");
+        final Path second = out.resolve("9780201379624.png");
+        final Path pencil = out.resolve("sub/pencil.png");
+        for (final Path file : Arrays.asList(first, second, pencil)) {
+            assertEquals((byte) 0x89, Files.readAllBytes(file)[0], file.toString());
+        }
+        final List<String> manifest = Files.readAllLines(out.resolve(BarcodeTask.DEFAULT_MANIFEST));
+        assertEquals(3, manifest.size());
+        assertTrue(manifest.get(2).endsWith(" sub/pencil.png"), manifest.get(2));
+
+        //up-to-date barcodes are not generated again
+        Files.write(first, new byte[] {1});
+        Files.delete(second);
+        createFilesetTask(messages, out, 300).execute();
+        assertArrayEquals(new byte[] {1}, Files.readAllBytes(first));
+        assertTrue(Files.exists(second));
+
+        //a different resolution changes the hash of all barcodes
+        createFilesetTask(messages, out, 150).execute();
+        assertEquals((byte) 0x89, Files.readAllBytes(first)[0]);
+        assertEquals(manifest.size(), Files.readAllLines(out.resolve(BarcodeTask.DEFAULT_MANIFEST)).size());
+        assertNotEquals(manifest, Files.readAllLines(out.resolve(BarcodeTask.DEFAULT_MANIFEST)));
+
+        final BarcodeTask forced = createFilesetTask(messages, out, 150);
+        forced.setForce(true);
+        Files.write(first, new byte[] {1});
+        forced.execute();
+        assertEquals((byte) 0x89, Files.readAllBytes(first)[0]);
+    }
+
+    @Test
+    void testInvalidEntries() throws Exception {
+        final BarcodeTask noDestDir = createTask();
+        noDestDir.setSymbol("ean-13");
+        noDestDir.createEntry().setMessage("4006381333931");
+        assertThrows(BuildException.class, noDestDir::execute);
+
+        final BarcodeTask duplicate = createTask();
+        duplicate.setSymbol("ean-13");
+        duplicate.setDestDir(dir.toFile());
+        duplicate.createEntry().setMessage("4006381333931");
+        duplicate.createEntry().addText("4006381333931");
+        assertThrows(BuildException.class, duplicate::execute);
+
+        //the barcodes that can be generated are, the others fail the build
+        final BarcodeTask invalid = createTask();
+        invalid.setSymbol("ean-13");
+        invalid.setDestDir(dir.toFile());
+        invalid.setThreads(2);
+        invalid.createEntry().setMessage("letters");
+        invalid.createEntry().setMessage("4006381333931");
+        final BuildException e = assertThrows(BuildException.class, invalid::execute);
+        assertTrue(e.getMessage().contains("letters"), e.getMessage());
+        assertTrue(Files.exists(dir.resolve("4006381333931.svg")));
+        assertEquals(1, Files.readAllLines(dir.resolve(BarcodeTask.DEFAULT_MANIFEST)).size());
+
+        assertThrows(BuildException.class, () -> createTask().setThreads(0));
+    }
+
+    @Test
+    void testFileName() {
+        assertEquals("4006381333931", BarcodeTask.getFileName("4006381333931"));
+        assertEquals("Hello__World_", BarcodeTask.getFileName("Hello, World!"));
+        assertEquals("_.._etc_passwd", BarcodeTask.getFileName("/../etc/passwd"));
+        assertEquals("_hidden", BarcodeTask.getFileName(".hidden"));
+    }
+
+    private BarcodeTask createFilesetTask(Path messages, Path out, int dpi) {
+        final BarcodeTask task = createTask();
+        task.setSymbol("ean-13");
+        task.setFormat("png");
+        task.setDpi(dpi);
+        task.setDestDir(out.toFile());
+        task.setMessageFile(messages.toFile());
+        task.setThreads(3);
+        final BarcodeTask.Entry entry = task.createEntry();
+        entry.setMessage("4006381333931");
+        entry.setOutput("sub" + File.separator + "pencil.png");
+        return task;
+    }
+
+    private BarcodeTask createTask() {
+        final Project project = new Project();
+        project.setBaseDir(dir.toFile());
+        final BarcodeTask task = new BarcodeTask();
+        task.setProject(project);
+        return task;
+    }
+}
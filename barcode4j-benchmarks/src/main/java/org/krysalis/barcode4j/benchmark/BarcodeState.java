@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.benchmark;
+
+import org.krysalis.barcode4j.BarcodeException;
+import org.krysalis.barcode4j.BarcodeGenerator;
+import org.krysalis.barcode4j.BarcodeUtil;
+import org.krysalis.barcode4j.configuration.ConfigurationException;
+import org.krysalis.barcode4j.configuration.DefaultConfiguration;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark state holding a barcode generator with its default configuration and the message
+ * to encode. The symbology list matches the main IDs registered in
+ * {@link org.krysalis.barcode4j.DefaultBarcodeClassResolver}.
+ *
+ * @since 2.4.1
+ */
+@State(Scope.Benchmark)
+public class BarcodeState {
+
+    /** The symbology to measure */
+    @Param({
+        "codabar", "code39", "code128", "ean-128", "intl2of5", "itf-14",
+        "ean-13", "ean-8", "upc-a", "upc-e", "postnet", "royal-mail-cbc", "usps4cb",
+        "pdf417", "datamatrix", "qr", "aztec"
+    })
+    public String symbology;
+
+    /** The size of the message to encode */
+    @Param({"SMALL", "TYPICAL", "CAPACITY"})
+    public Payloads.Size size;
+
+    /** The configured generator */
+    protected BarcodeGenerator generator;
+
+    /** The message to encode */
+    protected String message;
+
+    /**
+     * Creates the barcode generator and selects the message.
+     * @throws ConfigurationException if the symbology cannot be configured
+     * @throws BarcodeException if the symbology is unknown
+     */
+    @Setup(Level.Trial)
+    public void setUpGenerator() throws ConfigurationException, BarcodeException {
+        final DefaultConfiguration cfg = new DefaultConfiguration("barcode");
+        cfg.addChild(new DefaultConfiguration(symbology));
+        this.generator = BarcodeUtil.getInstance().createBarcodeGenerator(cfg);
+        this.message = Payloads.get(symbology, size);
+
+        //Fail early if the payload doesn't fit the symbology's default configuration
+        this.generator.calcDimensions(message);
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixBean;
+import org.krysalis.barcode4j.output.bitmap.BitmapCanvasProvider;
+import org.krysalis.barcode4j.output.bitmap.BitmapEncoder;
+import org.krysalis.barcode4j.output.bitmap.BitmapEncoderRegistry;
+import org.krysalis.barcode4j.output.bitmap.ImageIOBitmapEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the per-image overhead of encoding an already painted barcode: looking up the
+ * {@link BitmapEncoder} for a MIME type and encoding a typical DataMatrix symbol with it.
+ *
+ * @since 2.4.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitmapEncoderBenchmark {
+
+    /**
+     * Holds the image to encode.
+     */
+    @State(Scope.Benchmark)
+    public static class EncodeState {
+
+        /** The MIME type to encode to */
+        @Param({"image/png", "image/jpeg", "image/gif", "image/bmp"})
+        public String mime;
+
+        private final BitmapEncoder imageIO = new ImageIOBitmapEncoder();
+        private BufferedImage image;
+
+        /** Paints the barcode. */
+        @Setup(Level.Trial)
+        public void setUpImage() {
+            final BitmapCanvasProvider bitmap = new BitmapCanvasProvider(
+                OutputFormat.RESOLUTION, BufferedImage.TYPE_BYTE_GRAY, false, 0);
+            new DataMatrixBean().generateBarcode(bitmap, Payloads.get("datamatrix", Payloads.Size.TYPICAL));
+            this.image = bitmap.getBufferedImage();
+        }
+    }
+
+    /**
+     * Looks up the encoder for the MIME type.
+     * @param state the MIME type
+     * @return the encoder
+     */
+    @Benchmark
+    public BitmapEncoder lookup(EncodeState state) {
+        return BitmapEncoderRegistry.getInstance(state.mime);
+    }
+
+    /**
+     * Encodes the image with the registered encoder, the way {@link BitmapCanvasProvider} does.
+     * @param state the image and MIME type
+     * @return the image
+     * @throws IOException if encoding fails
+     */
+    @Benchmark
+    public Object encode(EncodeState state) throws IOException {
+        BitmapEncoderRegistry.getInstance(state.mime)
+            .encode(state.image, OutputStream.nullOutputStream(), state.mime, OutputFormat.RESOLUTION);
+        return state.image;
+    }
+
+    /**
+     * Encodes the image through ImageIO, even for MIME types that have a dedicated encoder.
+     * @param state the image and MIME type
+     * @return the image
+     * @throws IOException if encoding fails
+     */
+    @Benchmark
+    public Object encodeImageIO(EncodeState state) throws IOException {
+        state.imageIO.encode(state.image, OutputStream.nullOutputStream(), state.mime, OutputFormat.RESOLUTION);
+        return state.image;
+    }
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link org.krysalis.barcode4j.BarcodeGenerator#calcDimensions(String)}. This is the
+ * work done by FOP and the xgc image loaders before a barcode gets painted.
+ *
+ * @since 2.4.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalcDimensionsBenchmark {
+
+    /**
+     * Calculates the dimensions of the barcode.
+     * @param state the generator and message
+     * @return the dimensions
+     */
+    @Benchmark
+    public BarcodeDimension calcDimensions(BarcodeState state) {
+        return state.generator.calcDimensions(state.message);
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files in CSV format (for example a baseline recorded on the base
+ * commit and the result of a run on a pull request) and prints the relative change of every
+ * score. Throughput scores (ops/s) are better when higher, all other scores (such as
+ * <code>gc.alloc.rate.norm</code> in B/op) are better when lower.
+ * <p>
+ * Usage: <code>CompareResults [--fail-on-regression] &lt;baseline.csv&gt; &lt;current.csv&gt;
+ * [threshold-percent]</code>
+ * </p>
+ * Scores that got worse by more than the threshold (default: 10%) are reported as regressions.
+ * A regression is only considered reliable if both results have a score error, i.e. were measured
+ * with enough samples for JMH to estimate it; others are reported as unreliable. Benchmarks
+ * missing from one of the files are listed as well. The exit code is 0 unless
+ * <code>--fail-on-regression</code> is given, then it is 1 if there is any reliable regression.
+ *
+ * @since 2.4.1
+ */
+public final class CompareResults {
+
+    private static final double DEFAULT_THRESHOLD = 10.0;
+    private static final String ALLOC_RATE_NORM = "gc.alloc.rate.norm";
+    private static final String FAIL_ON_REGRESSION = "--fail-on-regression";
+
+    private CompareResults() {
+    }
+
+    /**
+     * Compares the result files.
+     * @param args optionally <code>--fail-on-regression</code>, then the baseline file, the current
+     *     file and optionally the threshold in percent
+     * @throws IOException if a result file cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        final boolean failOnRegression = args.length > 0 && FAIL_ON_REGRESSION.equals(args[0]);
+        final int first = failOnRegression ? 1 : 0;
+        if (args.length - first < 2) {
+            System.err.println("Usage: CompareResults [" + FAIL_ON_REGRESSION
+                    + "] <baseline.csv> <current.csv> [threshold-percent]");
+            System.exit(2);
+        }
+        final double threshold = args.length - first > 2 ? Double.parseDouble(args[first + 2]) : DEFAULT_THRESHOLD;
+        final int regressions = compare(read(Paths.get(args[first])), read(Paths.get(args[first + 1])),
+                threshold, System.out);
+        System.exit(failOnRegression && regressions > 0 ? 1 : 0);
+    }
+
+    /**
+     * Compares two sets of scores.
+     * @param baseline the baseline scores
+     * @param current the current scores
+     * @param threshold the tolerated regression in percent
+     * @param out the stream to print the report to
+     * @return the number of reliable regressions beyond the threshold
+     */
+    static int compare(Map<String, Score> baseline, Map<String, Score> current, double threshold, PrintStream out) {
+        int regressions = 0;
+        int unreliable = 0;
+        for (final Map.Entry<String, Score> entry : current.entrySet()) {
+            final Score now = entry.getValue();
+            final Score before = baseline.get(entry.getKey());
+            if (before == null || before.value == 0) {
+                out.printf(Locale.ROOT, "%-100s %14.3f %-8s (new)%n", entry.getKey(), now.value, now.unit);
+                continue;
+            }
+            double change = (now.value - before.value) / before.value * 100;
+            final boolean higherIsBetter = now.unit.endsWith("/s");
+            final double improvement = higherIsBetter ? change : -change;
+            String verdict = "";
+            if (improvement < -threshold) {
+                if (Double.isNaN(before.error) || Double.isNaN(now.error)) {
+                    unreliable++;
+                    verdict = "  REGRESSION (unreliable, no score error)";
+                } else {
+                    regressions++;
+                    verdict = "  REGRESSION";
+                }
+            }
+            out.printf(Locale.ROOT, "%-100s %14.3f %-8s %+8.2f%%%s%n",
+                    entry.getKey(), now.value, now.unit, change, verdict);
+        }
+        int missing = 0;
+        for (final String key : baseline.keySet()) {
+            if (!current.containsKey(key)) {
+                missing++;
+                out.printf(Locale.ROOT, "%-100s (missing from current results)%n", key);
+            }
+        }
+        out.printf(Locale.ROOT, "%d score(s) compared, %d regression(s) and %d unreliable regression(s)"
+                + " beyond %.1f%%, %d score(s) missing from current results%n",
+                current.size(), regressions, unreliable, threshold, missing);
+        return regressions;
+    }
+
+    /**
+     * Reads a JMH result file in CSV format.
+     * @param file the result file
+     * @return the scores keyed by benchmark name and parameters
+     * @throws IOException if the file cannot be read
+     */
+    static Map<String, Score> read(Path file) throws IOException {
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        final Map<String, Score> scores = new LinkedHashMap<>();
+        if (lines.isEmpty()) {
+            return scores;
+        }
+        final List<String> header = split(lines.get(0));
+        final int scoreCol = header.indexOf("Score");
+        final int errorCol = header.indexOf("Score Error (99.9%)");
+        final int unitCol = header.indexOf("Unit");
+        for (final String line : lines.subList(1, lines.size())) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            final List<String> cols = split(line);
+            if (!isCompared(cols.get(0))) {
+                continue;
+            }
+            final StringBuilder key = new StringBuilder(cols.get(0));
+            for (int i = unitCol + 1; i < cols.size(); i++) {
+                key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(cols.get(i));
+            }
+            final double error = errorCol < 0 ? Double.NaN : Double.parseDouble(cols.get(errorCol));
+            scores.put(key.toString(), new Score(Double.parseDouble(cols.get(scoreCol)), error, cols.get(unitCol)));
+        }
+        return scores;
+    }
+
+    /**
+     * Only the primary score and the normalized allocation rate are compared, the other GC profiler
+     * metrics (collection count and time, allocation rate in MB/sec) depend on the length of the run.
+     */
+    private static boolean isCompared(String benchmark) {
+        return benchmark.indexOf(':') < 0 || benchmark.endsWith(":" + ALLOC_RATE_NORM);
+    }
+
+    private static List<String> split(String line) {
+        final List<String> cols = new ArrayList<>();
+        final StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                cols.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+        cols.add(sb.toString());
+        return cols;
+    }
+
+    /** A single benchmark score. */
+    static final class Score {
+        final double value;
+        /** The score error (99.9%), NaN if too few samples were measured */
+        final double error;
+        final String unit;
+
+        Score(double value, double error, String unit) {
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixErrorCorrection;
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixSymbolInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the Reed-Solomon error correction of a full 144x144 DataMatrix symbol (1558 data
+ * codewords in 10 interleaved blocks), once through the <code>String</code> API and once through
+ * the <code>int[]</code> API used by the DataMatrix implementation.
+ *
+ * @since 2.4.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataMatrixErrorCorrectionBenchmark {
+
+    /**
+     * Holds the data codewords of the symbol.
+     */
+    @State(Scope.Benchmark)
+    public static class SymbolState {
+
+        private DataMatrixSymbolInfo symbolInfo;
+        private int[] codewords;
+        private String codewordString;
+
+        /** Creates random data codewords filling the largest symbol. */
+        @Setup(Level.Trial)
+        public void setUpCodewords() {
+            this.symbolInfo = DataMatrixSymbolInfo.lookup(1558);
+            final Random rnd = new Random(144);
+            this.codewords = new int[symbolInfo.dataCapacity];
+            final char[] chars = new char[codewords.length];
+            for (int i = 0; i < codewords.length; i++) {
+                codewords[i] = rnd.nextInt(256);
+                chars[i] = (char)codewords[i];
+            }
+            this.codewordString = String.valueOf(chars);
+        }
+    }
+
+    /**
+     * Creates the error correction from a <code>String</code>.
+     * @param state the symbol
+     * @return the codewords with error correction
+     */
+    @Benchmark
+    public String encodeString(SymbolState state) {
+        return DataMatrixErrorCorrection.encodeECC200(state.codewordString, state.symbolInfo);
+    }
+
+    /**
+     * Creates the error correction from an <code>int[]</code>.
+     * @param state the symbol
+     * @return the codewords with error correction
+     */
+    @Benchmark
+    public int[] encodeCodewords(SymbolState state) {
+        return DataMatrixErrorCorrection.encodeECC200(state.codewords, state.symbolInfo);
+    }
+
+}
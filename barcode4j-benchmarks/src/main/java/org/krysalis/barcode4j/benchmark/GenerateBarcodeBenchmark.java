@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.benchmark;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.BarcodeException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link org.krysalis.barcode4j.BarcodeGenerator#generateBarcode} for every symbology
+ * crossed with every output format.
+ *
+ * @since 2.4.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateBarcodeBenchmark {
+
+    /**
+     * Adds the output format to the generator state.
+     */
+    @State(Scope.Benchmark)
+    public static class RenderState extends BarcodeState {
+
+        /** The output format to render to */
+        @Param({"SVG", "SVG_STREAMING", "SVG_COMPACT", "EPS", "BITMAP_BINARY", "BITMAP_GRAY", "BITMAP_GRAY_ALIASED", "PNG", "PNG_IMAGEIO", "JAVA2D"})
+        public OutputFormat format;
+
+        private BarcodeDimension dim;
+        private BufferedImage target;
+
+        /** Prepares anything the output format needs to reuse between invocations. */
+        @Setup(Level.Trial)
+        public void setUpTarget() {
+            this.dim = generator.calcDimensions(message);
+            this.target = format.prepareTarget(dim);
+        }
+    }
+
+    /**
+     * Renders the barcode.
+     * @param state the generator, message and output format
+     * @return the rendering result
+     * @throws IOException if the canvas provider reports an I/O problem
+     * @throws BarcodeException if the canvas provider cannot be set up
+     */
+    @Benchmark
+    public Object generateBarcode(RenderState state) throws IOException, BarcodeException {
+        return state.format.render(state.generator, state.message, state.dim, state.target);
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.benchmark;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.BarcodeException;
+import org.krysalis.barcode4j.BarcodeGenerator;
+import org.krysalis.barcode4j.output.BarcodeCanvasSetupException;
+import org.krysalis.barcode4j.output.bitmap.BitmapBuilder;
+import org.krysalis.barcode4j.output.bitmap.BitmapCanvasProvider;
+import org.krysalis.barcode4j.output.bitmap.BitmapEncoder;
+import org.krysalis.barcode4j.output.bitmap.BitmapEncoderRegistry;
+import org.krysalis.barcode4j.output.bitmap.ImageIOBitmapEncoder;
+import org.krysalis.barcode4j.output.bitmap.PNGBitmapEncoder;
+import org.krysalis.barcode4j.output.eps.EPSCanvasProvider;
+import org.krysalis.barcode4j.output.java2d.Java2DCanvasProvider;
+import org.krysalis.barcode4j.output.svg.SVGCanvasProvider;
+import org.krysalis.barcode4j.output.svg.StreamingSVGCanvasProvider;
+import org.krysalis.barcode4j.tools.MimeTypes;
+
+/**
+ * The CanvasProvider implementations that are measured by the benchmarks. Each constant renders a
+ * barcode the same way the CLI, servlet and Ant task do, minus the final encoding to a file format.
+ *
+ * @since 2.4.1
+ */
+public enum OutputFormat {
+
+    /** DOM based SVG output using {@link SVGCanvasProvider} */
+    SVG {
+        @Override
+        Object render(BarcodeGenerator gen, String msg, BarcodeDimension dim, BufferedImage target)
+                throws BarcodeCanvasSetupException {
+            final SVGCanvasProvider svg = new SVGCanvasProvider(false, ORIENTATION);
+            gen.generateBarcode(svg, msg);
+            return svg.getDOM();
+        }
+    },
+
+    /** SVG markup written by {@link StreamingSVGCanvasProvider}, one rect element per bar */
+    SVG_STREAMING {
+        @Override
+        Object render(BarcodeGenerator gen, String msg, BarcodeDimension dim, BufferedImage target)
+                throws IOException, BarcodeException {
+            return renderStreamingSVG(gen, msg, false);
+        }
+    },
+
+    /** SVG markup written by {@link StreamingSVGCanvasProvider} in compact mode (a single path) */
+    SVG_COMPACT {
+        @Override
+        Object render(BarcodeGenerator gen, String msg, BarcodeDimension dim, BufferedImage target)
+                throws IOException, BarcodeException {
+            return renderStreamingSVG(gen, msg, true);
+        }
+    },
+
+    /** Encapsulated PostScript using {@link EPSCanvasProvider} */
+    EPS {
+        @Override
+        Object render(BarcodeGenerator gen, String msg, BarcodeDimension dim, BufferedImage target) throws IOException {
+            final EPSCanvasProvider eps = new EPSCanvasProvider(OutputStream.nullOutputStream(), ORIENTATION);
+            gen.generateBarcode(eps, msg);
+            eps.finish();
+            return eps;
+        }
+    },
+
+    /** 1-bit bitmap using {@link BitmapCanvasProvider} without anti-aliasing */
+    BITMAP_BINARY {
+        @Override
+        Object render(BarcodeGenerator gen, String msg, BarcodeDimension dim, BufferedImage target) throws IOException {
+            return renderBitmap(gen, msg, BufferedImage.TYPE_BYTE_BINARY, false);
+        }
+    },
+
+    /** 8-bit grayscale bitmap using {@link BitmapCanvasProvider} with anti-aliasing */
+    BITMAP_GRAY {
+        @Override
+        Object render(BarcodeGenerator gen, String msg, BarcodeDimension dim, BufferedImage target) throws IOException {
+            return renderBitmap(gen, msg, BufferedImage.TYPE_BYTE_GRAY, true);
+        }
+    },
+
+    /** 8-bit grayscale bitmap using {@link BitmapCanvasProvider} without anti-aliasing */
+    BITMAP_GRAY_ALIASED {
+        @Override
+        Object render(BarcodeGenerator gen, String msg, BarcodeDimension dim, BufferedImage target) throws IOException {
+            return renderBitmap(gen, msg, BufferedImage.TYPE_BYTE_GRAY, false);
+        }
+    },
+
+    /** 1-bit PNG, encoded by the BitmapEncoder registered for PNG ({@link PNGBitmapEncoder}) */
+    PNG {
+        @Override
+        Object render(BarcodeGenerator gen, String msg, BarcodeDimension dim, BufferedImage target) throws IOException {
+            return encodePNG(gen, msg, BitmapEncoderRegistry.getInstance(MimeTypes.MIME_PNG));
+        }
+    },
+
+    /** 1-bit PNG, encoded by {@link ImageIOBitmapEncoder} for comparison */
+    PNG_IMAGEIO {
+        @Override
+        Object render(BarcodeGenerator gen, String msg, BarcodeDimension dim, BufferedImage target) throws IOException {
+            return encodePNG(gen, msg, IMAGEIO_ENCODER);
+        }
+    },
+
+    /** {@link Java2DCanvasProvider} painting on a pre-allocated image */
+    JAVA2D {
+        @Override
+        Object render(BarcodeGenerator gen, String msg, BarcodeDimension dim, BufferedImage target) {
+            final Graphics2D g2d = BitmapBuilder.prepareGraphics2D(target, dim, ORIENTATION, true);
+            try {
+                gen.generateBarcode(new Java2DCanvasProvider(g2d, ORIENTATION), msg);
+            } finally {
+                g2d.dispose();
+            }
+            return target;
+        }
+
+        @Override
+        BufferedImage prepareTarget(BarcodeDimension dim) {
+            return BitmapBuilder.prepareImage(dim, ORIENTATION, RESOLUTION, BufferedImage.TYPE_BYTE_GRAY);
+        }
+    };
+
+    /** The resolution used for all bitmap based formats (dpi) */
+    static final int RESOLUTION = 300;
+
+    private static final int ORIENTATION = 0;
+
+    private static final BitmapEncoder IMAGEIO_ENCODER = new ImageIOBitmapEncoder();
+
+    private static Object renderStreamingSVG(BarcodeGenerator gen, String msg, boolean compact)
+            throws IOException, BarcodeException {
+        final StreamingSVGCanvasProvider svg = new StreamingSVGCanvasProvider(OutputStream.nullOutputStream(), ORIENTATION);
+        svg.setCompact(compact);
+        gen.generateBarcode(svg, msg);
+        svg.finish();
+        return svg;
+    }
+
+    private static Object renderBitmap(BarcodeGenerator gen, String msg, int imageType, boolean antiAlias) throws IOException {
+        final BitmapCanvasProvider bitmap = new BitmapCanvasProvider(RESOLUTION, imageType, antiAlias, ORIENTATION);
+        gen.generateBarcode(bitmap, msg);
+        bitmap.finish();
+        return bitmap.getBufferedImage();
+    }
+
+    private static Object encodePNG(BarcodeGenerator gen, String msg, BitmapEncoder encoder) throws IOException {
+        final BufferedImage image = (BufferedImage) renderBitmap(gen, msg, BufferedImage.TYPE_BYTE_BINARY, false);
+        encoder.encode(image, OutputStream.nullOutputStream(), MimeTypes.MIME_PNG, RESOLUTION);
+        return image;
+    }
+
+    /**
+     * Renders a barcode.
+     * @param gen the configured barcode generator
+     * @param msg the message to encode
+     * @param dim the barcode dimensions, calculated once per trial
+     * @param target the image prepared by {@link #prepareTarget(BarcodeDimension)} (may be null)
+     * @return the rendering result (to be consumed by a Blackhole)
+     * @throws IOException if the canvas provider reports an I/O problem
+     * @throws BarcodeException if the canvas provider cannot be set up
+     */
+    abstract Object render(@NotNull BarcodeGenerator gen, @NotNull String msg, BarcodeDimension dim, BufferedImage target)
+            throws IOException, BarcodeException;
+
+    /**
+     * Prepares a rendering target that is reused across invocations. Only needed by output
+     * formats which paint on a caller supplied surface.
+     * @param dim the barcode dimensions
+     * @return the target image or null if not needed
+     */
+    BufferedImage prepareTarget(@NotNull BarcodeDimension dim) {
+        return null;
+    }
+
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.krysalis.barcode4j.impl.pdf417.PDF417ErrorCorrection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the error correction of a PDF417 symbol with the maximum of 929 data codewords at
+ * error correction level 8 (512 error correction codewords), once through the <code>String</code>
+ * API and once through the <code>int[]</code> API used by the PDF417 implementation.
+ *
+ * @since 2.4.1
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PDF417ErrorCorrectionBenchmark {
+
+    /**
+     * Holds the data codewords of the symbol.
+     */
+    @State(Scope.Benchmark)
+    public static class SymbolState {
+
+        private static final int ERROR_CORRECTION_LEVEL = 8;
+
+        private int[] dataCodewords;
+        private int[] codewords;
+        private String codewordString;
+
+        /** Creates random data codewords for the largest symbol. */
+        @Setup(Level.Trial)
+        public void setUpCodewords() {
+            final Random rnd = new Random(929);
+            this.dataCodewords = new int[929];
+            final char[] chars = new char[dataCodewords.length];
+            for (int i = 0; i < dataCodewords.length; i++) {
+                dataCodewords[i] = rnd.nextInt(929);
+                chars[i] = (char)dataCodewords[i];
+            }
+            this.codewordString = String.valueOf(chars);
+            this.codewords = new int[dataCodewords.length
+                    + PDF417ErrorCorrection.getErrorCorrectionCodewordCount(ERROR_CORRECTION_LEVEL)];
+        }
+    }
+
+    /**
+     * Creates the error correction from a <code>String</code>.
+     * @param state the symbol
+     * @return the error correction codewords
+     */
+    @Benchmark
+    public String encodeString(SymbolState state) {
+        return PDF417ErrorCorrection.generateErrorCorrection(state.codewordString,
+                SymbolState.ERROR_CORRECTION_LEVEL);
+    }
+
+    /**
+     * Creates the error correction from an <code>int[]</code>.
+     * @param state the symbol
+     * @return the data and error correction codewords
+     */
+    @Benchmark
+    public int[] encodeCodewords(SymbolState state) {
+        System.arraycopy(state.dataCodewords, 0, state.codewords, 0, state.dataCodewords.length);
+        PDF417ErrorCorrection.generateErrorCorrection(state.codewords, state.dataCodewords.length,
+                SymbolState.ERROR_CORRECTION_LEVEL);
+        return state.codewords;
+    }
+
+}
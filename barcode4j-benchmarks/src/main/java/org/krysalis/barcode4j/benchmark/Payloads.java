@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Sample messages for every symbology registered in
+ * {@link org.krysalis.barcode4j.DefaultBarcodeClassResolver}.
+ * <p>
+ * Each symbology has three messages: a small one, a typical one and one close to the capacity
+ * limit of the symbology when using its default configuration. Symbologies with a fixed message
+ * length (EAN, UPC, ITF-14...) use the same message for all three sizes.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+public final class Payloads {
+
+    /** The payload sizes that are measured. */
+    public enum Size {
+        /** a short message */
+        SMALL,
+        /** a message of a length commonly seen on labels */
+        TYPICAL,
+        /** a message close to the capacity of the default configuration */
+        CAPACITY
+    }
+
+    private static final Map<String, String[]> PAYLOADS = new HashMap<>();
+
+    static {
+        add("codabar", "0123", "0123456789", repeat("0123456789-$:/.+", 64));
+        add("code39", "AB12", "CODE39 TEST 12345", repeat("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ", 64));
+        add("code128", "Ab12", "Hello World! 0123456789", repeat("Hello World! 0123456789", 12));
+        // EAN-128 messages are given without parentheses, the variable length AI comes last
+        add("ean-128", "00123456789012345675", "0112345678901231" + "10ABC123",
+            "0112345678901231" + "3103000189" + "10ABCDEFGHIJKLMNOPQRST");
+        add("intl2of5", "1234", "0123456789012345", repeat("0123456789", 26));
+        add("itf-14", "0123456789012");
+        add("ean-13", "781248714120");
+        add("ean-8", "1234567");
+        add("upc-a", "04210000526");
+        add("upc-e", "0425261");
+        add("postnet", "01234", "012345678", "01234567890");
+        add("royal-mail-cbc", "SN1", "SN34RD1A", "SN34RD1AB1234");
+        add("usps4cb", "01234567094987654321", "0123456709498765432101234", "01234567094987654321012345678");
+        add("pdf417", "PDF417", "Barcode4J PDF417 sample message 0123456789",
+            repeat("ABCDEFGHIJKLMNOPQRSTUVWXYZ ", 12));
+        add("datamatrix", "DM", "Barcode4J DataMatrix sample message 0123456789", repeat("0123456789", 311));
+        add("qr", "QR", "https://github.com/singingbush/barcode4j",
+            repeat("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:", 95));
+        add("aztec", "Aztec", "Hello Aztec Barcodes! 0123456789", repeat("0123456789", 250));
+    }
+
+    private Payloads() {
+    }
+
+    private static void add(String symbology, String small, String typical, String capacity) {
+        PAYLOADS.put(symbology, new String[] {small, typical, capacity});
+    }
+
+    private static void add(String symbology, String fixedLength) {
+        add(symbology, fixedLength, fixedLength, fixedLength);
+    }
+
+    private static String repeat(String pattern, int length) {
+        final StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(pattern.charAt(sb.length() % pattern.length()));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the sample message for a symbology.
+     * @param symbology the symbology (one of the main IDs of DefaultBarcodeClassResolver)
+     * @param size the desired payload size
+     * @return the message
+     * @throws IllegalArgumentException if there's no payload for the given symbology
+     */
+    @NotNull
+    public static String get(@NotNull String symbology, @NotNull Size size) {
+        final String[] payloads = PAYLOADS.get(symbology.toLowerCase());
+        if (payloads == null) {
+            throw new IllegalArgumentException("No benchmark payload defined for: " + symbology);
+        }
+        return payloads[size.ordinal()];
+    }
+
+}
@@ -6,6 +6,7 @@ module barcode4j.cli {
 
     requires java.desktop;
     requires java.xml;
+    requires jdk.management;
 
     requires barcode4j;
 
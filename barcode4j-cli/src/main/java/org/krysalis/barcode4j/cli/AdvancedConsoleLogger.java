@@ -91,4 +91,8 @@ public class AdvancedConsoleLogger {
         logMessage(msg, null, LEVEL_INFO);
     }
 
+    public void error(String msg) {
+        logMessage(msg, null, LEVEL_ERROR);
+    }
+
 }
@@ -0,0 +1,382 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.cli;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.regex.Pattern;
+import java.util.zip.ZipOutputStream;
+
+import org.krysalis.barcode4j.BarcodeException;
+import org.krysalis.barcode4j.BarcodeGenerator;
+import org.krysalis.barcode4j.BarcodeUtil;
+import org.krysalis.barcode4j.configuration.Configuration;
+import org.krysalis.barcode4j.configuration.ConfigurationException;
+import org.krysalis.barcode4j.output.RenderLimits;
+import org.krysalis.barcode4j.tools.IOUtil;
+import org.krysalis.barcode4j.tools.MimeTypes;
+import org.krysalis.barcode4j.tools.ThreadUtil;
+
+/**
+ * Generates barcodes for the batch mode of the command line application. Every line of the
+ * input is a CSV record: the message, optionally followed by the name of the output file
+ * (without extension, default: "barcode-" and the line number) and by "key=value" fields which
+ * override the command line settings for that barcode: "symbol", "format", "dpi" and "bw".
+ * Empty lines and lines starting with "#" are skipped.
+ * <p>
+ * The input is processed as it is read. Barcodes are generated in parallel, sharing one
+ * generator per symbology, and written to the output in input order, so only a few of them are
+ * held in memory at a time. Barcodes that cannot be generated are reported and skipped.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+final class BatchRunner {
+
+    /** The number of barcodes between two progress messages */
+    private static final int PROGRESS_INTERVAL = 10000;
+
+    /** Valid output names: no path separators, and they must not start with a dot */
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z0-9_][A-Za-z0-9._-]{0,127}");
+
+    private final Configuration cfg;
+    private final String formatName;
+    private final int dpi;
+    private final boolean bw;
+    private final RenderLimits limits;
+    private final AdvancedConsoleLogger log;
+    /** Generators by symbology ("" for the configuration given on the command line) */
+    private final Map<String, BarcodeGenerator> generators = new HashMap<>();
+    private final Set<String> names = new HashSet<>();
+
+    private int count;
+    private int failed;
+    private long bytes;
+
+    /**
+     * Creates a batch runner.
+     * @param cfg the barcode configuration given on the command line
+     * @param formatName the default output format: MIME type or short format name
+     * @param dpi the default resolution of bitmaps
+     * @param bw true for monochrome bitmaps by default, false for grayscale
+     * @param limits the render limits every barcode is checked against
+     * @param log receives progress and error messages
+     */
+    BatchRunner(Configuration cfg, String formatName, int dpi, boolean bw, RenderLimits limits,
+                AdvancedConsoleLogger log) {
+        this.cfg = cfg;
+        this.formatName = formatName;
+        this.dpi = dpi;
+        this.bw = bw;
+        this.limits = limits;
+        this.log = log;
+    }
+
+    /**
+     * Creates the executor generating the barcodes.
+     * @param threads the number of threads, or "virtual" for one virtual thread per barcode
+     *      (falls back to a thread per processor before Java 21)
+     * @return the executor
+     * @throws IllegalArgumentException if the number of threads is invalid
+     */
+    static ExecutorService createExecutor(String threads) {
+        if ("virtual".equalsIgnoreCase(threads)) {
+            final ExecutorService virtualThreads = ThreadUtil.newVirtualThreadPerTaskExecutor();
+            return virtualThreads != null ? virtualThreads : new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        final int parallelism = Integer.parseInt(threads);
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive: " + threads);
+        }
+        return new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Opens the output of a batch.
+     * @param target a ZIP file (if the name ends with ".zip") or a directory, which is created
+     *      if necessary
+     * @return the output
+     * @throws IOException if the output cannot be opened
+     */
+    static Output openOutput(File target) throws IOException {
+        if (target.getName().toLowerCase(Locale.ROOT).endsWith(".zip")) {
+            return new ZipOutput(target.toPath());
+        }
+        return new DirectoryOutput(target.toPath());
+    }
+
+    /**
+     * Generates a barcode for every record read.
+     * @param in the CSV records
+     * @param output receives the barcodes
+     * @param executor generates the barcodes
+     * @param window the maximum number of barcodes generated ahead of the one being written
+     * @return the number of barcodes that could not be generated
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    int run(BufferedReader in, Output output, Executor executor, int window) throws IOException {
+        final long start = System.nanoTime();
+        final ArrayDeque<Row> pending = new ArrayDeque<>(window);
+        try {
+            int lineNo = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (pending.size() >= window) {
+                    finish(pending.poll(), output);
+                }
+                pending.add(submit(lineNo, line, executor));
+            }
+            while (!pending.isEmpty()) {
+                finish(pending.poll(), output);
+            }
+        } finally {
+            for (final Row row : pending) {
+                row.task.cancel(false);
+            }
+        }
+
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        log.info(String.format(Locale.ROOT, "%d barcodes generated (%d failed, %d bytes) in %.2f s: %.0f barcodes/s",
+            count, failed, bytes, seconds, count / Math.max(seconds, 1e-3)));
+        return failed;
+    }
+
+    private Row submit(int lineNo, String line, Executor executor) {
+        String name = "barcode-" + lineNo;
+        Callable<byte[]> job;
+        try {
+            final List<String> fields = parseRecord(line);
+            final String msg = fields.get(0);
+            if (fields.size() > 1 && !fields.get(1).isEmpty()) {
+                name = fields.get(1);
+                if (!NAME_PATTERN.matcher(name).matches()) {
+                    throw new IllegalArgumentException("Invalid output name: " + name);
+                }
+            }
+            String symbol = "";
+            String rowFormat = formatName;
+            int rowDpi = dpi;
+            boolean rowBw = bw;
+            for (int i = 2; i < fields.size(); i++) {
+                final String field = fields.get(i);
+                final int eq = field.indexOf('=');
+                final String key = eq > 0 ? field.substring(0, eq).trim() : field;
+                final String value = eq > 0 ? field.substring(eq + 1).trim() : "";
+                switch (key) {
+                    case "symbol":
+                        symbol = value;
+                        break;
+                    case "format":
+                        rowFormat = value;
+                        break;
+                    case "dpi":
+                        rowDpi = Integer.parseInt(value);
+                        break;
+                    case "bw":
+                        rowBw = Boolean.parseBoolean(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown setting: " + field);
+                }
+            }
+            name = name + '.' + MimeTypes.getFileExtension(rowFormat);
+            if (!names.add(name)) {
+                throw new IllegalArgumentException("Duplicate output name: " + name);
+            }
+
+            final BarcodeGenerator gen = getGenerator(symbol);
+            final String format = rowFormat;
+            final int resolution = rowDpi;
+            final boolean monochrome = rowBw;
+            job = () -> {
+                final ByteArrayOutputStream bout = new ByteArrayOutputStream(4096);
+                Main.writeBarcode(gen, msg, format, resolution, monochrome, limits, bout);
+                return bout.toByteArray();
+            };
+        } catch (final IllegalArgumentException | ConfigurationException | BarcodeException e) {
+            //reported when the row is written, so errors appear in input order
+            job = () -> {
+                throw e;
+            };
+        }
+
+        final FutureTask<byte[]> task = new FutureTask<>(job);
+        try {
+            executor.execute(task);
+        } catch (final RejectedExecutionException e) {
+            task.run();
+        }
+        return new Row(lineNo, name, task);
+    }
+
+    private BarcodeGenerator getGenerator(String symbol) throws ConfigurationException, BarcodeException {
+        BarcodeGenerator gen = generators.get(symbol);
+        if (gen == null) {
+            gen = BarcodeUtil.getInstance().getSharedGenerator(
+                symbol.isEmpty() ? cfg : Main.getConfiguration(symbol));
+            generators.put(symbol, gen);
+        }
+        return gen;
+    }
+
+    private void finish(Row row, Output output) throws IOException {
+        final byte[] data;
+        try {
+            data = row.task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating the barcode in line " + row.line);
+        } catch (final ExecutionException e) {
+            failed++;
+            final Throwable cause = e.getCause();
+            log.error("Line " + row.line + ": " + (cause.getMessage() != null ? cause.getMessage() : cause));
+            return;
+        }
+        output.write(row.name, data);
+        count++;
+        bytes += data.length;
+        if (count % PROGRESS_INTERVAL == 0) {
+            log.info(count + " barcodes generated...");
+        }
+    }
+
+    /**
+     * Splits a CSV record into its fields. Fields may be enclosed in double quotes (which are
+     * escaped by doubling them), so they can contain commas.
+     * @param line the record
+     * @return the fields
+     * @throws IllegalArgumentException if a quoted field isn't terminated
+     */
+    static List<String> parseRecord(String line) {
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /** Receives the barcodes of a batch. */
+    interface Output extends Closeable {
+
+        /**
+         * Writes a barcode.
+         * @param name the file name
+         * @param data the barcode
+         * @throws IOException if an I/O error occurs
+         */
+        void write(String name, byte[] data) throws IOException;
+    }
+
+    /** Writes the barcodes into a directory. */
+    private static final class DirectoryOutput implements Output {
+
+        private final Path dir;
+
+        private DirectoryOutput(Path dir) throws IOException {
+            this.dir = Files.createDirectories(dir);
+        }
+
+        @Override
+        public void write(String name, byte[] data) throws IOException {
+            Files.write(dir.resolve(name), data);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /** Writes the barcodes into a ZIP file. */
+    private static final class ZipOutput implements Output {
+
+        private final ZipOutputStream zip;
+
+        private ZipOutput(Path file) throws IOException {
+            this.zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 65536));
+        }
+
+        @Override
+        public void write(String name, byte[] data) throws IOException {
+            IOUtil.writeZipEntry(zip, name, name.substring(name.lastIndexOf('.') + 1), data);
+        }
+
+        @Override
+        public void close() throws IOException {
+            zip.close();
+        }
+    }
+
+    /** A record and its barcode. */
+    private static final class Row {
+
+        private final int line;
+        private final String name;
+        private final FutureTask<byte[]> task;
+
+        private Row(int line, String name, FutureTask<byte[]> task) {
+            this.line = line;
+            this.name = name;
+            this.task = task;
+        }
+    }
+}
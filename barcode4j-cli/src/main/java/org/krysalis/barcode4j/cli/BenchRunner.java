@@ -0,0 +1,308 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.cli;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.krysalis.barcode4j.BarcodeGenerator;
+import org.krysalis.barcode4j.output.BarcodeCanvasSetupException;
+import org.krysalis.barcode4j.output.RenderLimits;
+
+/**
+ * Measures the render throughput of the command line application's settings (symbology,
+ * format, resolution) for the benchmark mode. Worker threads generate barcodes for random
+ * messages of a fixed length and discard the output. After a warm-up phase, which gives the
+ * JIT compiler time to optimize the code, the barcodes of the measurement phase are counted,
+ * along with their latencies and the bytes allocated for them (where the JVM can tell).
+ *
+ * @since 2.4.1
+ */
+final class BenchRunner {
+
+    /** The kinds of random messages */
+    enum Payload {
+        /** digits */
+        NUMERIC("0123456789"),
+        /** digits and upper case letters */
+        ALPHANUMERIC("0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ"),
+        /** all byte values (ISO-8859-1 characters) */
+        BINARY(null);
+
+        private final String alphabet;
+
+        Payload(String alphabet) {
+            this.alphabet = alphabet;
+        }
+
+        /**
+         * Creates a random message.
+         * @param length the number of characters
+         * @param random the source of randomness
+         * @return the message
+         */
+        String createMessage(int length, Random random) {
+            final char[] msg = new char[length];
+            for (int i = 0; i < length; i++) {
+                msg[i] = alphabet != null ? alphabet.charAt(random.nextInt(alphabet.length())) : (char) random.nextInt(256);
+            }
+            return new String(msg);
+        }
+    }
+
+    /** The number of different messages generated per worker */
+    private static final int MESSAGES_PER_WORKER = 1024;
+
+    private final BarcodeGenerator gen;
+    private final String formatName;
+    private final int dpi;
+    private final boolean bw;
+    private final Payload payload;
+    private final int length;
+
+    /**
+     * Creates a benchmark.
+     * @param gen the barcode generator
+     * @param formatName the output format: MIME type or short format name
+     * @param dpi the resolution of bitmaps
+     * @param bw true for monochrome bitmaps, false for grayscale
+     * @param payload the kind of messages
+     * @param length the length of the messages
+     */
+    BenchRunner(BarcodeGenerator gen, String formatName, int dpi, boolean bw, Payload payload, int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("The message length must be positive: " + length);
+        }
+        this.gen = gen;
+        this.formatName = formatName;
+        this.dpi = dpi;
+        this.bw = bw;
+        this.payload = payload;
+        this.length = length;
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param executor runs the workers
+     * @param workers the number of workers generating barcodes at the same time
+     * @param warmupNanos the duration of the warm-up phase
+     * @param measureNanos the duration of the measurement phase
+     * @return the measurements
+     * @throws IOException if a barcode cannot be generated
+     * @throws InterruptedException if the thread is interrupted while waiting for the workers
+     */
+    Result run(ExecutorService executor, int workers, long warmupNanos, long measureNanos)
+            throws IOException, InterruptedException {
+        final long start = System.nanoTime();
+        final long measureStart = start + warmupNanos;
+        final long end = measureStart + measureNanos;
+        final List<Future<Worker>> futures = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            final Worker worker = new Worker(i);
+            futures.add(executor.submit(() -> worker.run(measureStart, end)));
+        }
+        final Result result = new Result(warmupNanos);
+        try {
+            for (final Future<Worker> future : futures) {
+                result.add(future.get());
+            }
+        } catch (ExecutionException ee) {
+            for (final Future<Worker> future : futures) {
+                future.cancel(true);
+            }
+            final Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Error generating the barcode: " + cause, cause);
+        }
+        //includes the barcodes still being generated at the end of the measurement phase
+        result.elapsedNanos = System.nanoTime() - measureStart;
+        Arrays.sort(result.latencies);
+        return result;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far.
+     * @return the number of bytes, or -1 if the JVM doesn't measure allocations (or not for this
+     *      thread)
+     */
+    private static long getAllocatedBytes() {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threads;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /** Generates barcodes on one thread and records its measurements */
+    private final class Worker {
+
+        private final String[] messages = new String[MESSAGES_PER_WORKER];
+        private long[] latencies = new long[1024];
+        private int count;
+        private long allocatedBytes;
+        private long outputBytes;
+
+        Worker(int index) {
+            final Random random = new Random(index);
+            for (int i = 0; i < messages.length; i++) {
+                messages[i] = payload.createMessage(length, random);
+            }
+        }
+
+        Worker run(long measureStart, long end) throws IOException, BarcodeCanvasSetupException {
+            final CountingOutputStream out = new CountingOutputStream();
+            long allocatedStart = -1;
+            for (int i = 0; ; i++) {
+                final long before = System.nanoTime();
+                if (before - end >= 0 || Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+                final boolean measuring = before - measureStart >= 0;
+                if (measuring && count == 0) {
+                    allocatedStart = getAllocatedBytes();
+                }
+                out.count = 0;
+                Main.writeBarcode(gen, messages[i % messages.length], formatName, dpi, bw, RenderLimits.UNLIMITED, out);
+                if (measuring) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, 2 * count);
+                    }
+                    latencies[count++] = System.nanoTime() - before;
+                    outputBytes += out.count;
+                }
+            }
+            final long allocatedEnd = allocatedStart < 0 ? -1 : getAllocatedBytes();
+            allocatedBytes = allocatedEnd < 0 ? -1 : allocatedEnd - allocatedStart;
+            return this;
+        }
+    }
+
+    /** The measurements of a benchmark */
+    static final class Result {
+
+        private final long warmupNanos;
+        private long elapsedNanos;
+        private long[] latencies = new long[0];
+        private long allocatedBytes;
+        private long outputBytes;
+
+        private Result(long warmupNanos) {
+            this.warmupNanos = warmupNanos;
+        }
+
+        private void add(Worker worker) {
+            final int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            if (worker.count > 0) {
+                allocatedBytes = allocatedBytes < 0 || worker.allocatedBytes < 0 ? -1 : allocatedBytes + worker.allocatedBytes;
+            }
+            outputBytes += worker.outputBytes;
+        }
+
+        /**
+         * Returns the number of barcodes generated in the measurement phase.
+         * @return the number of barcodes
+         */
+        int getCount() {
+            return latencies.length;
+        }
+
+        /**
+         * Returns the number of barcodes generated per second in the measurement phase.
+         * @return the throughput
+         */
+        double getThroughput() {
+            return elapsedNanos > 0 ? latencies.length * 1e9 / elapsedNanos : 0;
+        }
+
+        /**
+         * Returns a percentile of the latencies.
+         * @param percentile the percentile (0 to 100)
+         * @return the latency in nanoseconds, 0 if no barcodes were measured
+         */
+        long getLatency(double percentile) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            final int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))];
+        }
+
+        /**
+         * Returns the average number of bytes allocated per barcode.
+         * @return the number of bytes, or -1 if allocations could not be measured
+         */
+        long getAllocatedBytesPerBarcode() {
+            return allocatedBytes < 0 || latencies.length == 0 ? -1 : allocatedBytes / latencies.length;
+        }
+
+        /**
+         * Returns the average size of a barcode.
+         * @return the number of bytes
+         */
+        long getOutputBytesPerBarcode() {
+            return latencies.length == 0 ? 0 : outputBytes / latencies.length;
+        }
+
+        /**
+         * Returns a report of the measurements.
+         * @return the report lines
+         */
+        String[] report() {
+            return new String[] {
+                String.format(Locale.ROOT, "%d barcodes in %.2f s (after %.2f s warm-up): %.1f barcodes/s",
+                    getCount(), elapsedNanos / 1e9, warmupNanos / 1e9, getThroughput()),
+                String.format(Locale.ROOT, "Latency: p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                    getLatency(50) / 1e6, getLatency(99) / 1e6, getLatency(100) / 1e6),
+                "Allocated per barcode: " + (getAllocatedBytesPerBarcode() < 0
+                    ? "n/a" : getAllocatedBytesPerBarcode() + " bytes")
+                    + ", output per barcode: " + getOutputBytesPerBarcode() + " bytes"
+            };
+        }
+    }
+
+    /** Discards the output of the barcodes, counting its bytes */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
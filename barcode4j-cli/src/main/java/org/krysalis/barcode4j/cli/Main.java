@@ -16,21 +16,27 @@
 package org.krysalis.barcode4j.cli;
 
 import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Locale;
 import java.util.Set;
-
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -45,10 +51,15 @@ import org.apache.commons.cli.ParseException;
 import org.krysalis.barcode4j.BarcodeException;
 import org.krysalis.barcode4j.BarcodeGenerator;
 import org.krysalis.barcode4j.BarcodeUtil;
+import org.krysalis.barcode4j.output.BarcodeCanvasSetupException;
+import org.krysalis.barcode4j.output.CanvasProvider;
+import org.krysalis.barcode4j.output.LabelSheet;
+import org.krysalis.barcode4j.output.RenderLimitExceededException;
+import org.krysalis.barcode4j.output.RenderLimits;
 import org.krysalis.barcode4j.output.bitmap.BitmapCanvasProvider;
 import org.krysalis.barcode4j.output.bitmap.BitmapEncoderRegistry;
 import org.krysalis.barcode4j.output.eps.EPSCanvasProvider;
-import org.krysalis.barcode4j.output.svg.SVGCanvasProvider;
+import org.krysalis.barcode4j.output.svg.StreamingSVGCanvasProvider;
 import org.krysalis.barcode4j.tools.MimeTypes;
 
 import org.krysalis.barcode4j.configuration.Configuration;
@@ -66,6 +77,9 @@ public class Main {
 
     private AdvancedConsoleLogger log;
 
+    /** A size on the command line, e.g. the grid and page size of label sheets: 3x8, 210x297 */
+    private static final Pattern SIZE_PATTERN = Pattern.compile("(\\d+(?:\\.\\d+)?)[xX](\\d+(?:\\.\\d+)?)");
+
     private static final String[] APP_HEADER = {
         "Barcode4J command-line application, Version " + getVersion(),
         ""};
@@ -74,6 +88,8 @@ public class Main {
     public static PrintStream stdout = System.out;
     /** stderr for this application (default: System.err) */
     public static PrintStream stderr = System.err;
+    /** stdin for this application, read by the batch mode (default: System.in) */
+    public static InputStream stdin = System.in;
 
     private static ExitHandler exitHandler = new DefaultExitHandler();
     private Options options;
@@ -109,18 +125,44 @@ public class Main {
     public void handleCommandLine(String[] args) {
         CommandLine cl;
         String[] msg;
+        RenderLimits limits;
+        LabelSheet sheet = null;
         try {
             final CommandLineParser clp = new DefaultParser();
             cl = clp.parse(getOptions(), args);
 
             //Message
             msg = cl.getArgs();
-            if (msg.length == 0) {
+            if (cl.hasOption("bench")) {
+                if (msg.length > 0 || cl.hasOption("o")) {
+                    throw new ParseException("No message or output file may be given for a benchmark");
+                }
+                if (cl.hasOption("batch") || cl.hasOption("sheet")) {
+                    throw new ParseException("--bench cannot be combined with --batch or --sheet");
+                }
+            } else if (cl.hasOption("sheet")) {
+                sheet = getLabelSheet(cl);
+                if (cl.hasOption("batch") && msg.length > 0) {
+                    throw new ParseException("No message may be given with --batch");
+                } else if (!cl.hasOption("batch") && msg.length == 0) {
+                    throw new ParseException("No message");
+                }
+                if (!cl.hasOption("o")) {
+                    throw new ParseException("Label sheets require an output file (-o)");
+                }
+            } else if (cl.hasOption("batch")) {
+                if (msg.length > 0) {
+                    throw new ParseException("No message may be given in batch mode");
+                }
+                if (!cl.hasOption("o")) {
+                    throw new ParseException("Batch mode requires an output directory or ZIP file (-o)");
+                }
+            } else if (msg.length == 0) {
                 throw new ParseException("No message");
-            }
-            if (msg.length > 1) {
+            } else if (msg.length > 1) {
                 throw new ParseException("Too many parameters: " + msg.length);
             }
+            limits = getRenderLimits(cl);
         } catch (MissingOptionException moe) {
             printHelp(new PrintWriter(stdout));
             exitHandler.failureExit(this, "Bad command line. Missing option: " + moe.getMessage(), null, -2);
@@ -132,6 +174,27 @@ public class Main {
             return; //never reached
         }
         try {
+            if (cl.hasOption("bench")) {
+                log = new AdvancedConsoleLogger(AdvancedConsoleLogger.LEVEL_INFO, false, stdout, stderr);
+                printAppHeader();
+                runBench(cl);
+                return;
+            }
+            if (sheet != null) {
+                int logLevel = cl.hasOption('v') ? AdvancedConsoleLogger.LEVEL_DEBUG : AdvancedConsoleLogger.LEVEL_INFO;
+                log = new AdvancedConsoleLogger(logLevel, false, stdout, stderr);
+                printAppHeader();
+                runSheet(cl, sheet, msg, limits);
+                return;
+            }
+            if (cl.hasOption("batch")) {
+                int logLevel = cl.hasOption('v') ? AdvancedConsoleLogger.LEVEL_DEBUG : AdvancedConsoleLogger.LEVEL_INFO;
+                log = new AdvancedConsoleLogger(logLevel, false, stdout, stderr);
+                printAppHeader();
+                runBatch(cl, limits);
+                return;
+            }
+
             OutputStream out;
 
             if (!cl.hasOption("o")) {
@@ -153,47 +216,20 @@ public class Main {
             log.debug("Message: " + msg[0]);
 
             //Output format
-            final String format = MimeTypes.expandFormat(cl.getOptionValue("f", MimeTypes.MIME_SVG));
+            final String formatName = cl.getOptionValue("f", MimeTypes.MIME_SVG);
+            final String format = MimeTypes.expandFormat(formatName);
 
-            int orientation = 0;
             log.info("Generating " + format + "...");
 
             final BarcodeUtil util = BarcodeUtil.getInstance();
-            final BarcodeGenerator gen = util.createBarcodeGenerator(getConfiguration(cl));
-
-            if (MimeTypes.MIME_SVG.equals(format)) {
-                //Create Barcode and render it to SVG
-                SVGCanvasProvider svg = new SVGCanvasProvider(false, orientation);
-                gen.generateBarcode(svg, msg[0]);
-
-                //Serialize SVG barcode
-                try {
-                    final TransformerFactory factory = TransformerFactory.newInstance();
-                    final Transformer trans = factory.newTransformer();
-                    final Source src = new javax.xml.transform.dom.DOMSource(svg.getDOMFragment());
-                    final Result res = new javax.xml.transform.stream.StreamResult(out);
-                    trans.transform(src, res);
-                } catch (TransformerException te) {
-                    exitHandler.failureExit(this, "XML/XSLT library error", te, -6);
-                }
-            } else if (MimeTypes.MIME_EPS.equals(format)) {
-                final EPSCanvasProvider eps = new EPSCanvasProvider(out, orientation);
-                gen.generateBarcode(eps, msg[0]);
-                eps.finish();
-            } else {
-                int dpi = Integer.parseInt(cl.getOptionValue('d', "300"));
+            final BarcodeGenerator gen = util.getSharedGenerator(getConfiguration(cl));
+
+            final int dpi = Integer.parseInt(cl.getOptionValue('d', "300"));
+            if (!isVectorFormat(format)) {
                 log.debug("Resolution: " + dpi + "dpi");
-                BitmapCanvasProvider bitmap;
-                if (cl.hasOption("bw")) {
-                    log.debug("Black/white image (1-bit)");
-                    bitmap = new BitmapCanvasProvider(out, format, dpi, BufferedImage.TYPE_BYTE_BINARY, false, orientation);
-                } else {
-                    log.debug("Grayscale image (8-bit) with anti-aliasing");
-                    bitmap = new BitmapCanvasProvider(out, format, dpi, BufferedImage.TYPE_BYTE_GRAY, true, orientation);
-                }
-                gen.generateBarcode(bitmap, msg[0]);
-                bitmap.finish();
+                log.debug(cl.hasOption("bw") ? "Black/white image (1-bit)" : "Grayscale image (8-bit) with anti-aliasing");
             }
+            writeBarcode(gen, msg[0], formatName, dpi, cl.hasOption("bw"), limits, out);
 
             out.close();
             log.info("done.");
@@ -204,7 +240,282 @@ public class Main {
             exitHandler.failureExit(this, "Configuration problem: " + ce.getMessage(), ce, -6);
         } catch (BarcodeException be) {
             exitHandler.failureExit(this, "Error generating the barcode", be, -3);
+        } catch (RenderLimitExceededException rle) {
+            exitHandler.failureExit(this, "Barcode exceeds the render limits: " + rle.getMessage(), null, -7);
+        } catch (IllegalArgumentException iae) {
+            //e.g. a message that cannot be encoded, or a barcode that doesn't fit into a label
+            exitHandler.failureExit(this, "Error generating the barcode: " + iae.getMessage(), null, -3);
+        }
+    }
+
+    private static boolean isVectorFormat(String format) {
+        return MimeTypes.MIME_SVG.equals(format) || MimeTypes.MIME_SVGZ.equals(format)
+            || MimeTypes.MIME_EPS.equals(format);
+    }
+
+    /**
+     * Generates a barcode.
+     * @param gen the barcode generator
+     * @param msg the message to encode
+     * @param formatName the output format: MIME type or short format name
+     * @param dpi the resolution of bitmaps
+     * @param bw true for monochrome bitmaps, false for grayscale
+     * @param limits the render limits
+     * @param out receives the barcode
+     * @throws IOException if an I/O error occurs
+     * @throws BarcodeCanvasSetupException if the output cannot be set up
+     */
+    static void writeBarcode(BarcodeGenerator gen, String msg, String formatName, int dpi, boolean bw,
+                             RenderLimits limits, OutputStream out) throws IOException, BarcodeCanvasSetupException {
+        //bitmaps are checked again by the canvas, once their dimensions are known
+        limits.checkMessage(msg);
+        writeOutput(formatName, dpi, bw, limits, out, canvas -> gen.generateBarcode(canvas, msg));
+    }
+
+    /**
+     * Paints a page of labels, one barcode per label, until the page is full or there are no more
+     * messages.
+     * @param gen the barcode generator
+     * @param sheet the layout of the labels
+     * @param messages the messages to encode
+     * @param formatName the output format: MIME type or short format name
+     * @param dpi the resolution of bitmaps
+     * @param bw true for monochrome bitmaps, false for grayscale
+     * @param limits the render limits
+     * @param out receives the page
+     * @return the number of barcodes on the page
+     * @throws IOException if an I/O error occurs
+     * @throws BarcodeCanvasSetupException if the output cannot be set up
+     */
+    static int writeSheet(BarcodeGenerator gen, LabelSheet sheet, Iterator<String> messages, String formatName,
+                          int dpi, boolean bw, RenderLimits limits, OutputStream out)
+            throws IOException, BarcodeCanvasSetupException {
+        final Iterator<String> checked = new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return messages.hasNext();
+            }
+
+            @Override
+            public String next() {
+                final String msg = messages.next();
+                limits.checkMessage(msg);
+                return msg;
+            }
+        };
+        final int[] count = new int[1];
+        //the page's resources are set up once, all barcodes are painted into cells of the page
+        writeOutput(formatName, dpi, bw, limits, out, page -> {
+            page.establishDimensions(sheet.getPageDimension());
+            count[0] = sheet.drawPage(page, gen, checked);
+        });
+        return count[0];
+    }
+
+    private static void writeOutput(String formatName, int dpi, boolean bw, RenderLimits limits,
+                                    OutputStream out, Consumer<CanvasProvider> painter)
+            throws IOException, BarcodeCanvasSetupException {
+        final String format = MimeTypes.expandFormat(formatName);
+        final int orientation = 0;
+
+        if (MimeTypes.MIME_SVG.equals(format) || MimeTypes.MIME_SVGZ.equals(format)) {
+            //Create Barcode and write it as SVG
+            final StreamingSVGCanvasProvider svg = new StreamingSVGCanvasProvider(
+                out, MimeTypes.MIME_SVGZ.equals(format), orientation);
+            svg.setCompact(MimeTypes.isCompactSVGFormat(formatName));
+            painter.accept(svg);
+            svg.finish();
+        } else if (MimeTypes.MIME_EPS.equals(format)) {
+            final EPSCanvasProvider eps = new EPSCanvasProvider(out, orientation);
+            painter.accept(eps);
+            eps.finish();
+        } else {
+            final BitmapCanvasProvider bitmap = bw
+                ? new BitmapCanvasProvider(out, format, dpi, BufferedImage.TYPE_BYTE_BINARY, false, orientation)
+                : new BitmapCanvasProvider(out, format, dpi, BufferedImage.TYPE_BYTE_GRAY, true, orientation);
+            bitmap.setRenderLimits(limits);
+            painter.accept(bitmap);
+            bitmap.finish();
+        }
+    }
+
+    private void runSheet(CommandLine cl, LabelSheet sheet, String[] msg, RenderLimits limits)
+            throws IOException, ConfigurationException, BarcodeException {
+        final BarcodeGenerator gen = BarcodeUtil.getInstance().getSharedGenerator(getConfiguration(cl));
+        final String formatName = cl.getOptionValue("f", MimeTypes.MIME_SVG);
+        final int dpi = Integer.parseInt(cl.getOptionValue('d', "300"));
+        final File target = new File(cl.getOptionValue("o"));
+        final String source = cl.getOptionValue("batch");
+
+        log.info("Generating " + MimeTypes.expandFormat(formatName) + " label sheets ("
+            + sheet.getCellsPerPage() + " labels per page) into " + target + "...");
+        int pages = 0;
+        int count = 0;
+        try (BufferedReader in = source == null ? null : new BufferedReader(new InputStreamReader(
+                "-".equals(source) ? stdin : Files.newInputStream(Paths.get(source)), StandardCharsets.UTF_8))) {
+            //only the message column of a batch file is used
+            final Iterator<String> messages = in == null ? Arrays.asList(msg).iterator() : in.lines()
+                .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                .map(line -> BatchRunner.parseRecord(line).get(0))
+                .iterator();
+            if (!messages.hasNext()) {
+                printHelp(new PrintWriter(stdout));
+                exitHandler.failureExit(this, "Bad command line: No message", null, -2);
+                return; //never reached
+            }
+            do {
+                pages++;
+                final File file = pages == 1 ? target : getPageFile(target, pages);
+                log.debug("Page " + pages + ": " + file);
+                try (OutputStream out = Files.newOutputStream(file.toPath())) {
+                    count += writeSheet(gen, sheet, messages, formatName, dpi, cl.hasOption("bw"), limits, out);
+                }
+            } while (messages.hasNext());
         }
+        log.info(count + " barcodes on " + pages + " page(s)");
+        exitHandler.successfulExit(this);
+    }
+
+    /**
+     * Returns the file for a page after the first one of a label sheet: the page number is
+     * appended to the file name, before the extension.
+     * @param target the output file given on the command line
+     * @param page the page number
+     * @return the file for the page
+     */
+    static File getPageFile(File target, int page) {
+        final String name = target.getName();
+        final int dot = name.lastIndexOf('.');
+        final String pageName = dot > 0
+            ? name.substring(0, dot) + "-" + page + name.substring(dot)
+            : name + "-" + page;
+        return new File(target.getParentFile(), pageName);
+    }
+
+    private LabelSheet getLabelSheet(CommandLine cl) throws ParseException {
+        final Matcher grid = SIZE_PATTERN.matcher(cl.getOptionValue("sheet"));
+        final Matcher page = SIZE_PATTERN.matcher(cl.getOptionValue("page", LabelSheet.A4_WIDTH + "x" + LabelSheet.A4_HEIGHT));
+        if (!grid.matches() || grid.group(1).contains(".") || grid.group(2).contains(".")) {
+            throw new ParseException("Invalid label sheet (expected <rows>x<columns>): " + cl.getOptionValue("sheet"));
+        }
+        if (!page.matches()) {
+            throw new ParseException("Invalid page size (expected <width>x<height> in mm): " + cl.getOptionValue("page"));
+        }
+        try {
+            final LabelSheet sheet = new LabelSheet(Double.parseDouble(page.group(1)), Double.parseDouble(page.group(2)),
+                Integer.parseInt(grid.group(1)), Integer.parseInt(grid.group(2)));
+            sheet.setMargin(Double.parseDouble(cl.getOptionValue("margin", "0")));
+            final double gap = Double.parseDouble(cl.getOptionValue("gap", "0"));
+            sheet.setGaps(gap, gap);
+            return sheet;
+        } catch (IllegalArgumentException iae) {
+            throw new ParseException("Invalid label sheet: " + iae.getMessage());
+        }
+    }
+
+    private void runBatch(CommandLine cl, RenderLimits limits) throws IOException {
+        final String source = cl.getOptionValue("batch");
+        final File target = new File(cl.getOptionValue("o"));
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final String threads = cl.getOptionValue("threads", Integer.toString(processors));
+        final ExecutorService executor;
+        final int parallelism;
+        try {
+            parallelism = "virtual".equalsIgnoreCase(threads) ? processors : Integer.parseInt(threads);
+            executor = BatchRunner.createExecutor(threads);
+        } catch (IllegalArgumentException iae) {
+            exitHandler.failureExit(this, "Bad command line: invalid number of threads: " + threads, null, -2);
+            return; //never reached
+        }
+        final BatchRunner runner = new BatchRunner(getConfiguration(cl), cl.getOptionValue("f", MimeTypes.MIME_SVG),
+            Integer.parseInt(cl.getOptionValue('d', "300")), cl.hasOption("bw"), limits, log);
+
+        log.info("Generating barcodes from " + ("-".equals(source) ? "stdin" : source) + " into " + target + "...");
+        final int failed;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                "-".equals(source) ? stdin : Files.newInputStream(Paths.get(source)), StandardCharsets.UTF_8));
+             BatchRunner.Output output = BatchRunner.openOutput(target)) {
+            //render a few barcodes ahead of the one being written, so all threads are kept busy
+            failed = runner.run(in, output, executor, 2 * parallelism);
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failed > 0) {
+            exitHandler.failureExit(this, failed + " barcode(s) could not be generated", null, -3);
+        } else {
+            exitHandler.successfulExit(this);
+        }
+    }
+
+    private void runBench(CommandLine cl) throws IOException, ConfigurationException, BarcodeException {
+        final int processors = Runtime.getRuntime().availableProcessors();
+        final String threads = cl.getOptionValue("threads", "1");
+        final String payloadName = cl.getOptionValue("payload", "numeric");
+        final BenchRunner runner;
+        final ExecutorService executor;
+        final int workers;
+        final double warmup;
+        final double duration;
+        try {
+            final BenchRunner.Payload payload;
+            try {
+                payload = BenchRunner.Payload.valueOf(payloadName.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException iae) {
+                throw new IllegalArgumentException("Unknown payload: " + payloadName);
+            }
+            runner = new BenchRunner(BarcodeUtil.getInstance().getSharedGenerator(getConfiguration(cl)),
+                cl.getOptionValue("f", MimeTypes.MIME_SVG), Integer.parseInt(cl.getOptionValue('d', "300")),
+                cl.hasOption("bw"), payload, Integer.parseInt(cl.getOptionValue("length", "12")));
+            warmup = Double.parseDouble(cl.getOptionValue("warmup", "5"));
+            duration = Double.parseDouble(cl.getOptionValue("duration", "10"));
+            if (!(warmup >= 0) || !(duration > 0)) {
+                throw new IllegalArgumentException("Invalid benchmark duration");
+            }
+            workers = "virtual".equalsIgnoreCase(threads) ? processors : Integer.parseInt(threads);
+            executor = BatchRunner.createExecutor(threads);
+        } catch (IllegalArgumentException iae) {
+            exitHandler.failureExit(this, "Bad command line: " + iae.getMessage(), null, -2);
+            return; //never reached
+        }
+
+        log.info(String.format(Locale.ROOT, "Benchmark: %s, %s%s, %s messages of %s characters, %s thread(s)",
+            cl.hasOption('s') ? cl.getOptionValue('s') : cl.getOptionValue('c'),
+            MimeTypes.expandFormat(cl.getOptionValue("f", MimeTypes.MIME_SVG)),
+            isVectorFormat(MimeTypes.expandFormat(cl.getOptionValue("f", MimeTypes.MIME_SVG)))
+                ? "" : " at " + cl.getOptionValue('d', "300") + " dpi",
+            payloadName.toLowerCase(Locale.ROOT), cl.getOptionValue("length", "12"), threads));
+        final BenchRunner.Result result;
+        try {
+            result = runner.run(executor, workers, (long) (warmup * 1e9), (long) (duration * 1e9));
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            exitHandler.failureExit(this, "Benchmark interrupted", null, -3);
+            return; //never reached
+        } finally {
+            executor.shutdownNow();
+        }
+        for (final String line : result.report()) {
+            log.info(line);
+        }
+        exitHandler.successfulExit(this);
+    }
+
+    private RenderLimits getRenderLimits(CommandLine cl) throws ParseException {
+        RenderLimits limits = RenderLimits.UNLIMITED;
+        try {
+            if (cl.hasOption("max-message-length")) {
+                limits = limits.withMaxMessageLength(Integer.parseInt(cl.getOptionValue("max-message-length")));
+            }
+            if (cl.hasOption("max-pixels")) {
+                limits = limits.withMaxPixels(Long.parseLong(cl.getOptionValue("max-pixels")));
+            }
+            if (cl.hasOption("max-image-bytes")) {
+                limits = limits.withMaxImageBytes(Long.parseLong(cl.getOptionValue("max-image-bytes")));
+            }
+        } catch (IllegalArgumentException iae) {
+            throw new ParseException("Invalid render limit: " + iae.getMessage());
+        }
+        return limits;
     }
 
     private Options getOptions() {
@@ -265,17 +576,135 @@ public class Main {
                 .withDescription("(for bitmaps) create monochrome (1-bit) "
                     + "image instead of grayscale (8-bit)")
                 .create());
+
+            //Batch mode
+            this.options.addOption(OptionBuilder
+                .withArgName("file")
+                .withLongOpt("batch")
+                .hasArg()
+                .withDescription("generate a barcode for every line of a CSV file "
+                    + "(- for stdin): message[,name[,key=value...]] where the keys "
+                    + "symbol, format, dpi and bw override the command line. "
+                    + "-o names the output directory or ZIP file")
+                .create());
+            this.options.addOption(OptionBuilder
+                .withArgName("n|virtual")
+                .withLongOpt("threads")
+                .hasArg()
+                .withDescription("(for batch mode and benchmarks) the number of threads generating "
+                    + "barcodes, or \"virtual\" for virtual threads (Java 21+)\n"
+                    + "Default: the number of processors (batch mode), 1 (benchmarks)")
+                .create());
+
+            //Benchmark
+            this.options.addOption(OptionBuilder
+                .withLongOpt("bench")
+                .withDescription("measure the render throughput of the symbology, format and "
+                    + "resolution with random messages, reporting barcodes/s, latency "
+                    + "percentiles and the bytes allocated per barcode")
+                .create());
+            this.options.addOption(OptionBuilder
+                .withArgName("numeric|alphanumeric|binary")
+                .withLongOpt("payload")
+                .hasArg()
+                .withDescription("(for benchmarks) the kind of random messages\n"
+                    + "Default: numeric")
+                .create());
+            this.options.addOption(OptionBuilder
+                .withArgName("integer")
+                .withLongOpt("length")
+                .hasArg()
+                .withDescription("(for benchmarks) the length of the messages\n"
+                    + "Default: 12")
+                .create());
+            this.options.addOption(OptionBuilder
+                .withArgName("seconds")
+                .withLongOpt("warmup")
+                .hasArg()
+                .withDescription("(for benchmarks) the duration of the warm-up phase\n"
+                    + "Default: 5")
+                .create());
+            this.options.addOption(OptionBuilder
+                .withArgName("seconds")
+                .withLongOpt("duration")
+                .hasArg()
+                .withDescription("(for benchmarks) the duration of the measurement phase\n"
+                    + "Default: 10")
+                .create());
+
+            //Label sheets
+            this.options.addOption(OptionBuilder
+                .withArgName("rows>x<columns")
+                .withLongOpt("sheet")
+                .hasArg()
+                .withDescription("tile the barcodes of all messages (or of the messages of "
+                    + "--batch) onto pages with a grid of labels. -o names the file of the "
+                    + "first page, the page number is appended to the names of further pages")
+                .create());
+            this.options.addOption(OptionBuilder
+                .withArgName("width>x<height")
+                .withLongOpt("page")
+                .hasArg()
+                .withDescription("(for label sheets) the page size in mm\n"
+                    + "Default: 210x297 (A4)")
+                .create());
+            this.options.addOption(OptionBuilder
+                .withArgName("mm")
+                .withLongOpt("margin")
+                .hasArg()
+                .withDescription("(for label sheets) the margin around the labels\n"
+                    + "Default: 0")
+                .create());
+            this.options.addOption(OptionBuilder
+                .withArgName("mm")
+                .withLongOpt("gap")
+                .hasArg()
+                .withDescription("(for label sheets) the gap between the labels\n"
+                    + "Default: 0")
+                .create());
+
+            //Render limits
+            this.options.addOption(OptionBuilder
+                .withArgName("integer")
+                .withLongOpt("max-message-length")
+                .hasArg()
+                .withDescription("reject messages with more characters\n"
+                    + "Default: no limit")
+                .create());
+            this.options.addOption(OptionBuilder
+                .withArgName("integer")
+                .withLongOpt("max-pixels")
+                .hasArg()
+                .withDescription("(for bitmaps) reject images with more pixels\n"
+                    + "Default: no limit")
+                .create());
+            this.options.addOption(OptionBuilder
+                .withArgName("integer")
+                .withLongOpt("max-image-bytes")
+                .hasArg()
+                .withDescription("(for bitmaps) reject images whose image data would "
+                    + "take up more bytes\n"
+                    + "Default: no limit")
+                .create());
         }
         return this.options;
     }
 
+    /**
+     * Creates the configuration for a symbology with default settings.
+     * @param sym the name of the symbology
+     * @return the configuration
+     */
+    static Configuration getConfiguration(String sym) {
+        DefaultConfiguration cfg = new DefaultConfiguration("cfg");
+        DefaultConfiguration child = new DefaultConfiguration(sym);
+        cfg.addChild(child);
+        return cfg;
+    }
+
     private Configuration getConfiguration(CommandLine cl) {
         if (cl.hasOption("s")) {
-            String sym = cl.getOptionValue("s");
-            DefaultConfiguration cfg = new DefaultConfiguration("cfg");
-            DefaultConfiguration child = new DefaultConfiguration(sym);
-            cfg.addChild(child);
-            return cfg;
+            return getConfiguration(cl.getOptionValue("s"));
         }
         if (cl.hasOption("c")) {
             try {
@@ -352,12 +781,24 @@ public class Main {
         help.printHelp(writer, HelpFormatter.DEFAULT_WIDTH,
             "java -jar barcode4j.jar "
                 + "[-v] [[-s <symbology>]|[-c <cfg-file>]] [-f <format>] "
-                + "[-d <dpi>] [-bw] [-o <file>] <message>",
+                + "[-d <dpi>] [-bw] [-o <file>] <message>"
+                + "\n       java -jar barcode4j.jar "
+                + "[-v] [[-s <symbology>]|[-c <cfg-file>]] [-f <format>] "
+                + "[-d <dpi>] [-bw] [--threads <n>] --batch <csv-file> -o <dir|zip-file>"
+                + "\n       java -jar barcode4j.jar "
+                + "[-v] [[-s <symbology>]|[-c <cfg-file>]] [-f <format>] "
+                + "[-d <dpi>] [-bw] --sheet <rows>x<cols> [--page <w>x<h>] [--margin <mm>] [--gap <mm>] "
+                + "-o <file> [--batch <csv-file>|<message>...]"
+                + "\n       java -jar barcode4j.jar "
+                + "[[-s <symbology>]|[-c <cfg-file>]] [-f <format>] [-d <dpi>] [-bw] --bench "
+                + "[--payload <type>] [--length <n>] [--threads <n>] [--warmup <s>] [--duration <s>]",
             null,
             getOptions(),
             HelpFormatter.DEFAULT_LEFT_PAD, HelpFormatter.DEFAULT_DESC_PAD,
             "\nValid output formats:"
                 + "\nSVG: " + MimeTypes.MIME_SVG + ", svg"
+                + "\nSVGZ (gzip compressed SVG): " + MimeTypes.MIME_SVGZ + ", svgz"
+                + "\nCompact SVG (all bars in a single path): svg-compact, svgz-compact"
                 + "\nEPS: " + MimeTypes.MIME_EPS + ", eps"
                 + "\nPNG: " + MimeTypes.MIME_PNG + ", png"
                     + (BitmapEncoderRegistry.supports(MimeTypes.MIME_PNG)
@@ -0,0 +1,28 @@
+package org.krysalis.barcode4j.cli;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRunnerTest {
+
+    @Test
+    void testParseRecord() {
+        assertEquals(Collections.singletonList("12345"), BatchRunner.parseRecord("12345"));
+        assertEquals(Arrays.asList("a b", "name", "dpi=600"), BatchRunner.parseRecord("a b,name,dpi=600"));
+        assertEquals(Arrays.asList("Hello, \"World\"", ""), BatchRunner.parseRecord("\"Hello, \"\"World\"\"\","));
+        assertEquals(Arrays.asList("say \"hi\"", "x"), BatchRunner.parseRecord("say \"hi\",x"));
+        assertThrows(IllegalArgumentException.class, () -> BatchRunner.parseRecord("\"unterminated,x"));
+    }
+
+    @Test
+    void testCreateExecutor() throws Exception {
+        assertEquals(3, ((java.util.concurrent.ForkJoinPool) BatchRunner.createExecutor("3")).getParallelism());
+        BatchRunner.createExecutor("virtual").shutdown();
+        assertThrows(IllegalArgumentException.class, () -> BatchRunner.createExecutor("0"));
+        assertThrows(IllegalArgumentException.class, () -> BatchRunner.createExecutor("many"));
+    }
+}
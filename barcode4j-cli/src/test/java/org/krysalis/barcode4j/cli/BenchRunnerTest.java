@@ -0,0 +1,47 @@
+package org.krysalis.barcode4j.cli;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BenchRunnerTest {
+
+    @Test
+    void testPayload() {
+        final Random random = new Random(1);
+        assertTrue(BenchRunner.Payload.NUMERIC.createMessage(20, random).matches("[0-9]{20}"));
+        assertTrue(BenchRunner.Payload.ALPHANUMERIC.createMessage(20, random).matches("[0-9A-Z]{20}"));
+        final String binary = BenchRunner.Payload.BINARY.createMessage(1000, random);
+        assertEquals(1000, binary.length());
+        assertTrue(binary.chars().allMatch(c -> c < 256));
+        assertTrue(binary.chars().anyMatch(c -> c >= 128));
+    }
+
+    @Test
+    void testRun() throws Exception {
+        final BenchRunner runner = new BenchRunner(new DataMatrixBean(), "png", 150, true,
+            BenchRunner.Payload.ALPHANUMERIC, 16);
+        final ExecutorService executor = BatchRunner.createExecutor("2");
+        try {
+            final BenchRunner.Result result = runner.run(executor, 2, TimeUnit.MILLISECONDS.toNanos(50),
+                TimeUnit.MILLISECONDS.toNanos(200));
+            assertTrue(result.getCount() > 0);
+            assertTrue(result.getThroughput() > 0);
+            assertTrue(result.getLatency(50) > 0);
+            assertTrue(result.getLatency(50) <= result.getLatency(99));
+            assertTrue(result.getLatency(99) <= result.getLatency(100));
+            assertTrue(result.getOutputBytesPerBarcode() > 0);
+            assertNotEquals(0, result.getAllocatedBytesPerBarcode());
+            assertEquals(3, result.report().length);
+        } finally {
+            executor.shutdown();
+        }
+        assertThrows(IllegalArgumentException.class, () -> new BenchRunner(new DataMatrixBean(), "png", 150, true,
+            BenchRunner.Payload.NUMERIC, 0));
+    }
+}
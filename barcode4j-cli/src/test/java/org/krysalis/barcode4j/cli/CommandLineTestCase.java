@@ -15,11 +15,23 @@
  */
 package org.krysalis.barcode4j.cli;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.PrintStream;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import javax.imageio.ImageIO;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -83,6 +95,29 @@ public class CommandLineTestCase {
         assertTrue(this.err.size() == 0, "No output on stderr expected");
     }
 
+    @Test
+    void testSVGZ() throws Exception {
+        final String[] args = {"-s", "ean13", "-f", "svgz", "9771422985503+00006"};
+        callCLI(args);
+        assertEquals(0, this.exitHandler.getLastExitCode(), "Exit code must be 0");
+        assertNull(this.exitHandler.getLastThrowable());
+        final byte[] output = this.out.toByteArray();
+        assertTrue(output.length > 2, "No output");
+        assertEquals((byte) 0x1f, output[0], "gzip magic number expected");
+        assertEquals((byte) 0x8b, output[1], "gzip magic number expected");
+    }
+
+    @Test
+    void testCompactSVG() throws Exception {
+        final String[] args = {"-s", "datamatrix", "-f", "svg-compact", "Barcode4J"};
+        callCLI(args);
+        assertEquals(0, this.exitHandler.getLastExitCode(), "Exit code must be 0");
+        assertNull(this.exitHandler.getLastThrowable());
+        final String output = this.out.toString(StandardCharsets.UTF_8);
+        assertTrue(output.contains("<path "), "a single path is expected");
+        assertFalse(output.contains("<rect "), "no rect elements are expected");
+    }
+
     @Test
     void testEPS() throws Exception {
         final String[] args = {"-s", "ean13", "-f", "eps", "9771422985503+00006"};
@@ -208,6 +243,179 @@ public class CommandLineTestCase {
         }
     }
 
+    @Test
+    void testRenderLimits() throws Exception {
+        callCLI(new String[] {"-s", "datamatrix", "-f", "png", "-d", "2400", "--max-pixels", "10000", "Hello World"});
+        assertEquals(-7, this.exitHandler.getLastExitCode(), "Exit code must be -7");
+        assertTrue(this.exitHandler.getLastMsg().contains("pixels"), this.exitHandler.getLastMsg());
+
+        callCLI(new String[] {"-s", "datamatrix", "--max-message-length", "5", "Hello World"});
+        assertEquals(-7, this.exitHandler.getLastExitCode(), "Exit code must be -7");
+
+        callCLI(new String[] {"-s", "datamatrix", "-f", "png", "--max-pixels", "10000", "--max-image-bytes", "10000", "Hello"});
+        assertEquals(0, this.exitHandler.getLastExitCode(), "Exit code must be 0");
+
+        callCLI(new String[] {"-s", "datamatrix", "--max-pixels", "none", "Hello"});
+        assertEquals(-2, this.exitHandler.getLastExitCode(), "Exit code must be -2");
+    }
+
+    @Test
+    void testBatchToDirectory() throws Exception {
+        final Path input = Files.createTempFile("batch", ".csv");
+        final Path dir = Files.createTempDirectory("batch");
+        try {
+            Files.write(input, Arrays.asList(
+                "# message, name, overrides",
+                "12345",
+                "\"Hello, World\",greeting,symbol=datamatrix,format=png,dpi=150",
+                "",
+                "letters,,symbol=ean-13",
+                "67890,second,format=eps"), StandardCharsets.UTF_8);
+            callCLI(new String[] {"-s", "code128", "--batch", input.toString(), "-o", dir.toString(), "--threads", "2"});
+
+            assertEquals(-3, this.exitHandler.getLastExitCode(), "Exit code must be -3");
+            assertEquals("1 barcode(s) could not be generated", this.exitHandler.getLastMsg());
+            assertTrue(Files.size(dir.resolve("barcode-2.svg")) > 0);
+            assertTrue(Files.size(dir.resolve("greeting.png")) > 0);
+            assertTrue(Files.size(dir.resolve("second.eps")) > 0);
+            assertFalse(Files.exists(dir.resolve("barcode-5.svg")));
+            final String stdout = new String(this.out.toByteArray(), StandardCharsets.UTF_8);
+            assertTrue(stdout.contains("3 barcodes generated (1 failed"), stdout);
+            assertTrue(new String(this.err.toByteArray(), StandardCharsets.UTF_8).startsWith("Line 5: "));
+        } finally {
+            try (Stream<Path> files = Files.list(dir)) {
+                for (final Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+            Files.delete(input);
+        }
+    }
+
+    @Test
+    void testBatchFromStdinToZip() throws Exception {
+        final File zipFile = File.createTempFile("batch", ".zip");
+        final StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            input.append("item ").append(i).append(",item").append(i).append('\n');
+        }
+        Main.stdin = new ByteArrayInputStream(input.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            callCLI(new String[] {"-s", "datamatrix", "-f", "png", "--batch", "-", "-o", zipFile.getAbsolutePath(),
+                "--threads", "virtual"});
+            assertEquals(0, this.exitHandler.getLastExitCode(), "Exit code must be 0");
+
+            final List<String> names = new ArrayList<>();
+            try (ZipInputStream zip = new ZipInputStream(new FileInputStream(zipFile))) {
+                for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                    names.add(entry.getName());
+                    assertEquals((byte) 0x89, zip.readAllBytes()[0]);
+                }
+            }
+            assertEquals(100, names.size());
+            assertEquals("item0.png", names.get(0));
+            assertEquals("item99.png", names.get(99));
+        } finally {
+            Main.stdin = System.in;
+            if (!zipFile.delete()) {
+                fail("Target file could not be deleted. Not closed?");
+            }
+        }
+    }
+
+    @Test
+    void testBatchCommandLine() throws Exception {
+        callCLI(new String[] {"-s", "code128", "--batch", "-"});
+        assertEquals(-2, this.exitHandler.getLastExitCode(), "Exit code must be -2");
+
+        callCLI(new String[] {"-s", "code128", "--batch", "-", "-o", "out.zip", "12345"});
+        assertEquals(-2, this.exitHandler.getLastExitCode(), "Exit code must be -2");
+
+        callCLI(new String[] {"-s", "code128", "--batch", "-", "-o", "out.zip", "--threads", "0"});
+        assertEquals(-2, this.exitHandler.getLastExitCode(), "Exit code must be -2");
+        assertFalse(new File("out.zip").exists());
+    }
+
+    @Test
+    void testLabelSheet() throws Exception {
+        final Path dir = Files.createTempDirectory("sheet");
+        try {
+            final File svg = dir.resolve("labels.svg").toFile();
+            callCLI(new String[] {"-s", "datamatrix", "--sheet", "2x3", "--page", "100x50", "--margin", "5",
+                "--gap", "2", "-o", svg.getAbsolutePath(), "one", "two", "three", "four"});
+            assertEquals(0, this.exitHandler.getLastExitCode(), "Exit code must be 0");
+            final String page = new String(Files.readAllBytes(svg.toPath()), StandardCharsets.UTF_8);
+            assertEquals(1, page.split("<svg", -1).length - 1, "One SVG document for all barcodes");
+            assertTrue(page.contains("width=\"100mm\""), page);
+
+            //seven messages on pages of four labels, rendered from stdin as bitmaps
+            Main.stdin = new ByteArrayInputStream("# labels\n1\n2\n3\n\n4\n5\n6\n7\n".getBytes(StandardCharsets.UTF_8));
+            final File png = dir.resolve("labels.png").toFile();
+            callCLI(new String[] {"-s", "datamatrix", "-f", "png", "-d", "150", "--sheet", "2x2", "--page", "50x50",
+                "--batch", "-", "-o", png.getAbsolutePath()});
+            assertEquals(0, this.exitHandler.getLastExitCode(), "Exit code must be 0");
+            assertEquals(295, ImageIO.read(png).getWidth());
+            assertNotNull(ImageIO.read(dir.resolve("labels-2.png").toFile()));
+            assertFalse(Files.exists(dir.resolve("labels-3.png")));
+
+            callCLI(new String[] {"-s", "code128", "--sheet", "20x20", "-o", svg.getAbsolutePath(), "123456"});
+            assertEquals(-3, this.exitHandler.getLastExitCode(), "Exit code must be -3");
+            assertTrue(this.exitHandler.getLastMsg().contains("doesn't fit"), this.exitHandler.getLastMsg());
+
+            callCLI(new String[] {"-s", "code128", "--sheet", "2", "-o", svg.getAbsolutePath(), "123456"});
+            assertEquals(-2, this.exitHandler.getLastExitCode(), "Exit code must be -2");
+            callCLI(new String[] {"-s", "code128", "--sheet", "2x2", "123456"});
+            assertEquals(-2, this.exitHandler.getLastExitCode(), "Exit code must be -2");
+            callCLI(new String[] {"-s", "code128", "--sheet", "2x2", "--margin", "200", "-o", svg.getAbsolutePath(), "1"});
+            assertEquals(-2, this.exitHandler.getLastExitCode(), "Exit code must be -2");
+
+            //a batch without any message doesn't produce a blank sheet
+            Main.stdin = new ByteArrayInputStream("# labels\n\n# none\n".getBytes(StandardCharsets.UTF_8));
+            final File empty = dir.resolve("empty.svg").toFile();
+            callCLI(new String[] {"-s", "code128", "--sheet", "2x2", "--batch", "-", "-o", empty.getAbsolutePath()});
+            assertEquals(-2, this.exitHandler.getLastExitCode(), "Exit code must be -2");
+            assertTrue(this.exitHandler.getLastMsg().contains("No message"), this.exitHandler.getLastMsg());
+            assertFalse(empty.exists());
+        } finally {
+            Main.stdin = System.in;
+            try (Stream<Path> files = Files.list(dir)) {
+                for (final Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    void testBench() throws Exception {
+        callCLI(new String[] {"-s", "code128", "-f", "png", "--bench", "--payload", "alphanumeric", "--length", "8",
+            "--threads", "2", "--warmup", "0", "--duration", "0.2"});
+        assertEquals(0, this.exitHandler.getLastExitCode(), "Exit code must be 0");
+        final String stdout = new String(this.out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(stdout.contains("Benchmark: code128, image/png at 300 dpi, alphanumeric messages of 8 characters"), stdout);
+        assertTrue(stdout.contains(" barcodes/s"), stdout);
+        assertTrue(stdout.contains("Latency: p50 "), stdout);
+
+        callCLI(new String[] {"-s", "ean-13", "--bench", "--payload", "binary", "--warmup", "0", "--duration", "0.1"});
+        assertEquals(-3, this.exitHandler.getLastExitCode(), "Exit code must be -3");
+
+        callCLI(new String[] {"-s", "code128", "--bench", "--payload", "emoji"});
+        assertEquals(-2, this.exitHandler.getLastExitCode(), "Exit code must be -2");
+        assertEquals("Bad command line: Unknown payload: emoji", this.exitHandler.getLastMsg());
+        callCLI(new String[] {"-s", "code128", "--bench", "--duration", "0"});
+        assertEquals(-2, this.exitHandler.getLastExitCode(), "Exit code must be -2");
+        callCLI(new String[] {"-s", "code128", "--bench", "12345"});
+        assertEquals(-2, this.exitHandler.getLastExitCode(), "Exit code must be -2");
+    }
+
+    @Test
+    void testPageFile() {
+        assertEquals(new File("out", "labels-2.svg"), Main.getPageFile(new File("out", "labels.svg"), 2));
+        assertEquals(new File("labels-3"), Main.getPageFile(new File("labels"), 3));
+    }
+
     /**
      * Returns the base directory to use for the tests.
      * @return the base directory
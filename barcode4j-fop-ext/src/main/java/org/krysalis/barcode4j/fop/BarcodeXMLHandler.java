@@ -26,6 +26,7 @@ import org.krysalis.barcode4j.BarcodeDimension;
 import org.krysalis.barcode4j.BarcodeGenerator;
 import org.krysalis.barcode4j.BarcodeUtil;
 import org.krysalis.barcode4j.output.BarcodeCanvasSetupException;
+import org.krysalis.barcode4j.output.RenderLimits;
 import org.krysalis.barcode4j.output.bitmap.BitmapCanvasProvider;
 import org.krysalis.barcode4j.output.eps.EPSCanvasProvider;
 import org.krysalis.barcode4j.output.java2d.Java2DCanvasProvider;
@@ -65,6 +66,27 @@ public class BarcodeXMLHandler implements XMLHandler, RendererContextConstants {
     /** The context constant for the PostScript generator that is being used to draw into. */
     private static final String PS_GENERATOR = "psGenerator";
 
+    private RenderLimits renderLimits = RenderLimits.UNLIMITED;
+
+    /**
+     * Sets the limits barcodes are checked against before they are rendered, e.g. to protect a
+     * server rendering documents from untrusted sources. By default, barcodes are not limited.
+     * @param renderLimits the limits
+     * @since 2.4.1
+     */
+    public void setRenderLimits(RenderLimits renderLimits) {
+        this.renderLimits = renderLimits;
+    }
+
+    /**
+     * Returns the limits barcodes are checked against before they are rendered.
+     * @return the limits
+     * @since 2.4.1
+     */
+    public RenderLimits getRenderLimits() {
+        return this.renderLimits;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void handleXML(RendererContext context, Document doc, String ns) throws Exception {
@@ -83,6 +105,7 @@ public class BarcodeXMLHandler implements XMLHandler, RendererContextConstants {
 
         final BarcodeGenerator bargen = BarcodeUtil.getInstance().createBarcodeGenerator(cfg);
         final String expandedMsg = VariableUtil.getExpandedMessage(page, msg);
+        renderLimits.checkMessage(expandedMsg);
 
         boolean handled = false;
         //String effRenderMode = renderMode;
@@ -192,6 +215,7 @@ public class BarcodeXMLHandler implements XMLHandler, RendererContextConstants {
 
             final BitmapCanvasProvider canvas = new BitmapCanvasProvider(
                     300, BufferedImage.TYPE_BYTE_BINARY, false, orientation);
+            canvas.setRenderLimits(renderLimits);
             bargen.generateBarcode(canvas, msg);
 
 //            if (DEBUG) {
@@ -8,6 +8,8 @@ import org.apache.fop.render.RendererContext;
 import org.apache.fop.render.RendererContextConstants;
 import org.apache.xmlgraphics.java2d.Graphics2DImagePainter;
 import org.junit.jupiter.api.DisplayName;
+import org.krysalis.barcode4j.output.RenderLimitExceededException;
+import org.krysalis.barcode4j.output.RenderLimits;
 import org.w3c.dom.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -136,6 +138,29 @@ class BarcodeXMLHandlerTest {
         verify(renderer, times(0)).renderXML(eq(ctx), any(), eq(SVGDOMImplementation.SVG_NAMESPACE_URI));
     }
 
+    @Test
+    @DisplayName("Bitmaps over the render limits should be rejected before they are painted")
+    void testRenderLimits() throws Exception {
+        final RendererContext ctx = mock(RendererContext.class);
+        final AbstractRenderer renderer = mock(AbstractRenderer.class);
+        final ImageAdapter imgAdapter = mock(ImageAdapter.class);
+        when(renderer.getImageAdapter()).thenReturn(imgAdapter);
+        when(ctx.getRenderer()).thenReturn(renderer);
+
+        final String xmlCfg = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<cfg msg=\"012345678905\" render-mode=\"bitmap\">\n" +
+            "  <upc-A/>\n" +
+            "</cfg>";
+        assertSame(RenderLimits.UNLIMITED, xmlHandler.getRenderLimits());
+        xmlHandler.setRenderLimits(RenderLimits.DEFAULT.withMaxPixels(1000));
+        final Document doc = creatDocumentFromStream(new ByteArrayInputStream(xmlCfg.getBytes(StandardCharsets.UTF_8)));
+        assertThrows(RenderLimitExceededException.class, () -> xmlHandler.handleXML(ctx, doc, ""));
+
+        xmlHandler.setRenderLimits(RenderLimits.DEFAULT.withMaxMessageLength(5));
+        assertThrows(RenderLimitExceededException.class, () -> xmlHandler.handleXML(ctx, doc, ""));
+        verifyNoInteractions(imgAdapter);
+    }
+
     @Test // default will be SVG
     @DisplayName("Default render should result in call to renderXML()")
     void testDefaultRenderMode() throws Exception {
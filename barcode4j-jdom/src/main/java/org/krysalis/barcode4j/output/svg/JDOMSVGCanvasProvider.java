@@ -127,21 +127,21 @@ public class JDOMSVGCanvasProvider extends AbstractSVGGeneratingCanvasProvider {
     public void establishDimensions(BarcodeDimension dim) {
         super.establishDimensions(dim);
         Element svg = doc.getRootElement();
-        svg.setAttribute("width", getDecimalFormat().format(dim.getWidthPlusQuiet()));
-        svg.setAttribute("height", getDecimalFormat().format(dim.getHeightPlusQuiet()));
+        svg.setAttribute("width", formatNumber(dim.getWidthPlusQuiet()));
+        svg.setAttribute("height", formatNumber(dim.getHeightPlusQuiet()));
         svg.setAttribute("viewBox", "0 0 "
-                + getDecimalFormat().format(dim.getWidthPlusQuiet()) + " "
-                + getDecimalFormat().format(dim.getHeightPlusQuiet()));
+                + formatNumber(dim.getWidthPlusQuiet()) + " "
+                + formatNumber(dim.getHeightPlusQuiet()));
     }
 
     /** {@inheritDoc} */
     @Override
     public void deviceFillRect(double x, double y, double w, double h) {
         Element el = new Element("rect", ns);
-        el.setAttribute("x", getDecimalFormat().format(x));
-        el.setAttribute("y", getDecimalFormat().format(y));
-        el.setAttribute("width", getDecimalFormat().format(w));
-        el.setAttribute("height", getDecimalFormat().format(h));
+        el.setAttribute("x", formatNumber(x));
+        el.setAttribute("y", formatNumber(y));
+        el.setAttribute("width", formatNumber(w));
+        el.setAttribute("height", formatNumber(h));
         detailGroup.addContent(el);
     }
 
@@ -168,12 +168,12 @@ public class JDOMSVGCanvasProvider extends AbstractSVGGeneratingCanvasProvider {
 
         final Element el = new Element("text", ns);
         el.setAttribute("font-family", fontName);
-        el.setAttribute("font-size", getDecimalFormat().format(fontSize));
+        el.setAttribute("font-size", formatNumber(fontSize));
         el.setAttribute("text-anchor", anchor);
-        el.setAttribute("x", getDecimalFormat().format(tx));
-        el.setAttribute("y", getDecimalFormat().format(y1));
+        el.setAttribute("x", formatNumber(tx));
+        el.setAttribute("y", formatNumber(y1));
         if (textAlign == TextAlignment.TA_JUSTIFY) {
-            el.setAttribute("textLength", getDecimalFormat().format(x2 - x1));
+            el.setAttribute("textLength", formatNumber(x2 - x1));
         }
         el.addContent(text);
         detailGroup.addContent(el);
@@ -37,7 +37,10 @@ import net.sf.saxon.trans.XPathException;
 import net.sf.saxon.type.ValidationException;
 
 /**
- * This represents the main barcode element.
+ * This represents the main barcode element. Besides the barcode configuration, it accepts the
+ * attributes <code>message</code>, <code>orientation</code>, <code>compact</code> (all bars in a
+ * single path, like the "svg-compact" output format), <code>useNamespace</code> and
+ * <code>prefix</code>.
  *
  * @author Jeremias Maerki
  * @version $Id: BarcodeStyleElement.java,v 1.4 2007-01-15 11:12:33 jmaerki Exp $
@@ -160,6 +163,7 @@ public class BarcodeStyleElement extends StyleElement {
                 final SVGCanvasProvider svg = cfg.getAttributeAsBoolean("useNamespace", true) ?
                         new SVGCanvasProvider(cfg.getAttribute("prefix", "svg"), effOrientation) :
                         new SVGCanvasProvider(false, effOrientation);
+                svg.setCompact(cfg.getAttributeAsBoolean("compact", false));
 
                 //Generate barcode
                 gen.generateBarcode(svg, effMessage);
@@ -0,0 +1,180 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import org.krysalis.barcode4j.BarcodeException;
+import org.krysalis.barcode4j.BarcodeGenerator;
+import org.krysalis.barcode4j.configuration.ConfigurationException;
+import org.krysalis.barcode4j.output.RenderLimitExceededException;
+import org.krysalis.barcode4j.output.RenderLimits;
+import org.krysalis.barcode4j.servlet.BarcodeRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates barcodes from the query parameters of GET requests, using the same parameters as
+ * {@link org.krysalis.barcode4j.servlet.BarcodeServlet}.
+ *
+ * @since 2.4.1
+ */
+final class BarcodeHandler implements HttpHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BarcodeHandler.class);
+
+    private final ServerMetrics metrics;
+    private final Semaphore renderPermits;
+    private final String cacheControl;
+    private final RenderLimits renderLimits;
+
+    /**
+     * Creates the handler.
+     * @param metrics receives the request counters
+     * @param maxConcurrentRenders the maximum number of barcodes generated at the same time
+     * @param cacheControl the Cache-Control header sent with barcodes, may be null
+     * @param renderLimits the budgets every barcode is checked against before it is generated
+     */
+    BarcodeHandler(ServerMetrics metrics, int maxConcurrentRenders, String cacheControl, RenderLimits renderLimits) {
+        this.metrics = metrics;
+        this.renderPermits = new Semaphore(maxConcurrentRenders);
+        this.cacheControl = cacheControl;
+        this.renderLimits = renderLimits;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        metrics.requestStarted();
+        int status = 500;
+        try {
+            status = respond(exchange);
+        } finally {
+            metrics.requestFinished(status);
+            exchange.close();
+        }
+    }
+
+    private int respond(HttpExchange exchange) throws IOException {
+        final String method = exchange.getRequestMethod();
+        final boolean head = "HEAD".equals(method);
+        if (!head && !"GET".equals(method)) {
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+            return sendText(exchange, 405, "Method not allowed");
+        }
+
+        final BarcodeRequest barcode;
+        final BarcodeGenerator gen;
+        try {
+            final Map<String, String> params = BarcodeRequest.parseQueryString(exchange.getRequestURI().getRawQuery());
+            barcode = BarcodeRequest.parse(params::get);
+            gen = barcode.createGenerator();
+        } catch (final IllegalArgumentException | ConfigurationException | BarcodeException e) {
+            return sendText(exchange, 400, "Invalid barcode request: " + e.getMessage());
+        }
+
+        final String etag = barcode.computeETag();
+        final Headers headers = exchange.getResponseHeaders();
+        if (etag != null) {
+            headers.set("ETag", etag);
+        }
+        if (cacheControl != null) {
+            headers.set("Cache-Control", cacheControl);
+        }
+        if (etag != null && BarcodeRequest.matchesETag(exchange.getRequestHeaders().getFirst("If-None-Match"), etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return 304;
+        }
+
+        try {
+            barcode.checkLimits(renderLimits, gen);
+        } catch (final RenderLimitExceededException e) {
+            headers.remove("ETag");
+            headers.remove("Cache-Control");
+            return sendText(exchange, 413, "Barcode too large: " + e.getMessage());
+        } catch (final IllegalArgumentException e) {
+            //a message that cannot be encoded with the symbology
+            headers.remove("ETag");
+            headers.remove("Cache-Control");
+            return sendText(exchange, 422, "Invalid barcode message: " + e.getMessage());
+        }
+
+        final ByteArrayOutputStream bout = new ByteArrayOutputStream(4096);
+        final long start = System.nanoTime();
+        try {
+            renderPermits.acquire();
+            try {
+                barcode.generate(gen, bout);
+            } finally {
+                renderPermits.release();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            headers.set("Retry-After", "1");
+            return sendText(exchange, 503, "Server is shutting down");
+        } catch (final IllegalArgumentException e) {
+            //e.g. a message that is rejected only while the barcode is painted
+            headers.remove("ETag");
+            headers.remove("Cache-Control");
+            return sendText(exchange, 400, "Invalid barcode request: " + e.getMessage());
+        } catch (final Exception e) {
+            LOG.error("Error generating barcode", e);
+            headers.remove("ETag");
+            headers.remove("Cache-Control");
+            return sendText(exchange, 500, "Error generating barcode");
+        }
+        metrics.barcodeRendered(System.nanoTime() - start, bout.size());
+
+        headers.set("Content-Type", barcode.getContentType());
+        if (barcode.getContentEncoding() != null) {
+            headers.set("Content-Encoding", barcode.getContentEncoding());
+        }
+        if (head) {
+            headers.set("Content-Length", Integer.toString(bout.size()));
+            exchange.sendResponseHeaders(200, -1);
+        } else {
+            exchange.sendResponseHeaders(200, bout.size());
+            try (OutputStream out = exchange.getResponseBody()) {
+                bout.writeTo(out);
+            }
+        }
+        return 200;
+    }
+
+    /**
+     * Sends a plain text response.
+     * @return the status
+     */
+    static int sendText(HttpExchange exchange, int status, String text) throws IOException {
+        final byte[] body = text.concat("\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        return status;
+    }
+}
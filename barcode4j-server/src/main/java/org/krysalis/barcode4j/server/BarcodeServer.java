@@ -0,0 +1,316 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.krysalis.barcode4j.output.RenderLimits;
+import org.krysalis.barcode4j.tools.ThreadUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Standalone barcode server built on the JDK's HTTP server. It answers GET requests with barcodes
+ * using the same request parameters as {@link org.krysalis.barcode4j.servlet.BarcodeServlet}
+ * (including ETags and conditional requests) and provides two further endpoints:
+ * <ul>
+ *   <li>/health: "UP" (200) while the server is running, "DOWN" (503) once it is shutting down</li>
+ *   <li>/metrics: request counters in the Prometheus text format (see {@link ServerMetrics})</li>
+ * </ul>
+ * <p>
+ * Requests are handled on virtual threads when running on Java 21 or later, and on a fixed pool of
+ * platform threads otherwise. Either way, no more barcodes are generated at the same time than
+ * there are processors, and barcodes over the budgets of {@link RenderLimits#DEFAULT} (or the
+ * limits given to the constructor) are rejected with 413 before they are rendered. The server
+ * can be started from the command line with
+ * <code>java -jar barcode4j-server.jar [--host HOST] [--port PORT] [--threads N]
+ * [--cache-control VALUE] [--shutdown-timeout SECONDS]</code>; it shuts down gracefully when
+ * the JVM is asked to terminate.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+public class BarcodeServer implements AutoCloseable {
+
+    /** The default port */
+    public static final int DEFAULT_PORT = 8080;
+    /** The default time to wait for running requests when shutting down (in seconds) */
+    public static final int DEFAULT_SHUTDOWN_TIMEOUT = 10;
+
+    private static final Logger LOG = LoggerFactory.getLogger(BarcodeServer.class);
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ServerMetrics metrics = new ServerMetrics();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean running;
+
+    /**
+     * Creates a server handling requests on virtual threads if available (see
+     * {@link #createExecutor(int)}).
+     * @param address the address to listen on (port 0 for any free port)
+     * @param cacheControl the Cache-Control header sent with barcodes, may be null
+     * @throws IOException if the server socket cannot be bound
+     */
+    public BarcodeServer(InetSocketAddress address, String cacheControl) throws IOException {
+        this(address, createExecutor(0), cacheControl);
+    }
+
+    /**
+     * Creates a server.
+     * @param address the address to listen on (port 0 for any free port)
+     * @param executor handles the requests. It is shut down when the server is stopped.
+     * @param cacheControl the Cache-Control header sent with barcodes, may be null
+     * @throws IOException if the server socket cannot be bound
+     */
+    public BarcodeServer(InetSocketAddress address, ExecutorService executor, String cacheControl) throws IOException {
+        this(address, executor, cacheControl, RenderLimits.DEFAULT);
+    }
+
+    /**
+     * Creates a server.
+     * @param address the address to listen on (port 0 for any free port)
+     * @param executor handles the requests. It is shut down when the server is stopped.
+     * @param cacheControl the Cache-Control header sent with barcodes, may be null
+     * @param renderLimits the budgets every barcode is checked against before it is generated
+     * @throws IOException if the server socket cannot be bound
+     */
+    public BarcodeServer(InetSocketAddress address, ExecutorService executor, String cacheControl,
+                         RenderLimits renderLimits) throws IOException {
+        this.executor = executor;
+        this.server = HttpServer.create(address, 0);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", new BarcodeHandler(
+            metrics, Runtime.getRuntime().availableProcessors(), cacheControl, renderLimits));
+        this.server.createContext("/health", this::handleHealth);
+        this.server.createContext("/metrics", this::handleMetrics);
+    }
+
+    /**
+     * Creates the executor handling requests: one virtual thread per request when running on Java
+     * 21 or later and no number of threads is given, otherwise a fixed pool of platform threads.
+     * @param threads the number of platform threads, 0 to use virtual threads if available
+     *      (otherwise twice the number of processors)
+     * @return the executor
+     */
+    public static ExecutorService createExecutor(int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("The number of threads must not be negative: " + threads);
+        }
+        if (threads == 0) {
+            final ExecutorService virtualThreads = ThreadUtil.newVirtualThreadPerTaskExecutor();
+            if (virtualThreads != null) {
+                return virtualThreads;
+            }
+            threads = 2 * Runtime.getRuntime().availableProcessors();
+        }
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, (r) -> {
+            final Thread thread = new Thread(r, "barcode4j-server-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts accepting requests.
+     */
+    public void start() {
+        server.start();
+        running = true;
+        LOG.info("Barcode server listening on {}", getAddress());
+    }
+
+    /**
+     * Returns the address the server listens on.
+     * @return the address (with the actual port if the server was created with port 0)
+     */
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Returns the server's counters.
+     * @return the metrics
+     */
+    public ServerMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Indicates whether the server is accepting requests.
+     * @return true if the server is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops the server gracefully: the health endpoint reports "DOWN" at once, so load balancers
+     * stop sending requests, and the requests that are being processed are given some time to
+     * finish before the server socket is closed.
+     * @param timeoutSeconds the maximum time to wait for running requests (in seconds)
+     */
+    public void stop(int timeoutSeconds) {
+        if (stopped.getCount() == 0) {
+            return;
+        }
+        running = false;
+        try {
+            //HttpServer.stop() waits for the full delay before Java 21, so wait for the requests here
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+            while (metrics.getInFlightCount() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(20);
+            }
+            server.stop(0);
+            executor.shutdown();
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped.countDown();
+        }
+        LOG.info("Barcode server stopped");
+    }
+
+    /**
+     * Stops the server, waiting for running requests up to {@value #DEFAULT_SHUTDOWN_TIMEOUT}
+     * seconds.
+     */
+    @Override
+    public void close() {
+        stop(DEFAULT_SHUTDOWN_TIMEOUT);
+    }
+
+    /**
+     * Waits until the server has been stopped.
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try {
+            BarcodeHandler.sendText(exchange, running ? 200 : 503, running ? "UP" : "DOWN");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            final StringBuilder sb = new StringBuilder(2048);
+            metrics.writeTo(sb);
+            final byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Starts a barcode server from the command line and keeps it running until the JVM is asked to
+     * terminate.
+     * @param args the command line arguments
+     * @throws Exception if the server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        final BarcodeServer server;
+        try {
+            server = fromArguments(args);
+        } catch (final IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: java -jar barcode4j-server.jar [--host HOST] [--port PORT] [--threads N]"
+                + " [--cache-control VALUE] [--shutdown-timeout SECONDS]");
+            System.exit(1);
+            return;
+        }
+        final int shutdownTimeout = intArgument(args, "--shutdown-timeout", DEFAULT_SHUTDOWN_TIMEOUT);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(shutdownTimeout), "barcode4j-server-shutdown"));
+        server.start();
+        server.awaitStop();
+    }
+
+    /**
+     * Creates a (not yet started) server from command line arguments.
+     * @param args the command line arguments
+     * @return the server
+     * @throws IOException if the server socket cannot be bound
+     * @throws IllegalArgumentException if the arguments are invalid
+     */
+    static BarcodeServer fromArguments(String[] args) throws IOException {
+        for (int i = 0; i < args.length; i += 2) {
+            switch (args[i]) {
+                case "--host":
+                case "--port":
+                case "--threads":
+                case "--cache-control":
+                case "--shutdown-timeout":
+                    if (i + 1 >= args.length) {
+                        throw new IllegalArgumentException("Missing value for " + args[i]);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+        final String host = argument(args, "--host");
+        final int port = intArgument(args, "--port", DEFAULT_PORT);
+        final InetSocketAddress address = host != null ? new InetSocketAddress(host, port) : new InetSocketAddress(port);
+        return new BarcodeServer(address, createExecutor(intArgument(args, "--threads", 0)), argument(args, "--cache-control"));
+    }
+
+    private static String argument(String[] args, String name) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (args[i].equals(name)) {
+                return args[i + 1];
+            }
+        }
+        return null;
+    }
+
+    private static int intArgument(String[] args, String name, int defaultValue) {
+        final String value = argument(args, name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final int result = Integer.parseInt(value);
+            if (result >= 0) {
+                return result;
+            }
+        } catch (final NumberFormatException e) {
+            //handled below
+        }
+        throw new IllegalArgumentException("Invalid value for " + name + ": " + value);
+    }
+}
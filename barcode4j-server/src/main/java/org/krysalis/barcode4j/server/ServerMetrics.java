@@ -0,0 +1,115 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.server;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a {@link BarcodeServer}, written by the /metrics endpoint in the Prometheus text
+ * exposition format. All methods are thread-safe.
+ *
+ * @since 2.4.1
+ */
+public final class ServerMetrics {
+
+    private final long startTime = System.nanoTime();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder barcodes = new LongAdder();
+    private final LongAdder renderNanos = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    void requestStarted() {
+        requests.increment();
+        inFlight.incrementAndGet();
+    }
+
+    void requestFinished(int status) {
+        inFlight.decrementAndGet();
+        if (status == 304) {
+            notModified.increment();
+        } else if (status == 503) {
+            rejected.increment();
+        } else if (status >= 500) {
+            serverErrors.increment();
+        } else if (status >= 400) {
+            clientErrors.increment();
+        }
+    }
+
+    void barcodeRendered(long nanos, int bytes) {
+        barcodes.increment();
+        renderNanos.add(nanos);
+        bytesSent.add(bytes);
+    }
+
+    /**
+     * Returns the number of barcode requests received.
+     * @return the number of requests
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * Returns the number of barcodes generated.
+     * @return the number of barcodes
+     */
+    public long getBarcodeCount() {
+        return barcodes.sum();
+    }
+
+    /**
+     * Returns the number of barcode requests currently being processed.
+     * @return the number of requests
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Writes the metrics in the Prometheus text exposition format.
+     * @param out receives the metrics
+     */
+    public void writeTo(StringBuilder out) {
+        counter(out, "barcode4j_requests_total", "Barcode requests received", requests.sum());
+        counter(out, "barcode4j_not_modified_total", "Requests answered with 304 (Not Modified)", notModified.sum());
+        counter(out, "barcode4j_client_errors_total", "Requests answered with a 4xx status", clientErrors.sum());
+        counter(out, "barcode4j_server_errors_total", "Requests answered with a 5xx status other than 503", serverErrors.sum());
+        counter(out, "barcode4j_rejected_total", "Requests rejected with 503 (Service Unavailable)", rejected.sum());
+        counter(out, "barcode4j_barcodes_total", "Barcodes generated", barcodes.sum());
+        counter(out, "barcode4j_render_seconds_total", "Time spent generating barcodes",
+            renderNanos.sum() / (double) TimeUnit.SECONDS.toNanos(1));
+        counter(out, "barcode4j_response_bytes_total", "Bytes of generated barcodes sent", bytesSent.sum());
+        metric(out, "barcode4j_requests_in_flight", "gauge", "Barcode requests being processed", inFlight.get());
+        metric(out, "barcode4j_uptime_seconds", "gauge", "Time since the server was created",
+            (System.nanoTime() - startTime) / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static void counter(StringBuilder out, String name, String help, Number value) {
+        metric(out, name, "counter", help, value);
+    }
+
+    private static void metric(StringBuilder out, String name, String type, String help, Number value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append(name).append(' ').append(value).append('\n');
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * This package contains a standalone HTTP server creating barcodes, built on the JDK's HTTP server.
+ */
+package org.krysalis.barcode4j.server;
@@ -0,0 +1,130 @@
+package org.krysalis.barcode4j.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BarcodeServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private BarcodeServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new BarcodeServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), "public, max-age=60");
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void testBarcode() throws Exception {
+        final HttpResponse<byte[]> response = get("/?type=datamatrix&msg=Hello%20World&fmt=png", null);
+        assertEquals(200, response.statusCode());
+        assertEquals("image/png", response.headers().firstValue("Content-Type").orElse(null));
+        assertEquals("public, max-age=60", response.headers().firstValue("Cache-Control").orElse(null));
+        assertEquals((byte) 0x89, response.body()[0]);
+
+        final String etag = response.headers().firstValue("ETag").orElseThrow();
+        final HttpResponse<byte[]> notModified = get("/barcode?msg=Hello+World&fmt=image/png&type=datamatrix", etag);
+        assertEquals(304, notModified.statusCode());
+        assertEquals(0, notModified.body().length);
+
+        final HttpResponse<byte[]> svgz = get("/?msg=123&fmt=svgz", null);
+        assertEquals("image/svg+xml", svgz.headers().firstValue("Content-Type").orElse(null));
+        assertEquals("gzip", svgz.headers().firstValue("Content-Encoding").orElse(null));
+
+        assertEquals(3, server.getMetrics().getRequestCount());
+        assertEquals(2, server.getMetrics().getBarcodeCount());
+    }
+
+    @Test
+    void testInvalidRequests() throws Exception {
+        assertEquals(400, get("/?type=no-such-barcode", null).statusCode());
+        assertEquals(400, get("/?type=ean-13&msg=letters", null).statusCode());
+        assertEquals(400, get("/?fmt=png&res=5", null).statusCode());
+        assertEquals(413, get("/?fmt=png&res=9600", null).statusCode());
+        assertEquals(422, get("/?type=datamatrix&msg=" + "x".repeat(5000), null).statusCode());
+
+        final HttpResponse<String> post = client.send(HttpRequest.newBuilder(uri("/?msg=1"))
+            .POST(HttpRequest.BodyPublishers.noBody()).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, post.statusCode());
+        assertEquals("GET, HEAD", post.headers().firstValue("Allow").orElse(null));
+    }
+
+    @Test
+    void testHealthAndMetrics() throws Exception {
+        final HttpResponse<String> health = client.send(HttpRequest.newBuilder(uri("/health")).build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, health.statusCode());
+        assertEquals("UP", health.body().trim());
+
+        get("/?msg=42", null);
+        get("/?type=unknown", null);
+        final HttpResponse<String> metrics = client.send(HttpRequest.newBuilder(uri("/metrics")).build(),
+            HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, metrics.statusCode());
+        assertTrue(metrics.body().contains("\nbarcode4j_requests_total 2\n"), metrics.body());
+        assertTrue(metrics.body().contains("\nbarcode4j_client_errors_total 1\n"), metrics.body());
+        assertTrue(metrics.body().contains("# TYPE barcode4j_requests_in_flight gauge\n"), metrics.body());
+
+        assertTrue(server.isRunning());
+        server.stop(0);
+        assertFalse(server.isRunning());
+        assertThrows(IOException.class, () -> get("/health", null));
+    }
+
+    @Test
+    void testExecutor() throws Exception {
+        final ExecutorService pool = BarcodeServer.createExecutor(3);
+        assertEquals(Boolean.TRUE, pool.submit(() -> Thread.currentThread().getName().startsWith("barcode4j-server-")).get());
+        pool.shutdown();
+        assertThrows(IllegalArgumentException.class, () -> BarcodeServer.createExecutor(-1));
+
+        // virtual threads are used on Java 21+
+        final ExecutorService automatic = BarcodeServer.createExecutor(0);
+        final boolean virtual = automatic.submit(() -> Thread.currentThread().toString().startsWith("VirtualThread")).get();
+        assertEquals(Runtime.version().feature() >= 21, virtual);
+        automatic.shutdown();
+    }
+
+    @Test
+    void testArguments() throws Exception {
+        final BarcodeServer configured = BarcodeServer.fromArguments(
+            new String[] {"--host", "127.0.0.1", "--port", "0", "--threads", "2", "--cache-control", "no-cache"});
+        try {
+            assertEquals("127.0.0.1", configured.getAddress().getAddress().getHostAddress());
+        } finally {
+            configured.stop(0);
+        }
+        assertThrows(IllegalArgumentException.class, () -> BarcodeServer.fromArguments(new String[] {"--port"}));
+        assertThrows(IllegalArgumentException.class, () -> BarcodeServer.fromArguments(new String[] {"--port", "x"}));
+        assertThrows(IllegalArgumentException.class, () -> BarcodeServer.fromArguments(new String[] {"--verbose", "1"}));
+    }
+
+    private HttpResponse<byte[]> get(String path, String ifNoneMatch) throws Exception {
+        final HttpRequest.Builder request = HttpRequest.newBuilder(uri(path));
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+}
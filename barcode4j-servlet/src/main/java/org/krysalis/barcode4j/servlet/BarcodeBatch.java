@@ -0,0 +1,548 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.servlet;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+import java.util.zip.ZipOutputStream;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.krysalis.barcode4j.BarcodeException;
+import org.krysalis.barcode4j.BarcodeGenerator;
+import org.krysalis.barcode4j.configuration.ConfigurationException;
+import org.krysalis.barcode4j.output.CancellationToken;
+import org.krysalis.barcode4j.output.RenderLimitExceededException;
+import org.krysalis.barcode4j.output.RenderLimits;
+import org.krysalis.barcode4j.output.svg.AbstractSVGGeneratingCanvasProvider;
+import org.krysalis.barcode4j.output.svg.StreamingSVGCanvasProvider;
+import org.krysalis.barcode4j.tools.ConfigurationUtil;
+import org.krysalis.barcode4j.tools.IOUtil;
+import org.krysalis.barcode4j.tools.MimeTypes;
+
+/**
+ * A batch of barcodes requested with a single POST request to {@link BarcodeServlet}.
+ * <p>
+ * The barcodes are read from the request on the request thread, including their generators (one
+ * per distinct configuration), so invalid entries are reported before anything is written to the
+ * response. They are then generated in parallel and written to the response in the order of the
+ * request as soon as they are available. A barcode that cannot be generated (e.g. because its
+ * message is invalid for the symbology) doesn't fail the whole batch: its place in the output is
+ * taken by an error message.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+final class BarcodeBatch {
+
+    /** Form parameter containing a barcode entry as a query string (may be repeated) */
+    static final String PARAM_BARCODE = "barcode";
+    /** JSON property containing the array of barcode entries */
+    static final String PARAM_BARCODES = "barcodes";
+    /** Parameter name for the output format of the batch ("zip", "multipart" or "sprite") */
+    static final String PARAM_OUTPUT = "output";
+    /** Parameter name for the ID of a barcode (used for file names and symbol IDs) */
+    static final String PARAM_ID = "id";
+
+    /** The number of characters of a JSON request body allowed per barcode */
+    private static final int MAX_CHARS_PER_BARCODE = 4096;
+
+    private static final Pattern ID_PATTERN = Pattern.compile("[A-Za-z0-9_][A-Za-z0-9._-]{0,63}");
+
+    /** The output formats of a batch. */
+    enum Output {
+        /** A ZIP archive with one file per barcode */
+        ZIP,
+        /** A multipart/mixed response with one part per barcode */
+        MULTIPART,
+        /** An SVG sprite sheet with one symbol element per barcode */
+        SPRITE
+    }
+
+    private final Output output;
+    private final List<Entry> entries;
+
+    private BarcodeBatch(Output output, List<Entry> entries) {
+        this.output = output;
+        this.entries = entries;
+    }
+
+    /**
+     * Reads a batch of barcodes from a POST request. The request body is either JSON (if the
+     * content type is application/json) or form data.
+     * @param request the request
+     * @param maxSize the maximum number of barcodes in the batch
+     * @param limits the render limits every barcode is checked against
+     * @return the batch
+     * @throws BatchException if the request is invalid or a barcode exceeds the render limits
+     * @throws IOException if the request body cannot be read
+     */
+    static BarcodeBatch parse(HttpServletRequest request, int maxSize, RenderLimits limits) throws BatchException, IOException {
+        final Map<String, String> defaults = new HashMap<>();
+        for (final Map.Entry<String, String[]> param : request.getParameterMap().entrySet()) {
+            if (!PARAM_BARCODE.equals(param.getKey()) && param.getValue().length > 0) {
+                defaults.put(param.getKey(), param.getValue()[0]);
+            }
+        }
+
+        final List<Map<String, String>> params;
+        final String contentType = request.getContentType();
+        if (contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("application/json")) {
+            params = readJson(request, defaults, maxSize);
+        } else {
+            final String[] barcodes = request.getParameterValues(PARAM_BARCODE);
+            params = new ArrayList<>();
+            if (barcodes != null) {
+                checkSize(barcodes.length, maxSize);
+                for (final String barcode : barcodes) {
+                    params.add(parseQueryString(barcode));
+                }
+            }
+        }
+        if (params.isEmpty()) {
+            throw new BatchException(HttpServletResponse.SC_BAD_REQUEST, "The batch contains no barcodes");
+        }
+
+        final Output output;
+        final String outputParam = defaults.get(PARAM_OUTPUT);
+        try {
+            output = outputParam != null ? Output.valueOf(outputParam.toUpperCase(Locale.ROOT)) : Output.ZIP;
+        } catch (final IllegalArgumentException e) {
+            throw new BatchException(HttpServletResponse.SC_BAD_REQUEST, "Unsupported batch output: " + outputParam);
+        }
+
+        final Map<String, BarcodeGenerator> generators = new HashMap<>();
+        final Set<String> ids = new HashSet<>();
+        final List<Entry> entries = new ArrayList<>(params.size());
+        for (final Map<String, String> entryParams : params) {
+            final Map<String, String> merged = new HashMap<>(defaults);
+            merged.putAll(entryParams);
+            final String id = merged.getOrDefault(PARAM_ID, "barcode-" + (entries.size() + 1));
+            if (!ID_PATTERN.matcher(id).matches()
+                    || (output == Output.SPRITE && !Character.isLetter(id.charAt(0)) && id.charAt(0) != '_')) {
+                throw new BatchException(HttpServletResponse.SC_BAD_REQUEST, "Invalid barcode ID: " + id);
+            }
+            if (!ids.add(id)) {
+                throw new BatchException(HttpServletResponse.SC_BAD_REQUEST, "Duplicate barcode ID: " + id);
+            }
+            final BarcodeRequest barcode;
+            final BarcodeGenerator gen;
+            try {
+                barcode = BarcodeRequest.parse(merged::get);
+                if (output == Output.SPRITE && !barcode.getFormat().equals(MimeTypes.MIME_SVG)) {
+                    throw new IllegalArgumentException("Sprite sheets require SVG barcodes");
+                }
+                gen = getGenerator(generators, barcode);
+            } catch (final IllegalArgumentException | ConfigurationException | BarcodeException e) {
+                throw new BatchException(HttpServletResponse.SC_BAD_REQUEST,
+                    "Invalid barcode " + id + ": " + e.getMessage());
+            }
+            try {
+                barcode.checkLimits(limits, gen);
+            } catch (final RenderLimitExceededException e) {
+                throw new BatchException(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                    "Barcode " + id + " is too large: " + e.getMessage());
+            } catch (final IllegalArgumentException e) {
+                //the message cannot be encoded, which is reported like any other rendering error
+            }
+            entries.add(new Entry(id, barcode, gen));
+        }
+        return new BarcodeBatch(output, entries);
+    }
+
+    private static void checkSize(int size, int maxSize) throws BatchException {
+        if (size > maxSize) {
+            throw new BatchException(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE,
+                "The batch contains more than " + maxSize + " barcodes");
+        }
+    }
+
+    /** Returns the generator shared by all barcodes with an equivalent configuration. */
+    private static BarcodeGenerator getGenerator(Map<String, BarcodeGenerator> generators, BarcodeRequest barcode)
+            throws ConfigurationException, BarcodeException {
+        String key;
+        try {
+            key = ConfigurationUtil.toCanonicalString(barcode.getConfiguration());
+        } catch (final UnsupportedOperationException e) {
+            key = null;
+        }
+        BarcodeGenerator gen = key != null ? generators.get(key) : null;
+        if (gen == null) {
+            gen = barcode.createGenerator();
+            if (key != null) {
+                generators.put(key, gen);
+            }
+        }
+        return gen;
+    }
+
+    private static List<Map<String, String>> readJson(HttpServletRequest request, Map<String, String> defaults,
+            int maxSize) throws BatchException, IOException {
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        }
+        final long maxChars = (long) maxSize * MAX_CHARS_PER_BARCODE;
+        final StringBuilder json = new StringBuilder();
+        final BufferedReader reader = request.getReader();
+        final char[] buffer = new char[8192];
+        int count;
+        while ((count = reader.read(buffer)) >= 0) {
+            json.append(buffer, 0, count);
+            if (json.length() > maxChars) {
+                throw new BatchException(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "The request body is too large");
+            }
+        }
+
+        final Object barcodes;
+        try {
+            final Object root = JsonParser.parse(json);
+            if (root instanceof Map) {
+                final Map<?, ?> map = (Map<?, ?>) root;
+                for (final Map.Entry<?, ?> property : map.entrySet()) {
+                    if (!PARAM_BARCODES.equals(property.getKey()) && property.getValue() != null) {
+                        defaults.put((String) property.getKey(), toParameterValue(property.getValue()));
+                    }
+                }
+                barcodes = map.get(PARAM_BARCODES);
+            } else {
+                barcodes = root;
+            }
+            if (!(barcodes instanceof List)) {
+                throw new IllegalArgumentException("Expected an array of barcodes");
+            }
+            final List<?> list = (List<?>) barcodes;
+            checkSize(list.size(), maxSize);
+            final List<Map<String, String>> params = new ArrayList<>(list.size());
+            for (final Object barcode : list) {
+                if (!(barcode instanceof Map)) {
+                    throw new IllegalArgumentException("Expected a barcode object");
+                }
+                final Map<String, String> entry = new LinkedHashMap<>();
+                for (final Map.Entry<?, ?> property : ((Map<?, ?>) barcode).entrySet()) {
+                    if (property.getValue() != null) {
+                        entry.put((String) property.getKey(), toParameterValue(property.getValue()));
+                    }
+                }
+                params.add(entry);
+            }
+            return params;
+        } catch (final IllegalArgumentException e) {
+            throw new BatchException(HttpServletResponse.SC_BAD_REQUEST, "Invalid JSON request: " + e.getMessage());
+        }
+    }
+
+    private static String toParameterValue(Object value) {
+        if (value instanceof String || value instanceof Boolean) {
+            return value.toString();
+        }
+        throw new IllegalArgumentException("Barcode parameters must be strings, numbers or booleans");
+    }
+
+    private static Map<String, String> parseQueryString(String query) throws BatchException {
+        try {
+            return BarcodeRequest.parseQueryString(query);
+        } catch (final IllegalArgumentException e) {
+            throw new BatchException(HttpServletResponse.SC_BAD_REQUEST, "Invalid barcode parameters: " + query);
+        }
+    }
+
+    /**
+     * Returns the number of barcodes in the batch.
+     * @return the number of barcodes
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the output format of the batch.
+     * @return the output format
+     */
+    Output getOutput() {
+        return output;
+    }
+
+    /**
+     * Generates the barcodes and writes them to the response.
+     * @param response the response
+     * @param executor generates the barcodes. If it rejects a barcode, the barcode is generated on
+     *      the calling thread.
+     * @param window the maximum number of barcodes generated ahead of the one written next
+     * @param token abandons the barcodes: they are reported as errors once it is cancelled. It is
+     *      cancelled if the response cannot be written.
+     * @throws IOException if an I/O error occurs
+     */
+    void write(HttpServletResponse response, Executor executor, int window, CancellationToken token)
+            throws IOException {
+        final BatchWriter writer;
+        switch (output) {
+            case MULTIPART:
+                writer = new MultipartWriter();
+                break;
+            case SPRITE:
+                writer = new SpriteWriter();
+                break;
+            default:
+                writer = new ZipWriter();
+        }
+
+        final ArrayDeque<Entry> pending = new ArrayDeque<>();
+        try {
+            writer.start(response);
+            final OutputStream out = response.getOutputStream();
+            for (final Entry entry : entries) {
+                if (pending.size() >= window) {
+                    writer.write(out, pending.peek(), await(pending.poll()));
+                }
+                entry.task = new FutureTask<>(() -> render(entry, token));
+                pending.add(entry);
+                try {
+                    executor.execute(entry.task);
+                } catch (final RejectedExecutionException e) {
+                    entry.task.run();
+                }
+            }
+            while (!pending.isEmpty()) {
+                writer.write(out, pending.peek(), await(pending.poll()));
+            }
+            writer.finish(out);
+            out.flush();
+        } finally {
+            if (!pending.isEmpty()) {
+                //e.g. the client has gone away: stop the barcodes being generated as well
+                token.cancel();
+            }
+            for (final Entry entry : pending) {
+                entry.task.cancel(false);
+            }
+        }
+    }
+
+    private Result render(Entry entry, CancellationToken token) {
+        try (CancellationToken.Binding binding = token.bind()) {
+            final ByteArrayOutputStream bout = new ByteArrayOutputStream(4096);
+            if (output == Output.SPRITE) {
+                final Writer writer = new OutputStreamWriter(bout, StandardCharsets.UTF_8);
+                final StreamingSVGCanvasProvider svg = new StreamingSVGCanvasProvider(writer, null, 0);
+                svg.setCompact(entry.barcode.isCompact());
+                svg.setSymbolId(entry.id);
+                entry.gen.generateBarcode(svg, entry.barcode.getMessage());
+                svg.finish();
+            } else {
+                entry.barcode.generate(entry.gen, bout);
+            }
+            return new Result(bout.toByteArray(), null);
+        } catch (final Exception e) {
+            return new Result(null, e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+        }
+    }
+
+    private static Result await(Entry entry) throws IOException {
+        try {
+            return entry.task.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while generating barcode " + entry.id);
+        } catch (final ExecutionException e) {
+            throw new IOException("Error generating barcode " + entry.id, e.getCause());
+        }
+    }
+
+    /** Thrown if a batch request is invalid. */
+    static final class BatchException extends Exception {
+
+        private static final long serialVersionUID = 2541327346398167364L;
+
+        private final int status;
+
+        BatchException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        /**
+         * Returns the HTTP status to answer the request with.
+         * @return the status code
+         */
+        int getStatus() {
+            return status;
+        }
+    }
+
+    /** A barcode of the batch. */
+    private static final class Entry {
+        private final String id;
+        private final BarcodeRequest barcode;
+        private final BarcodeGenerator gen;
+        private FutureTask<Result> task;
+
+        private Entry(String id, BarcodeRequest barcode, BarcodeGenerator gen) {
+            this.id = id;
+            this.barcode = barcode;
+            this.gen = gen;
+        }
+    }
+
+    /** A generated barcode or the reason why it could not be generated. */
+    private static final class Result {
+        private final byte[] data;
+        private final String error;
+
+        private Result(byte[] data, String error) {
+            this.data = data;
+            this.error = error;
+        }
+    }
+
+    /** Writes the generated barcodes in one of the output formats. */
+    private interface BatchWriter {
+        void start(HttpServletResponse response);
+
+        void write(OutputStream out, Entry entry, Result result) throws IOException;
+
+        void finish(OutputStream out) throws IOException;
+    }
+
+    /** Writes a ZIP archive. Barcodes that are compressed already are stored uncompressed. */
+    private static final class ZipWriter implements BatchWriter {
+        private ZipOutputStream zip;
+
+        @Override
+        public void start(HttpServletResponse response) {
+            response.setContentType("application/zip");
+            response.setHeader("Content-Disposition", "attachment; filename=\"barcodes.zip\"");
+        }
+
+        @Override
+        public void write(OutputStream out, Entry entry, Result result) throws IOException {
+            if (zip == null) {
+                zip = new ZipOutputStream(out);
+            }
+            if (result.error != null) {
+                IOUtil.writeZipEntry(zip, entry.id + ".error.txt", "text/plain",
+                        result.error.getBytes(StandardCharsets.UTF_8));
+            } else {
+                final String format = entry.barcode.getFormat();
+                IOUtil.writeZipEntry(zip, entry.id + '.' + MimeTypes.getFileExtension(format), format, result.data);
+            }
+        }
+
+        @Override
+        public void finish(OutputStream out) throws IOException {
+            if (zip != null) {
+                zip.finish();
+            }
+        }
+    }
+
+    /** Writes a multipart/mixed response. */
+    private static final class MultipartWriter implements BatchWriter {
+        private final String boundary = "barcode4j-" + Long.toHexString(ThreadLocalRandom.current().nextLong())
+            + Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+        @Override
+        public void start(HttpServletResponse response) {
+            response.setContentType("multipart/mixed; boundary=" + boundary);
+        }
+
+        @Override
+        public void write(OutputStream out, Entry entry, Result result) throws IOException {
+            final StringBuilder headers = new StringBuilder("--").append(boundary).append("\r\n");
+            final byte[] data;
+            if (result.error != null) {
+                data = result.error.getBytes(StandardCharsets.UTF_8);
+                headers.append("Content-Type: text/plain; charset=UTF-8\r\n");
+                headers.append("Content-Disposition: attachment; filename=\"").append(entry.id).append(".error.txt\"\r\n");
+            } else {
+                data = result.data;
+                final String format = entry.barcode.getFormat();
+                if (format.equals(MimeTypes.MIME_SVGZ)) {
+                    headers.append("Content-Type: ").append(MimeTypes.MIME_SVG).append("\r\n");
+                    headers.append("Content-Encoding: gzip\r\n");
+                } else {
+                    headers.append("Content-Type: ").append(format).append("\r\n");
+                }
+                headers.append("Content-Disposition: attachment; filename=\"").append(entry.id).append('.')
+                    .append(MimeTypes.getFileExtension(format)).append("\"\r\n");
+            }
+            headers.append("Content-ID: <").append(entry.id).append(">\r\n");
+            headers.append("Content-Length: ").append(data.length).append("\r\n\r\n");
+            out.write(headers.toString().getBytes(StandardCharsets.US_ASCII));
+            out.write(data);
+            out.write(new byte[] {'\r', '\n'});
+        }
+
+        @Override
+        public void finish(OutputStream out) throws IOException {
+            out.write(("--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    /** Writes an SVG sprite sheet. Errors are written as comments. */
+    private static final class SpriteWriter implements BatchWriter {
+        private boolean started;
+
+        @Override
+        public void start(HttpServletResponse response) {
+            response.setContentType(MimeTypes.MIME_SVG);
+        }
+
+        @Override
+        public void write(OutputStream out, Entry entry, Result result) throws IOException {
+            startDocument(out);
+            if (result.error != null) {
+                final String comment = "<!-- " + entry.id + ": " + result.error.replaceAll("-(?=-)", "- ") + " -->\n";
+                out.write(comment.getBytes(StandardCharsets.UTF_8));
+            } else {
+                out.write(result.data);
+            }
+        }
+
+        @Override
+        public void finish(OutputStream out) throws IOException {
+            startDocument(out);
+            out.write("</svg>\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void startDocument(OutputStream out) throws IOException {
+            if (!started) {
+                started = true;
+                out.write(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<svg xmlns=\""
+                    + AbstractSVGGeneratingCanvasProvider.SVG_NAMESPACE + "\">\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.servlet;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.krysalis.barcode4j.BarcodeException;
+import org.krysalis.barcode4j.BarcodeGenerator;
+import org.krysalis.barcode4j.BarcodeUtil;
+import org.krysalis.barcode4j.configuration.Configuration;
+import org.krysalis.barcode4j.configuration.ConfigurationException;
+import org.krysalis.barcode4j.configuration.DefaultConfiguration;
+import org.krysalis.barcode4j.output.BarcodeCanvasSetupException;
+import org.krysalis.barcode4j.output.RenderCost;
+import org.krysalis.barcode4j.output.RenderLimits;
+import org.krysalis.barcode4j.output.bitmap.BitmapCanvasProvider;
+import org.krysalis.barcode4j.output.eps.EPSCanvasProvider;
+import org.krysalis.barcode4j.output.svg.StreamingSVGCanvasProvider;
+import org.krysalis.barcode4j.tools.ConfigurationUtil;
+import org.krysalis.barcode4j.tools.MimeTypes;
+
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_FORMAT;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_HEIGHT;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_HUMAN_READABLE_FONT;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_HUMAN_READABLE_PATTERN;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_HUMAN_READABLE_POS;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_HUMAN_READABLE_SIZE;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_IMAGE_GRAYSCALE;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_IMAGE_RESOLUTION;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_MODULE_WIDTH;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_MSG;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_QUIET_ZONE;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_TYPE;
+import static org.krysalis.barcode4j.servlet.BarcodeServlet.BARCODE_WIDE_FACTOR;
+
+/**
+ * The settings of a barcode requested over HTTP, using the request parameters of
+ * {@link BarcodeServlet}. This class doesn't depend on the Servlet API, so the same parameter
+ * mapping can be used by other HTTP front ends. The settings are immutable, so barcodes can be
+ * generated after the request has been handed over to another thread.
+ *
+ * @since 2.4.1
+ */
+public final class BarcodeRequest {
+
+    private static final String VERSION = String.valueOf(BarcodeUtil.class.getPackage().getImplementationVersion());
+
+    private final String format;
+    private final Configuration cfg;
+    private final String msg;
+    private final boolean compact;
+    private final int resolution;
+    private final boolean gray;
+
+    private BarcodeRequest(String format, Configuration cfg, String msg, boolean compact, int resolution, boolean gray) {
+        this.format = format;
+        this.cfg = cfg;
+        this.msg = msg;
+        this.compact = compact;
+        this.resolution = resolution;
+        this.gray = gray;
+    }
+
+    /**
+     * Reads the barcode settings from a set of request parameters. The upper limits of the
+     * message length and resolution are not checked here, but by {@link #checkLimits}.
+     * @param params returns the value of a parameter or null if it is not set
+     * @return the barcode settings
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    public static BarcodeRequest parse(Function<String, String> params) {
+        return parse(determineFormat(params.apply(BARCODE_FORMAT)), buildCfg(params), params);
+    }
+
+    /**
+     * Reads the barcode settings from a set of request parameters, with the output format and
+     * barcode configuration determined elsewhere.
+     * @param format the MIME type of the output format
+     * @param cfg the barcode configuration
+     * @param params returns the value of a parameter or null if it is not set
+     * @return the barcode settings
+     * @throws IllegalArgumentException if a parameter is invalid
+     */
+    public static BarcodeRequest parse(String format, Configuration cfg, Function<String, String> params) {
+        String msg = params.apply(BARCODE_MSG);
+        if (msg == null) {
+            msg = "0123456789";
+        }
+
+        final boolean compact = MimeTypes.isCompactSVGFormat(params.apply(BARCODE_FORMAT));
+        int resolution = 300; //dpi
+        boolean gray = false;
+        if (!isVectorFormat(format)) {
+            final String resText = params.apply(BARCODE_IMAGE_RESOLUTION);
+            if (resText != null) {
+                resolution = Integer.parseInt(resText);
+            }
+            if (resolution < 10) {
+                throw new IllegalArgumentException(
+                    "Minimum resolution must be 10dpi");
+            }
+            gray = "true".equalsIgnoreCase(params.apply(BARCODE_IMAGE_GRAYSCALE));
+        }
+        return new BarcodeRequest(format, cfg, msg, compact, resolution, gray);
+    }
+
+    private static boolean isVectorFormat(String format) {
+        return format.equals(MimeTypes.MIME_SVG) || format.equals(MimeTypes.MIME_SVGZ)
+            || format.equals(MimeTypes.MIME_EPS);
+    }
+
+    /**
+     * Determines the output format from the value of the format parameter.
+     * @param format the format parameter (a MIME type or a short name such as "png"), may be null
+     * @return MIME type of the desired output format (SVG if none is given)
+     */
+    public static String determineFormat(String format) {
+        final String mime = MimeTypes.expandFormat(format);
+        return mime != null ? mime : MimeTypes.MIME_SVG;
+    }
+
+    /**
+     * Build a Configuration object from a set of parameters.
+     * @param params returns the value of a parameter or null if it is not set
+     * @return the newly built Configuration object
+     * todo: Change to bean API
+     */
+    public static Configuration buildCfg(Function<String, String> params) {
+        final DefaultConfiguration cfg = new DefaultConfiguration("barcode");
+        //Get type
+        String type = params.apply(BARCODE_TYPE);
+        if (type == null) {
+            type = "code128";
+        }
+        final DefaultConfiguration child = new DefaultConfiguration(type);
+        cfg.addChild(child);
+        //Get additional attributes
+        DefaultConfiguration attr;
+        String height = params.apply(BARCODE_HEIGHT);
+        if (height != null) {
+            attr = new DefaultConfiguration("height");
+            attr.setValue(height);
+            child.addChild(attr);
+        }
+        String moduleWidth = params.apply(BARCODE_MODULE_WIDTH);
+        if (moduleWidth != null) {
+            attr = new DefaultConfiguration("module-width");
+            attr.setValue(moduleWidth);
+            child.addChild(attr);
+        }
+        String wideFactor = params.apply(BARCODE_WIDE_FACTOR);
+        if (wideFactor != null) {
+            attr = new DefaultConfiguration("wide-factor");
+            attr.setValue(wideFactor);
+            child.addChild(attr);
+        }
+        String quietZone = params.apply(BARCODE_QUIET_ZONE);
+        if (quietZone != null) {
+            attr = new DefaultConfiguration("quiet-zone");
+            if (quietZone.startsWith("disable")) {
+                attr.setAttribute("enabled", "false");
+            } else {
+                attr.setValue(quietZone);
+            }
+            child.addChild(attr);
+        }
+
+        // creating human readable configuration according to the new Barcode Element Mappings
+        // where the human-readable has children for font name, font size, placement and
+        // custom pattern.
+        String humanReadablePosition = params.apply(BARCODE_HUMAN_READABLE_POS);
+        String pattern = params.apply(BARCODE_HUMAN_READABLE_PATTERN);
+        String humanReadableSize = params.apply(BARCODE_HUMAN_READABLE_SIZE);
+        String humanReadableFont = params.apply(BARCODE_HUMAN_READABLE_FONT);
+
+        if (!((humanReadablePosition == null)
+                && (pattern == null)
+                && (humanReadableSize == null)
+                && (humanReadableFont == null))) {
+            attr = new DefaultConfiguration("human-readable");
+
+            DefaultConfiguration subAttr;
+            if (pattern != null) {
+                subAttr = new DefaultConfiguration("pattern");
+                subAttr.setValue(pattern);
+                attr.addChild(subAttr);
+            }
+            if (humanReadableSize != null) {
+                subAttr = new DefaultConfiguration("font-size");
+                subAttr.setValue(humanReadableSize);
+                attr.addChild(subAttr);
+            }
+            if (humanReadableFont != null) {
+                subAttr = new DefaultConfiguration("font-name");
+                subAttr.setValue(humanReadableFont);
+                attr.addChild(subAttr);
+            }
+            if (humanReadablePosition != null) {
+              subAttr = new DefaultConfiguration("placement");
+              subAttr.setValue(humanReadablePosition);
+              attr.addChild(subAttr);
+            }
+
+            child.addChild(attr);
+        }
+
+        return cfg;
+    }
+
+    /**
+     * Splits a URL query string (or form-encoded body) into parameters. Only the first value of a
+     * repeated parameter is kept.
+     * @param query the raw query string, may be null
+     * @return the decoded parameters in their original order
+     * @throws IllegalArgumentException if the query string is not properly encoded
+     */
+    public static Map<String, String> parseQueryString(String query) {
+        final Map<String, String> params = new LinkedHashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (final String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            final int eq = pair.indexOf('=');
+            final String name = URLDecoder.decode(eq >= 0 ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+            final String value = eq >= 0 ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+            params.putIfAbsent(name, value);
+        }
+        return params;
+    }
+
+    /**
+     * Returns the MIME type of the output format.
+     * @return the MIME type
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns the barcode configuration.
+     * @return the configuration
+     */
+    public Configuration getConfiguration() {
+        return cfg;
+    }
+
+    /**
+     * Returns the message to encode.
+     * @return the message
+     */
+    public String getMessage() {
+        return msg;
+    }
+
+    /**
+     * Indicates whether SVG output is written in the compact form.
+     * @return true for compact SVG
+     */
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Returns the resolution of bitmap output.
+     * @return the resolution in dpi
+     */
+    public int getResolution() {
+        return resolution;
+    }
+
+    /**
+     * Indicates whether bitmap output is in grayscale (rather than black and white).
+     * @return true for grayscale
+     */
+    public boolean isGrayscale() {
+        return gray;
+    }
+
+    /**
+     * Returns the Content-Type to send the barcode with.
+     * @return the content type
+     */
+    public String getContentType() {
+        return format.equals(MimeTypes.MIME_SVGZ) ? MimeTypes.MIME_SVG : format;
+    }
+
+    /**
+     * Returns the Content-Encoding to send the barcode with.
+     * @return "gzip" for compressed SVG, otherwise null
+     */
+    public String getContentEncoding() {
+        return format.equals(MimeTypes.MIME_SVGZ) ? "gzip" : null;
+    }
+
+    /**
+     * Computes the ETag for the barcode: a hash over the Barcode4J version and the canonical form
+     * of all settings, so equivalent requests (e.g. "fmt=png" and "fmt=image/png") share the ETag.
+     * @return the quoted ETag or null if the configuration cannot be put into canonical form
+     */
+    public String computeETag() {
+        final String canonical;
+        try {
+            canonical = ConfigurationUtil.toCanonicalString(cfg);
+        } catch (final UnsupportedOperationException e) {
+            return null;
+        }
+        final StringBuilder sb = new StringBuilder(VERSION).append('\n')
+            .append(format).append('\n')
+            .append(compact).append('\n')
+            .append(resolution).append('\n')
+            .append(gray).append('\n')
+            .append(canonical).append('\n')
+            .append(msg);
+        final byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); //every Java platform supports SHA-256
+        }
+        final StringBuilder etag = new StringBuilder(34).append('"');
+        for (int i = 0; i < 16; i++) {
+            etag.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+        }
+        return etag.append('"').toString();
+    }
+
+    /**
+     * Checks whether an If-None-Match header matches an ETag (using weak comparison).
+     * @param ifNoneMatch the value of the If-None-Match header, may be null
+     * @param etag the quoted ETag
+     * @return true if the header matches
+     */
+    public static boolean matchesETag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the (shared) barcode generator for the barcode's configuration.
+     * @return the barcode generator
+     * @throws ConfigurationException if the configuration is invalid
+     * @throws BarcodeException if the barcode generator cannot be set up
+     */
+    public BarcodeGenerator createGenerator() throws ConfigurationException, BarcodeException {
+        return BarcodeUtil.getInstance().getSharedGenerator(cfg);
+    }
+
+    /**
+     * Checks whether the barcode can be generated within a set of render limits, before anything
+     * is rendered.
+     * @param limits the render limits
+     * @param gen the barcode generator for the barcode's configuration
+     * @return the estimated cost of generating the barcode
+     * @throws org.krysalis.barcode4j.output.RenderLimitExceededException if the barcode exceeds
+     *      a limit
+     * @throws IllegalArgumentException if the message cannot be encoded
+     */
+    public RenderCost checkLimits(RenderLimits limits, BarcodeGenerator gen) {
+        if (isVectorFormat(format)) {
+            return limits.check(gen, msg, 0, 0, 0);
+        }
+        return limits.check(gen, msg, 0, resolution, getImageType());
+    }
+
+    private int getImageType() {
+        return gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_BYTE_BINARY;
+    }
+
+    /**
+     * Generates the barcode.
+     * @param gen the barcode generator for the barcode's configuration
+     * @param out receives the barcode
+     * @throws IOException if an I/O error occurs
+     * @throws BarcodeCanvasSetupException if the bitmap output cannot be set up
+     */
+    public void generate(BarcodeGenerator gen, OutputStream out) throws IOException, BarcodeCanvasSetupException {
+        final int orientation = 0;
+
+        if (format.equals(MimeTypes.MIME_SVG) || format.equals(MimeTypes.MIME_SVGZ)) {
+            //Create Barcode and write it as SVG
+            final StreamingSVGCanvasProvider svg = new StreamingSVGCanvasProvider(
+                out, format.equals(MimeTypes.MIME_SVGZ), orientation);
+            svg.setCompact(compact);
+            gen.generateBarcode(svg, msg);
+            svg.finish();
+        } else if (format.equals(MimeTypes.MIME_EPS)) {
+            EPSCanvasProvider eps = new EPSCanvasProvider(out, orientation);
+            gen.generateBarcode(eps, msg);
+            eps.finish();
+        } else {
+            BitmapCanvasProvider bitmap = new BitmapCanvasProvider(
+                        out, format, resolution, getImageType(), gray, orientation);
+            gen.generateBarcode(bitmap, msg);
+            bitmap.finish();
+        }
+    }
+}
@@ -15,31 +15,86 @@
  */
 package org.krysalis.barcode4j.servlet;
 
-import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
 
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 
 import org.krysalis.barcode4j.BarcodeGenerator;
-import org.krysalis.barcode4j.BarcodeUtil;
-import org.krysalis.barcode4j.output.bitmap.BitmapCanvasProvider;
-import org.krysalis.barcode4j.output.eps.EPSCanvasProvider;
-import org.krysalis.barcode4j.output.svg.SVGCanvasProvider;
-import org.krysalis.barcode4j.tools.MimeTypes;
-
 import org.krysalis.barcode4j.configuration.Configuration;
-import org.krysalis.barcode4j.configuration.DefaultConfiguration;
+import org.krysalis.barcode4j.output.CancellationToken;
+import org.krysalis.barcode4j.output.RenderCancelledException;
+import org.krysalis.barcode4j.output.RenderLimitExceededException;
+import org.krysalis.barcode4j.output.RenderLimits;
+import org.krysalis.barcode4j.output.bitmap.BitmapEncoderRegistry;
 
 /**
  * Simple barcode servlet.
+ * <p>
+ * Every barcode is sent with an ETag which is derived from the barcode settings and the
+ * Barcode4J version, so a request with a matching <code>If-None-Match</code> header is answered
+ * with 304 (Not Modified) without generating the barcode. The servlet supports the following
+ * init parameters:
+ * </p>
+ * <ul>
+ *   <li>{@value #INIT_ASYNC}: "true" to generate barcodes asynchronously on a bounded pool of
+ *      render threads (requires async support to be enabled for the servlet)</li>
+ *   <li>{@value #INIT_RENDER_THREADS}: the number of render threads (default: the number of
+ *      processors)</li>
+ *   <li>{@value #INIT_RENDER_QUEUE}: the number of requests that may wait for a render thread
+ *      (default: {@value #DEFAULT_RENDER_QUEUE}). Further requests are rejected with 503 (Service
+ *      Unavailable).</li>
+ *   <li>{@value #INIT_RENDER_TIMEOUT}: the time in milliseconds after which a request is answered
+ *      with 503 (default: {@value #DEFAULT_RENDER_TIMEOUT}, 0 for no timeout). The barcode is
+ *      abandoned through a {@link CancellationToken}, as is the barcode of an asynchronous request
+ *      whose client has gone away. For batch requests, the timeout applies to the whole batch:
+ *      barcodes that are not generated in time are reported as errors.</li>
+ *   <li>{@value #INIT_CACHE_CONTROL}: the value of the Cache-Control header sent with barcodes
+ *      and 304 responses, e.g. "public, max-age=86400" (default: none)</li>
+ *   <li>{@value #INIT_STREAM_OUTPUT}: "true" to write barcodes directly to the response instead of
+ *      generating them into a buffer first. Barcodes that fit into the first
+ *      {@value #STREAM_BUFFER_SIZE} bytes are still sent with a Content-Length, larger ones are sent
+ *      as they are generated (using chunked transfer encoding). Errors that occur before the
+ *      response has been committed are reported normally.</li>
+ *   <li>{@value #INIT_BATCH_MAX_SIZE}: the maximum number of barcodes in a batch request (default:
+ *      {@value #DEFAULT_BATCH_MAX_SIZE}). Larger batches are rejected with 413 (Payload Too
+ *      Large).</li>
+ *   <li>{@value #INIT_MAX_MESSAGE_LENGTH}, {@value #INIT_MAX_RESOLUTION}, {@value #INIT_MAX_PIXELS}
+ *      and {@value #INIT_MAX_IMAGE_BYTES}: the budgets of a single barcode (defaults: see
+ *      {@link RenderLimits#DEFAULT}). The size of a barcode is predicted from its dimensions
+ *      before anything is rendered, and barcodes over budget are rejected with 413 (Payload Too
+ *      Large). Messages that cannot be encoded with the symbology are rejected with 422
+ *      (Unprocessable Content).</li>
+ * </ul>
+ * <p>
+ * Many barcodes can be requested at once with a POST request. Its body is either a JSON array of
+ * objects with the same parameters as a GET request (or a JSON object with such an array as its
+ * "barcodes" property and default parameters as its other properties), or form data with one
+ * "barcode" parameter per barcode, each containing the barcode's parameters as a query string.
+ * Other request parameters apply to all barcodes. An "id" parameter names a barcode in the
+ * output, which is selected by the "output" parameter: "zip" (the default) for a ZIP archive,
+ * "multipart" for a multipart/mixed response or "sprite" for an SVG sprite sheet with one
+ * symbol element per barcode. The barcodes are generated in parallel (on the render threads in
+ * asynchronous mode) and share one generator per distinct configuration.
+ * </p>
  *
  * @version $Id: BarcodeServlet.java,v 1.8 2010-10-05 06:53:56 jmaerki Exp $
  */
@@ -61,7 +116,7 @@ public class BarcodeServlet extends HttpServlet {
     public static final String BARCODE_QUIET_ZONE          = "qz";
     /** Parameter name for the human-readable placement */
     public static final String BARCODE_HUMAN_READABLE_POS  = "hrp";
-    /** Parameter name for the output format */
+    /** Parameter name for the output format (a MIME type or a short name such as "svg" or "svg-compact") */
     public static final String BARCODE_FORMAT              = "fmt";
     /** Parameter name for the image resolution (for bitmaps) */
     public static final String BARCODE_IMAGE_RESOLUTION    = "res";
@@ -74,77 +129,313 @@ public class BarcodeServlet extends HttpServlet {
     /** Parameter name for the pattern to format the human readable message */
     public static final String BARCODE_HUMAN_READABLE_PATTERN = "hrpattern";
 
+    /** Init parameter enabling asynchronous generation of barcodes */
+    public static final String INIT_ASYNC                  = "async";
+    /** Init parameter for the number of render threads */
+    public static final String INIT_RENDER_THREADS         = "render-threads";
+    /** Init parameter for the number of requests waiting for a render thread */
+    public static final String INIT_RENDER_QUEUE           = "render-queue";
+    /** Init parameter for the timeout of asynchronous requests (in milliseconds) */
+    public static final String INIT_RENDER_TIMEOUT         = "render-timeout";
+    /** Init parameter for the Cache-Control header */
+    public static final String INIT_CACHE_CONTROL          = "cache-control";
+    /** Init parameter enabling writing barcodes directly to the response */
+    public static final String INIT_STREAM_OUTPUT          = "stream-output";
+    /** Init parameter for the maximum number of barcodes in a batch request */
+    public static final String INIT_BATCH_MAX_SIZE         = "batch-max-size";
+    /** Init parameter for the maximum number of characters in a message */
+    public static final String INIT_MAX_MESSAGE_LENGTH     = "max-message-length";
+    /** Init parameter for the maximum resolution of bitmaps (in dpi) */
+    public static final String INIT_MAX_RESOLUTION         = "max-resolution";
+    /** Init parameter for the maximum number of pixels of a bitmap */
+    public static final String INIT_MAX_PIXELS             = "max-pixels";
+    /** Init parameter for the maximum size of a bitmap's image data (in bytes) */
+    public static final String INIT_MAX_IMAGE_BYTES        = "max-image-bytes";
+
+    /** The default number of requests waiting for a render thread */
+    public static final int DEFAULT_RENDER_QUEUE = 100;
+    /** The default timeout of requests (in milliseconds) */
+    public static final int DEFAULT_RENDER_TIMEOUT = 30000;
+    /** The default maximum number of barcodes in a batch request */
+    public static final int DEFAULT_BATCH_MAX_SIZE = 2000;
+
+    /** Status for messages that cannot be encoded (Unprocessable Content) */
+    private static final int SC_UNPROCESSABLE_CONTENT = 422;
+
+    /** The number of bytes kept back in streaming mode before the response is committed */
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
+    private transient ExecutorService renderExecutor;
+    private int renderThreads;
+    private long renderTimeout = DEFAULT_RENDER_TIMEOUT;
+    private String cacheControl;
+    private boolean streamOutput;
+    private int batchMaxSize = DEFAULT_BATCH_MAX_SIZE;
+    private transient RenderLimits renderLimits = RenderLimits.DEFAULT;
+
+    /** {@inheritDoc} */
+    @Override
+    public void init() throws ServletException {
+        this.cacheControl = getInitParameter(INIT_CACHE_CONTROL);
+        this.streamOutput = Boolean.parseBoolean(getInitParameter(INIT_STREAM_OUTPUT));
+        this.batchMaxSize = getIntInitParameter(INIT_BATCH_MAX_SIZE, DEFAULT_BATCH_MAX_SIZE, 1);
+        final RenderLimits defaults = RenderLimits.DEFAULT;
+        this.renderLimits = new RenderLimits(
+            getIntInitParameter(INIT_MAX_MESSAGE_LENGTH, defaults.getMaxMessageLength(), 1),
+            getIntInitParameter(INIT_MAX_RESOLUTION, defaults.getMaxResolution(), 1),
+            getLongInitParameter(INIT_MAX_PIXELS, defaults.getMaxPixels()),
+            getLongInitParameter(INIT_MAX_IMAGE_BYTES, defaults.getMaxImageBytes()));
+        this.renderTimeout = getIntInitParameter(INIT_RENDER_TIMEOUT, DEFAULT_RENDER_TIMEOUT, 0);
+        if (Boolean.parseBoolean(getInitParameter(INIT_ASYNC))) {
+            this.renderThreads = getIntInitParameter(INIT_RENDER_THREADS, Runtime.getRuntime().availableProcessors(), 1);
+            final int queueSize = getIntInitParameter(INIT_RENDER_QUEUE, DEFAULT_RENDER_QUEUE, 0);
+            this.renderExecutor = createRenderExecutor(renderThreads, queueSize);
+        }
+    }
+
+    private int getIntInitParameter(String name, int defaultValue, int min) throws ServletException {
+        final String value = getInitParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final int result = Integer.parseInt(value.trim());
+            if (result >= min) {
+                return result;
+            }
+        } catch (final NumberFormatException e) {
+            //handled below
+        }
+        throw new ServletException("Invalid value for init parameter " + name + ": " + value);
+    }
+
+    private long getLongInitParameter(String name, long defaultValue) throws ServletException {
+        final String value = getInitParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            final long result = Long.parseLong(value.trim());
+            if (result >= 1) {
+                return result;
+            }
+        } catch (final NumberFormatException e) {
+            //handled below
+        }
+        throw new ServletException("Invalid value for init parameter " + name + ": " + value);
+    }
+
+    /**
+     * Creates the executor that generates barcodes in asynchronous mode. Its queue must be bounded:
+     * requests it rejects are answered with 503 (Service Unavailable).
+     * @param threads the number of render threads
+     * @param queueSize the number of requests that may wait for a render thread
+     * @return the executor
+     * @since 2.4.1
+     */
+    protected ExecutorService createRenderExecutor(int threads, int queueSize) {
+        final BlockingQueue<Runnable> queue = queueSize > 0
+            ? new ArrayBlockingQueue<>(queueSize) : new SynchronousQueue<>();
+        final AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, (r) -> {
+            final Thread thread = new Thread(r, "barcode4j-render-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void destroy() {
+        if (renderExecutor != null) {
+            renderExecutor.shutdown();
+            renderExecutor = null;
+        }
+        //don't keep ImageWriters of this web application in the shared encoder registry
+        BitmapEncoderRegistry.disposeEncoders();
+        super.destroy();
+    }
 
     /**
      * @see jakarta.servlet.http.HttpServlet#doGet(HttpServletRequest, HttpServletResponse)
      */
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        final BarcodeRequest barcode;
+        final String etag;
+        try {
+            barcode = parseRequest(request);
+            etag = barcode.computeETag();
+        } catch (final Exception e) {
+            throw new ServletException(e);
+        }
+
+        if (etag != null && BarcodeRequest.matchesETag(request.getHeader("If-None-Match"), etag)) {
+            setCacheHeaders(response, etag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
 
+        //reject oversized barcodes before anything is allocated for them
+        final BarcodeGenerator gen;
         try {
-            String format = determineFormat(request);
-            int orientation = 0;
+            gen = barcode.createGenerator();
+            barcode.checkLimits(renderLimits, gen);
+        } catch (final RenderLimitExceededException e) {
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+            return;
+        } catch (final IllegalArgumentException e) {
+            response.sendError(SC_UNPROCESSABLE_CONTENT, e.getMessage());
+            return;
+        } catch (final Exception e) {
+            throw new ServletException(e);
+        }
+
+        final CancellationToken token = createCancellationToken();
+        final ExecutorService executor = this.renderExecutor;
+        if (executor == null || !request.isAsyncSupported()) {
+            try {
+                respond(response, barcode, gen, etag, () -> true, token);
+            } catch (final RenderCancelledException e) {
+                log("Barcode generation abandoned: " + e.getMessage());
+                sendError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            }
+            return;
+        }
 
-            Configuration cfg = buildCfg(request);
+        final AsyncContext async = request.startAsync();
+        async.setTimeout(renderTimeout);
+        //set once the request has been answered, by the render thread or a timeout
+        final AtomicBoolean answered = new AtomicBoolean();
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                token.cancel();
+                if (answered.compareAndSet(false, true)) {
+                    sendUnavailable((HttpServletResponse) event.getAsyncContext().getResponse());
+                    event.getAsyncContext().complete();
+                }
+            }
 
-            String msg = request.getParameter(BARCODE_MSG);
-            if (msg == null) {
-                msg = "0123456789";
+            @Override
+            public void onComplete(AsyncEvent event) {
             }
 
-            BarcodeUtil util = BarcodeUtil.getInstance();
-            BarcodeGenerator gen = util.createBarcodeGenerator(cfg);
+            @Override
+            public void onError(AsyncEvent event) {
+                //e.g. the client has gone away
+                token.cancel();
+                answered.set(true);
+            }
 
-            ByteArrayOutputStream bout = new ByteArrayOutputStream(4096);
-            try {
-                if (format.equals(MimeTypes.MIME_SVG)) {
-                    //Create Barcode and render it to SVG
-                    SVGCanvasProvider svg = new SVGCanvasProvider(false, orientation);
-                    gen.generateBarcode(svg, msg);
-                    org.w3c.dom.DocumentFragment frag = svg.getDOMFragment();
-
-                    //Serialize SVG barcode
-                    TransformerFactory factory = TransformerFactory.newInstance();
-                    Transformer trans = factory.newTransformer();
-                    Source src = new javax.xml.transform.dom.DOMSource(frag);
-                    Result res = new javax.xml.transform.stream.StreamResult(bout);
-                    trans.transform(src, res);
-                } else if (format.equals(MimeTypes.MIME_EPS)) {
-                    EPSCanvasProvider eps = new EPSCanvasProvider(bout, orientation);
-                    gen.generateBarcode(eps, msg);
-                    eps.finish();
-                } else {
-                    String resText = request.getParameter(BARCODE_IMAGE_RESOLUTION);
-                    int resolution = 300; //dpi
-                    if (resText != null) {
-                        resolution = Integer.parseInt(resText);
-                    }
-                    if (resolution > 2400) {
-                        throw new IllegalArgumentException(
-                            "Resolutions above 2400dpi are not allowed");
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        try {
+            executor.execute(() -> {
+                final AtomicBoolean claimed = new AtomicBoolean();
+                final BooleanSupplier claim = () -> {
+                    claimed.set(answered.compareAndSet(false, true));
+                    return claimed.get();
+                };
+                try {
+                    respond((HttpServletResponse) async.getResponse(), barcode, gen, etag, claim, token);
+                } catch (final RenderCancelledException e) {
+                    if (!claimed.get() && claim.getAsBoolean()) {
+                        sendUnavailable((HttpServletResponse) async.getResponse());
                     }
-                    if (resolution < 10) {
-                        throw new IllegalArgumentException(
-                            "Minimum resolution must be 10dpi");
+                } catch (final Exception e) {
+                    log("Error generating barcode", e);
+                    if (!claimed.get() && claim.getAsBoolean()) {
+                        sendError((HttpServletResponse) async.getResponse(), HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
                     }
-                    String gray = request.getParameter(BARCODE_IMAGE_GRAYSCALE);
-                    BitmapCanvasProvider bitmap = ("true".equalsIgnoreCase(gray)
-                        ? new BitmapCanvasProvider(
-                                bout, format, resolution,
-                                BufferedImage.TYPE_BYTE_GRAY, true, orientation)
-                        : new BitmapCanvasProvider(
-                                bout, format, resolution,
-                                BufferedImage.TYPE_BYTE_BINARY, false, orientation));
-                    gen.generateBarcode(bitmap, msg);
-                    bitmap.finish();
                 }
-            } finally {
-                bout.close();
+                if (claimed.get()) {
+                    async.complete();
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            if (answered.compareAndSet(false, true)) {
+                sendUnavailable(response);
+                async.complete();
+            }
+        }
+    }
+
+    /**
+     * Generates a batch of barcodes.
+     * @see jakarta.servlet.http.HttpServlet#doPost(HttpServletRequest, HttpServletResponse)
+     * @since 2.4.1
+     */
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        final BarcodeBatch batch;
+        try {
+            batch = BarcodeBatch.parse(request, batchMaxSize, renderLimits);
+        } catch (final BarcodeBatch.BatchException e) {
+            response.sendError(e.getStatus(), e.getMessage());
+            return;
+        }
+
+        //render a few barcodes ahead of the one being written, so all threads are kept busy
+        final ExecutorService executor = this.renderExecutor;
+        if (executor != null) {
+            batch.write(response, executor, 2 * renderThreads, createCancellationToken());
+        } else {
+            batch.write(response, ForkJoinPool.commonPool(), 2 * ForkJoinPool.getCommonPoolParallelism(),
+                createCancellationToken());
+        }
+    }
+
+    /**
+     * Creates the token that abandons the generation of a request's barcodes. By default, its
+     * deadline is the render timeout.
+     * @return the token
+     * @since 2.4.1
+     */
+    protected CancellationToken createCancellationToken() {
+        return renderTimeout > 0
+            ? CancellationToken.withTimeout(renderTimeout, TimeUnit.MILLISECONDS) : new CancellationToken();
+    }
+
+    /**
+     * Reads the barcode settings from the request, so barcodes can be generated after the request
+     * has been handed over to a render thread.
+     */
+    private BarcodeRequest parseRequest(HttpServletRequest request) {
+        return BarcodeRequest.parse(determineFormat(request), buildCfg(request), request::getParameter);
+    }
+
+    /**
+     * Generates a barcode and writes it to the response.
+     * @param claim called before anything is written to the response. If it returns false, the
+     *      request has already been answered and the barcode is discarded.
+     */
+    private void respond(HttpServletResponse response, BarcodeRequest barcode, BarcodeGenerator gen, String etag,
+                         BooleanSupplier claim, CancellationToken token) throws ServletException, IOException {
+        if (streamOutput) {
+            final StreamingResponse out = new StreamingResponse(response, barcode, etag, claim);
+            generate(barcode, gen, out, token);
+            out.finish();
+        } else {
+            final ByteArrayOutputStream bout = new ByteArrayOutputStream(4096);
+            generate(barcode, gen, bout, token);
+            if (claim.getAsBoolean()) {
+                setResponseHeaders(response, barcode, etag);
+                response.setContentLength(bout.size());
+                bout.writeTo(response.getOutputStream());
+                response.getOutputStream().flush();
             }
-            response.setContentType(format);
-            response.setContentLength(bout.size());
-            response.getOutputStream().write(bout.toByteArray());
-            response.getOutputStream().flush();
+        }
+    }
+
+    private void generate(BarcodeRequest barcode, BarcodeGenerator gen, OutputStream out, CancellationToken token)
+            throws ServletException {
+        try (CancellationToken.Binding binding = token.bind()) {
+            barcode.generate(gen, out);
+        } catch (final RenderCancelledException e) {
+            throw e;
         } catch (final Exception e) {
             throw new ServletException(e);
         } catch (final Throwable t) {
@@ -152,18 +443,45 @@ public class BarcodeServlet extends HttpServlet {
         }
     }
 
+    private void setResponseHeaders(HttpServletResponse response, BarcodeRequest barcode, String etag) {
+        response.setContentType(barcode.getContentType());
+        if (barcode.getContentEncoding() != null) {
+            response.setHeader("Content-Encoding", barcode.getContentEncoding());
+        }
+        setCacheHeaders(response, etag);
+    }
+
+    private void setCacheHeaders(HttpServletResponse response, String etag) {
+        if (etag != null) {
+            response.setHeader("ETag", etag);
+        }
+        if (cacheControl != null) {
+            response.setHeader("Cache-Control", cacheControl);
+        }
+    }
+
+    private void sendUnavailable(HttpServletResponse response) {
+        response.setHeader("Retry-After", "1");
+        sendError(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+
+    private void sendError(HttpServletResponse response, int status) {
+        try {
+            if (!response.isCommitted()) {
+                response.sendError(status);
+            }
+        } catch (final IOException | IllegalStateException e) {
+            log("Error sending status " + status, e);
+        }
+    }
+
     /**
      * Check the request for the desired output format.
      * @param request the request to use
      * @return MIME type of the desired output format.
      */
     protected String determineFormat(HttpServletRequest request) {
-        String format = request.getParameter(BARCODE_FORMAT);
-        format = MimeTypes.expandFormat(format);
-        if (format == null) {
-            format = MimeTypes.MIME_SVG;
-        }
-        return format;
+        return BarcodeRequest.determineFormat(request.getParameter(BARCODE_FORMAT));
     }
 
     /**
@@ -173,85 +491,84 @@ public class BarcodeServlet extends HttpServlet {
      * todo: Change to bean API
      */
     protected Configuration buildCfg(HttpServletRequest request) {
-        final DefaultConfiguration cfg = new DefaultConfiguration("barcode");
-        //Get type
-        String type = request.getParameter(BARCODE_TYPE);
-        if (type == null) {
-            type = "code128";
-        }
-        final DefaultConfiguration child = new DefaultConfiguration(type);
-        cfg.addChild(child);
-        //Get additional attributes
-        DefaultConfiguration attr;
-        String height = request.getParameter(BARCODE_HEIGHT);
-        if (height != null) {
-            attr = new DefaultConfiguration("height");
-            attr.setValue(height);
-            child.addChild(attr);
-        }
-        String moduleWidth = request.getParameter(BARCODE_MODULE_WIDTH);
-        if (moduleWidth != null) {
-            attr = new DefaultConfiguration("module-width");
-            attr.setValue(moduleWidth);
-            child.addChild(attr);
-        }
-        String wideFactor = request.getParameter(BARCODE_WIDE_FACTOR);
-        if (wideFactor != null) {
-            attr = new DefaultConfiguration("wide-factor");
-            attr.setValue(wideFactor);
-            child.addChild(attr);
+        return BarcodeRequest.buildCfg(request::getParameter);
+    }
+
+    /**
+     * Output stream for the streaming mode. It keeps the first bytes back, so the response
+     * remains uncommitted (and errors can still be reported) until the buffer overflows. If the
+     * barcode fits into the buffer, it is sent with its exact Content-Length.
+     */
+    private final class StreamingResponse extends OutputStream {
+
+        private final HttpServletResponse response;
+        private final BarcodeRequest barcode;
+        private final String etag;
+        private final BooleanSupplier claim;
+        private final byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+        private int count;
+        private OutputStream out;
+
+        private StreamingResponse(HttpServletResponse response, BarcodeRequest barcode, String etag, BooleanSupplier claim) {
+            this.response = response;
+            this.barcode = barcode;
+            this.etag = etag;
+            this.claim = claim;
         }
-        String quietZone = request.getParameter(BARCODE_QUIET_ZONE);
-        if (quietZone != null) {
-            attr = new DefaultConfiguration("quiet-zone");
-            if (quietZone.startsWith("disable")) {
-                attr.setAttribute("enabled", "false");
+
+        @Override
+        public void write(int b) throws IOException {
+            if (out == null && count == buffer.length) {
+                commit(-1);
+            }
+            if (out != null) {
+                out.write(b);
             } else {
-                attr.setValue(quietZone);
+                buffer[count++] = (byte) b;
             }
-            child.addChild(attr);
         }
 
-        // creating human readable configuration according to the new Barcode Element Mappings
-        // where the human-readable has children for font name, font size, placement and
-        // custom pattern.
-        String humanReadablePosition = request.getParameter(BARCODE_HUMAN_READABLE_POS);
-        String pattern = request.getParameter(BARCODE_HUMAN_READABLE_PATTERN);
-        String humanReadableSize = request.getParameter(BARCODE_HUMAN_READABLE_SIZE);
-        String humanReadableFont = request.getParameter(BARCODE_HUMAN_READABLE_FONT);
-
-        if (!((humanReadablePosition == null)
-                && (pattern == null)
-                && (humanReadableSize == null)
-                && (humanReadableFont == null))) {
-            attr = new DefaultConfiguration("human-readable");
-
-            DefaultConfiguration subAttr;
-            if (pattern != null) {
-                subAttr = new DefaultConfiguration("pattern");
-                subAttr.setValue(pattern);
-                attr.addChild(subAttr);
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (out == null && count + len > buffer.length) {
+                commit(-1);
             }
-            if (humanReadableSize != null) {
-                subAttr = new DefaultConfiguration("font-size");
-                subAttr.setValue(humanReadableSize);
-                attr.addChild(subAttr);
-            }
-            if (humanReadableFont != null) {
-                subAttr = new DefaultConfiguration("font-name");
-                subAttr.setValue(humanReadableFont);
-                attr.addChild(subAttr);
-            }
-            if (humanReadablePosition != null) {
-              subAttr = new DefaultConfiguration("placement");
-              subAttr.setValue(humanReadablePosition);
-              attr.addChild(subAttr);
+            if (out != null) {
+                out.write(b, off, len);
+            } else {
+                System.arraycopy(b, off, buffer, count, len);
+                count += len;
             }
+        }
+
+        /** Flushing is deferred until the barcode is finished or the buffer overflows. */
+        @Override
+        public void flush() {
+        }
 
-            child.addChild(attr);
+        /**
+         * Sends the rest of the barcode.
+         * @throws IOException if an I/O error occurs
+         */
+        void finish() throws IOException {
+            if (out == null) {
+                commit(count);
+            }
+            out.flush();
         }
 
-        return cfg;
+        private void commit(int contentLength) throws IOException {
+            if (!claim.getAsBoolean()) {
+                throw new IOException("The request has already been answered");
+            }
+            setResponseHeaders(response, barcode, etag);
+            if (contentLength >= 0) {
+                response.setContentLength(contentLength);
+            }
+            out = response.getOutputStream();
+            out.write(buffer, 0, count);
+            count = 0;
+        }
     }
 
 }
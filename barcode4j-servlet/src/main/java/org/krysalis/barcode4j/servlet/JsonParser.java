@@ -0,0 +1,287 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.servlet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal JSON parser for batch requests, so the servlet doesn't need a JSON library. Objects are
+ * returned as {@link Map}s (in document order), arrays as {@link List}s, strings and numbers as
+ * {@link String}s (numbers as they appear in the document), booleans as {@link Boolean}s and null
+ * as null.
+ *
+ * @since 2.4.1
+ */
+final class JsonParser {
+
+    /** The maximum nesting depth of arrays and objects */
+    private static final int MAX_DEPTH = 32;
+
+    private final CharSequence text;
+    private int pos;
+
+    private JsonParser(CharSequence text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a JSON document.
+     * @param text the JSON document
+     * @return the value of the document
+     * @throws IllegalArgumentException if the document is not valid JSON
+     */
+    static Object parse(CharSequence text) {
+        final JsonParser parser = new JsonParser(text);
+        final Object value = parser.readValue(0);
+        parser.skipWhitespace();
+        if (parser.pos < text.length()) {
+            throw parser.error("Unexpected content after the JSON value");
+        }
+        return value;
+    }
+
+    private Object readValue(int depth) {
+        skipWhitespace();
+        if (pos >= text.length()) {
+            throw error("Unexpected end of JSON document");
+        }
+        final char c = text.charAt(pos);
+        switch (c) {
+            case '{':
+                return readObject(depth + 1);
+            case '[':
+                return readArray(depth + 1);
+            case '"':
+                return readString();
+            case 't':
+                expect("true");
+                return Boolean.TRUE;
+            case 'f':
+                expect("false");
+                return Boolean.FALSE;
+            case 'n':
+                expect("null");
+                return null;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber();
+                }
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> readObject(int depth) {
+        checkDepth(depth);
+        pos++; //{
+        final Map<String, Object> map = new LinkedHashMap<>();
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return map;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("Expected a property name");
+            }
+            final String name = readString();
+            skipWhitespace();
+            if (peek() != ':') {
+                throw error("Expected ':'");
+            }
+            pos++;
+            map.put(name, readValue(depth));
+            skipWhitespace();
+            final char c = next();
+            if (c == '}') {
+                return map;
+            } else if (c != ',') {
+                throw error("Expected ',' or '}'");
+            }
+        }
+    }
+
+    private List<Object> readArray(int depth) {
+        checkDepth(depth);
+        pos++; //[
+        final List<Object> list = new ArrayList<>();
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return list;
+        }
+        while (true) {
+            list.add(readValue(depth));
+            skipWhitespace();
+            final char c = next();
+            if (c == ']') {
+                return list;
+            } else if (c != ',') {
+                throw error("Expected ',' or ']'");
+            }
+        }
+    }
+
+    private String readString() {
+        pos++; //"
+        final StringBuilder sb = new StringBuilder();
+        while (true) {
+            final char c = next();
+            if (c == '"') {
+                return sb.toString();
+            } else if (c == '\\') {
+                final char escaped = next();
+                switch (escaped) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        sb.append(escaped);
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("Unexpected end of JSON document");
+                        }
+                        int code = 0;
+                        for (int i = 0; i < 4; i++) {
+                            final int digit = hexDigit(text.charAt(pos + i));
+                            if (digit < 0) {
+                                throw error("Invalid unicode escape");
+                            }
+                            code = code * 16 + digit;
+                        }
+                        sb.append((char) code);
+                        pos += 4;
+                        break;
+                    default:
+                        throw error("Invalid escape '\\" + escaped + "'");
+                }
+            } else if (c < 0x20) {
+                throw error("Unescaped control character in string");
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    /** Reads a number, which has to match <code>-?(0|[1-9]\d*)(\.\d+)?([eE][+-]?\d+)?</code>. */
+    private String readNumber() {
+        final int start = pos;
+        if (peek() == '-') {
+            pos++;
+        }
+        boolean valid;
+        if (peek() == '0') {
+            pos++;
+            valid = true;
+        } else {
+            valid = skipDigits();
+        }
+        if (valid && peek() == '.') {
+            pos++;
+            valid = skipDigits();
+        }
+        if (valid && (peek() == 'e' || peek() == 'E')) {
+            pos++;
+            if (peek() == '+' || peek() == '-') {
+                pos++;
+            }
+            valid = skipDigits();
+        }
+        if (!valid || "0123456789+-.eE".indexOf(peek()) >= 0) {
+            //include the rest of the malformed number in the message
+            while (pos < text.length() && "0123456789+-.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            throw error("Invalid number '" + text.subSequence(start, pos) + "'");
+        }
+        return text.subSequence(start, pos).toString();
+    }
+
+    /** Skips ASCII digits and returns whether there was at least one. */
+    private boolean skipDigits() {
+        final int start = pos;
+        while (pos < text.length() && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') {
+            pos++;
+        }
+        return pos > start;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private void expect(String literal) {
+        if (pos + literal.length() > text.length()
+                || !literal.contentEquals(text.subSequence(pos, pos + literal.length()))) {
+            throw error("Unexpected character '" + text.charAt(pos) + "'");
+        }
+        pos += literal.length();
+    }
+
+    private void checkDepth(int depth) {
+        if (depth > MAX_DEPTH) {
+            throw error("JSON document is nested too deeply");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < text.length()) {
+            final char c = text.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private char peek() {
+        return pos < text.length() ? text.charAt(pos) : 0;
+    }
+
+    private char next() {
+        if (pos >= text.length()) {
+            throw error("Unexpected end of JSON document");
+        }
+        return text.charAt(pos++);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " at position " + pos);
+    }
+}
@@ -0,0 +1,434 @@
+package org.krysalis.barcode4j.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.krysalis.barcode4j.output.CancellationToken;
+import org.krysalis.barcode4j.tools.MimeTypes;
+import org.mockito.ArgumentCaptor;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class BarcodeServletTest {
+
+    private BarcodeServlet servlet;
+
+    @AfterEach
+    void tearDown() {
+        if (servlet != null) {
+            servlet.destroy();
+        }
+    }
+
+    @Test
+    void testETagAndNotModified() throws Exception {
+        servlet = init(new BarcodeServlet(), Collections.singletonMap(BarcodeServlet.INIT_CACHE_CONTROL, "public, max-age=3600"));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final HttpServletResponse response = response(out);
+        servlet.doGet(request(null, "type", "datamatrix", "msg", "Hello", "fmt", "png"), response);
+
+        final ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq("ETag"), etag.capture());
+        verify(response).setHeader("Cache-Control", "public, max-age=3600");
+        verify(response).setContentType("image/png");
+        assertTrue(etag.getValue().matches("\"[0-9a-f]{32}\""), etag.getValue());
+        assertTrue(out.size() > 0);
+
+        // equivalent parameters, the format given as MIME type
+        final ByteArrayOutputStream notModifiedOut = new ByteArrayOutputStream();
+        final HttpServletResponse notModified = response(notModifiedOut);
+        servlet.doGet(request("W/\"abc\", " + etag.getValue(), "msg", "Hello", "fmt", "image/png", "type", "datamatrix"), notModified);
+        verify(notModified).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(notModified).setHeader("ETag", etag.getValue());
+        verify(notModified).setHeader("Cache-Control", "public, max-age=3600");
+        verify(notModified, never()).getOutputStream();
+        assertEquals(0, notModifiedOut.size());
+    }
+
+    @Test
+    void testETagDependsOnSettings() throws Exception {
+        servlet = init(new BarcodeServlet(), Collections.emptyMap());
+        final String png = etag(request(null, "msg", "Hello", "fmt", "png"));
+        assertEquals(png, etag(request(null, "msg", "Hello", "fmt", "png", "unknown", "ignored")));
+        assertNotEquals(png, etag(request(null, "msg", "Hello!", "fmt", "png")));
+        assertNotEquals(png, etag(request(null, "msg", "Hello", "fmt", "png", "res", "600")));
+        assertNotEquals(png, etag(request(null, "msg", "Hello", "fmt", "png", "mw", "0.3mm")));
+        assertNotEquals(etag(request(null, "msg", "Hello", "fmt", "svg")),
+            etag(request(null, "msg", "Hello", "fmt", "svg-compact")));
+    }
+
+    @Test
+    void testAsync() throws Exception {
+        final Map<String, String> params = new HashMap<>();
+        params.put(BarcodeServlet.INIT_ASYNC, "true");
+        params.put(BarcodeServlet.INIT_RENDER_THREADS, "1");
+        servlet = init(new BarcodeServlet(), params);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final HttpServletResponse response = response(out);
+        final HttpServletRequest request = request(null, "msg", "Hello", "fmt", "svg");
+        final CountDownLatch completed = new CountDownLatch(1);
+        final AsyncContext async = async(request, response, completed);
+
+        servlet.doGet(request, response);
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+        verify(async).setTimeout(BarcodeServlet.DEFAULT_RENDER_TIMEOUT);
+        verify(response).setContentType("image/svg+xml");
+        assertTrue(out.toString("UTF-8").contains("<svg"));
+    }
+
+    @Test
+    void testAsyncRejectsWhenBusy() throws Exception {
+        final Map<String, String> params = new HashMap<>();
+        params.put(BarcodeServlet.INIT_ASYNC, "true");
+        params.put(BarcodeServlet.INIT_RENDER_THREADS, "1");
+        params.put(BarcodeServlet.INIT_RENDER_QUEUE, "0");
+        final ExecutorService[] executor = new ExecutorService[1];
+        servlet = init(new BarcodeServlet() {
+            @Override
+            protected ExecutorService createRenderExecutor(int threads, int queueSize) {
+                executor[0] = super.createRenderExecutor(threads, queueSize);
+                return executor[0];
+            }
+        }, params);
+
+        final CountDownLatch release = new CountDownLatch(1);
+        executor[0].execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            final HttpServletResponse response = response(new ByteArrayOutputStream());
+            final HttpServletRequest request = request(null, "msg", "Hello");
+            final CountDownLatch completed = new CountDownLatch(1);
+            async(request, response, completed);
+
+            servlet.doGet(request, response);
+            assertEquals(0, completed.getCount());
+            verify(response).setHeader("Retry-After", "1");
+            verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void testStreamingSmallBarcodeHasContentLength() throws Exception {
+        final ByteArrayOutputStream buffered = new ByteArrayOutputStream();
+        servlet = init(new BarcodeServlet(), Collections.emptyMap());
+        servlet.doGet(request(null, "msg", "Hello", "fmt", "png"), response(buffered));
+        servlet.destroy();
+
+        servlet = init(new BarcodeServlet(), Collections.singletonMap(BarcodeServlet.INIT_STREAM_OUTPUT, "true"));
+        final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        final HttpServletResponse response = response(streamed);
+        servlet.doGet(request(null, "msg", "Hello", "fmt", "png"), response);
+
+        assertArrayEquals(buffered.toByteArray(), streamed.toByteArray());
+        verify(response).setContentLength(streamed.size());
+        verify(response).setContentType("image/png");
+    }
+
+    @Test
+    void testStreamingLargeBarcode() throws Exception {
+        servlet = init(new BarcodeServlet(), Collections.singletonMap(BarcodeServlet.INIT_STREAM_OUTPUT, "true"));
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final HttpServletResponse response = response(out);
+        servlet.doGet(request(null, "type", "datamatrix", "msg", "Barcode4J ".repeat(40), "fmt", "eps"), response);
+
+        assertTrue(out.size() > 8192, "size: " + out.size());
+        assertTrue(out.toString("US-ASCII").trim().endsWith("%%EOF"));
+        verify(response, never()).setContentLength(anyInt());
+        verify(response).setContentType(MimeTypes.MIME_EPS);
+    }
+
+    @Test
+    void testStreamingErrorBeforeOutput() throws Exception {
+        servlet = init(new BarcodeServlet(), Collections.singletonMap(BarcodeServlet.INIT_STREAM_OUTPUT, "true"));
+        final HttpServletResponse response = response(new ByteArrayOutputStream());
+        assertThrows(ServletException.class,
+            () -> servlet.doGet(request(null, "type", "no-such-barcode", "fmt", "png"), response));
+        verify(response, never()).getOutputStream();
+        verify(response, never()).setContentType(anyString());
+    }
+
+    @Test
+    void testInvalidInitParameter() {
+        assertThrows(ServletException.class, () -> init(new BarcodeServlet(), Map.of(
+            BarcodeServlet.INIT_ASYNC, "true", BarcodeServlet.INIT_RENDER_THREADS, "none")));
+    }
+
+    @Test
+    void testRenderLimits() throws Exception {
+        servlet = init(new BarcodeServlet(), Collections.singletonMap(BarcodeServlet.INIT_MAX_PIXELS, "250000"));
+
+        HttpServletResponse response = response(new ByteArrayOutputStream());
+        servlet.doGet(request(null, "type", "pdf417", "msg", "Hello World", "fmt", "png", "res", "1200"), response);
+        verify(response).sendError(eq(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE), anyString());
+        verify(response, never()).getOutputStream();
+
+        response = response(new ByteArrayOutputStream());
+        servlet.doGet(request(null, "msg", "Hello World", "fmt", "png", "res", "4800"), response);
+        verify(response).sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Resolutions above 2400dpi are not allowed");
+
+        // vector output has no bitmap to limit, but the message length is still checked
+        response = response(new ByteArrayOutputStream());
+        servlet.doGet(request(null, "type", "pdf417", "msg", "Hello World", "fmt", "svg", "res", "4800"), response);
+        verify(response).setContentType(MimeTypes.MIME_SVG);
+        response = response(new ByteArrayOutputStream());
+        servlet.doGet(request(null, "fmt", "svg", "msg", "1".repeat(10000)), response);
+        verify(response).sendError(eq(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE), anyString());
+
+        // a message that doesn't fit into the largest symbol
+        response = response(new ByteArrayOutputStream());
+        servlet.doGet(request(null, "type", "datamatrix", "msg", "x".repeat(5000)), response);
+        verify(response).sendError(eq(422), anyString());
+
+        response = response(new ByteArrayOutputStream());
+        servlet.doPost(jsonRequest("[{\"msg\": \"1\"}, {\"msg\": \"2\", \"fmt\": \"png\", \"res\": \"2400\"}]"), response);
+        verify(response).sendError(eq(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE), contains("barcode-2"));
+
+        assertThrows(ServletException.class, () -> init(new BarcodeServlet(),
+            Collections.singletonMap(BarcodeServlet.INIT_MAX_IMAGE_BYTES, "0")));
+    }
+
+    @Test
+    void testCancellation() throws Exception {
+        servlet = init(new BarcodeServlet() {
+            @Override
+            protected CancellationToken createCancellationToken() {
+                final CancellationToken token = new CancellationToken();
+                token.cancel();
+                return token;
+            }
+        }, Collections.emptyMap());
+
+        HttpServletResponse response = response(new ByteArrayOutputStream());
+        servlet.doGet(request(null, "type", "datamatrix", "msg", "Hello", "fmt", "png"), response);
+        verify(response).sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        verify(response, never()).getOutputStream();
+        assertNull(CancellationToken.current());
+
+        // the barcodes of a batch are reported as errors
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response = response(out);
+        servlet.doPost(jsonRequest("[{\"msg\": \"1\"}, {\"msg\": \"2\", \"type\": \"pdf417\"}]"), response);
+        final List<String> names = new ArrayList<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                names.add(entry.getName());
+            }
+        }
+        assertEquals(List.of("barcode-1.error.txt", "barcode-2.error.txt"), names);
+    }
+
+    @Test
+    void testRenderTimeout() throws Exception {
+        servlet = init(new BarcodeServlet(), Collections.singletonMap(BarcodeServlet.INIT_RENDER_TIMEOUT, "0"));
+        final HttpServletResponse response = response(new ByteArrayOutputStream());
+        servlet.doGet(request(null, "msg", "Hello", "fmt", "svg"), response);
+        verify(response).setContentType(MimeTypes.MIME_SVG);
+        assertThrows(ServletException.class, () -> init(new BarcodeServlet(),
+            Collections.singletonMap(BarcodeServlet.INIT_RENDER_TIMEOUT, "-1")));
+    }
+
+    @Test
+    void testBatchAsZip() throws Exception {
+        servlet = init(new BarcodeServlet(), Collections.emptyMap());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final HttpServletResponse response = response(out);
+        servlet.doPost(jsonRequest("{\"fmt\": \"png\", \"barcodes\": ["
+            + "{\"type\": \"datamatrix\", \"msg\": \"A1\"},"
+            + "{\"type\": \"datamatrix\", \"msg\": \"A2\", \"id\": \"shelf-2\"},"
+            + "{\"type\": \"ean-13\", \"msg\": \"not a number\"},"
+            + "{\"msg\": \"code128\", \"fmt\": \"svg\", \"height\": 10}]}"), response);
+
+        verify(response).setContentType("application/zip");
+        final Map<String, byte[]> files = new LinkedHashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                files.put(entry.getName(), zip.readAllBytes());
+            }
+        }
+        assertEquals(List.of("barcode-1.png", "shelf-2.png", "barcode-3.error.txt", "barcode-4.svg"),
+            new ArrayList<>(files.keySet()));
+        final ByteArrayOutputStream single = new ByteArrayOutputStream();
+        servlet.doGet(request(null, "type", "datamatrix", "msg", "A1", "fmt", "png"), response(single));
+        assertArrayEquals(single.toByteArray(), files.get("barcode-1.png"));
+        assertTrue(new String(files.get("barcode-4.svg"), StandardCharsets.UTF_8).contains("<svg"));
+    }
+
+    @Test
+    void testBatchAsMultipartFromForm() throws Exception {
+        servlet = init(new BarcodeServlet(), Collections.emptyMap());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final HttpServletResponse response = response(out);
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getParameterMap()).thenReturn(Map.of(
+            "output", new String[] {"multipart"}, "fmt", new String[] {"eps"},
+            "barcode", new String[] {"msg=12345", "msg=Hello%20World&id=hello"}));
+        when(request.getParameterValues("barcode")).thenReturn(new String[] {"msg=12345", "msg=Hello%20World&id=hello"});
+        servlet.doPost(request, response);
+
+        final ArgumentCaptor<String> contentType = ArgumentCaptor.forClass(String.class);
+        verify(response).setContentType(contentType.capture());
+        assertTrue(contentType.getValue().startsWith("multipart/mixed; boundary="), contentType.getValue());
+        final String boundary = contentType.getValue().substring(contentType.getValue().indexOf('=') + 1);
+        final String body = out.toString("ISO-8859-1");
+        assertEquals(4, body.split("--" + boundary).length); //preamble, two parts, epilogue
+        assertTrue(body.contains("Content-ID: <barcode-1>"));
+        assertTrue(body.contains("Content-ID: <hello>"));
+        assertTrue(body.contains("Content-Type: " + MimeTypes.MIME_EPS));
+        assertTrue(body.endsWith("--" + boundary + "--\r\n"));
+    }
+
+    @Test
+    void testBatchAsSprite() throws Exception {
+        final Map<String, String> params = new HashMap<>();
+        params.put(BarcodeServlet.INIT_ASYNC, "true");
+        params.put(BarcodeServlet.INIT_RENDER_THREADS, "2");
+        servlet = init(new BarcodeServlet(), params);
+        final StringBuilder json = new StringBuilder("{\"output\": \"sprite\", \"type\": \"datamatrix\", \"barcodes\": [");
+        for (int i = 0; i < 50; i++) {
+            json.append(i > 0 ? "," : "").append("{\"msg\": \"item ").append(i).append("\", \"id\": \"item").append(i).append("\"}");
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final HttpServletResponse response = response(out);
+        servlet.doPost(jsonRequest(json.append("]}").toString()), response);
+
+        verify(response).setContentType("image/svg+xml");
+        final String svg = out.toString("UTF-8");
+        assertTrue(svg.startsWith("<?xml"));
+        assertTrue(svg.endsWith("</svg>\n"));
+        for (int i = 0; i < 50; i++) {
+            assertTrue(svg.contains("<symbol id=\"item" + i + "\" viewBox="), "item" + i);
+        }
+        assertTrue(svg.indexOf("item9\"") < svg.indexOf("item10\""));
+        assertEquals(50, svg.split("</symbol>").length - 1);
+    }
+
+    @Test
+    void testInvalidBatch() throws Exception {
+        servlet = init(new BarcodeServlet(), Collections.singletonMap(BarcodeServlet.INIT_BATCH_MAX_SIZE, "2"));
+
+        HttpServletResponse response = response(new ByteArrayOutputStream());
+        servlet.doPost(jsonRequest("[{}, {}, {}]"), response);
+        verify(response).sendError(eq(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE), anyString());
+
+        response = response(new ByteArrayOutputStream());
+        servlet.doPost(jsonRequest("[{\"type\": \"no-such-barcode\"}]"), response);
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+        verify(response, never()).getOutputStream();
+
+        response = response(new ByteArrayOutputStream());
+        servlet.doPost(jsonRequest("{\"output\": \"sprite\", \"barcodes\": [{\"fmt\": \"png\"}]}"), response);
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+
+        response = response(new ByteArrayOutputStream());
+        servlet.doPost(jsonRequest("[{\"id\": \"a\"}, {\"id\": \"a\"}]"), response);
+        verify(response).sendError(HttpServletResponse.SC_BAD_REQUEST, "Duplicate barcode ID: a");
+
+        response = response(new ByteArrayOutputStream());
+        servlet.doPost(jsonRequest("[{\"msg\": \"unterminated}]"), response);
+        verify(response).sendError(eq(HttpServletResponse.SC_BAD_REQUEST), anyString());
+    }
+
+    private static HttpServletRequest jsonRequest(String json) throws IOException {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getContentType()).thenReturn("application/json");
+        when(request.getReader()).thenReturn(new BufferedReader(new StringReader(json)));
+        return request;
+    }
+
+    private String etag(HttpServletRequest request) throws Exception {
+        final HttpServletResponse response = response(new ByteArrayOutputStream());
+        servlet.doGet(request, response);
+        final ArgumentCaptor<String> etag = ArgumentCaptor.forClass(String.class);
+        verify(response).setHeader(eq("ETag"), etag.capture());
+        return etag.getValue();
+    }
+
+    private static <T extends BarcodeServlet> T init(T servlet, Map<String, String> params) throws ServletException {
+        final ServletConfig config = mock(ServletConfig.class);
+        when(config.getServletContext()).thenReturn(mock(ServletContext.class));
+        when(config.getInitParameter(anyString())).thenAnswer(i -> params.get(i.<String>getArgument(0)));
+        servlet.init(config);
+        return servlet;
+    }
+
+    private static HttpServletRequest request(String ifNoneMatch, String... params) {
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        for (int i = 0; i < params.length; i += 2) {
+            when(request.getParameter(params[i])).thenReturn(params[i + 1]);
+        }
+        when(request.getHeader("If-None-Match")).thenReturn(ifNoneMatch);
+        return request;
+    }
+
+    private static AsyncContext async(HttpServletRequest request, HttpServletResponse response, CountDownLatch completed) {
+        final AsyncContext async = mock(AsyncContext.class);
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.startAsync()).thenReturn(async);
+        when(async.getResponse()).thenReturn(response);
+        doAnswer(i -> {
+            completed.countDown();
+            return null;
+        }).when(async).complete();
+        return async;
+    }
+
+    private static HttpServletResponse response(ByteArrayOutputStream out) throws IOException {
+        final HttpServletResponse response = mock(HttpServletResponse.class);
+        final ServletOutputStream stream = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                out.write(b);
+            }
+        };
+        when(response.getOutputStream()).thenReturn(stream);
+        return response;
+    }
+}
@@ -0,0 +1,46 @@
+package org.krysalis.barcode4j.servlet;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonParserTest {
+
+    @Test
+    void testParse() {
+        final Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("msg", "A\"B\\/\u00e9\n");
+        expected.put("height", "-1.5e3");
+        expected.put("list", Arrays.asList("0", Boolean.TRUE, Boolean.FALSE, null, List.of(), Map.of()));
+        assertEquals(expected, JsonParser.parse(
+            " {\"msg\": \"A\\\"B\\\\\\/\\u00e9\\n\", \"height\" : -1.5e3,\n\"list\":[0,true,false,null,[],{}]} "));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "{", "[1,]", "{\"a\" 1}", "\"\\x\"", "tru", "-", "1 2", "{\"a\": 01x}",
+        "[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[[]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]]",
+        "\"\\u+1ab\"", "\"\\u-001\"", "\"\\u12g4\"", "\"\\u12\"",
+        "01", "-01", "1.", "1.e5", ".5", "+1", "1e", "1e+", "[1.]", "{\"a\": -01}"})
+    void testInvalid(String json) {
+        assertThrows(IllegalArgumentException.class, () -> JsonParser.parse(json));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"0", "-0", "0.5", "-0.5e-3", "10", "1E+3", "123.456e7"})
+    void testNumbers(String json) {
+        assertEquals(json, JsonParser.parse(json));
+        assertEquals(List.of(json), JsonParser.parse("[" + json + "]"));
+    }
+
+    @Test
+    void testUnicodeEscapes() {
+        assertEquals("\uabcd\uABCD\u0041", JsonParser.parse("\"\\uabcd\\uABCD\\u0041\""));
+    }
+}
@@ -32,7 +32,10 @@ import org.apache.xalan.extensions.XSLProcessorContext;
 import org.apache.xalan.templates.ElemExtensionCall;
 
 /**
- * This class is an Extension for Apache XML Xalan to generate SVG barcodes.
+ * This class is an Extension for Apache XML Xalan to generate SVG barcodes. Besides the barcode
+ * configuration, the barcode element accepts the attributes <code>orientation</code>,
+ * <code>compact</code> (all bars in a single path, like the "svg-compact" output format),
+ * <code>useNamespace</code> and <code>prefix</code>.
  *
  * @author Jeremias Maerki
  * @version $Id: BarcodeExt.java,v 1.5 2008-12-10 15:52:37 jmaerki Exp $
@@ -66,6 +69,7 @@ public class BarcodeExt {
             } else {
                 svg = new SVGCanvasProvider(false, orientation);
             }
+            svg.setCompact(cfg.getAttributeAsBoolean("compact", false));
             //Generate barcode
             gen.generateBarcode(svg, message);
 
@@ -104,6 +108,7 @@ public class BarcodeExt {
             } else {
                 svg = new SVGCanvasProvider(false, orientation);
             }
+            svg.setCompact(cfg.getAttributeAsBoolean("compact", false));
             //Generate barcode
             gen.generateBarcode(svg, message);
 
@@ -1,5 +1,7 @@
 /**
  * This package contains the Apache Xalan extension for creating barcodes in SVG format during XSL transformations.
  * <p>See the <a href="http://barcode4j.krysalis.org/xsl-fo.html">XSL-FO use case</a> for information on how to use the extension.</p>
+ * <p>Setting <code>compact="true"</code> on the barcode element draws all bars as a single path, like the "svg-compact"
+ * output format elsewhere.</p>
  */
 package org.krysalis.barcode4j.xalan;
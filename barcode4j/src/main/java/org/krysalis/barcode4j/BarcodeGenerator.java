@@ -20,6 +20,12 @@ import org.krysalis.barcode4j.output.CanvasProvider;
 
 /**
  * This interface is used to generate whole barcodes.
+ * <p>
+ * Implementations must not change their state when generating a barcode or calculating its
+ * dimensions so that a fully configured generator can be shared by several threads. The barcode
+ * generators returned by {@link BarcodeUtil#getSharedGenerator(org.krysalis.barcode4j.configuration.Configuration)}
+ * are frozen (see {@link org.krysalis.barcode4j.impl.AbstractBarcodeBean#freeze()}) and may be shared.
+ * </p>
  *
  * @author Jeremias Maerki
  * @version $Id: BarcodeGenerator.java,v 1.2 2004-09-04 20:25:54 jmaerki Exp $
@@ -16,14 +16,21 @@
 package org.krysalis.barcode4j;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.krysalis.barcode4j.output.svg.SVGCanvasProvider;
 import org.w3c.dom.DocumentFragment;
 
 import org.krysalis.barcode4j.configuration.Configurable;
 import org.krysalis.barcode4j.configuration.Configuration;
 import org.krysalis.barcode4j.configuration.ConfigurationException;
+import org.krysalis.barcode4j.impl.AbstractBarcodeBean;
+import org.krysalis.barcode4j.impl.ConfigurableBarcodeGenerator;
+import org.krysalis.barcode4j.tools.ConfigurationUtil;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * This is a convenience class to generate barcodes. It is implemented as
@@ -38,15 +45,20 @@ public class BarcodeUtil {
 
     private final BarcodeClassResolver classResolver = new DefaultBarcodeClassResolver();
 
+    /** The default number of configured barcode generators that are cached */
+    public static final int DEFAULT_GENERATOR_CACHE_SIZE = 64;
+
+    private final GeneratorCache generatorCache = new GeneratorCache(DEFAULT_GENERATOR_CACHE_SIZE);
+
     private static class ThreadsafeLazySingleton {
         private static final BarcodeUtil INSTANCE = new BarcodeUtil();
     }
 
     /**
-     * Creates a new BarcodeUtil object. This constructor is private because
-     * this class is designed as a singleton.
+     * Creates a new BarcodeUtil object. This constructor is not public because
+     * this class is designed as a singleton (tests use their own instances).
      */
-    private BarcodeUtil() {
+    BarcodeUtil() {
         //nop
     }
 
@@ -75,48 +87,61 @@ public class BarcodeUtil {
      * @throws ConfigurationException if something's wrong wth the configuration
      */
     public static BarcodeGenerator createBarcodeGenerator(final @NotNull Configuration cfg, final @NotNull BarcodeClassResolver classResolver) throws BarcodeException, ConfigurationException {
+        return instantiate(resolve(cfg, classResolver));
+    }
+
+    /**
+     * Finds the barcode implementation and the configuration element that configures it.
+     */
+    @NotNull
+    private static ResolvedConfiguration resolve(final @NotNull Configuration cfg, final @NotNull BarcodeClassResolver classResolver) throws BarcodeException {
         Class<BarcodeGenerator> cl = null;
-        try {
-            //First, check Configuration directly
-            final String type = cfg.getName();
 
-            if (type != null && !type.isEmpty()) {
-                try {
-                    cl = classResolver.resolve(type);
-                } catch (final ClassNotFoundException e) {
-                    // noop
-                }
+        //First, check Configuration directly
+        final String type = cfg.getName();
+
+        if (type != null && !type.isEmpty()) {
+            try {
+                cl = classResolver.resolve(type);
+            } catch (final ClassNotFoundException e) {
+                // noop
             }
+        }
 
-            Configuration child = null;
-            if (cl == null) {
-                //Second, check children
-                Configuration[] children = cfg.getChildren();
-                if (children.length == 0) {
-                    throw new BarcodeException("Barcode configuration element expected");
-                }
+        Configuration child = null;
+        if (cl == null) {
+            //Second, check children
+            Configuration[] children = cfg.getChildren();
+            if (children.length == 0) {
+                throw new BarcodeException("Barcode configuration element expected");
+            }
 
-                //Find barcode config element
-                for (final Configuration childConf : children) {
-                    child = childConf;
-                    try {
-                        cl = classResolver.resolve(childConf.getName());
-                        break;
-                    } catch (ClassNotFoundException cnfe) {
-                        // noop
-                    }
+            //Find barcode config element
+            for (final Configuration childConf : children) {
+                child = childConf;
+                try {
+                    cl = classResolver.resolve(childConf.getName());
+                    break;
+                } catch (ClassNotFoundException cnfe) {
+                    // noop
                 }
             }
+        }
 
-            if (cl == null) {
-                throw new BarcodeException("No known barcode configuration element found");
-            }
+        if (cl == null) {
+            throw new BarcodeException("No known barcode configuration element found");
+        }
+        return new ResolvedConfiguration(cl, child != null ? child : cfg);
+    }
 
+    @NotNull
+    private static BarcodeGenerator instantiate(final @NotNull ResolvedConfiguration resolved) throws BarcodeException, ConfigurationException {
+        try {
             //Instantiate the BarcodeGenerator
-            final BarcodeGenerator gen = cl.getDeclaredConstructor().newInstance();
+            final BarcodeGenerator gen = resolved.generatorClass.getDeclaredConstructor().newInstance();
 
             try {
-                configure(gen, (child != null ? child : cfg));
+                configure(gen, resolved.configuration);
             } catch (IllegalArgumentException e) {
                 throw new ConfigurationException("Cannot configure barcode generator", e);
             }
@@ -124,7 +149,7 @@ public class BarcodeUtil {
             return gen;
         } catch (final IllegalAccessException | InstantiationException | InvocationTargetException | NoSuchMethodException e) {
             throw new BarcodeException(
-                String.format("Error instantiating a barcode generator '%s'. Reason: '%s'", cl.getName(), e.getMessage()), e
+                String.format("Error instantiating a barcode generator '%s'. Reason: '%s'", resolved.generatorClass.getName(), e.getMessage()), e
             );
         }
     }
@@ -152,6 +177,90 @@ public class BarcodeUtil {
         return createBarcodeGenerator(cfg, this.classResolver);
     }
 
+    /**
+     * Returns a shared BarcodeGenerator for a configuration. Generators are cached using a
+     * canonical form of the barcode's configuration element, so repeated calls with an equivalent
+     * configuration return the same instance. Shared generators are frozen (see
+     * {@link AbstractBarcodeBean#freeze()}) and are safe to use from several threads at once, but
+     * they cannot be changed. Use {@link #createBarcodeGenerator(Configuration)} to obtain an
+     * instance of your own.
+     * @param cfg Configuration object that specifies the barcode to produce.
+     * @return the (possibly cached) BarcodeGenerator
+     * @throws BarcodeException if setting up a BarcodeGenerator fails
+     * @throws ConfigurationException if something's wrong wth the configuration
+     * @since 2.4.1
+     */
+    public BarcodeGenerator getSharedGenerator(final Configuration cfg) throws ConfigurationException, BarcodeException {
+        final ResolvedConfiguration resolved = resolve(cfg, this.classResolver);
+        final String key;
+        try {
+            key = resolved.generatorClass.getName() + ':' + ConfigurationUtil.toCanonicalString(resolved.configuration);
+        } catch (UnsupportedOperationException e) {
+            // the configuration cannot be enumerated so there's no way to tell whether it's equivalent
+            final BarcodeGenerator gen = instantiate(resolved);
+            freeze(gen);
+            return gen;
+        }
+        BarcodeGenerator gen = this.generatorCache.get(key);
+        if (gen == null) {
+            gen = instantiate(resolved);
+            // only generators whose settings can be frozen are safe to share
+            if (freeze(gen) && this.generatorCache.maxEntries > 0) {
+                gen = this.generatorCache.put(key, gen);
+            }
+        }
+        return gen;
+    }
+
+    private static boolean freeze(@NotNull final BarcodeGenerator gen) {
+        final AbstractBarcodeBean bean = getBean(gen);
+        if (bean == null) {
+            return false;
+        }
+        bean.freeze();
+        return true;
+    }
+
+    @Nullable
+    private static AbstractBarcodeBean getBean(@NotNull final BarcodeGenerator gen) {
+        if (gen instanceof ConfigurableBarcodeGenerator) {
+            return ((ConfigurableBarcodeGenerator) gen).getBean();
+        } else if (gen instanceof AbstractBarcodeBean) {
+            return (AbstractBarcodeBean) gen;
+        }
+        return null;
+    }
+
+    /**
+     * Sets the maximum number of configured barcode generators that are cached by
+     * {@link #getSharedGenerator(Configuration)}. Setting the size to 0 disables the cache.
+     * @param maxEntries the maximum number of cached barcode generators
+     * @since 2.4.1
+     */
+    public void setGeneratorCacheSize(final int maxEntries) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("The cache size must not be negative: " + maxEntries);
+        }
+        this.generatorCache.resize(maxEntries);
+    }
+
+    /**
+     * Returns the maximum number of configured barcode generators that are cached.
+     * @return the cache size (0 if the cache is disabled)
+     * @since 2.4.1
+     */
+    public int getGeneratorCacheSize() {
+        return this.generatorCache.maxEntries;
+    }
+
+    /**
+     * Removes all cached barcode generators.
+     * @since 2.4.1
+     */
+    public void clearGeneratorCache() {
+        this.generatorCache.clear();
+    }
+
     /**
      * Convenience method to create an SVG barcode as a DOM fragment.
      * @param cfg Configuration object that specifies the barcode to produce.
@@ -170,4 +279,52 @@ public class BarcodeUtil {
         return svg.getDOMFragment();
     }
 
+    /** The barcode implementation and its configuration element */
+    private static final class ResolvedConfiguration {
+        private final Class<BarcodeGenerator> generatorClass;
+        private final Configuration configuration;
+
+        ResolvedConfiguration(Class<BarcodeGenerator> generatorClass, Configuration configuration) {
+            this.generatorClass = generatorClass;
+            this.configuration = configuration;
+        }
+    }
+
+    /** A small LRU cache of configured barcode generators */
+    private static final class GeneratorCache {
+        private volatile int maxEntries;
+        private final Map<String, BarcodeGenerator> entries = new LinkedHashMap<String, BarcodeGenerator>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BarcodeGenerator> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        GeneratorCache(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        synchronized BarcodeGenerator get(String key) {
+            return entries.get(key);
+        }
+
+        synchronized BarcodeGenerator put(String key, BarcodeGenerator gen) {
+            final BarcodeGenerator existing = entries.putIfAbsent(key, gen);
+            return existing != null ? existing : gen;
+        }
+
+        synchronized void resize(int maxEntries) {
+            this.maxEntries = maxEntries;
+            final Iterator<String> it = entries.keySet().iterator();
+            while (entries.size() > maxEntries && it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+    }
+
 }
@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Implemented by barcode generators which can tell the symbol size a message needs without
+ * producing the symbol. This is considerably cheaper than
+ * {@link BarcodeGenerator#calcDimensions(String)} for symbologies whose symbol construction is
+ * expensive (error correction and module placement for DataMatrix, PDF417 and Aztec), which makes
+ * it suitable for choosing layouts for large numbers of messages ahead of rendering. For QR Code
+ * the size is taken from ZXing's encoder, so it is exact but not cheaper than generating.
+ * <p>
+ * The generators created by {@link BarcodeUtil} for DataMatrix, PDF417, QR Code and Aztec
+ * implement this interface.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+public interface CapacityPlanner {
+
+    /**
+     * Determines the symbol size that the configured generator would produce for the message
+     * and the remaining data capacity of that size.
+     * @param msg the message
+     * @return the symbol capacity
+     * @throws IllegalArgumentException if the message cannot be encoded with the configured
+     * settings (the same condition under which generating the barcode fails)
+     */
+    @NotNull
+    SymbolCapacity planCapacity(@NotNull String msg);
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j;
+
+import java.util.Locale;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Describes the symbol size a 2D barcode needs for a message and how much of the symbol's data
+ * capacity the message leaves unused. Obtained from a {@link CapacityPlanner}.
+ * <p>
+ * The capacity is counted in the unit in which the symbology allocates space: data codewords
+ * for DataMatrix and PDF417, data bits for QR Code and Aztec.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+public final class SymbolCapacity {
+
+    /** The unit of {@link #getUsed()}, {@link #getCapacity()} and {@link #getHeadroom()}. */
+    public enum Unit {
+        /** Data codewords */
+        CODEWORDS,
+        /** Data bits */
+        BITS
+    }
+
+    private final int width;
+    private final int rowCount;
+    private final int used;
+    private final int capacity;
+    private final Unit unit;
+
+    /**
+     * Creates a new instance.
+     * @param width the width of the symbol in modules (excluding any quiet zone)
+     * @param rowCount the number of rows of the symbol
+     * @param used the part of the data capacity that's taken by the message
+     * @param capacity the data capacity of the symbol
+     * @param unit the unit of the used part and the capacity
+     */
+    public SymbolCapacity(int width, int rowCount, int used, int capacity, @NotNull Unit unit) {
+        if (used > capacity) {
+            throw new IllegalArgumentException("Used capacity (" + used
+                    + ") exceeds the symbol's capacity (" + capacity + ")");
+        }
+        this.width = width;
+        this.rowCount = rowCount;
+        this.used = used;
+        this.capacity = capacity;
+        this.unit = unit;
+    }
+
+    /** @return the width of the symbol in modules (excluding any quiet zone) */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows of the symbol. For matrix symbologies, this is the height in
+     * modules.
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /** @return the part of the data capacity that's taken by the message */
+    public int getUsed() {
+        return used;
+    }
+
+    /** @return the data capacity of the symbol */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns how much more data would fit into a symbol of the same size. For symbologies whose
+     * error correction grows with the message (Aztec), this is an upper bound.
+     * @return the unused data capacity
+     */
+    public int getHeadroom() {
+        return capacity - used;
+    }
+
+    /** @return the unit of the used part, the capacity and the headroom */
+    @NotNull
+    public Unit getUnit() {
+        return unit;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SymbolCapacity)) {
+            return false;
+        }
+        final SymbolCapacity other = (SymbolCapacity) obj;
+        return width == other.width && rowCount == other.rowCount
+                && used == other.used && capacity == other.capacity && unit == other.unit;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        int result = width;
+        result = 31 * result + rowCount;
+        result = 31 * result + used;
+        result = 31 * result + capacity;
+        return 31 * result + unit.hashCode();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "SymbolCapacity[" + width + "x" + rowCount + ", " + used + "/" + capacity
+                + " " + unit.name().toLowerCase(Locale.ROOT) + "]";
+    }
+
+}
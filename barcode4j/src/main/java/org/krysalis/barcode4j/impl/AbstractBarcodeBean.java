@@ -20,11 +20,17 @@ import org.jetbrains.annotations.Nullable;
 import org.krysalis.barcode4j.BarcodeDimension;
 import org.krysalis.barcode4j.BarcodeGenerator;
 import org.krysalis.barcode4j.HumanReadablePlacement;
+import org.krysalis.barcode4j.output.Canvas;
 import org.krysalis.barcode4j.output.CanvasProvider;
 import org.krysalis.barcode4j.tools.UnitConv;
 
 /**
  * Base class for most barcode implementations.
+ * <p>
+ * Generating a barcode or calculating its dimensions never changes the state of a bean, so a bean
+ * may be used by several threads at once as long as its settings are no longer changed. Calling
+ * {@link #freeze()} after configuring a bean enforces this: any further call to a setter fails.
+ * </p>
  *
  * @version $Id: AbstractBarcodeBean.java,v 1.7 2008-05-13 13:00:45 jmaerki Exp $
  */
@@ -48,6 +54,37 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
     protected Double quietZoneVertical;
     /** pattern to be applied over the human readable message */
     protected String pattern;
+    /** True once the settings can no longer be changed */
+    private volatile boolean frozen;
+
+    /**
+     * Freezes the settings of this bean. Afterwards, any attempt to change a setting results in an
+     * {@link IllegalStateException}, which makes it safe to share the bean between threads.
+     * @since 2.4.1
+     */
+    public void freeze() {
+        this.frozen = true;
+    }
+
+    /**
+     * Indicates whether the settings of this bean have been frozen.
+     * @return true if the bean can no longer be changed
+     * @since 2.4.1
+     */
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    /**
+     * Must be called by every method changing a setting of the bean.
+     * @throws IllegalStateException if the bean has been frozen
+     * @since 2.4.1
+     */
+    protected void checkNotFrozen() {
+        if (this.frozen) {
+            throw new IllegalStateException(getClass().getSimpleName() + " has been frozen and cannot be changed");
+        }
+    }
 
     /**
      * returns the pattern to be applied over the human readable message
@@ -62,6 +99,7 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
      * @param v String
      */
     public void setPattern(String v) {
+      checkNotFrozen();
       this.pattern = v;
     }
 
@@ -115,6 +153,7 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
      * @param height the height of the bars (in mm)
      */
     public void setBarHeight(double height) {
+        checkNotFrozen();
         this.height = height;
     }
 
@@ -123,6 +162,7 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
      * @param height the full height (in mm)
      */
     public void setHeight(double height) {
+        checkNotFrozen();
         this.height = height - getHumanReadableHeight();
     }
 
@@ -139,6 +179,7 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
      * @param width the width of the narrow module (in mm)
      */
     public void setModuleWidth(double width) {
+        checkNotFrozen();
         this.moduleWidth = width;
     }
 
@@ -162,6 +203,7 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
      * @param value true if a quiet zone should be included
      */
     public void doQuietZone(boolean value) {
+        checkNotFrozen();
         this.doQuietZone = value;
     }
 
@@ -184,6 +226,7 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
      * @param width the width of the quiet zone (in mm)
      */
     public void setQuietZone(double width) {
+        checkNotFrozen();
         this.quietZone = width;
     }
 
@@ -193,6 +236,7 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
      * @param height the height of the vertical quiet zone (in mm)
      */
     public void setVerticalQuietZone(double height) {
+        checkNotFrozen();
         this.quietZoneVertical = height;
     }
 
@@ -209,6 +253,7 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
      * @param placement the placement of the human-readable part
      */
     public void setMsgPosition(HumanReadablePlacement placement) {
+        checkNotFrozen();
         this.msgPos = placement;
     }
 
@@ -225,6 +270,7 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
      * @param size the font size
      */
     public void setFontSize(double size) {
+        checkNotFrozen();
         this.fontSize = size;
     }
 
@@ -241,6 +287,7 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
      * @param name the font name
      */
     public void setFontName(String name) {
+        checkNotFrozen();
         this.fontName = name;
     }
 
@@ -252,4 +299,30 @@ public abstract class AbstractBarcodeBean implements BarcodeGenerator {
     @Override
     public abstract BarcodeDimension calcDimensions(@NotNull final String msg);
 
+    /**
+     * Calculates the dimensions of a 2D symbol that has already been encoded. The symbol's width is
+     * measured in modules and each row is {@link #getBarHeight()} high.
+     * @param symbol the encoded symbol
+     * @return the barcode dimensions
+     * @since 2.4.1
+     */
+    @NotNull
+    protected BarcodeDimension calcDimensions(@NotNull final EncodedSymbol symbol) {
+        final double qzh = hasQuietZone() ? getQuietZone() : 0;
+        final double qzv = hasQuietZone() ? getVerticalQuietZone() : 0;
+        return symbol.calcDimensions(getModuleWidth(), getBarHeight(), qzh, qzv);
+    }
+
+    /**
+     * Paints a 2D symbol that has already been encoded. The dimensions are derived from the symbol
+     * so the message is not encoded a second time.
+     * @param canvas the canvas provider to paint to
+     * @param symbol the encoded symbol
+     * @since 2.4.1
+     */
+    protected void generateBarcode(@NotNull final CanvasProvider canvas, @NotNull final EncodedSymbol symbol) {
+        symbol.generateBarcodeLogic(
+            new DefaultTwoDimCanvasLogicHandler(this, new Canvas(canvas), calcDimensions(symbol)));
+    }
+
 }
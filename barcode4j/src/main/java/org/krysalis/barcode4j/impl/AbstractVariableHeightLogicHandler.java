@@ -20,6 +20,7 @@ import org.krysalis.barcode4j.BarcodeDimension;
 import org.krysalis.barcode4j.ClassicBarcodeLogicHandler;
 import org.krysalis.barcode4j.HumanReadablePlacement;
 import org.krysalis.barcode4j.TextAlignment;
+import org.krysalis.barcode4j.output.CancellationToken;
 import org.krysalis.barcode4j.output.Canvas;
 import org.krysalis.barcode4j.tools.MessagePatternUtil;
 
@@ -75,6 +76,7 @@ public abstract class AbstractVariableHeightLogicHandler
 
     /** {@inheritDoc} */
     public void startBarcode(String msg, String formattedMsg) {
+        CancellationToken.checkCurrent();
         this.formattedMsg = MessagePatternUtil.applyCustomMessagePattern(formattedMsg, bcBean.getPattern());
         //Calculate extents
         final BarcodeDimension dim = bcBean.calcDimensions(msg);
@@ -20,6 +20,7 @@ import org.krysalis.barcode4j.BarcodeDimension;
 import org.krysalis.barcode4j.ClassicBarcodeLogicHandler;
 import org.krysalis.barcode4j.HumanReadablePlacement;
 import org.krysalis.barcode4j.TextAlignment;
+import org.krysalis.barcode4j.output.CancellationToken;
 import org.krysalis.barcode4j.output.Canvas;
 import org.krysalis.barcode4j.tools.MessagePatternUtil;
 
@@ -36,6 +37,7 @@ public class DefaultCanvasLogicHandler implements ClassicBarcodeLogicHandler {
     protected Canvas canvas;
     /** the barcode dimensions */
     protected BarcodeDimension dimensions;
+    private final BarcodeDimension knownDimensions;
     private double x = 0.0;
     private double y;
     private String formattedMsg;
@@ -46,8 +48,21 @@ public class DefaultCanvasLogicHandler implements ClassicBarcodeLogicHandler {
      * @param canvas the canvas to paint to
      */
     public DefaultCanvasLogicHandler(AbstractBarcodeBean bcBean, Canvas canvas) {
+        this(bcBean, canvas, null);
+    }
+
+    /**
+     * Constructor for when the dimensions of the barcode are already known, which avoids the
+     * message being encoded a second time just to measure it.
+     * @param bcBean the barcode implementation class
+     * @param canvas the canvas to paint to
+     * @param dimensions the precalculated barcode dimensions (or null to calculate them on demand)
+     * @since 2.4.1
+     */
+    public DefaultCanvasLogicHandler(AbstractBarcodeBean bcBean, Canvas canvas, BarcodeDimension dimensions) {
         this.bcBean = bcBean;
         this.canvas = canvas;
+        this.knownDimensions = dimensions;
     }
 
     /**
@@ -79,11 +94,12 @@ public class DefaultCanvasLogicHandler implements ClassicBarcodeLogicHandler {
 
     /** {@inheritDoc} */
     public void startBarcode(String msg, String formattedMsg) {
+        CancellationToken.checkCurrent();
         this.formattedMsg = MessagePatternUtil.applyCustomMessagePattern(
                 formattedMsg, bcBean.getPattern());
 
-        //Calculate extents
-        this.dimensions = bcBean.calcDimensions(msg);
+        //Calculate extents (unless they were given up front)
+        this.dimensions = knownDimensions != null ? knownDimensions : bcBean.calcDimensions(msg);
 
         canvas.establishDimensions(dimensions);
         x = getStartX();
@@ -92,7 +108,7 @@ public class DefaultCanvasLogicHandler implements ClassicBarcodeLogicHandler {
 
     /** {@inheritDoc} */
     public void startBarGroup(BarGroup type, String submsg) {
-        //nop
+        CancellationToken.checkCurrent();
     }
 
     /** {@inheritDoc} */
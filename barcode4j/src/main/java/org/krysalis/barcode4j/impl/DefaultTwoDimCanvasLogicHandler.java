@@ -15,14 +15,24 @@
  */
 package org.krysalis.barcode4j.impl;
 
+import java.util.Arrays;
+
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.krysalis.barcode4j.BarGroup;
 import org.krysalis.barcode4j.BarcodeDimension;
 import org.krysalis.barcode4j.TwoDimBarcodeLogicHandler;
+import org.krysalis.barcode4j.output.CancellationToken;
 import org.krysalis.barcode4j.output.Canvas;
 
 /**
  * Default 2D Logic Handler implementation for painting on a Canvas.
+ * <p>
+ * Adjacent black modules are not painted one by one: consecutive black bars within a row are
+ * merged into a single rectangle and a rectangle that covers the same columns in the following row
+ * is extended downwards instead of starting a new one. This greatly reduces the number of
+ * primitives handed to the canvas (SVG elements, EPS operators, Java2D fills).
+ * </p>
  *
  * @author Jeremias Maerki
  * @version $Id: DefaultTwoDimCanvasLogicHandler.java,v 1.1 2006-06-22 09:01:19 jmaerki Exp $
@@ -31,17 +41,50 @@ public class DefaultTwoDimCanvasLogicHandler implements TwoDimBarcodeLogicHandle
 
     private final AbstractBarcodeBean bcBean;
     private final Canvas canvas;
+    private final BarcodeDimension dimensions;
     private double x = 0.0;
     private double y = 0.0;
 
+    /** start of the black run currently being collected, NaN if there is none */
+    private double runStart = Double.NaN;
+
+    /** rectangles still open for vertical extension, sorted by x: from the rows above */
+    private double[] openX = new double[16];
+    private double[] openW = new double[16];
+    private double[] openY = new double[16];
+    private double[] openH = new double[16];
+    private int openCount;
+    private double[] spareY = new double[16];
+    private double[] spareH = new double[16];
+
+    /** spans of black runs found in the current row */
+    private double[] rowX = new double[16];
+    private double[] rowW = new double[16];
+    private int rowCount;
+
     /**
      * Main constructor.
      * @param bcBean the barcode implementation class
      * @param canvas the canvas to paint to
      */
     public DefaultTwoDimCanvasLogicHandler(@NotNull final AbstractBarcodeBean bcBean, @NotNull final Canvas canvas) {
+        this(bcBean, canvas, null);
+    }
+
+    /**
+     * Constructor for when the dimensions of the barcode are already known, which avoids the
+     * message being encoded a second time just to measure it.
+     * @param bcBean the barcode implementation class
+     * @param canvas the canvas to paint to
+     * @param dimensions the precalculated barcode dimensions (or null to calculate them on demand)
+     * @since 2.4.1
+     */
+    public DefaultTwoDimCanvasLogicHandler(@NotNull final AbstractBarcodeBean bcBean,
+                                           @NotNull final Canvas canvas,
+                                           @Nullable final BarcodeDimension dimensions) {
         this.bcBean = bcBean;
         this.canvas = canvas;
+        this.dimensions = dimensions;
     }
 
     private double getStartX() {
@@ -55,15 +98,19 @@ public class DefaultTwoDimCanvasLogicHandler implements TwoDimBarcodeLogicHandle
     /** @see org.krysalis.barcode4j.ClassicBarcodeLogicHandler */
     public void startBarcode(String msg, String formattedMsg) {
         //Calculate extents
-        BarcodeDimension dim = bcBean.calcDimensions(msg);
+        final BarcodeDimension dim = dimensions != null ? dimensions : bcBean.calcDimensions(msg);
 
         canvas.establishDimensions(dim);
         y = getStartY();
+        openCount = 0;
     }
 
     /** @see org.krysalis.barcode4j.TwoDimBarcodeLogicHandler#startRow() */
     public void startRow() {
+        CancellationToken.checkCurrent();
         x = getStartX();
+        runStart = Double.NaN;
+        rowCount = 0;
     }
 
     /** @see org.krysalis.barcode4j.ClassicBarcodeLogicHandler */
@@ -75,7 +122,11 @@ public class DefaultTwoDimCanvasLogicHandler implements TwoDimBarcodeLogicHandle
     public void addBar(boolean black, int width) {
         final double w = bcBean.getBarWidth(width);
         if (black) {
-            canvas.drawRectWH(x, y, w, bcBean.getBarHeight());
+            if (Double.isNaN(runStart)) {
+                runStart = x;
+            }
+        } else {
+            endRun();
         }
         x += w;
     }
@@ -87,12 +138,82 @@ public class DefaultTwoDimCanvasLogicHandler implements TwoDimBarcodeLogicHandle
 
     /** @see org.krysalis.barcode4j.TwoDimBarcodeLogicHandler#endRow() */
     public void endRow() {
-        y += bcBean.getBarHeight(); //=row height
+        endRun();
+        final double h = bcBean.getBarHeight(); //=row height
+        mergeRow(h);
+        y += h;
     }
 
     /** @see org.krysalis.barcode4j.ClassicBarcodeLogicHandler */
     public void endBarcode() {
-        //nop
+        for (int i = 0; i < openCount; i++) {
+            canvas.drawRectWH(openX[i], openY[i], openW[i], openH[i]);
+        }
+        openCount = 0;
+    }
+
+    /** Finishes the black run being collected (if any) and adds it to the spans of the current row. */
+    private void endRun() {
+        if (Double.isNaN(runStart)) {
+            return;
+        }
+        if (rowCount == rowX.length) {
+            rowX = Arrays.copyOf(rowX, rowCount * 2);
+            rowW = Arrays.copyOf(rowW, rowCount * 2);
+        }
+        rowX[rowCount] = runStart;
+        rowW[rowCount] = x - runStart;
+        rowCount++;
+        runStart = Double.NaN;
+    }
+
+    /**
+     * Merges the spans of the current row into the open rectangles. A rectangle with exactly the
+     * same horizontal extent as a span is extended, all other open rectangles are painted and the
+     * remaining spans become new open rectangles.
+     * @param h the height of the current row
+     */
+    private void mergeRow(double h) {
+        if (spareY.length < rowCount) {
+            spareY = new double[rowX.length];
+            spareH = new double[rowX.length];
+        }
+        int o = 0;
+        for (int r = 0; r < rowCount; r++) {
+            while (o < openCount && openX[o] < rowX[r]) {
+                closeOpen(o++);
+            }
+            if (o < openCount && openX[o] == rowX[r] && openW[o] == rowW[r]) {
+                spareY[r] = openY[o];
+                spareH[r] = openH[o] + h;
+                o++;
+            } else {
+                spareY[r] = y;
+                spareH[r] = h;
+            }
+        }
+        while (o < openCount) {
+            closeOpen(o++);
+        }
+        // the spans of this row become the open rectangles, the old arrays are reused for the next row
+        double[] tmp = openX;
+        openX = rowX;
+        rowX = tmp;
+        tmp = openW;
+        openW = rowW;
+        rowW = tmp;
+        tmp = openY;
+        openY = spareY;
+        spareY = tmp;
+        tmp = openH;
+        openH = spareH;
+        spareH = tmp;
+        openCount = rowCount;
+        rowCount = 0;
+    }
+
+    private void closeOpen(int index) {
+        canvas.drawRectWH(openX[index], openY[index], openW[index], openH[index]);
     }
 
 }
@@ -0,0 +1,187 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.krysalis.barcode4j.BarGroup;
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.TwoDimBarcodeLogicHandler;
+
+/**
+ * The result of encoding a message as a 2D symbol. Each row is held as the sequence of bars that the
+ * logic implementation produced, so the symbol can be measured and painted any number of times
+ * without having to encode the message again.
+ * <p>
+ * Instances are immutable and can be shared between threads. Use a {@link Recorder} to capture the
+ * output of a logic implementation.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+public final class EncodedSymbol {
+
+    private final String message;
+    private final String formattedMessage;
+    /** bar widths per row in modules, positive for black bars and negative for white bars */
+    private final int[][] rows;
+    private final int width;
+
+    private EncodedSymbol(String message, String formattedMessage, int[][] rows) {
+        this.message = message;
+        this.formattedMessage = formattedMessage;
+        this.rows = rows;
+        int maxWidth = 0;
+        for (final int[] row : rows) {
+            int rowWidth = 0;
+            for (final int bar : row) {
+                rowWidth += Math.abs(bar);
+            }
+            maxWidth = Math.max(maxWidth, rowWidth);
+        }
+        this.width = maxWidth;
+    }
+
+    /** @return the message that was encoded */
+    public String getMessage() {
+        return message;
+    }
+
+    /** @return the message as it should be presented to a human reader */
+    public String getFormattedMessage() {
+        return formattedMessage;
+    }
+
+    /** @return the width of the symbol in modules (excluding any quiet zone) */
+    public int getWidth() {
+        return width;
+    }
+
+    /** @return the number of rows in the symbol */
+    public int getRowCount() {
+        return rows.length;
+    }
+
+    /**
+     * Calculates the dimensions of the symbol.
+     * @param moduleWidth the width of a single module
+     * @param rowHeight the height of a single row
+     * @param quietZone the horizontal quiet zone (0 if disabled)
+     * @param verticalQuietZone the vertical quiet zone (0 if disabled)
+     * @return the barcode dimensions
+     */
+    @NotNull
+    public BarcodeDimension calcDimensions(double moduleWidth, double rowHeight,
+                                           double quietZone, double verticalQuietZone) {
+        final double w = width * moduleWidth;
+        final double h = rows.length * rowHeight;
+        return new BarcodeDimension(w, h,
+                w + (2 * quietZone), h + (2 * verticalQuietZone),
+                quietZone, verticalQuietZone);
+    }
+
+    /**
+     * Replays the symbol to a logic handler, producing the same sequence of rows and bars as the
+     * logic implementation that encoded the message (bar groups are not retained).
+     * @param logic the logic handler to receive the barcode events
+     */
+    public void generateBarcodeLogic(@NotNull TwoDimBarcodeLogicHandler logic) {
+        logic.startBarcode(message, formattedMessage);
+        for (final int[] row : rows) {
+            logic.startRow();
+            for (final int bar : row) {
+                logic.addBar(bar > 0, Math.abs(bar));
+            }
+            logic.endRow();
+        }
+        logic.endBarcode();
+    }
+
+    /**
+     * A {@link TwoDimBarcodeLogicHandler} which records the barcode events into an {@link EncodedSymbol}.
+     * A recorder is used for a single message and is not thread-safe.
+     */
+    public static final class Recorder implements TwoDimBarcodeLogicHandler {
+
+        private final List<int[]> rows = new ArrayList<>();
+        private int[] row = new int[64];
+        private int rowLength;
+        private String message;
+        private String formattedMessage;
+        private EncodedSymbol symbol;
+
+        /** {@inheritDoc} */
+        @Override
+        public void startBarcode(String msg, String formattedMsg) {
+            this.message = msg;
+            this.formattedMessage = formattedMsg;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void startRow() {
+            rowLength = 0;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void startBarGroup(BarGroup type, String submsg) {
+            //nop
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void addBar(boolean black, int width) {
+            if (width <= 0) {
+                throw new IllegalArgumentException("Bar width must be positive: " + width);
+            }
+            if (rowLength == row.length) {
+                row = Arrays.copyOf(row, row.length * 2);
+            }
+            row[rowLength++] = black ? width : -width;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void endBarGroup() {
+            //nop
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void endRow() {
+            rows.add(Arrays.copyOf(row, rowLength));
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public void endBarcode() {
+            symbol = new EncodedSymbol(message, formattedMessage, rows.toArray(new int[0][]));
+        }
+
+        /**
+         * Returns the recorded symbol.
+         * @return the symbol or null if the barcode has not been completed
+         */
+        @Nullable
+        public EncodedSymbol getSymbol() {
+            return symbol;
+        }
+    }
+
+}
@@ -14,6 +14,9 @@
 package org.krysalis.barcode4j.impl.aztec;
 
 import com.google.zxing.aztec.encoder.Encoder;
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.CapacityPlanner;
+import org.krysalis.barcode4j.SymbolCapacity;
 import org.krysalis.barcode4j.configuration.Configurable;
 import org.krysalis.barcode4j.configuration.Configuration;
 import org.krysalis.barcode4j.configuration.ConfigurationException;
@@ -30,7 +33,7 @@ import static com.google.zxing.aztec.encoder.Encoder.DEFAULT_EC_PERCENT;
  * @since 2.4.0
  * @author Samael Bate (singingbush)
  */
-public class Aztec extends ConfigurableBarcodeGenerator implements Configurable {
+public class Aztec extends ConfigurableBarcodeGenerator implements Configurable, CapacityPlanner {
 
     public Aztec() {
         this.bean = new AztecBean();
@@ -52,4 +55,11 @@ public class Aztec extends ConfigurableBarcodeGenerator implements Configurable
         bean.setErrorCorrectionLevel(cfg.getChild("ec-level").getValueAsInteger(DEFAULT_EC_PERCENT));
         bean.setLayers(cfg.getChild("layers").getValueAsInteger(Encoder.DEFAULT_AZTEC_LAYERS));
     }
+
+    /** {@inheritDoc} */
+    @NotNull
+    @Override
+    public SymbolCapacity planCapacity(@NotNull String msg) {
+        return ((AztecBean) getBean()).planCapacity(msg);
+    }
 }
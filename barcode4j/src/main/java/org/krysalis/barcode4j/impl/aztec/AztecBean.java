@@ -21,9 +21,11 @@ import com.google.zxing.common.BitMatrix;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.CapacityPlanner;
+import org.krysalis.barcode4j.SymbolCapacity;
+import org.krysalis.barcode4j.TwoDimBarcodeLogicHandler;
 import org.krysalis.barcode4j.impl.AbstractBarcodeBean;
-import org.krysalis.barcode4j.impl.DefaultTwoDimCanvasLogicHandler;
-import org.krysalis.barcode4j.output.Canvas;
+import org.krysalis.barcode4j.impl.EncodedSymbol;
 import org.krysalis.barcode4j.output.CanvasProvider;
 
 import com.google.zxing.aztec.encoder.AztecCode;
@@ -43,7 +45,7 @@ import static com.google.zxing.aztec.encoder.Encoder.DEFAULT_EC_PERCENT;
  * @since 2.4.0
  * @author Samael Bate (singingbush)
  */
-public class AztecBean extends AbstractBarcodeBean {
+public class AztecBean extends AbstractBarcodeBean implements CapacityPlanner {
 
     static final double DEFAULT_MODULE_WIDTH = 1.8;
 
@@ -62,6 +64,7 @@ public class AztecBean extends AbstractBarcodeBean {
     }
 
     public void setErrorCorrectionLevel(int errorCorrectionLevel) {
+        checkNotFrozen();
         if (errorCorrectionLevel < 23 || errorCorrectionLevel > 99) {
             throw new IllegalArgumentException(String.format("Error Correction must be a percentage value of at least 23. The default is %s", DEFAULT_EC_PERCENT));
         }
@@ -77,6 +80,7 @@ public class AztecBean extends AbstractBarcodeBean {
      * @param layers manually set the number of data layers for the barcode
      */
     public void setLayers(final int layers) {
+        checkNotFrozen();
         this.layers = layers;
     }
 
@@ -86,6 +90,7 @@ public class AztecBean extends AbstractBarcodeBean {
      * @param encoding the message encoding
      */
     public void setEncoding(final String encoding) {
+        checkNotFrozen();
         if (ECIUtil.getECIForEncoding(encoding) < 0) {
             throw new IllegalArgumentException("Not a valid encoding: " + encoding);
         }
@@ -107,26 +112,36 @@ public class AztecBean extends AbstractBarcodeBean {
             throw new IllegalArgumentException("Parameter msg must not be empty");
         }
 
-        final BitMatrix matrix = generateAztecBarcodeMatrix(msg);
-
-        applyMatrixToCanvas(new Canvas(canvas), msg, matrix);
+        generateBarcode(canvas, encodeSymbol(msg));
     }
 
     /** {@inheritDoc} */
     @Override
     public BarcodeDimension calcDimensions(@NotNull String msg) {
-        final BitMatrix matrix = generateAztecBarcodeMatrix(msg);
+        return calcDimensions(encodeSymbol(msg));
+    }
 
-        int effWidth = matrix.getWidth();
-        int effHeight = matrix.getHeight();
+    /** {@inheritDoc} */
+    @NotNull
+    @Override
+    public SymbolCapacity planCapacity(@NotNull String msg) {
+        return AztecCapacityPlanner.planCapacity(msg, this.errorCorrectionLevel, this.layers,
+                Charset.forName(getEncoding()));
+    }
 
-        double width = effWidth * getModuleWidth();
-        double height = effHeight * getBarHeight();
-        double qzh = (hasQuietZone() ? getQuietZone() : 0);
-        double qzv = (hasQuietZone() ? getVerticalQuietZone() : 0);
-        return new BarcodeDimension(width, height,
-            width + (2 * qzh), height + (2 * qzv),
-            qzh, qzv);
+    /**
+     * Encodes a message into a symbol which can be measured and painted without encoding the
+     * message again.
+     * @param msg the message to encode
+     * @return the encoded symbol
+     * @since 2.4.1
+     */
+    @NotNull
+    public EncodedSymbol encodeSymbol(@NotNull final String msg) {
+        final BitMatrix matrix = generateAztecBarcodeMatrix(msg);
+        final EncodedSymbol.Recorder recorder = new EncodedSymbol.Recorder();
+        applyMatrix(recorder, msg, matrix);
+        return recorder.getSymbol();
     }
 
     /** {@inheritDoc} */
@@ -152,13 +167,11 @@ public class AztecBean extends AbstractBarcodeBean {
         return aztec.getMatrix();
     }
 
-    private void applyMatrixToCanvas(
-        @NotNull final Canvas canvas,
+    private void applyMatrix(
+        @NotNull final TwoDimBarcodeLogicHandler handler,
         @NotNull final String msg,
         @NotNull final BitMatrix matrix
     ) {
-        final DefaultTwoDimCanvasLogicHandler handler = new DefaultTwoDimCanvasLogicHandler(this, canvas);
-
         final int width = matrix.getWidth();
         final int height = matrix.getHeight();
 
@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.impl.aztec;
+
+import java.nio.charset.Charset;
+
+import com.google.zxing.aztec.encoder.Encoder;
+import com.google.zxing.aztec.encoder.HighLevelEncoder;
+import com.google.zxing.common.BitArray;
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.SymbolCapacity;
+
+/**
+ * Selects the number of layers of an Aztec symbol the way ZXing's encoder does, but only runs the
+ * high-level encoding and skips the error correction and the construction of the matrix.
+ *
+ * @since 2.4.1
+ */
+final class AztecCapacityPlanner {
+
+    private static final int MAX_LAYERS_COMPACT = 4;
+    private static final int MAX_LAYERS = 32;
+    private static final int MAX_WORDS_COMPACT = 64;
+
+    private static final int[] WORD_SIZE = {
+        4, 6, 6, 8, 8, 8, 8, 8, 8, 10, 10,
+        10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10,
+        10, 12, 12, 12, 12, 12, 12, 12, 12, 12, 12
+    };
+
+    private AztecCapacityPlanner() {
+    }
+
+    /**
+     * Determines the size of the Aztec symbol for a message.
+     * @param msg the message
+     * @param minECCPercent the minimum percentage of error correction words
+     * @param userSpecifiedLayers the number of layers (negative for compact symbols) or
+     * {@link Encoder#DEFAULT_AZTEC_LAYERS} to choose the smallest symbol
+     * @param charset the message encoding
+     * @return the symbol capacity in data bits
+     */
+    @NotNull
+    static SymbolCapacity planCapacity(@NotNull String msg, int minECCPercent, int userSpecifiedLayers,
+                                       @NotNull Charset charset) {
+        final BitArray bits = new HighLevelEncoder(msg.getBytes(charset), charset).encode();
+        final int eccBits = bits.getSize() * minECCPercent / 100 + 11;
+        final int totalSizeBits = bits.getSize() + eccBits;
+
+        boolean compact;
+        int layers;
+        int wordSize;
+        int stuffedSize;
+        int usableBitsInLayers;
+        if (userSpecifiedLayers != Encoder.DEFAULT_AZTEC_LAYERS) {
+            compact = userSpecifiedLayers < 0;
+            layers = Math.abs(userSpecifiedLayers);
+            if (layers > (compact ? MAX_LAYERS_COMPACT : MAX_LAYERS)) {
+                throw new IllegalArgumentException(
+                        String.format("Illegal value %s for layers", userSpecifiedLayers));
+            }
+            final int totalBitsInLayer = totalBitsInLayer(layers, compact);
+            wordSize = WORD_SIZE[layers];
+            usableBitsInLayers = totalBitsInLayer - (totalBitsInLayer % wordSize);
+            stuffedSize = getStuffedSize(bits, wordSize);
+            if (stuffedSize + eccBits > usableBitsInLayers
+                    || (compact && stuffedSize > wordSize * MAX_WORDS_COMPACT)) {
+                throw new IllegalArgumentException("Data to large for user specified layer");
+            }
+        } else {
+            wordSize = 0;
+            stuffedSize = -1;
+            for (int i = 0; ; i++) {
+                if (i > MAX_LAYERS) {
+                    throw new IllegalArgumentException("Data too large for an Aztec code");
+                }
+                compact = i <= 3;
+                layers = compact ? i + 1 : i;
+                final int totalBitsInLayer = totalBitsInLayer(layers, compact);
+                if (totalSizeBits > totalBitsInLayer) {
+                    continue;
+                }
+                if (stuffedSize < 0 || wordSize != WORD_SIZE[layers]) {
+                    wordSize = WORD_SIZE[layers];
+                    stuffedSize = getStuffedSize(bits, wordSize);
+                }
+                usableBitsInLayers = totalBitsInLayer - (totalBitsInLayer % wordSize);
+                if (compact && stuffedSize > wordSize * MAX_WORDS_COMPACT) {
+                    continue;
+                }
+                if (stuffedSize + eccBits <= usableBitsInLayers) {
+                    break;
+                }
+            }
+        }
+
+        int capacity = usableBitsInLayers - eccBits;
+        if (compact) {
+            capacity = Math.min(capacity, wordSize * MAX_WORDS_COMPACT);
+        }
+        final int size = getMatrixSize(layers, compact);
+        return new SymbolCapacity(size, size, stuffedSize, capacity, SymbolCapacity.Unit.BITS);
+    }
+
+    private static int totalBitsInLayer(int layers, boolean compact) {
+        return ((compact ? 88 : 112) + 16 * layers) * layers;
+    }
+
+    private static int getMatrixSize(int layers, boolean compact) {
+        final int baseMatrixSize = (compact ? 11 : 14) + layers * 4;
+        if (compact) {
+            return baseMatrixSize;
+        }
+        //Full symbols have a reference grid line every 16 modules
+        return baseMatrixSize + 1 + 2 * ((baseMatrixSize / 2 - 1) / 15);
+    }
+
+    /**
+     * Returns the number of bits after bit stuffing: a word consisting of only zeros or only ones
+     * (ignoring its last bit) gets a complementary last bit and the bit it replaces moves to the
+     * next word.
+     */
+    private static int getStuffedSize(BitArray bits, int wordSize) {
+        final int n = bits.getSize();
+        final int mask = (1 << wordSize) - 2;
+        int size = 0;
+        for (int i = 0; i < n; i += wordSize) {
+            int word = 0;
+            for (int j = 0; j < wordSize; j++) {
+                if (i + j >= n || bits.get(i + j)) {
+                    word |= 1 << (wordSize - 1 - j);
+                }
+            }
+            if ((word & mask) == mask || (word & mask) == 0) {
+                i--;
+            }
+            size += wordSize;
+        }
+        return size;
+    }
+
+}
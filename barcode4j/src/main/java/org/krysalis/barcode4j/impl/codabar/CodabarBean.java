@@ -66,6 +66,7 @@ public class CodabarBean extends AbstractBarcodeBean {
      * @param mode the checksum mode
      */
     public void setChecksumMode(ChecksumMode mode) {
+        checkNotFrozen();
         this.checksumMode = mode;
     }
 
@@ -82,6 +83,7 @@ public class CodabarBean extends AbstractBarcodeBean {
      * @param value the wide factory (should be &gt; 1.0)
      */
     public void setWideFactor(double value) {
+        checkNotFrozen();
         if (value <= 1.0) {
             throw new IllegalArgumentException("wide factor must be > 1.0");
         }
@@ -115,6 +117,7 @@ public class CodabarBean extends AbstractBarcodeBean {
      * @param value true to enable the start/stop character, false to disable
      */
     public void setDisplayStartStop(boolean value) {
+        checkNotFrozen();
         this.displayStartStop = value;
     }
 
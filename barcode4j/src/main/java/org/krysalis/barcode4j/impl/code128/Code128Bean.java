@@ -54,6 +54,7 @@ public class Code128Bean extends AbstractBarcodeBean {
      * @param codeset the codesets to use (see {@link Code128Constants}.CODESET_*)
      */
     public void setCodeset(int codeset) {
+        checkNotFrozen();
         if (codeset == 0) {
             throw new IllegalArgumentException("At least one codeset must be allowed");
         }
@@ -86,9 +87,17 @@ public class Code128Bean extends AbstractBarcodeBean {
     /** {@inheritDoc} */
     @Override
     public BarcodeDimension calcDimensions(@NotNull String msg) {
-        final Code128LogicImpl impl = createLogicImpl();
+        return calcDimensions(createLogicImpl().createEncodedMessage(msg));
+    }
 
-        final int msgLen = impl.createEncodedMessage(msg).length + 1;
+    /**
+     * Calculates the dimensions of a barcode from a message that has already been encoded.
+     * @param encodedMsg the message as an array of character set indexes (excluding the checksum)
+     * @return the barcode dimensions
+     * @since 2.4.1
+     */
+    protected BarcodeDimension calcDimensions(@NotNull int[] encodedMsg) {
+        final int msgLen = encodedMsg.length + 1;
 
         final double width = ((msgLen * 11) + 13) * getModuleWidth();
         final double qz = (hasQuietZone() ? quietZone : 0);
@@ -110,11 +119,15 @@ public class Code128Bean extends AbstractBarcodeBean {
             throw new NullPointerException("Parameter msg must not be empty");
         }
 
-        final ClassicBarcodeLogicHandler handler = new DefaultCanvasLogicHandler(this, new Canvas(canvas));
+        //encode the message once and derive the dimensions from the result
+        final Code128LogicImpl impl = createLogicImpl();
+        final int[] encodedMsg = impl.createEncodedMessage(msg);
+
+        final ClassicBarcodeLogicHandler handler = new DefaultCanvasLogicHandler(this, new Canvas(canvas),
+                calcDimensions(encodedMsg));
         //handler = new LoggingLogicHandlerProxy(handler);
 
-        Code128LogicImpl impl = createLogicImpl();
-        impl.generateBarcodeLogic(handler, msg);
+        impl.generateBarcodeLogic(handler, msg, encodedMsg);
     }
 
 }
@@ -302,9 +302,18 @@ public class Code128LogicImpl {
      * @param msg the message to encode
      */
     public void generateBarcodeLogic(@NotNull ClassicBarcodeLogicHandler logic, String msg) {
-        logic.startBarcode(msg, MessageUtil.filterNonPrintableCharacters(msg));
+        generateBarcodeLogic(logic, msg, createEncodedMessage(msg));
+    }
 
-        int[] encodedMsg = createEncodedMessage(msg);
+    /**
+     * Generates the barcode logic for a message that has already been encoded.
+     * @param logic the logic handler to receive the generated events
+     * @param msg the original message
+     * @param encodedMsg the message as an array of character set indexes
+     * @since 2.4.1
+     */
+    public void generateBarcodeLogic(@NotNull ClassicBarcodeLogicHandler logic, String msg, @NotNull int[] encodedMsg) {
+        logic.startBarcode(msg, MessageUtil.filterNonPrintableCharacters(msg));
 
         if (!(encodedMsg.length > 0)) {
             // this should never happen unless perhaps an empty string is used for the message
@@ -82,7 +82,7 @@ public class EAN128AI {
 
     private static final EAN128AI dft = parseSpecPrivate("xx", "an1-48");
     private static final Object[] aiTable = new Object[] { dft, dft, dft, dft, dft, dft, dft, dft, dft, dft };
-    private static boolean propertiesLoaded = false;
+    private static volatile boolean propertiesLoaded = false;
 
     private static class AIProperties extends Properties {
         @Override
@@ -335,7 +335,9 @@ public class EAN128AI {
      * @throws Exception if properties cannot be loaded
      */
     public static EAN128AI getAI(@NotNull final String msg, int msgStart) throws Exception {
-        loadProperties();
+        if (!propertiesLoaded) {
+            loadProperties();
+        }
         return getAIPrivate(msg, msgStart);
     }
 
@@ -37,8 +37,6 @@ public class EAN128Bean extends Code128Bean {
     /** Defines the default character for the check digit marker */
     public static final char DEFAULT_CHECK_DIGIT_MARKER = 'ð';
 
-    private final EAN128LogicImpl impl;
-
     private ChecksumMode checksumMode = ChecksumMode.CP_AUTO;
     private String template = null;
     private char groupSeparator = DEFAULT_GROUP_SEPARATOR;
@@ -48,7 +46,17 @@ public class EAN128Bean extends Code128Bean {
     /** Create a new instance. */
     public EAN128Bean() {
         super();
-        impl = new EAN128LogicImpl(checksumMode, template, groupSeparator);
+    }
+
+    /**
+     * Creates the logic implementation for the current settings. The logic implementation holds
+     * the state of the message being encoded, so a new instance is needed for every barcode.
+     */
+    private EAN128LogicImpl createLogicImpl() {
+        final EAN128LogicImpl impl = new EAN128LogicImpl(checksumMode, template, groupSeparator);
+        impl.setCheckDigitMarker(checkDigitMarker);
+        impl.setOmitBrackets(omitBrackets);
+        return impl;
     }
 
     /**
@@ -56,7 +64,13 @@ public class EAN128Bean extends Code128Bean {
      */
     @Override
     public BarcodeDimension calcDimensions(@NotNull String msg) {
-        int msgLen = impl.getEncodedMessage(msg).length + 1;
+        return calcDimensions(createLogicImpl().getEncodedMessage(msg));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected BarcodeDimension calcDimensions(@NotNull int[] encodedMsg) {
+        int msgLen = encodedMsg.length + 1;
         // todo: If the output is able to calculate text lengths (e.g. awt, fop), and the
         // human readable part is longer than the barcode, then the size should be enlarged!
         final double width = ((msgLen * 11) + 13) * getModuleWidth();
@@ -75,10 +89,15 @@ public class EAN128Bean extends Code128Bean {
             throw new NullPointerException("Parameter msg must not be empty");
         }
 
-        final ClassicBarcodeLogicHandler handler = new DefaultCanvasLogicHandler(this, new Canvas(canvas));
+        //encode the message once and derive the dimensions from the result
+        final EAN128LogicImpl impl = createLogicImpl();
+        final int[] encodedMsg = impl.getEncodedMessage(msg);
+
+        final ClassicBarcodeLogicHandler handler = new DefaultCanvasLogicHandler(this, new Canvas(canvas),
+                calcDimensions(encodedMsg));
         //handler = new LoggingLogicHandlerProxy(handler);
 
-        impl.generateBarcodeLogic(handler, msg);
+        impl.generateEncodedBarcodeLogic(handler, msg);
     }
 
     /**
@@ -86,8 +105,8 @@ public class EAN128Bean extends Code128Bean {
      * @param mode the checksum mode
      */
     public void setChecksumMode(ChecksumMode mode) {
+        checkNotFrozen();
         this.checksumMode = mode;
-        impl.setChecksumMode(mode);
     }
 
     /**
@@ -111,8 +130,8 @@ public class EAN128Bean extends Code128Bean {
      * @param c the group separator character.
      */
     public void setGroupSeparator(char c) {
+        checkNotFrozen();
         groupSeparator = c;
-        impl.setGroupSeparator(c);
     }
 
     /**
@@ -133,8 +152,9 @@ public class EAN128Bean extends Code128Bean {
      * @param string a template like "(01)n13+cd(421)n3+an1-9(10)an1-20"
      */
     public void setTemplate(String string) {
+        checkNotFrozen();
+        new EAN128LogicImpl(checksumMode, string, groupSeparator); //fail early if the template is invalid
         template = string;
-        impl.setTemplate(string);
     }
 
     /**
@@ -149,8 +169,8 @@ public class EAN128Bean extends Code128Bean {
      * @param c the character for the check digit marker
      */
     public void setCheckDigitMarker(char c) {
+        checkNotFrozen();
         checkDigitMarker = c;
-        impl.setCheckDigitMarker(c);
     }
 
     /**
@@ -165,7 +185,7 @@ public class EAN128Bean extends Code128Bean {
      * @param b true if the brackets in the human-readable part should be omitted
      */
     public void setOmitBrackets(boolean b) {
+        checkNotFrozen();
         omitBrackets = b;
-        impl.setOmitBrackets(b);
     }
 }
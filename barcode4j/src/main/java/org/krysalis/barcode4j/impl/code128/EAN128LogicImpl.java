@@ -117,7 +117,16 @@ public class EAN128LogicImpl {
      */
     public void generateBarcodeLogic(ClassicBarcodeLogicHandler logic, String msg) {
         setMessage(msg);
+        generateEncodedBarcodeLogic(logic, msg);
+    }
 
+    /**
+     * Generates the barcode logic for the message that was last encoded by
+     * {@link #getEncodedMessage(String)} without encoding it again.
+     * @param logic the logic handler to receive the generated events
+     * @param msg the message that was encoded
+     */
+    void generateEncodedBarcodeLogic(ClassicBarcodeLogicHandler logic, String msg) {
         if (!(encodedMsg.length > 0)) {
             // this should never happen unless perhaps an empty string is used for the message
             throw new RuntimeException("Encoded message was empty");
@@ -59,6 +59,7 @@ public class Code39Bean extends AbstractBarcodeBean {
      * @param mode the checksum mode
      */
     public void setChecksumMode(ChecksumMode mode) {
+        checkNotFrozen();
         this.checksumMode = mode;
     }
 
@@ -83,6 +84,7 @@ public class Code39Bean extends AbstractBarcodeBean {
      * @param width the interchar gap width
      */
     public void setIntercharGapWidth(double width) {
+        checkNotFrozen();
         this.intercharGapWidth = width;
     }
 
@@ -99,6 +101,7 @@ public class Code39Bean extends AbstractBarcodeBean {
      * @param value the wide factory (should be &gt; 1.0)
      */
     public void setWideFactor(double value) {
+        checkNotFrozen();
         if (value <= 1.0) {
             throw new IllegalArgumentException("wide factor must be > 1.0");
         }
@@ -120,6 +123,7 @@ public class Code39Bean extends AbstractBarcodeBean {
      * @param value true to enable the start/stop character, false to disable
      */
     public void setDisplayStartStop(boolean value) {
+        checkNotFrozen();
         this.displayStartStop = value;
         if (value) {
             //Checksum must also be enabled if start/stop is shown
@@ -143,6 +147,7 @@ public class Code39Bean extends AbstractBarcodeBean {
      *   false to ignore
      */
     public void setDisplayChecksum(boolean value) {
+        checkNotFrozen();
         if (isDisplayStartStop() && !value) {
             return; //display-checksum may not be false if start/stop is displayed
         }
@@ -163,6 +168,7 @@ public class Code39Bean extends AbstractBarcodeBean {
      * @param value true to enable the extended character set
      */
     public void setExtendedCharSetEnabled(boolean value) {
+        checkNotFrozen();
         this.extendedCharSet = value;
     }
 
@@ -18,6 +18,8 @@ package org.krysalis.barcode4j.impl.datamatrix;
 import java.awt.Dimension;
 
 import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.CapacityPlanner;
+import org.krysalis.barcode4j.SymbolCapacity;
 import org.krysalis.barcode4j.impl.ConfigurableBarcodeGenerator;
 import org.krysalis.barcode4j.tools.Length;
 
@@ -37,7 +39,7 @@ import org.krysalis.barcode4j.configuration.ConfigurationException;
  *
  * @version $Id: DataMatrix.java,v 1.4 2008-09-22 08:59:08 jmaerki Exp $
  */
-public class DataMatrix extends ConfigurableBarcodeGenerator implements Configurable {
+public class DataMatrix extends ConfigurableBarcodeGenerator implements Configurable, CapacityPlanner {
 
     /** Create a new instance. */
     public DataMatrix() {
@@ -72,6 +74,9 @@ public class DataMatrix extends ConfigurableBarcodeGenerator implements Configur
         if (size != null) {
             getDataMatrixBean().setMaxSize(parseSymbolSize(size));
         }
+
+        getDataMatrixBean().setMinimalEncodation(
+                cfg.getChild("minimal-encodation").getValueAsBoolean(false));
     }
 
     private Dimension parseSymbolSize(@NotNull final String size) {
@@ -94,4 +99,11 @@ public class DataMatrix extends ConfigurableBarcodeGenerator implements Configur
         return (DataMatrixBean)getBean();
     }
 
+    /** {@inheritDoc} */
+    @NotNull
+    @Override
+    public SymbolCapacity planCapacity(@NotNull String msg) {
+        return getDataMatrixBean().planCapacity(msg);
+    }
+
 }
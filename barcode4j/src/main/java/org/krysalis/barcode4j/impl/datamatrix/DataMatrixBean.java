@@ -21,10 +21,10 @@ import java.io.IOException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.krysalis.barcode4j.BarcodeDimension;
-import org.krysalis.barcode4j.TwoDimBarcodeLogicHandler;
+import org.krysalis.barcode4j.CapacityPlanner;
+import org.krysalis.barcode4j.SymbolCapacity;
 import org.krysalis.barcode4j.impl.AbstractBarcodeBean;
-import org.krysalis.barcode4j.impl.DefaultTwoDimCanvasLogicHandler;
-import org.krysalis.barcode4j.output.Canvas;
+import org.krysalis.barcode4j.impl.EncodedSymbol;
 import org.krysalis.barcode4j.output.CanvasProvider;
 import org.krysalis.barcode4j.tools.UnitConv;
 
@@ -33,7 +33,7 @@ import org.krysalis.barcode4j.tools.UnitConv;
  *
  * @version $Id: DataMatrixBean.java,v 1.8 2011-05-04 08:29:03 jmaerki Exp $
  */
-public class DataMatrixBean extends AbstractBarcodeBean {
+public class DataMatrixBean extends AbstractBarcodeBean implements CapacityPlanner {
 
     /** The default module width (dot size) for DataMatrix. */
     protected static final double DEFAULT_MODULE_WIDTH = UnitConv.in2mm(1.0 / 72); //1px at 72dpi
@@ -48,6 +48,8 @@ public class DataMatrixBean extends AbstractBarcodeBean {
     private Dimension minSize;
     /** Optional: the maximum size of the symbol. */
     private Dimension maxSize;
+    /** True if the encodation modes producing the fewest codewords are chosen. */
+    private boolean minimalEncodation;
 
     /** Create a new instance. */
     public DataMatrixBean() {
@@ -63,6 +65,7 @@ public class DataMatrixBean extends AbstractBarcodeBean {
      * <code>SymbolShapeHint.FORCE_SQUARE</code> or <code>SymbolShapeHint.FORCE_RECTANGLE</code>.
      */
     public void setShape(SymbolShapeHint shape) {
+        checkNotFrozen();
         this.shape = shape;
     }
 
@@ -79,6 +82,7 @@ public class DataMatrixBean extends AbstractBarcodeBean {
      * @param minSize the minimum size (in pixels), or null for no constraint
      */
     public void setMinSize(@Nullable final Dimension minSize) {
+        checkNotFrozen();
         this.minSize = (minSize != null ? new Dimension(minSize) : null);
     }
 
@@ -101,6 +105,7 @@ public class DataMatrixBean extends AbstractBarcodeBean {
      * @param maxSize the maximum size (in pixels), or null for no constraint
      */
     public void setMaxSize(@Nullable final Dimension maxSize) {
+        checkNotFrozen();
         this.maxSize = (maxSize != null ? new Dimension(maxSize) : null);
     }
 
@@ -118,31 +123,70 @@ public class DataMatrixBean extends AbstractBarcodeBean {
         }
     }
 
+    /**
+     * Controls how the encodation modes (ASCII, C40, Text, X12, EDIFACT, Base 256) are chosen.
+     * By default, the look-ahead heuristic of ISO/IEC 16022:2000(E), annex P, is used. In
+     * minimal mode, the sequence of modes producing the fewest codewords is determined, which
+     * may result in smaller symbols.
+     * @param minimal true to choose the encodation modes producing the fewest codewords
+     * @since 2.4.1
+     */
+    public void setMinimalEncodation(boolean minimal) {
+        checkNotFrozen();
+        this.minimalEncodation = minimal;
+    }
+
+    /**
+     * Indicates whether the encodation modes producing the fewest codewords are chosen.
+     * @return true for minimal encodation, false for the look-ahead heuristic of annex P
+     * @since 2.4.1
+     */
+    public boolean isMinimalEncodation() {
+        return this.minimalEncodation;
+    }
+
     /** {@inheritDoc} */
     public void generateBarcode(@NotNull CanvasProvider canvas, @Nullable String msg) {
         if ((msg == null) || (msg.isEmpty())) {
             throw new NullPointerException("Parameter msg must not be empty");
         }
 
-        final TwoDimBarcodeLogicHandler handler = new DefaultTwoDimCanvasLogicHandler(this, new Canvas(canvas));
+        generateBarcode(canvas, encodeSymbol(msg));
+    }
 
-        final DataMatrixLogicImpl impl = new DataMatrixLogicImpl();
-        impl.generateBarcodeLogic(handler, msg, getShape(), getMinSize(), getMaxSize());
+    /**
+     * Encodes a message into a symbol which can be measured and painted without encoding the
+     * message again.
+     * @param msg the message to encode
+     * @return the encoded symbol
+     * @since 2.4.1
+     */
+    @NotNull
+    public EncodedSymbol encodeSymbol(@NotNull final String msg) {
+        final EncodedSymbol.Recorder recorder = new EncodedSymbol.Recorder();
+        new DataMatrixLogicImpl().generateBarcodeLogic(recorder, msg, getShape(), getMinSize(), getMaxSize(),
+                isMinimalEncodation());
+        return recorder.getSymbol();
     }
 
     /** {@inheritDoc} */
-    public BarcodeDimension calcDimensions(@NotNull final String msg) {
-        final String encoded;
+    @NotNull
+    @Override
+    public SymbolCapacity planCapacity(@NotNull final String msg) {
         try {
-            encoded = DataMatrixHighLevelEncoder.encodeHighLevel(msg, shape, getMinSize(), getMaxSize());
+            return DataMatrixHighLevelEncoder.planCapacity(msg, shape, getMinSize(), getMaxSize(),
+                    isMinimalEncodation());
         } catch (IOException e) {
             throw new IllegalArgumentException("Cannot fetch data: " + e.getLocalizedMessage());
         }
+    }
 
-        final DataMatrixSymbolInfo symbolInfo = DataMatrixSymbolInfo.lookup(encoded.length(), shape);
+    /** {@inheritDoc} */
+    public BarcodeDimension calcDimensions(@NotNull final String msg) {
+        final SymbolCapacity capacity = planCapacity(msg);
 
-        double width = symbolInfo.getSymbolWidth() * getModuleWidth();
-        double height = symbolInfo.getSymbolHeight() * getBarHeight();
+        double width = capacity.getWidth() * getModuleWidth();
+        double height = capacity.getRowCount() * getBarHeight();
         double qzh = (hasQuietZone() ? getQuietZone() : 0);
         double qzv = (hasQuietZone() ? getVerticalQuietZone() : 0);
         return new BarcodeDimension(width, height,
@@ -18,6 +18,11 @@
 
 package org.krysalis.barcode4j.impl.datamatrix;
 
+import java.util.Arrays;
+
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.output.CancellationToken;
+
 /**
  * Error Correction Code for ECC200.
  * 
@@ -28,24 +33,52 @@ public class DataMatrixErrorCorrection implements DataMatrixReedSolomonFactors {
     private static final int MODULO_VALUE = 0x12d;
 
     private static final int[] LOG;
+    /** Antilog table, doubled so the sum of two logarithms can be looked up without modulo. */
     private static final int[] ALOG;
-    
+    /** The logarithms of the polynomial factors, indexed like FACTORS. */
+    private static final int[][] FACTOR_LOGS;
+    /** Index into FACTORS for each number of error correction codewords (-1 if unsupported). */
+    private static final int[] FACTOR_SET_INDEX;
+
+    /** Shift register for the error correction codewords of one block. */
+    private static final ThreadLocal<int[]> SCRATCH;
+
     static {
         //Create log and antilog table
         LOG = new int[256];
-        ALOG = new int[255];
-        
+        ALOG = new int[255 * 2];
+
         int p = 1;
         for (int i = 0; i < 255; i++) {
             ALOG[i] = p;
+            ALOG[i + 255] = p;
             LOG[p] = i;
             p <<= 1;
             if (p >= 256) {
                 p ^= MODULO_VALUE;
             }
         }
+
+        int maxECWords = 0;
+        for (int i = 0; i < FACTOR_SETS.length; i++) {
+            maxECWords = Math.max(maxECWords, FACTOR_SETS[i]);
+        }
+        FACTOR_SET_INDEX = new int[maxECWords + 1];
+        Arrays.fill(FACTOR_SET_INDEX, -1);
+        FACTOR_LOGS = new int[FACTORS.length][];
+        for (int i = 0; i < FACTOR_SETS.length; i++) {
+            FACTOR_SET_INDEX[FACTOR_SETS[i]] = i;
+            final int[] poly = FACTORS[i];
+            FACTOR_LOGS[i] = new int[poly.length];
+            for (int k = 0; k < poly.length; k++) {
+                //All factors are non-zero
+                FACTOR_LOGS[i][k] = LOG[poly[k]];
+            }
+        }
+        final int scratchSize = maxECWords;
+        SCRATCH = ThreadLocal.withInitial(() -> new int[scratchSize]);
     }
-    
+
     /**
      * Creates the ECC200 error correction for an encoded message.
      * @param codewords the codewords
@@ -53,86 +86,80 @@ public class DataMatrixErrorCorrection implements DataMatrixReedSolomonFactors {
      * @return the codewords with interleaved error correction.
      */
     public static String encodeECC200(String codewords, DataMatrixSymbolInfo symbolInfo) {
-        if (codewords.length() != symbolInfo.dataCapacity) {
+        final int[] data = new int[codewords.length()];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = codewords.charAt(i);
+        }
+        final int[] result = encodeECC200(data, symbolInfo);
+        final char[] chars = new char[result.length];
+        for (int i = 0; i < result.length; i++) {
+            chars[i] = (char)result[i];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Creates the ECC200 error correction for an encoded message.
+     * @param codewords the data codewords (0 to 255)
+     * @param symbolInfo information about the symbol to be encoded
+     * @return the data codewords followed by the interleaved error correction codewords
+     * @since 2.4.1
+     */
+    @NotNull
+    public static int[] encodeECC200(@NotNull int[] codewords, @NotNull DataMatrixSymbolInfo symbolInfo) {
+        if (codewords.length != symbolInfo.dataCapacity) {
             throw new IllegalArgumentException(
                     "The number of codewords does not match the selected symbol");
         }
-        StringBuffer sb = new StringBuffer(symbolInfo.dataCapacity + symbolInfo.errorCodewords);
-        sb.append(codewords);
-        int blockCount = symbolInfo.getInterleavedBlockCount();
-        if (blockCount == 1) {
-            String ecc = createECCBlock(codewords, symbolInfo.errorCodewords);
-            sb.append(ecc);
-        } else {
-            sb.setLength(sb.capacity());
-            int[] dataSizes = new int[blockCount];
-            int[] errorSizes = new int[blockCount];
-            int[] startPos = new int[blockCount];
-            for (int i = 0; i < blockCount; i++) {
-                dataSizes[i] = symbolInfo.getDataLengthForInterleavedBlock(i + 1);
-                errorSizes[i] = symbolInfo.getErrorLengthForInterleavedBlock(i + 1);
-                startPos[i] = 0;
-                if (i > 0) {
-                    startPos[i] = startPos[i - 1] + dataSizes[i];
-                }
-            }
-            for (int block = 0; block < blockCount; block++) {
-                StringBuffer temp = new StringBuffer(dataSizes[block]);
-                for (int d = block; d < symbolInfo.dataCapacity; d += blockCount) {
-                    temp.append(codewords.charAt(d));
-                }
-                String ecc = createECCBlock(temp.toString(), errorSizes[block]);
-                int pos = 0;
-                for (int e = block; e < errorSizes[block] * blockCount; e += blockCount) {
-                    sb.setCharAt(symbolInfo.dataCapacity + e, ecc.charAt(pos++));
-                }
-            }
+        final int[] result = new int[symbolInfo.dataCapacity + symbolInfo.errorCodewords];
+        System.arraycopy(codewords, 0, result, 0, codewords.length);
+        final int blockCount = symbolInfo.getInterleavedBlockCount();
+        for (int block = 0; block < blockCount; block++) {
+            CancellationToken.checkCurrent();
+            createECCBlock(result, symbolInfo.dataCapacity, block, blockCount,
+                    symbolInfo.getErrorLengthForInterleavedBlock(block + 1));
         }
-        return sb.toString();
-        
+        return result;
     }
 
-    private static String createECCBlock(String codewords, int numECWords) {
-        return createECCBlock(codewords, 0, codewords.length(), numECWords);
-    }
-    
-    private static String createECCBlock(String codewords, int start, int len, int numECWords) {
-        int table = -1;
-        for (int i = 0; i < FACTOR_SETS.length; i++) {
-            if (FACTOR_SETS[i] == numECWords) {
-                table = i;
-                break;
-            }
-        }
+    /**
+     * Calculates the error correction codewords for one interleaved block. The data codewords
+     * of block b are found at positions b, b + blockCount, b + 2 * blockCount and so on, and the
+     * error correction codewords are written the same way after the data codewords.
+     * @param codewords the data codewords, followed by room for the error correction codewords
+     * @param dataCapacity the number of data codewords
+     * @param block the block index (0-based)
+     * @param blockCount the number of interleaved blocks
+     * @param numECWords the number of error correction codewords of the block
+     */
+    private static void createECCBlock(int[] codewords, int dataCapacity,
+            int block, int blockCount, int numECWords) {
+        final int table = (numECWords < FACTOR_SET_INDEX.length ? FACTOR_SET_INDEX[numECWords] : -1);
         if (table < 0) {
             throw new IllegalArgumentException(
                     "Illegal number of error correction codewords specified: " + numECWords);
         }
-        int[] poly = DataMatrixReedSolomonFactors.FACTORS[table];
-        char[] ecc = new char[numECWords];
-        for (int i = 0; i < numECWords; i++) {
-            ecc[i] = 0;
-        }
-        for (int i = start; i < start + len; i++) {
-            int m = ecc[numECWords - 1] ^ codewords.charAt(i);
-            for (int k = numECWords - 1; k > 0; k--) {
-                if (m != 0 && poly[k] != 0) {
-                    ecc[k] = (char)(ecc[k - 1] ^ ALOG[(LOG[m] + LOG[poly[k]]) % 255]);
-                } else {
-                    ecc[k] = ecc[k - 1];
-                }
-            }
-            if (m != 0 && poly[0] != 0) {
-                ecc[0] = (char)(ALOG[(LOG[m] + LOG[poly[0]]) % 255]);
-            } else {
+        final int[] factorLogs = FACTOR_LOGS[table];
+        final int[] ecc = SCRATCH.get();
+        Arrays.fill(ecc, 0, numECWords, 0);
+        final int last = numECWords - 1;
+        for (int d = block; d < dataCapacity; d += blockCount) {
+            final int m = ecc[last] ^ codewords[d];
+            if (m == 0) {
+                System.arraycopy(ecc, 0, ecc, 1, last);
                 ecc[0] = 0;
+            } else {
+                final int logM = LOG[m];
+                for (int k = last; k > 0; k--) {
+                    ecc[k] = ecc[k - 1] ^ ALOG[logM + factorLogs[k]];
+                }
+                ecc[0] = ALOG[logM + factorLogs[0]];
             }
         }
-        char[] eccReversed = new char[numECWords];
-        for (int i = 0; i < numECWords; i++) {
-            eccReversed[i] = ecc[numECWords - i - 1]; 
+        //The shift register holds the error correction codewords in reverse order
+        for (int i = last, e = dataCapacity + block; i >= 0; i--, e += blockCount) {
+            codewords[e] = ecc[i];
         }
-        return String.valueOf(eccReversed);
     }
-    
+
 }
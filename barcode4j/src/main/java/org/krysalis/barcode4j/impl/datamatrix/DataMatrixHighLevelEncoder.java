@@ -25,6 +25,8 @@ import java.util.Arrays;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.krysalis.barcode4j.SymbolCapacity;
+import org.krysalis.barcode4j.output.CancellationToken;
 import org.krysalis.barcode4j.tools.URLUtil;
 
 /**
@@ -48,6 +50,12 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
 
     private static final String DEFAULT_ASCII_ENCODING = "ISO-8859-1";
 
+    /** The encoders keep all state in the {@link EncoderContext}, so they can be shared. */
+    private static final Encoder[] ENCODERS = new Encoder[] {
+        new ASCIIEncoder(), new C40Encoder(), new TextEncoder(),
+        new X12Encoder(), new EdifactEncoder(), new Base256Encoder()
+    };
+
     /**
      * Converts the message to a byte array using the default encoding (cp437) as defined by the specification
      * @param msg the message
@@ -63,23 +71,23 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
         }
     }
 
-    private static char randomize253State(char ch, int codewordPosition) {
+    private static int randomize253State(int ch, int codewordPosition) {
         int pseudoRandom = ((149 * codewordPosition) % 253) + 1;
         int tempVariable = ch + pseudoRandom;
         if (tempVariable <= 254) {
-            return (char)tempVariable;
+            return tempVariable;
         } else {
-            return (char)(tempVariable - 254);
+            return tempVariable - 254;
         }
     }
 
-    private static char randomize255State(char ch, int codewordPosition) {
+    private static int randomize255State(int ch, int codewordPosition) {
         int pseudoRandom = ((149 * codewordPosition) % 255) + 1;
         int tempVariable = ch + pseudoRandom;
         if (tempVariable <= 255) {
-            return (char)tempVariable;
+            return tempVariable;
         } else {
-            return (char)(tempVariable - 256);
+            return tempVariable - 256;
         }
     }
 
@@ -111,12 +119,113 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
         @Nullable Dimension minSize,
         @Nullable Dimension maxSize
     ) throws IOException {
-        //the codewords 0..255 are encoded as Unicode characters
-        final Encoder[] encoders = new Encoder[] {
-            new ASCIIEncoder(), new C40Encoder(), new TextEncoder(),
-            new X12Encoder(), new EdifactEncoder(), new Base256Encoder()
-        };
+        return encodeHighLevel(msg, shape, minSize, maxSize, false);
+    }
+
+    /**
+     * Performs message encoding of a DataMatrix message.
+     * @param msg the message
+     * @param shape requested shape. May be <code>SymbolShapeHint.FORCE_NONE</code>,
+     * <code>SymbolShapeHint.FORCE_SQUARE</code> or <code>SymbolShapeHint.FORCE_RECTANGLE</code>.
+     * @param minSize the minimum symbol size constraint or null for no constraint
+     * @param maxSize the maximum symbol size constraint or null for no constraint
+     * @param minimal true to choose the encodation modes that produce the fewest codewords,
+     * false for the look-ahead heuristic of annex P
+     * @return the encoded message (the char values range from 0 to 255)
+     * @throws IOException if an I/O error occurs while fetching external data
+     * @see #encodeHighLevelCodewords(String, SymbolShapeHint, Dimension, Dimension, boolean)
+     */
+    public static String encodeHighLevel(
+        String msg,
+        SymbolShapeHint shape,
+        @Nullable Dimension minSize,
+        @Nullable Dimension maxSize,
+        boolean minimal
+    ) throws IOException {
+        final int[] codewords = encodeHighLevelCodewords(msg, shape, minSize, maxSize, minimal);
+        final char[] chars = new char[codewords.length];
+        for (int i = 0; i < codewords.length; i++) {
+            chars[i] = (char)codewords[i];
+        }
+        return new String(chars);
+    }
 
+    /**
+     * Performs message encoding of a DataMatrix message. By default, the encodation modes are
+     * chosen with the look-ahead heuristic described in annex P of ISO/IEC 16022:2000(E). In
+     * minimal mode, the sequence of encodation modes (ASCII, C40, Text, X12, EDIFACT and Base 256)
+     * that produces the fewest codewords is determined by dynamic programming in time linear to
+     * the message length.
+     * @param msg the message
+     * @param shape requested shape. May be <code>SymbolShapeHint.FORCE_NONE</code>,
+     * <code>SymbolShapeHint.FORCE_SQUARE</code> or <code>SymbolShapeHint.FORCE_RECTANGLE</code>.
+     * @param minSize the minimum symbol size constraint or null for no constraint
+     * @param maxSize the maximum symbol size constraint or null for no constraint
+     * @param minimal true to choose the encodation modes that produce the fewest codewords,
+     * false for the look-ahead heuristic of annex P
+     * @return the data codewords (0 to 255), padded to the capacity of the selected symbol
+     * @throws IOException if an I/O error occurs while fetching external data
+     * @since 2.4.1
+     */
+    @NotNull
+    public static int[] encodeHighLevelCodewords(
+        String msg,
+        SymbolShapeHint shape,
+        @Nullable Dimension minSize,
+        @Nullable Dimension maxSize,
+        boolean minimal
+    ) throws IOException {
+        final EncoderContext context = encodeData(msg, shape, minSize, maxSize, minimal);
+        final int capacity = context.symbolInfo.dataCapacity;
+        //Padding
+        if (context.getCodewordCount() < capacity) {
+            context.writeCodeword(DataMatrixConstants.PAD);
+        }
+        while (context.getCodewordCount() < capacity) {
+            context.writeCodeword(randomize253State(DataMatrixConstants.PAD, context.getCodewordCount() + 1));
+        }
+
+        return context.getCodewords();
+    }
+
+    /**
+     * Determines the symbol a DataMatrix message is encoded in and the number of data codewords
+     * it takes up, without padding the message or creating the symbol.
+     * @param msg the message
+     * @param shape requested shape. May be <code>SymbolShapeHint.FORCE_NONE</code>,
+     * <code>SymbolShapeHint.FORCE_SQUARE</code> or <code>SymbolShapeHint.FORCE_RECTANGLE</code>.
+     * @param minSize the minimum symbol size constraint or null for no constraint
+     * @param maxSize the maximum symbol size constraint or null for no constraint
+     * @param minimal true to choose the encodation modes that produce the fewest codewords,
+     * false for the look-ahead heuristic of annex P
+     * @return the symbol capacity in data codewords
+     * @throws IOException if an I/O error occurs while fetching external data
+     * @since 2.4.1
+     */
+    @NotNull
+    public static SymbolCapacity planCapacity(
+        String msg,
+        SymbolShapeHint shape,
+        @Nullable Dimension minSize,
+        @Nullable Dimension maxSize,
+        boolean minimal
+    ) throws IOException {
+        final EncoderContext context = encodeData(msg, shape, minSize, maxSize, minimal);
+        final DataMatrixSymbolInfo symbolInfo = context.symbolInfo;
+        return new SymbolCapacity(symbolInfo.getSymbolWidth(), symbolInfo.getSymbolHeight(),
+                context.getCodewordCount(), symbolInfo.dataCapacity, SymbolCapacity.Unit.CODEWORDS);
+    }
+
+    /**
+     * Encodes the message up to (but excluding) the padding and selects the symbol.
+     */
+    private static EncoderContext encodeData(
+        String msg,
+        SymbolShapeHint shape,
+        @Nullable Dimension minSize,
+        @Nullable Dimension maxSize,
+        boolean minimal
+    ) throws IOException {
         int encodingMode = ASCII_ENCODATION; // Default mode
 
         final EncoderContext context = createEncoderContext(msg);
@@ -133,34 +242,29 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
             context.pos += MACRO_06_HEADER.length();
         }
 
-        while (context.hasMoreCharacters()) {
-            encoders[encodingMode].encode(context);
-            if (context.newEncoding >= 0) {
-                encodingMode = context.newEncoding;
-                context.resetEncoderSignal();
+        if (minimal) {
+            encodingMode = MinimalEncoder.encode(context);
+        } else {
+            while (context.hasMoreCharacters()) {
+                CancellationToken.checkCurrent();
+                ENCODERS[encodingMode].encode(context);
+                if (context.newEncoding >= 0) {
+                    encodingMode = context.newEncoding;
+                    context.resetEncoderSignal();
+                }
             }
         }
-        int len = context.codewords.length();
+        int len = context.getCodewordCount();
         context.updateSymbolInfo();
-        int capacity = context.symbolInfo.dataCapacity;
-        if (len < capacity) {
+        if (len < context.symbolInfo.dataCapacity) {
             if (encodingMode != ASCII_ENCODATION && encodingMode != BASE256_ENCODATION) {
 //                if (DEBUG) {
 //                    System.out.println("Unlatch because symbol isn't filled up");
 //                }
-                context.writeCodeword('þ'); //Unlatch (254)
+                context.writeCodeword(C40_UNLATCH); //Unlatch (254)
             }
         }
-        //Padding
-        final StringBuffer codewords = context.codewords;
-        if (codewords.length() < capacity) {
-            codewords.append(DataMatrixConstants.PAD);
-        }
-        while (codewords.length() < capacity) {
-            codewords.append(randomize253State(DataMatrixConstants.PAD, codewords.length() + 1));
-        }
-
-        return context.codewords.toString();
+        return context;
     }
 
     private static EncoderContext createEncoderContext(@NotNull final String msg) throws IOException {
@@ -173,46 +277,47 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
 
     private static class EncoderContext {
 
-        private final String msg;
+        /** The message bytes, each one representing a character of the ISO-8859-1 encoding. */
+        private final byte[] msg;
         private SymbolShapeHint shape = SymbolShapeHint.FORCE_NONE;
         private Dimension minSize;
         private Dimension maxSize;
-        private final StringBuffer codewords;
+        private int[] codewords;
+        private int codewordCount;
         private int pos = 0;
         private int newEncoding = -1;
         private DataMatrixSymbolInfo symbolInfo;
         private int skipAtEnd = 0;
 
+        /** C40, Text, X12 and EDIFACT values which haven't been packed into codewords, yet. */
+        private final ValueBuffer values = new ValueBuffer();
+        private final ValueBuffer scratchValues = new ValueBuffer();
+
+        //Scratch space for the look-ahead test
+        private final float[] charCounts = new float[6];
+        private final int[] intCharCounts = new int[6];
+        private final byte[] mins = new byte[6];
+
         public EncoderContext(String msg) {
-            //From this point on Strings are not Unicode anymore!
-            byte[] msgBinary;
+            //From this point on the message is not Unicode anymore!
             try {
-                msgBinary = msg.getBytes(DEFAULT_ASCII_ENCODING);
+                this.msg = msg.getBytes(DEFAULT_ASCII_ENCODING);
             } catch (UnsupportedEncodingException e) {
                 throw new UnsupportedOperationException("Unsupported encoding: " + e.getMessage());
             }
-            final StringBuilder sb = new StringBuilder(msgBinary.length);
-            for (int i = 0, c = msgBinary.length; i < c; i++) {
-                char ch = (char)(msgBinary[i] & 0xff);
-                if (ch == '?' && msg.charAt(i) != '?') {
+            for (int i = 0, c = this.msg.length; i < c; i++) {
+                if (this.msg[i] == '?' && msg.charAt(i) != '?') {
                     throw new IllegalArgumentException("Message contains characters outside "
                             + DEFAULT_ASCII_ENCODING + " encoding.");
                 }
-                sb.append(ch);
             }
-            this.msg = sb.toString(); //Not Unicode here!
-            this.codewords = new StringBuffer(msg.length());
+            this.codewords = new int[Math.max(this.msg.length, 8)];
         }
 
         public EncoderContext(byte[] data) {
-            // From this point on Strings are not Unicode anymore!
-            final StringBuilder sb = new StringBuilder(data.length);
-            for (byte datum : data) {
-                char ch = (char) (datum & 0xff);
-                sb.append(ch);
-            }
-            this.msg = sb.toString(); //Not Unicode here!
-            this.codewords = new StringBuffer(msg.length());
+            //From this point on the message is not Unicode anymore!
+            this.msg = data;
+            this.codewords = new int[Math.max(data.length, 8)];
         }
 
         public void setSymbolShape(SymbolShapeHint shape) {
@@ -224,32 +329,35 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
             this.maxSize = maxSize;
         }
 
-        public String getMessage() {
-            return this.msg;
-        }
-
         public void setSkipAtEnd(int count) {
             this.skipAtEnd = count;
         }
 
-        public char getCurrentChar() {
-            return msg.charAt(pos);
+        public int getMessageLength() {
+            return this.msg.length;
         }
 
-        public char getCurrent() {
-            return msg.charAt(pos);
+        public char charAt(int index) {
+            return (char)(this.msg[index] & 0xff);
         }
 
-        public void writeCodewords(String codewords) {
-            this.codewords.append(codewords);
+        public char getCurrentChar() {
+            return charAt(pos);
         }
 
-        public void writeCodeword(char codeword) {
-            this.codewords.append(codeword);
+        public void writeCodeword(int codeword) {
+            if (this.codewordCount == this.codewords.length) {
+                this.codewords = Arrays.copyOf(this.codewords, this.codewordCount * 2);
+            }
+            this.codewords[this.codewordCount++] = codeword;
         }
 
         public int getCodewordCount() {
-            return this.codewords.length();
+            return this.codewordCount;
+        }
+
+        public int[] getCodewords() {
+            return Arrays.copyOf(this.codewords, this.codewordCount);
         }
 
         public void signalEncoderChange(int encoding) {
@@ -265,7 +373,7 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
         }
 
         private int getTotalMessageCharCount() {
-            return msg.length() - skipAtEnd;
+            return msg.length - skipAtEnd;
         }
 
         public int getRemainingCharacters() {
@@ -287,6 +395,43 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
         }
     }
 
+    /**
+     * Growable buffer of C40, Text, X12 or EDIFACT values (each one smaller than a codeword).
+     */
+    private static final class ValueBuffer {
+
+        private int[] values = new int[16];
+        private int length;
+
+        public void append(int value) {
+            if (length == values.length) {
+                values = Arrays.copyOf(values, length * 2);
+            }
+            values[length++] = value;
+        }
+
+        public int get(int index) {
+            return values[index];
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public void truncate(int newLength) {
+            this.length = newLength;
+        }
+
+        public void removeFirst(int count) {
+            System.arraycopy(values, count, values, 0, length - count);
+            length -= count;
+        }
+
+        public void clear() {
+            this.length = 0;
+        }
+    }
+
     private interface Encoder {
         int getEncodingMode();
         void encode(EncoderContext context);
@@ -300,56 +445,55 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
 
         public void encode(EncoderContext context) {
             //step B
-            int n = determineConsecutiveDigitCount(context.msg, context.pos);
-            if (n >= 2) {
-                context.writeCodeword(encodeASCIIDigits(context.msg.charAt(context.pos),
-                        context.msg.charAt(context.pos + 1)));
+            if (isDigitPair(context, context.pos)) {
+                context.writeCodeword(encodeASCIIDigits(context.charAt(context.pos),
+                        context.charAt(context.pos + 1)));
                 context.pos += 2;
             } else {
                 char c = context.getCurrentChar();
-                int newMode = lookAheadTest(context.msg, context.pos, getEncodingMode());
+                int newMode = lookAheadTest(context, context.pos, getEncodingMode());
                 if (newMode != getEncodingMode()) {
-                    switch (newMode) {
-                    case BASE256_ENCODATION:
-                        context.writeCodeword(LATCH_TO_BASE256);
-                        context.signalEncoderChange(BASE256_ENCODATION);
-                        return;
-                    case C40_ENCODATION:
-                        context.writeCodeword(LATCH_TO_C40);
-                        context.signalEncoderChange(C40_ENCODATION);
-                        return;
-                    case X12_ENCODATION:
-                        context.writeCodeword(LATCH_TO_ANSIX12);
-                        context.signalEncoderChange(X12_ENCODATION);
-                        break;
-                    case TEXT_ENCODATION:
-                        context.writeCodeword(LATCH_TO_TEXT);
-                        context.signalEncoderChange(TEXT_ENCODATION);
-                        break;
-                    case EDIFACT_ENCODATION:
-                        context.writeCodeword(LATCH_TO_EDIFACT);
-                        context.signalEncoderChange(EDIFACT_ENCODATION);
-                        break;
-                    default:
-                        throw new IllegalStateException("Illegal mode: " + newMode);
-                    }
-                } else if (isExtendedASCII(c)) {
-                    context.writeCodeword(UPPER_SHIFT);
-                    context.writeCodeword((char)(c - 128 + 1));
-                    context.pos++;
+                    context.writeCodeword(getLatch(newMode));
+                    context.signalEncoderChange(newMode);
                 } else {
-//                    if (DEBUG) {
-//                        if (!isASCII7(c)) {
-//                            throw new IllegalArgumentException("Not an ASCII-7 character");
-//                        }
-//                    }
-                    context.writeCodeword((char)(c + 1));
+                    encodeChar(context, c);
                     context.pos++;
                 }
 
             }
         }
 
+        static int getLatch(int mode) {
+            switch (mode) {
+            case BASE256_ENCODATION:
+                return LATCH_TO_BASE256;
+            case C40_ENCODATION:
+                return LATCH_TO_C40;
+            case X12_ENCODATION:
+                return LATCH_TO_ANSIX12;
+            case TEXT_ENCODATION:
+                return LATCH_TO_TEXT;
+            case EDIFACT_ENCODATION:
+                return LATCH_TO_EDIFACT;
+            default:
+                throw new IllegalStateException("Illegal mode: " + mode);
+            }
+        }
+
+        static void encodeChar(EncoderContext context, char c) {
+            if (isExtendedASCII(c)) {
+                context.writeCodeword(UPPER_SHIFT);
+                context.writeCodeword(c - 128 + 1);
+            } else {
+//                if (DEBUG) {
+//                    if (!isASCII7(c)) {
+//                        throw new IllegalArgumentException("Not an ASCII-7 character");
+//                    }
+//                }
+                context.writeCodeword(c + 1);
+            }
+        }
+
     }
 
     private static class C40Encoder implements Encoder {
@@ -361,7 +505,8 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
         public void encode(EncoderContext context) {
             //step C
             int lastCharSize = -1;
-            StringBuffer buffer = new StringBuffer();
+            final ValueBuffer buffer = context.values;
+            buffer.clear();
             outerloop: while (context.hasMoreCharacters()) {
                 char c = context.getCurrentChar();
                 context.pos++;
@@ -376,22 +521,21 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
 
                 if (!context.hasMoreCharacters()) {
                     //Avoid having a single C40 value in the last triplet
-                    StringBuffer removed = new StringBuffer();
                     if ((buffer.length() % 3) == 2) {
                         if (available != 2) {
-                            lastCharSize = backtrackOneCharacter(context, buffer, removed, lastCharSize);
+                            lastCharSize = backtrackOneCharacter(context, buffer, lastCharSize);
                         }
                     }
                     while ((buffer.length() % 3) == 1
                             && ((lastCharSize <= 3 && available != 1) || lastCharSize > 3)) {
-                        lastCharSize = backtrackOneCharacter(context, buffer, removed, lastCharSize);
+                        lastCharSize = backtrackOneCharacter(context, buffer, lastCharSize);
                     }
                     break outerloop;
                 }
 
                 int count = buffer.length();
                 if ((count % 3) == 0) {
-                    int newMode = lookAheadTest(context.msg, context.pos, getEncodingMode());
+                    int newMode = lookAheadTest(context, context.pos, getEncodingMode());
                     if (newMode != getEncodingMode()) {
                         context.signalEncoderChange(newMode);
                         break;
@@ -402,19 +546,21 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
         }
 
         private int backtrackOneCharacter(EncoderContext context,
-                StringBuffer buffer, StringBuffer removed, int lastCharSize) {
-            int count = buffer.length();
-            buffer.delete(count - lastCharSize, count);
+                ValueBuffer buffer, int lastCharSize) {
+            buffer.truncate(buffer.length() - lastCharSize);
             context.pos--;
             char c = context.getCurrentChar();
-            lastCharSize = encodeChar(c, removed);
+            context.scratchValues.clear();
+            lastCharSize = encodeChar(c, context.scratchValues);
             context.resetSymbolInfo(); //Deal with possible reduction in symbol size
             return lastCharSize;
         }
 
-        protected void writeNextTriplet(EncoderContext context, StringBuffer buffer) {
-            context.writeCodewords(encodeToCodewords(buffer, 0));
-            buffer.delete(0, 3);
+        protected void writeNextTriplet(EncoderContext context, ValueBuffer buffer) {
+            int v = (1600 * buffer.get(0)) + (40 * buffer.get(1)) + buffer.get(2) + 1;
+            context.writeCodeword(v / 256);
+            context.writeCodeword(v % 256);
+            buffer.removeFirst(3);
         }
 
         /**
@@ -422,7 +568,7 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
          * @param context the encoder context
          * @param buffer the buffer with the remaining encoded characters
          */
-        protected void handleEOD(EncoderContext context, StringBuffer buffer, int lastCharSize) {
+        protected void handleEOD(EncoderContext context, ValueBuffer buffer, int lastCharSize) {
             int unwritten = (buffer.length() / 3) * 2;
             int rest = buffer.length() % 3;
 
@@ -431,7 +577,7 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
             int available = context.symbolInfo.dataCapacity - curCodewordCount;
 
             if (rest == 2) {
-                buffer.append('\0'); //Shift 1
+                buffer.append(0); //Shift 1
                 while (buffer.length() >= 3) {
                     writeNextTriplet(context, buffer);
                 }
@@ -459,38 +605,39 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
             context.signalEncoderChange(ASCII_ENCODATION);
         }
 
-        protected int encodeChar(char c, StringBuffer sb) {
+        protected int encodeChar(char c, ValueBuffer sb) {
             if (c == ' ') {
-                sb.append('\3');
+                sb.append(3);
                 return 1;
             } else if (c >= '0' && c <= '9') {
-                sb.append((char)(c - 48 + 4));
+                sb.append(c - 48 + 4);
                 return 1;
             } else if (c >= 'A' && c <= 'Z') {
-                sb.append((char)(c - 65 + 14));
+                sb.append(c - 65 + 14);
                 return 1;
             } else if (c >= '\0' && c <= '\u001f') {
-                sb.append('\0'); //Shift 1 Set
+                sb.append(0); //Shift 1 Set
                 sb.append(c);
                 return 2;
             } else if (c >= '!' && c <= '/') {
-                sb.append('\1'); //Shift 2 Set
-                sb.append((char)(c - 33));
+                sb.append(1); //Shift 2 Set
+                sb.append(c - 33);
                 return 2;
             } else if (c >= ':' && c <= '@') {
-                sb.append('\1'); //Shift 2 Set
-                sb.append((char)(c - 58 + 15));
+                sb.append(1); //Shift 2 Set
+                sb.append(c - 58 + 15);
                 return 2;
             } else if (c >= '[' && c <= '_') {
-                sb.append('\1'); //Shift 2 Set
-                sb.append((char)(c - 91 + 22));
+                sb.append(1); //Shift 2 Set
+                sb.append(c - 91 + 22);
                 return 2;
             } else if (c >= '`' && c <= '\u007f') {
-                sb.append('\2'); //Shift 3 Set
-                sb.append((char)(c - 96));
+                sb.append(2); //Shift 3 Set
+                sb.append(c - 96);
                 return 2;
             } else if (c >= '\u0080') {
-                sb.append("\1\u001e"); //Shift 2, Upper Shift
+                sb.append(1); //Shift 2
+                sb.append(30); //Upper Shift
                 int len = 2;
                 len += encodeChar((char)(c - 128), sb);
                 return len;
@@ -499,14 +646,16 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
             }
         }
 
-        protected String encodeToCodewords(StringBuffer sb, int startPos) {
-            char c1 = sb.charAt(startPos);
-            char c2 = sb.charAt(startPos + 1);
-            char c3 = sb.charAt(startPos + 2);
-            int v = (1600 * c1) + (40 * c2) + c3 + 1;
-            char cw1 = (char)(v / 256);
-            char cw2 = (char)(v % 256);
-            return "" + cw1 + cw2;
+        /**
+         * Returns the number of values needed to encode a character.
+         * @param c the character
+         * @return the number of values or -1 if the character cannot be encoded
+         */
+        protected int getValueCount(char c) {
+            if (c >= '\u0080') {
+                return 2 + getValueCount((char)(c - 128));
+            }
+            return isNativeC40(c) ? 1 : 2;
         }
 
     }
@@ -517,46 +666,47 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
             return TEXT_ENCODATION;
         }
 
-        protected int encodeChar(char c, StringBuffer sb) {
+        protected int encodeChar(char c, ValueBuffer sb) {
             if (c == ' ') {
-                sb.append('\3');
+                sb.append(3);
                 return 1;
             } else if (c >= '0' && c <= '9') {
-                sb.append((char)(c - 48 + 4));
+                sb.append(c - 48 + 4);
                 return 1;
             } else if (c >= 'a' && c <= 'z') {
-                sb.append((char)(c - 97 + 14));
+                sb.append(c - 97 + 14);
                 return 1;
             } else if (c >= '\0' && c <= '\u001f') {
-                sb.append('\0'); //Shift 1 Set
+                sb.append(0); //Shift 1 Set
                 sb.append(c);
                 return 2;
             } else if (c >= '!' && c <= '/') {
-                sb.append('\1'); //Shift 2 Set
-                sb.append((char)(c - 33));
+                sb.append(1); //Shift 2 Set
+                sb.append(c - 33);
                 return 2;
             } else if (c >= ':' && c <= '@') {
-                sb.append('\1'); //Shift 2 Set
-                sb.append((char)(c - 58 + 15));
+                sb.append(1); //Shift 2 Set
+                sb.append(c - 58 + 15);
                 return 2;
             } else if (c >= '[' && c <= '_') {
-                sb.append('\1'); //Shift 2 Set
-                sb.append((char)(c - 91 + 22));
+                sb.append(1); //Shift 2 Set
+                sb.append(c - 91 + 22);
                 return 2;
             } else if (c == '`') {
-                sb.append('\2'); //Shift 3 Set
-                sb.append((char)(c - 96));
+                sb.append(2); //Shift 3 Set
+                sb.append(c - 96);
                 return 2;
             } else if (c >= 'A' && c <= 'Z') {
-                sb.append('\2'); //Shift 3 Set
-                sb.append((char)(c - 65 + 1));
+                sb.append(2); //Shift 3 Set
+                sb.append(c - 65 + 1);
                 return 2;
             } else if (c >= '{' && c <= '\u007f') {
-                sb.append('\2'); //Shift 3 Set
-                sb.append((char)(c - 123 + 27));
+                sb.append(2); //Shift 3 Set
+                sb.append(c - 123 + 27);
                 return 2;
             } else if (c >= '\u0080') {
-                sb.append("\1\u001e"); //Shift 2, Upper Shift
+                sb.append(1); //Shift 2
+                sb.append(30); //Upper Shift
                 int len = 2;
                 len += encodeChar((char)(c - 128), sb);
                 return len;
@@ -566,6 +716,13 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
             }
         }
 
+        protected int getValueCount(char c) {
+            if (c >= '\u0080') {
+                return 2 + getValueCount((char)(c - 128));
+            }
+            return isNativeText(c) ? 1 : 2;
+        }
+
     }
 
     private static class X12Encoder extends C40Encoder {
@@ -576,7 +733,8 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
 
         public void encode(EncoderContext context) {
             //step C
-            StringBuffer buffer = new StringBuffer();
+            final ValueBuffer buffer = context.values;
+            buffer.clear();
             while (context.hasMoreCharacters()) {
                 char c = context.getCurrentChar();
                 context.pos++;
@@ -587,7 +745,7 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
                 if ((count % 3) == 0) {
                     writeNextTriplet(context, buffer);
 
-                    int newMode = lookAheadTest(context.msg, context.pos, getEncodingMode());
+                    int newMode = lookAheadTest(context, context.pos, getEncodingMode());
                     if (newMode != getEncodingMode()) {
                         context.signalEncoderChange(newMode);
                         break;
@@ -597,26 +755,30 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
             handleEOD(context, buffer);
         }
 
-        protected int encodeChar(char c, StringBuffer sb) {
+        protected int encodeChar(char c, ValueBuffer sb) {
             if (c == '\r') {
-                sb.append('\0');
+                sb.append(0);
             } else if (c == '*') {
-                sb.append('\1');
+                sb.append(1);
             } else if (c == '>') {
-                sb.append('\2');
+                sb.append(2);
             } else if (c == ' ') {
-                sb.append('\3');
+                sb.append(3);
             } else if (c >= '0' && c <= '9') {
-                sb.append((char)(c - 48 + 4));
+                sb.append(c - 48 + 4);
             } else if (c >= 'A' && c <= 'Z') {
-                sb.append((char)(c - 65 + 14));
+                sb.append(c - 65 + 14);
             } else {
                 illegalCharacter(c);
             }
             return 1;
         }
 
-        protected void handleEOD(EncoderContext context, StringBuffer buffer) {
+        protected int getValueCount(char c) {
+            return isNativeX12(c) ? 1 : -1;
+        }
+
+        protected void handleEOD(EncoderContext context, ValueBuffer buffer) {
             context.updateSymbolInfo();
             int available = context.symbolInfo.dataCapacity - context.getCodewordCount();
             int count = buffer.length();
@@ -642,7 +804,8 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
 
         public void encode(EncoderContext context) {
             //step F
-            StringBuffer buffer = new StringBuffer();
+            final ValueBuffer buffer = context.values;
+            buffer.clear();
             while (context.hasMoreCharacters()) {
                 char c = context.getCurrentChar();
                 encodeChar(c, buffer);
@@ -650,17 +813,17 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
 
                 int count = buffer.length();
                 if (count >= 4) {
-                    context.writeCodewords(encodeToCodewords(buffer, 0));
-                    buffer.delete(0, 4);
+                    writeCodewords(context, buffer);
+                    buffer.clear();
 
-                    int newMode = lookAheadTest(context.msg, context.pos, getEncodingMode());
+                    int newMode = lookAheadTest(context, context.pos, getEncodingMode());
                     if (newMode != getEncodingMode()) {
                         context.signalEncoderChange(ASCII_ENCODATION);
                         break;
                     }
                 }
             }
-            buffer.append((char)31); //Unlatch
+            buffer.append(31); //Unlatch
             handleEOD(context, buffer);
         }
 
@@ -669,7 +832,7 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
          * @param context the encoder context
          * @param buffer the buffer with the remaining encoded characters
          */
-        protected void handleEOD(EncoderContext context, StringBuffer buffer) {
+        protected void handleEOD(EncoderContext context, ValueBuffer buffer) {
             try {
                 int count = buffer.length();
                 if (count == 0) {
@@ -688,7 +851,7 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
                     throw new IllegalStateException("Count must not exceed 4");
                 }
                 int restChars = count - 1;
-                String encoded = encodeToCodewords(buffer, 0);
+                int encodedLength = getCodewordCount(count);
                 boolean endOfSymbolReached = !context.hasMoreCharacters();
                 boolean restInAscii = endOfSymbolReached && restChars <= 2;
 
@@ -697,7 +860,7 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
                     final int available = context.symbolInfo.dataCapacity - context.getCodewordCount();
                     if (available >= 3) {
                         restInAscii = false;
-                        context.updateSymbolInfo(context.getCodewordCount() + encoded.length());
+                        context.updateSymbolInfo(context.getCodewordCount() + encodedLength);
                         //available = context.symbolInfo.dataCapacity - context.getCodewordCount();
                     }
                 }
@@ -706,47 +869,55 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
                     context.resetSymbolInfo();
                     context.pos -= restChars;
                 } else {
-                    context.writeCodewords(encoded);
+                    writeCodewords(context, buffer);
                 }
             } finally {
                 context.signalEncoderChange(ASCII_ENCODATION);
             }
         }
 
-        protected void encodeChar(char c, StringBuffer sb) {
+        protected static void encodeChar(char c, ValueBuffer sb) {
             if (c >= ' ' && c <= '?') {
                 sb.append(c);
             } else if (c >= '@' && c <= '^') {
-                sb.append((char)(c - 64));
+                sb.append(c - 64);
             } else {
                 illegalCharacter(c);
             }
         }
 
-        protected String encodeToCodewords(StringBuffer sb, int startPos) {
-            int len = sb.length() - startPos;
+        /**
+         * Returns the number of codewords needed for up to four EDIFACT values.
+         * @param valueCount the number of values
+         * @return the number of codewords
+         */
+        protected static int getCodewordCount(int valueCount) {
+            return Math.min(valueCount, 3);
+        }
+
+        /**
+         * Packs up to four EDIFACT values into codewords.
+         * @param context the encoder context to write to
+         * @param sb the values
+         */
+        protected static void writeCodewords(EncoderContext context, ValueBuffer sb) {
+            int len = sb.length();
             if (len == 0) {
-                throw new IllegalStateException("StringBuffer must not be empty");
+                throw new IllegalStateException("Value buffer must not be empty");
             }
-            char c1 = sb.charAt(startPos);
-            char c2 = (len >= 2 ? sb.charAt(startPos + 1) : 0);
-            char c3 = (len >= 3 ? sb.charAt(startPos + 2) : 0);
-            char c4 = (len >= 4 ? sb.charAt(startPos + 3) : 0);
+            int c1 = sb.get(0);
+            int c2 = (len >= 2 ? sb.get(1) : 0);
+            int c3 = (len >= 3 ? sb.get(2) : 0);
+            int c4 = (len >= 4 ? sb.get(3) : 0);
 
             int v = (c1 << 18) + (c2 << 12) + (c3 << 6) + c4;
-            char cw1 = (char)((v >> 16) & 255);
-            char cw2 = (char)((v >> 8) & 255);
-            char cw3 = (char)(v & 255);
-
-            final StringBuilder res = new StringBuilder(3);
-            res.append(cw1);
+            context.writeCodeword((v >> 16) & 255);
             if (len >= 2) {
-                res.append(cw2);
+                context.writeCodeword((v >> 8) & 255);
             }
             if (len >= 3) {
-                res.append(cw3);
+                context.writeCodeword(v & 255);
             }
-            return res.toString();
         }
 
     }
@@ -758,73 +929,461 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
         }
 
         public void encode(EncoderContext context) {
-            final StringBuilder buffer = new StringBuilder();
-            buffer.append('\0'); //Initialize length field
+            final int start = context.pos;
             while (context.hasMoreCharacters()) {
-                char c = context.getCurrentChar();
-                buffer.append(c);
-
                 context.pos++;
 
-                int newMode = lookAheadTest(context.msg, context.pos, getEncodingMode());
+                int newMode = lookAheadTest(context, context.pos, getEncodingMode());
                 if (newMode != getEncodingMode()) {
                     context.signalEncoderChange(newMode);
                     break;
                 }
             }
-            int dataCount = buffer.length() - 1;
+            writeSegment(context, start, context.pos);
+        }
+
+        /**
+         * Writes the length field and the randomized bytes of a Base 256 segment.
+         * @param context the encoder context (its position must be at the end of the segment)
+         * @param start the index of the first message character in the segment
+         * @param end the index after the last message character in the segment
+         */
+        static void writeSegment(EncoderContext context, int start, int end) {
+            int dataCount = end - start;
             int lengthFieldSize = 1;
             int currentSize = (context.getCodewordCount() + dataCount + lengthFieldSize);
             context.updateSymbolInfo(currentSize);
             boolean mustPad = ((context.symbolInfo.dataCapacity - currentSize) > 0);
             if (context.hasMoreCharacters() || mustPad) {
                 if (dataCount <= 249) {
-                    buffer.setCharAt(0, (char)dataCount);
+                    writeRandomized(context, dataCount);
                 } else if (dataCount > 249 && dataCount <= 1555) {
-                    buffer.setCharAt(0, (char)((dataCount / 250) + 249));
-                    buffer.insert(1, (char)(dataCount % 250));
+                    writeRandomized(context, (dataCount / 250) + 249);
+                    writeRandomized(context, dataCount % 250);
                 } else {
                     throw new IllegalStateException(
                             "Message length not in valid ranges: " + dataCount);
                 }
+            } else {
+                writeRandomized(context, 0); //Base 256 for the remainder of the symbol
             }
-            for (int i = 0, c = buffer.length(); i < c; i++) {
-                context.writeCodeword(randomize255State(
-                        buffer.charAt(i), context.getCodewordCount() + 1));
+            for (int i = start; i < end; i++) {
+                writeRandomized(context, context.charAt(i));
             }
         }
 
+        private static void writeRandomized(EncoderContext context, int value) {
+            context.writeCodeword(randomize255State(value, context.getCodewordCount() + 1));
+        }
+
     }
+    /**
+     * Chooses the sequence of encodation modes that produces the fewest codewords. Each node of
+     * the graph is a message position combined with an encodation mode (at a codeword boundary
+     * of that mode). The edges are latches, unlatches and the smallest units each mode can encode
+     * (an ASCII character or digit pair, a C40/Text/X12 triplet, an EDIFACT quadruple or a byte).
+     * Since edges never span more than a few characters, the shortest path is found in a single
+     * pass over the message.
+     */
+    private static final class MinimalEncoder {
+
+        /**
+         * Pseudo mode at the end of the message: the last characters are encoded in ASCII
+         * without an unlatch from C40, Text, X12 or EDIFACT. This is only possible if they fill
+         * the end of the symbol, which is decided once the total codeword count is known.
+         */
+        private static final int IMPLICIT_ASCII = 6;
+
+        private static final int MODES = 7;
+
+        /** The maximum number of characters a C40 or Text triplet group may span. */
+        private static final int MAX_GROUP_CHARS = 6;
 
-    private static char encodeASCIIDigits(char digit1, char digit2) {
+        private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+        private static final C40Encoder[] TRIPLET_ENCODERS = new C40Encoder[] {
+            null, new C40Encoder(), new TextEncoder(), new X12Encoder()
+        };
+
+        private final EncoderContext context;
+        private final int start;
+        private final int end;
+        /** The number of codewords written before the encoder starts (Macro header). */
+        private final int prefix;
+        private final int[] costs;
+        private final int[] previous;
+        /** The length of the Base 256 segment at each position (for the length field size). */
+        private final int[] base256Runs;
+
+        private MinimalEncoder(EncoderContext context) {
+            this.context = context;
+            this.start = context.pos;
+            this.end = context.getTotalMessageCharCount();
+            this.prefix = context.getCodewordCount();
+            final int nodes = (end - start + 1) * MODES;
+            this.costs = new int[nodes];
+            this.previous = new int[nodes];
+            this.base256Runs = new int[end - start + 1];
+            Arrays.fill(costs, UNREACHABLE);
+            costs[ASCII_ENCODATION] = 0;
+            previous[ASCII_ENCODATION] = -1;
+        }
+
+        /**
+         * Encodes the rest of the message.
+         * @param context the encoder context
+         * @return the encodation mode at the end of the message
+         */
+        static int encode(EncoderContext context) {
+            final MinimalEncoder encoder = new MinimalEncoder(context);
+            encoder.findShortestPath();
+            return encoder.writePath(encoder.selectEndNode());
+        }
+
+        private int node(int pos, int mode) {
+            return (pos - start) * MODES + mode;
+        }
+
+        private void findShortestPath() {
+            for (int pos = start; pos <= end; pos++) {
+                if (((pos - start) & 0xFF) == 0xFF) {
+                    CancellationToken.checkCurrent();
+                }
+
+                //Unlatch (Base 256 ends implicitly through its length field)
+                for (int mode = C40_ENCODATION; mode <= BASE256_ENCODATION; mode++) {
+                    relax(node(pos, mode), node(pos, ASCII_ENCODATION),
+                            mode == BASE256_ENCODATION ? 0 : 1);
+                }
+                if (pos == end) {
+                    break;
+                }
+                //Latch from ASCII
+                for (int mode = C40_ENCODATION; mode <= BASE256_ENCODATION; mode++) {
+                    int cost = (mode == BASE256_ENCODATION ? 2 : 1); //with the length field
+                    if (relax(node(pos, ASCII_ENCODATION), node(pos, mode), cost)
+                            && mode == BASE256_ENCODATION) {
+                        base256Runs[pos - start] = 0;
+                    }
+                }
+
+                //ASCII
+                if (isDigitPair(context, pos) && pos + 2 <= end) {
+                    relax(node(pos, ASCII_ENCODATION), node(pos + 2, ASCII_ENCODATION), 1);
+                }
+                relax(node(pos, ASCII_ENCODATION), node(pos + 1, ASCII_ENCODATION),
+                        isExtendedASCII(context.charAt(pos)) ? 2 : 1);
+
+                //C40, Text and X12 triplets
+                for (int mode = C40_ENCODATION; mode <= X12_ENCODATION; mode++) {
+                    relaxTriplets(pos, mode);
+                }
+
+                //EDIFACT quadruples, or up to three values followed by the unlatch value
+                for (int count = 1; count <= 4 && pos + count <= end; count++) {
+                    if (!isNativeEDIFACT(context.charAt(pos + count - 1))) {
+                        break;
+                    }
+                    if (count == 4) {
+                        relax(node(pos, EDIFACT_ENCODATION),
+                                node(pos + count, EDIFACT_ENCODATION), 3);
+                    } else {
+                        relax(node(pos, EDIFACT_ENCODATION),
+                                node(pos + count, ASCII_ENCODATION),
+                                EdifactEncoder.getCodewordCount(count + 1));
+                    }
+                }
+
+                //Base 256
+                int run = base256Runs[pos - start] + 1;
+                //the length field takes a second byte from 250 bytes on
+                if (run <= 1555 && relax(node(pos, BASE256_ENCODATION),
+                        node(pos + 1, BASE256_ENCODATION), (run == 250 ? 2 : 1))) {
+                    base256Runs[pos + 1 - start] = run;
+                }
+
+                //The last characters in ASCII at the end of the symbol
+                if (end - pos <= 2) {
+                    int asciiCost = getASCIICost(pos, end);
+                    for (int mode = C40_ENCODATION; mode <= EDIFACT_ENCODATION; mode++) {
+                        if (asciiCost <= getImplicitASCIILimit(mode)) {
+                            relax(node(pos, mode), node(end, IMPLICIT_ASCII), asciiCost);
+                        }
+                    }
+                }
+            }
+        }
+
+        private boolean relax(int from, int to, int cost) {
+            if (costs[from] == UNREACHABLE) {
+                return false;
+            }
+            int newCost = costs[from] + cost;
+            if (newCost < costs[to]) {
+                costs[to] = newCost;
+                previous[to] = from;
+                return true;
+            }
+            return false;
+        }
+
+        private void relaxTriplets(int pos, int mode) {
+            final C40Encoder encoder = TRIPLET_ENCODERS[mode];
+            final int from = node(pos, mode);
+            if (costs[from] == UNREACHABLE) {
+                return;
+            }
+            int valueCount = 0;
+            for (int i = pos; i < end && i - pos < MAX_GROUP_CHARS; i++) {
+                int count = encoder.getValueCount(context.charAt(i));
+                if (count < 0) {
+                    break;
+                }
+                valueCount += count;
+                if (valueCount % 3 == 0) {
+                    relax(from, node(i + 1, mode), valueCount / 3 * 2);
+                    break;
+                } else if (valueCount % 3 == 2 && mode != X12_ENCODATION) {
+                    //padded with a Shift 1 value, followed by an unlatch
+                    relax(from, node(i + 1, ASCII_ENCODATION), (valueCount + 1) / 3 * 2 + 1);
+                }
+            }
+        }
+
+        /**
+         * Returns the number of ASCII codewords for the given characters.
+         */
+        private int getASCIICost(int from, int to) {
+            if (to - from == 2 && isDigitPair(context, from)) {
+                return 1;
+            }
+            int cost = 0;
+            for (int i = from; i < to; i++) {
+                cost += isExtendedASCII(context.charAt(i)) ? 2 : 1;
+            }
+            return cost;
+        }
+
+        /**
+         * Returns the number of codewords that may remain in the symbol after C40, Text and X12
+         * triplets (1) or EDIFACT quadruples (2) for a decoder to switch to ASCII implicitly.
+         */
+        private static int getImplicitASCIILimit(int mode) {
+            return (mode == EDIFACT_ENCODATION ? 2 : 1);
+        }
+
+        /**
+         * Selects the end of the path, preferring the smallest symbol and then the fewest
+         * codewords. The unlatch at the end of the message is only counted if the symbol has
+         * room left.
+         */
+        private int selectEndNode() {
+            int bestNode = -1;
+            int bestCapacity = Integer.MAX_VALUE;
+            int bestCount = Integer.MAX_VALUE;
+            for (int mode = 0; mode < MODES; mode++) {
+                final int node = node(end, mode);
+                if (costs[node] == UNREACHABLE) {
+                    continue;
+                }
+                int count = prefix + costs[node];
+                if (mode == IMPLICIT_ASCII) {
+                    int before = prefix + costs[previous[node]];
+                    int fromMode = previous[node] % MODES;
+                    if (getCapacity(count) - before > getImplicitASCIILimit(fromMode)) {
+                        count++; //explicit unlatch
+                    }
+                } else if (mode >= C40_ENCODATION && mode <= EDIFACT_ENCODATION) {
+                    int limit = (mode == EDIFACT_ENCODATION ? 2 : 0);
+                    if (getCapacity(count) - count > limit) {
+                        count++; //unlatch
+                    }
+                }
+                int capacity = getCapacity(count);
+                if (capacity < bestCapacity || (capacity == bestCapacity && count < bestCount)) {
+                    bestNode = node;
+                    bestCapacity = capacity;
+                    bestCount = count;
+                }
+            }
+            return bestNode;
+        }
+
+        private int getCapacity(int codewordCount) {
+            final DataMatrixSymbolInfo symbolInfo = DataMatrixSymbolInfo.lookup(codewordCount,
+                    context.shape, context.minSize, context.maxSize, false);
+            return (symbolInfo != null ? symbolInfo.dataCapacity : Integer.MAX_VALUE);
+        }
+
+        private int writePath(int endNode) {
+            int length = 0;
+            for (int node = endNode; node >= 0; node = previous[node]) {
+                length++;
+            }
+            final int[] path = new int[length];
+            for (int node = endNode, i = length - 1; node >= 0; node = previous[node], i--) {
+                path[i] = node;
+            }
+
+            int base256Start = -1;
+            for (int i = 1; i < length; i++) {
+                final int fromMode = path[i - 1] % MODES;
+                final int toMode = path[i] % MODES;
+                final int fromPos = start + path[i - 1] / MODES;
+                final int toPos = start + path[i] / MODES;
+                context.pos = fromPos;
+                if (toMode == IMPLICIT_ASCII) {
+                    writeImplicitASCII(fromMode, fromPos, toPos);
+                } else if (fromPos == toPos) {
+                    if (fromMode == ASCII_ENCODATION) {
+                        context.writeCodeword(ASCIIEncoder.getLatch(toMode));
+                        base256Start = toPos;
+                    } else if (fromMode == BASE256_ENCODATION) {
+                        Base256Encoder.writeSegment(context, base256Start, toPos);
+                    } else {
+                        writeUnlatch(fromMode);
+                    }
+                } else if (fromMode == ASCII_ENCODATION) {
+                    writeASCII(fromPos, toPos);
+                } else if (fromMode == EDIFACT_ENCODATION) {
+                    final ValueBuffer buffer = context.values;
+                    buffer.clear();
+                    for (int p = fromPos; p < toPos; p++) {
+                        EdifactEncoder.encodeChar(context.charAt(p), buffer);
+                    }
+                    if (toMode != EDIFACT_ENCODATION) {
+                        buffer.append(31); //Unlatch
+                    }
+                    EdifactEncoder.writeCodewords(context, buffer);
+                } else if (fromMode != BASE256_ENCODATION) {
+                    final C40Encoder encoder = TRIPLET_ENCODERS[fromMode];
+                    final ValueBuffer buffer = context.values;
+                    buffer.clear();
+                    for (int p = fromPos; p < toPos; p++) {
+                        encoder.encodeChar(context.charAt(p), buffer);
+                    }
+                    if (toMode != fromMode) {
+                        buffer.append(0); //Shift 1
+                    }
+                    while (buffer.length() >= 3) {
+                        encoder.writeNextTriplet(context, buffer);
+                    }
+                    if (toMode != fromMode) {
+                        context.pos = toPos;
+                        writeUnlatch(fromMode);
+                    }
+                } //else: Base 256 bytes are written when the segment ends
+                context.pos = toPos;
+            }
+
+            //Leave the symbol in a state that the padding can follow
+            final int endMode = endNode % MODES;
+            if (endMode == BASE256_ENCODATION) {
+                Base256Encoder.writeSegment(context, base256Start, context.pos);
+                return BASE256_ENCODATION;
+            } else if (endMode == EDIFACT_ENCODATION) {
+                writeUnlatch(EDIFACT_ENCODATION);
+                return ASCII_ENCODATION;
+            } else if (endMode == IMPLICIT_ASCII) {
+                return ASCII_ENCODATION;
+            }
+            return endMode;
+        }
+
+        private void writeASCII(int from, int to) {
+            if (to - from == 2 && isDigitPair(context, from)) {
+                context.writeCodeword(encodeASCIIDigits(context.charAt(from),
+                        context.charAt(from + 1)));
+            } else {
+                for (int p = from; p < to; p++) {
+                    ASCIIEncoder.encodeChar(context, context.charAt(p));
+                }
+            }
+        }
+
+        private void writeImplicitASCII(int mode, int from, int to) {
+            final int before = context.getCodewordCount();
+            context.updateSymbolInfo(before + getASCIICost(from, to));
+            if (context.symbolInfo.dataCapacity - before > getImplicitASCIILimit(mode)) {
+                context.pos = from; //characters remain, so the unlatch is always written
+                writeUnlatch(mode);
+            }
+            writeASCII(from, to);
+        }
+
+        /**
+         * Returns to ASCII encodation. At the end of the message, the unlatch is omitted if the
+         * symbol is already full (or, for EDIFACT, if at most two codewords remain).
+         */
+        private void writeUnlatch(int mode) {
+            if (!context.hasMoreCharacters()) {
+                context.updateSymbolInfo();
+                int available = context.symbolInfo.dataCapacity - context.getCodewordCount();
+                if (available <= (mode == EDIFACT_ENCODATION ? 2 : 0)) {
+                    return;
+                }
+            }
+            if (mode == EDIFACT_ENCODATION) {
+                final ValueBuffer buffer = context.values;
+                buffer.clear();
+                buffer.append(31); //Unlatch
+                EdifactEncoder.writeCodewords(context, buffer);
+            } else {
+                context.writeCodeword(C40_UNLATCH);
+            }
+        }
+
+    }
+
+    private static int encodeASCIIDigits(char digit1, char digit2) {
         if (isDigit(digit1) && isDigit(digit2)) {
             int num = (digit1 - 48) * 10 + (digit2 - 48);
-            return (char)(num + 130);
+            return num + 130;
         } else {
             throw new IllegalArgumentException("not digits: " + digit1 + digit2);
         }
     }
 
-    private static int lookAheadTest(String msg, int startpos, int currentMode) {
-        if (startpos >= msg.length()) {
+    private static boolean isDigitPair(EncoderContext context, int pos) {
+        return pos + 1 < context.getMessageLength()
+                && isDigit(context.charAt(pos)) && isDigit(context.charAt(pos + 1));
+    }
+
+    private static int lookAheadTest(EncoderContext context, int startpos, int currentMode) {
+        final int msgLength = context.getMessageLength();
+        if (startpos >= msgLength) {
             return currentMode;
         }
-        float[] charCounts;
+        final float[] charCounts = context.charCounts;
         //step J
         if (currentMode == ASCII_ENCODATION) {
-            charCounts = new float[] {0, 1, 1, 1, 1, 1.25f};
+            charCounts[ASCII_ENCODATION] = 0;
+            charCounts[C40_ENCODATION] = 1;
+            charCounts[TEXT_ENCODATION] = 1;
+            charCounts[X12_ENCODATION] = 1;
+            charCounts[EDIFACT_ENCODATION] = 1;
+            charCounts[BASE256_ENCODATION] = 1.25f;
         } else {
-            charCounts = new float[] {1, 2, 2, 2, 2, 2.25f};
+            charCounts[ASCII_ENCODATION] = 1;
+            charCounts[C40_ENCODATION] = 2;
+            charCounts[TEXT_ENCODATION] = 2;
+            charCounts[X12_ENCODATION] = 2;
+            charCounts[EDIFACT_ENCODATION] = 2;
+            charCounts[BASE256_ENCODATION] = 2.25f;
             charCounts[currentMode] = 0;
         }
+        final int[] intCharCounts = context.intCharCounts;
+        final byte[] mins = context.mins;
 
         int charsProcessed = 0;
         while (true) {
+            if ((charsProcessed & 0xFF) == 0xFF) {
+                //the look-ahead may scan the rest of the message for every character encoded
+                CancellationToken.checkCurrent();
+            }
             //step K
-            if ((startpos + charsProcessed) == msg.length()) {
+            if ((startpos + charsProcessed) == msgLength) {
                 int min = Integer.MAX_VALUE;
-                byte[] mins = new byte[6];
-                int[] intCharCounts = new int[6];
                 min = findMinimums(charCounts, intCharCounts, min, mins);
                 int minCount = getMinimumCount(mins);
 
@@ -843,7 +1402,7 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
                 }
             }
 
-            char c = msg.charAt(startpos + charsProcessed);
+            char c = context.charAt(startpos + charsProcessed);
             charsProcessed++;
 
             //step L
@@ -908,8 +1467,6 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
                 }*/
 
                 int min = Integer.MAX_VALUE;
-                int[] intCharCounts = new int[6];
-                byte[] mins = new byte[6];
                 min = findMinimums(charCounts, intCharCounts, min, mins);
                 int minCount = getMinimumCount(mins);
 
@@ -939,8 +1496,8 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
                         return C40_ENCODATION;
                     } else if (intCharCounts[C40_ENCODATION] == intCharCounts[X12_ENCODATION]) {
                         int p = startpos + charsProcessed + 1;
-                        while (p < msg.length()) {
-                            char tc = msg.charAt(p);
+                        while (p < msgLength) {
+                            char tc = context.charAt(p);
                             if (isX12TermSep(tc)) {
                                 return X12_ENCODATION;
                             } else if (!isNativeX12(tc)) {
@@ -1013,9 +1570,9 @@ public class DataMatrixHighLevelEncoder implements DataMatrixConstants {
         return (ch >= 128 && ch <= 255);
     }
 
-//    private static boolean isASCII7(char ch) {
-//        return (ch >= 0 && ch <= 127);
-//    }
+    private static boolean isASCII7(char ch) {
+        return (ch >= 0 && ch <= 127);
+    }
 
     private static boolean isNativeC40(char ch) {
         return (ch == 32)
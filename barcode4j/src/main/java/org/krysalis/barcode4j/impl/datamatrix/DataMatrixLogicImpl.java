@@ -48,37 +48,57 @@ public class DataMatrixLogicImpl {
         @NotNull SymbolShapeHint shape,
         @Nullable Dimension minSize,
         @Nullable Dimension maxSize
+    ) {
+        generateBarcodeLogic(logic, msg, shape, minSize, maxSize, false);
+    }
+
+    /**
+     * Generates the barcode logic.
+     * @param logic the logic handler to receive generated events
+     * @param msg the message to encode
+     * @param shape the symbol shape constraint
+     * @param minSize the minimum symbol size constraint or null for no constraint
+     * @param maxSize the maximum symbol size constraint or null for no constraint
+     * @param minimalEncodation true to choose the encodation modes producing the fewest codewords
+     */
+    public void generateBarcodeLogic(
+        @NotNull TwoDimBarcodeLogicHandler logic,
+        String msg,
+        @NotNull SymbolShapeHint shape,
+        @Nullable Dimension minSize,
+        @Nullable Dimension maxSize,
+        boolean minimalEncodation
     ) {
         //ECC 200
         //1. step: Data encodation
-        String encoded;
+        int[] encoded;
         try {
-            encoded = DataMatrixHighLevelEncoder.encodeHighLevel(msg, shape, minSize, maxSize);
+            encoded = DataMatrixHighLevelEncoder.encodeHighLevelCodewords(msg, shape, minSize, maxSize,
+                    minimalEncodation);
         } catch (IOException e) {
             throw new IllegalArgumentException("Cannot fetch data: " + e.getLocalizedMessage());
         }
 
-        @Nullable final DataMatrixSymbolInfo symbolInfo = DataMatrixSymbolInfo.lookup(encoded.length(), shape, minSize, maxSize, true);
+        @Nullable final DataMatrixSymbolInfo symbolInfo = DataMatrixSymbolInfo.lookup(encoded.length, shape, minSize, maxSize, true);
 
         //2. step: ECC generation
-        String codewords = DataMatrixErrorCorrection.encodeECC200(encoded, symbolInfo);
+        int[] codewords = DataMatrixErrorCorrection.encodeECC200(encoded, symbolInfo);
 
-        //3. step: Module placement in Matrix
-        final DefaultDataMatrixPlacement placement = new DefaultDataMatrixPlacement(
-            codewords,
+        //3. step: Module placement in Matrix (precomputed per symbol size)
+        final DataMatrixPlacementMap placement = DataMatrixPlacementMap.getInstance(
             symbolInfo.getSymbolDataWidth(),
             symbolInfo.getSymbolDataHeight()
         );
-        placement.place();
+        final long[] matrix = placement.place(codewords);
 
         //4. step: low-level encoding
         logic.startBarcode(msg, msg);
-        encodeLowLevel(logic, placement, symbolInfo);
+        encodeLowLevel(logic, placement, matrix, symbolInfo);
         logic.endBarcode();
     }
 
     private void encodeLowLevel(TwoDimBarcodeLogicHandler logic,
-            DataMatrixPlacement placement, DataMatrixSymbolInfo symbolInfo) {
+            DataMatrixPlacementMap placement, long[] matrix, DataMatrixSymbolInfo symbolInfo) {
         int symbolWidth = symbolInfo.getSymbolDataWidth();
         int symbolHeight = symbolInfo.getSymbolDataHeight();
         for (int y = 0; y < symbolHeight; y++) {
@@ -94,7 +114,7 @@ public class DataMatrixLogicImpl {
                 if ((x % symbolInfo.matrixWidth) == 0) {
                     logic.addBar(true, 1); //left finder edge
                 }
-                logic.addBar(placement.getBit(x, y), 1);
+                logic.addBar(placement.getBit(matrix, x, y), 1);
                 if ((x % symbolInfo.matrixWidth) == symbolInfo.matrixWidth - 1) {
                     logic.addBar((y % 2) == 0, 1); //right finder edge
                 }
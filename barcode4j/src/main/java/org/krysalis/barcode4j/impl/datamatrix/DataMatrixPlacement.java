@@ -123,6 +123,17 @@ public abstract class DataMatrixPlacement {
             col += numcols;
             row += 4 - ((numcols + 4) % 8);
         }
+        setBit(col, row, pos, bit);
+    }
+
+    /**
+     * Places a single bit of a codeword.
+     * @param col Column index
+     * @param row Row index
+     * @param pos the index of the codeword
+     * @param bit the bit within the codeword (1 is the most significant bit, 8 the least)
+     */
+    protected void setBit(int col, int row, int pos, int bit) {
         char c = codewords.charAt(pos);
         int v = (int)c;
         v &= 1 << (8 - bit);
@@ -0,0 +1,179 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.impl.datamatrix;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Precomputed result of the ECC 200 placement algorithm ({@link DataMatrixPlacement}) for one
+ * matrix size. The module a codeword bit lands on depends only on the size of the matrix, so the
+ * algorithm is run once per size, and placing codewords is reduced to scattering their bits into
+ * a bit-packed matrix.
+ * <p>
+ * Instances are immutable and shared between threads.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+final class DataMatrixPlacementMap {
+
+    private static final Map<Integer, DataMatrixPlacementMap> MAPS = new ConcurrentHashMap<>();
+
+    private final int numcols;
+    private final int numrows;
+    /** The module index (row * numcols + col) for each codeword bit (codeword * 8 + bit). */
+    private final int[] modules;
+    /** The modules that are always dark (fixed pattern in the lower right corner). */
+    private final int[] fixedModules;
+
+    private DataMatrixPlacementMap(int numcols, int numrows, int[] modules, int[] fixedModules) {
+        this.numcols = numcols;
+        this.numrows = numrows;
+        this.modules = modules;
+        this.fixedModules = fixedModules;
+    }
+
+    /**
+     * Returns the placement map for the given matrix size, building it on first use.
+     * @param numcols the number of columns
+     * @param numrows the number of rows
+     * @return the placement map
+     */
+    @NotNull
+    static DataMatrixPlacementMap getInstance(int numcols, int numrows) {
+        return MAPS.computeIfAbsent((numcols << 16) | numrows,
+                key -> new Builder(numcols, numrows).build());
+    }
+
+    /**
+     * Returns the number of codewords the matrix holds.
+     * @return the number of codewords
+     */
+    int getCodewordCount() {
+        return modules.length / 8;
+    }
+
+    /**
+     * Places the codewords in a new matrix.
+     * @param codewords the codewords to place (0 to 255)
+     * @return the matrix with one bit per module, row by row
+     */
+    @NotNull
+    long[] place(@NotNull int[] codewords) {
+        final long[] matrix = new long[(numcols * numrows + 63) >>> 6];
+        for (int i = 0, c = getCodewordCount(); i < c; i++) {
+            scatter(matrix, i, codewords[i]);
+        }
+        for (int module : fixedModules) {
+            matrix[module >>> 6] |= 1L << module;
+        }
+        return matrix;
+    }
+
+    private void scatter(long[] matrix, int index, int codeword) {
+        final int offset = index << 3;
+        for (int bit = 0; bit < 8; bit++) {
+            if ((codeword & (0x80 >>> bit)) != 0) {
+                final int module = modules[offset + bit];
+                matrix[module >>> 6] |= 1L << module;
+            }
+        }
+    }
+
+    /**
+     * Indicates whether a module of a placed matrix is dark.
+     * @param matrix the matrix returned by {@link #place(int[])}
+     * @param col the column index
+     * @param row the row index
+     * @return true if the module is dark
+     */
+    boolean getBit(long[] matrix, int col, int row) {
+        final int module = row * numcols + col;
+        return (matrix[module >>> 6] & (1L << module)) != 0;
+    }
+
+    /**
+     * Runs the placement algorithm once and records where each codeword bit goes.
+     */
+    private static class Builder extends DataMatrixPlacement {
+
+        private static final int UNSET = -1;
+        private static final int FIXED = -2;
+
+        /** The codeword bit placed on each module. */
+        private final int[] sources;
+        private int maxPos = -1;
+
+        Builder(int numcols, int numrows) {
+            super(null, numcols, numrows);
+            this.sources = new int[numcols * numrows];
+            Arrays.fill(this.sources, UNSET);
+        }
+
+        DataMatrixPlacementMap build() {
+            place();
+            final int[] modules = new int[(maxPos + 1) * 8];
+            Arrays.fill(modules, UNSET);
+            int fixedCount = 0;
+            for (int module = 0; module < sources.length; module++) {
+                if (sources[module] >= 0) {
+                    modules[sources[module]] = module;
+                } else if (sources[module] == FIXED) {
+                    fixedCount++;
+                }
+            }
+            final int[] fixedModules = new int[fixedCount];
+            for (int module = 0, i = 0; module < sources.length; module++) {
+                if (sources[module] == FIXED) {
+                    fixedModules[i++] = module;
+                }
+            }
+            for (int module : modules) {
+                if (module == UNSET) {
+                    throw new IllegalStateException("Incomplete placement for "
+                            + numcols + "x" + numrows);
+                }
+            }
+            return new DataMatrixPlacementMap(numcols, numrows, modules, fixedModules);
+        }
+
+        protected void setBit(int col, int row, int pos, int bit) {
+            final int module = row * numcols + col;
+            if (sources[module] != UNSET) {
+                throw new IllegalStateException("Module " + col + "/" + row
+                        + " placed twice for " + numcols + "x" + numrows);
+            }
+            sources[module] = pos * 8 + (bit - 1);
+            maxPos = Math.max(maxPos, pos);
+        }
+
+        protected void setBit(int col, int row, boolean bit) {
+            //only used for the fixed pattern
+            sources[row * numcols + col] = (bit ? FIXED : UNSET);
+        }
+
+        protected boolean getBit(int col, int row) {
+            return sources[row * numcols + col] == FIXED;
+        }
+
+        protected boolean hasBit(int col, int row) {
+            return sources[row * numcols + col] != UNSET;
+        }
+    }
+
+}
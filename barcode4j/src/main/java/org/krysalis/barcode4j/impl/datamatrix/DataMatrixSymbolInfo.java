@@ -21,6 +21,8 @@ package org.krysalis.barcode4j.impl.datamatrix;
 import org.jetbrains.annotations.Nullable;
 
 import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Symbol info table for DataMatrix.
@@ -65,14 +67,14 @@ public class DataMatrixSymbolInfo {
         new DataMatrixSymbolInfo144(),
     };
 
-    private static DataMatrixSymbolInfo[] symbols = PROD_SYMBOLS;
+    private static SymbolIndex index = new SymbolIndex(PROD_SYMBOLS);
 
     /**
      * Overrides the symbol info set used by this class. Used for testing purposes.
      * @param override the symbol info set to use
      */
     static void overrideSymbolSet(DataMatrixSymbolInfo[] override) {
-        symbols = override;
+        index = new SymbolIndex(override);
     }
 
     public boolean rectangular;
@@ -168,13 +170,10 @@ public class DataMatrixSymbolInfo {
      */
     @Nullable
     public static DataMatrixSymbolInfo lookup(int dataCodewords, SymbolShapeHint shape, Dimension minSize, Dimension maxSize, boolean fail) {
-        for (final DataMatrixSymbolInfo symbol : symbols) {
-            if (shape == SymbolShapeHint.FORCE_SQUARE && symbol.rectangular) {
-                continue;
-            }
-            if (shape == SymbolShapeHint.FORCE_RECTANGLE && !symbol.rectangular) {
-                continue;
-            }
+        final SymbolIndex idx = index;
+        final DataMatrixSymbolInfo[] candidates = idx.getSymbols(shape);
+        for (int i = idx.getFirstCandidate(shape, dataCodewords); i < candidates.length; i++) {
+            final DataMatrixSymbolInfo symbol = candidates[i];
             if (minSize != null
                 && (symbol.getSymbolWidth() < minSize.width
                 || symbol.getSymbolHeight() < minSize.height)) {
@@ -263,6 +262,90 @@ public class DataMatrixSymbolInfo {
             ", codewords " + dataCapacity + "+" + errorCodewords;
     }
 
+    /**
+     * The symbols available for each shape hint, in the order of the symbol set, with their data
+     * capacities for a binary search of the smallest symbol that can hold a message.
+     */
+    private static final class SymbolIndex {
+
+        private final DataMatrixSymbolInfo[] all;
+        private final DataMatrixSymbolInfo[] square;
+        private final DataMatrixSymbolInfo[] rectangular;
+        private final int[] allCapacities;
+        private final int[] squareCapacities;
+        private final int[] rectangularCapacities;
+        /** false if the symbol set isn't ordered by data capacity (only test sets) */
+        private final boolean sorted;
+
+        SymbolIndex(DataMatrixSymbolInfo[] symbols) {
+            final List<DataMatrixSymbolInfo> squareList = new ArrayList<>();
+            final List<DataMatrixSymbolInfo> rectangularList = new ArrayList<>();
+            boolean ordered = true;
+            for (int i = 0; i < symbols.length; i++) {
+                (symbols[i].rectangular ? rectangularList : squareList).add(symbols[i]);
+                if (i > 0 && symbols[i].dataCapacity < symbols[i - 1].dataCapacity) {
+                    ordered = false;
+                }
+            }
+            this.all = symbols.clone();
+            this.square = squareList.toArray(new DataMatrixSymbolInfo[0]);
+            this.rectangular = rectangularList.toArray(new DataMatrixSymbolInfo[0]);
+            this.allCapacities = getCapacities(all);
+            this.squareCapacities = getCapacities(square);
+            this.rectangularCapacities = getCapacities(rectangular);
+            this.sorted = ordered;
+        }
+
+        private static int[] getCapacities(DataMatrixSymbolInfo[] symbols) {
+            final int[] capacities = new int[symbols.length];
+            for (int i = 0; i < symbols.length; i++) {
+                capacities[i] = symbols[i].dataCapacity;
+            }
+            return capacities;
+        }
+
+        DataMatrixSymbolInfo[] getSymbols(SymbolShapeHint shape) {
+            if (shape == SymbolShapeHint.FORCE_SQUARE) {
+                return square;
+            } else if (shape == SymbolShapeHint.FORCE_RECTANGLE) {
+                return rectangular;
+            } else {
+                return all;
+            }
+        }
+
+        /**
+         * Returns the index of the first symbol that can hold the given number of data codewords.
+         * @param shape the shape hint
+         * @param dataCodewords the number of data codewords
+         * @return the index into {@link #getSymbols(SymbolShapeHint)}
+         */
+        int getFirstCandidate(SymbolShapeHint shape, int dataCodewords) {
+            if (!sorted) {
+                return 0;
+            }
+            final int[] capacities;
+            if (shape == SymbolShapeHint.FORCE_SQUARE) {
+                capacities = squareCapacities;
+            } else if (shape == SymbolShapeHint.FORCE_RECTANGLE) {
+                capacities = rectangularCapacities;
+            } else {
+                capacities = allCapacities;
+            }
+            int low = 0;
+            int high = capacities.length;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (capacities[mid] < dataCodewords) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
     private static class DataMatrixSymbolInfo144 extends DataMatrixSymbolInfo {
 
         public DataMatrixSymbolInfo144() {
@@ -48,6 +48,7 @@ public class RoyalMailCBCBean extends AbstractFourStateBean {
 
     /** {@inheritDoc} */
     public void setMsgPosition(HumanReadablePlacement placement) {
+        checkNotFrozen();
         //nop, no human-readable with this symbology!!!
     }
 
@@ -69,6 +69,7 @@ public class USPSIntelligentMailBean extends AbstractFourStateBean {
      * @param height the height of the vertical quiet zone (in mm)
      */
     public void setVerticalQuietZone(double height) {
+        checkNotFrozen();
         this.quietZoneVertical = height;
     }
 
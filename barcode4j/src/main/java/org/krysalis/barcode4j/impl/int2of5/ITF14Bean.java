@@ -73,6 +73,7 @@ public class ITF14Bean extends Interleaved2Of5Bean {
      * @param value true for a bearer box, false for horizontal bearer bars.
      */
     public void setBearerBox(boolean value) {
+        checkNotFrozen();
         this.bearerBox = value;
     }
 
@@ -89,12 +90,14 @@ public class ITF14Bean extends Interleaved2Of5Bean {
      * @param width the bearer bar width (in millimeters)
      */
     public void setBearerBarWidth(double width) {
+        checkNotFrozen();
         this.bearerBarWidth = width;
     }
 
     /** {@inheritDoc} */
     @Override
     public void doQuietZone(boolean value) {
+        checkNotFrozen();
         if (!value) {
             throw new IllegalArgumentException("Quiet zone may not be disabled for ITF-14!");
         }
@@ -66,6 +66,7 @@ public class Interleaved2Of5Bean extends AbstractBarcodeBean {
      *   false to ignore
      */
     public void setDisplayChecksum(boolean value) {
+        checkNotFrozen();
         this.displayChecksum = value;
     }
 
@@ -122,6 +123,7 @@ public class Interleaved2Of5Bean extends AbstractBarcodeBean {
      * @param mode the checksum mode
      */
     public void setChecksumMode(ChecksumMode mode) {
+        checkNotFrozen();
         this.checksumMode = mode;
     }
 
@@ -146,6 +148,7 @@ public class Interleaved2Of5Bean extends AbstractBarcodeBean {
      * @param value the wide factory (should be &gt; 1.0)
      */
     public void setWideFactor(double value) {
+        checkNotFrozen();
         if (value <= 1.0) {
             throw new IllegalArgumentException("wide factor must be &gt; 1.0");
         }
@@ -15,6 +15,9 @@
  */
 package org.krysalis.barcode4j.impl.pdf417;
 
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.CapacityPlanner;
+import org.krysalis.barcode4j.SymbolCapacity;
 import org.krysalis.barcode4j.impl.ConfigurableBarcodeGenerator;
 import org.krysalis.barcode4j.tools.Length;
 
@@ -27,7 +30,7 @@ import org.krysalis.barcode4j.configuration.ConfigurationException;
  *
  * @version $Id: PDF417.java,v 1.7 2012-05-17 13:57:37 jmaerki Exp $
  */
-public class PDF417 extends ConfigurableBarcodeGenerator implements Configurable {
+public class PDF417 extends ConfigurableBarcodeGenerator implements Configurable, CapacityPlanner {
 
     /** Create a new instance. */
     public PDF417() {
@@ -108,4 +111,11 @@ public class PDF417 extends ConfigurableBarcodeGenerator implements Configurable
         return (PDF417Bean)getBean();
     }
 
+    /** {@inheritDoc} */
+    @NotNull
+    @Override
+    public SymbolCapacity planCapacity(@NotNull String msg) {
+        return getPDF417Bean().planCapacity(msg);
+    }
+
 }
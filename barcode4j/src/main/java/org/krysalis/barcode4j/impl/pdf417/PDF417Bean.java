@@ -15,15 +15,13 @@
  */
 package org.krysalis.barcode4j.impl.pdf417;
 
-import java.awt.Dimension;
-
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.krysalis.barcode4j.BarcodeDimension;
-import org.krysalis.barcode4j.TwoDimBarcodeLogicHandler;
+import org.krysalis.barcode4j.CapacityPlanner;
+import org.krysalis.barcode4j.SymbolCapacity;
 import org.krysalis.barcode4j.impl.AbstractBarcodeBean;
-import org.krysalis.barcode4j.impl.DefaultTwoDimCanvasLogicHandler;
-import org.krysalis.barcode4j.output.Canvas;
+import org.krysalis.barcode4j.impl.EncodedSymbol;
 import org.krysalis.barcode4j.output.CanvasProvider;
 import org.krysalis.barcode4j.tools.ECIUtil;
 import org.krysalis.barcode4j.tools.UnitConv;
@@ -33,7 +31,7 @@ import org.krysalis.barcode4j.tools.UnitConv;
  *
  * @version $Id: PDF417Bean.java,v 1.7 2012-05-17 13:57:37 jmaerki Exp $
  */
-public class PDF417Bean extends AbstractBarcodeBean {
+public class PDF417Bean extends AbstractBarcodeBean implements CapacityPlanner {
 
     /** The default module width for PDF417. */
     protected static final double DEFAULT_MODULE_WIDTH = UnitConv.in2mm(1.0 / 72); //1px at 72dpi
@@ -81,27 +79,40 @@ public class PDF417Bean extends AbstractBarcodeBean {
             throw new NullPointerException("Parameter msg must not be empty");
         }
 
-        final TwoDimBarcodeLogicHandler handler = new DefaultTwoDimCanvasLogicHandler(this, new Canvas(canvas));
+        generateBarcode(canvas, encodeSymbol(msg));
+    }
 
-        PDF417LogicImpl.generateBarcodeLogic(handler, msg, this);
+    /**
+     * Encodes a message into a symbol which can be measured and painted without encoding the
+     * message again.
+     * @param msg the message to encode
+     * @return the encoded symbol
+     * @since 2.4.1
+     */
+    @NotNull
+    public EncodedSymbol encodeSymbol(@NotNull final String msg) {
+        final EncodedSymbol.Recorder recorder = new EncodedSymbol.Recorder();
+        PDF417LogicImpl.generateBarcodeLogic(recorder, msg, this);
+        return recorder.getSymbol();
     }
 
 
+    /** {@inheritDoc} */
+    @NotNull
+    @Override
+    public SymbolCapacity planCapacity(@NotNull String msg) {
+        return PDF417LogicImpl.planCapacity(msg, this);
+    }
+
     /**
      * @see org.krysalis.barcode4j.BarcodeGenerator#calcDimensions(String)
      */
     @Override
     public BarcodeDimension calcDimensions(@NotNull String msg) {
-        final int sourceCodeWords = PDF417HighLevelEncoder.encodeHighLevel(msg, getEncoding(), isECIEnabled()).length();
-
-        final Dimension dimension = PDF417LogicImpl.determineDimensions(this, sourceCodeWords);
-
-        if (dimension == null) {
-            throw new IllegalArgumentException("Unable to fit message in columns");
-        }
+        final SymbolCapacity capacity = planCapacity(msg);
 
-        double width = (17 * dimension.width + 69) * getModuleWidth();
-        double height = (getBarHeight() * dimension.height);
+        double width = capacity.getWidth() * getModuleWidth();
+        double height = (getBarHeight() * capacity.getRowCount());
         double qzh = (hasQuietZone() ? getQuietZone() : 0);
         double qzv = (hasQuietZone() ? getVerticalQuietZone() : 0);
         return new BarcodeDimension(width, height,
@@ -221,6 +232,7 @@ public class PDF417Bean extends AbstractBarcodeBean {
      * @param level the error correction level (a value between 0 and 8)
      */
     public void setErrorCorrectionLevel(int level) {
+        checkNotFrozen();
         if (level < 0 || level > 8) {
             throw new IllegalArgumentException(
                     "Error correction level must be between 0 and 8!");
@@ -233,6 +245,7 @@ public class PDF417Bean extends AbstractBarcodeBean {
      * @param maxCols the maximum number of columns..
      */
     public void setMaxCols(int maxCols) {
+        checkNotFrozen();
         checkValidColumnCount(maxCols);
         this.maxCols = maxCols;
     }
@@ -242,6 +255,7 @@ public class PDF417Bean extends AbstractBarcodeBean {
      * @param maxRows the maximum number of rows.
      */
     public void setMaxRows(int maxRows) {
+        checkNotFrozen();
         checkValidRowCount(maxRows);
         this.maxRows = maxRows;
     }
@@ -251,6 +265,7 @@ public class PDF417Bean extends AbstractBarcodeBean {
      * @param minCols The minimum number of columns.
      */
     public void setMinCols(int minCols) {
+        checkNotFrozen();
         checkValidColumnCount(minCols);
         this.minCols = minCols;
     }
@@ -260,6 +275,7 @@ public class PDF417Bean extends AbstractBarcodeBean {
      * @param minRows the minimum of rows to set.
      */
     public void setMinRows(int minRows) {
+        checkNotFrozen();
         checkValidRowCount(minRows);
         this.minRows = minRows;
     }
@@ -278,6 +294,7 @@ public class PDF417Bean extends AbstractBarcodeBean {
      * @param widthToHeightRatio the ratio of the barcode width to the height
      */
     public void setWidthToHeightRatio(double widthToHeightRatio) {
+        checkNotFrozen();
         this.widthToHeightRatio = widthToHeightRatio;
     }
 
@@ -287,6 +304,7 @@ public class PDF417Bean extends AbstractBarcodeBean {
      * @param encoding the message encoding
      */
     public void setEncoding(String encoding) {
+        checkNotFrozen();
         if (ECIUtil.getECIForEncoding(encoding) < 0) {
             throw new IllegalArgumentException("Not a valid encoding: " + encoding);
         }
@@ -298,6 +316,7 @@ public class PDF417Bean extends AbstractBarcodeBean {
      * @param value true to enable the generation of ECI sequences
      */
     public void setECIEnabled(boolean value) {
+        checkNotFrozen();
         this.enableECI = value;
     }
 
@@ -18,6 +18,11 @@
 
 package org.krysalis.barcode4j.impl.pdf417;
 
+import java.util.Arrays;
+
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.output.CancellationToken;
+
 /**
  * PDF417 error correction code following the algorithm described in ISO/IEC 15438:2001(E) in
  * chapter 4.10.
@@ -26,6 +31,39 @@ package org.krysalis.barcode4j.impl.pdf417;
  */
 public class PDF417ErrorCorrection implements PDF417Constants {
 
+    /** The codeword values are the integers modulo this prime. */
+    private static final int MODULUS = 929;
+
+    private static final int[] LOG;
+    /** Antilog table (powers of 3), doubled so the sum of two logarithms can be looked up without modulo. */
+    private static final int[] ALOG;
+    /** The logarithms of the EC_COEFFICIENTS, highest degree first. */
+    private static final int[][] COEFFICIENT_LOGS;
+
+    static {
+        //3 is a generator of the multiplicative group modulo 929
+        LOG = new int[MODULUS];
+        ALOG = new int[(MODULUS - 1) * 2];
+        int p = 1;
+        for (int i = 0; i < MODULUS - 1; i++) {
+            ALOG[i] = p;
+            ALOG[i + MODULUS - 1] = p;
+            LOG[p] = i;
+            p = (p * 3) % MODULUS;
+        }
+
+        COEFFICIENT_LOGS = new int[EC_COEFFICIENTS.length][];
+        for (int level = 0; level < EC_COEFFICIENTS.length; level++) {
+            final int[] coefficients = EC_COEFFICIENTS[level];
+            final int[] logs = new int[coefficients.length];
+            for (int i = 0; i < coefficients.length; i++) {
+                //All coefficients are non-zero
+                logs[i] = LOG[coefficients[coefficients.length - 1 - i]];
+            }
+            COEFFICIENT_LOGS[level] = logs;
+        }
+    }
+
     /**
      * Determines the number of error correction codewords for a specified error correction
      * level.
@@ -69,29 +107,66 @@ public class PDF417ErrorCorrection implements PDF417Constants {
      */
     public static String generateErrorCorrection(String dataCodewords, int errorCorrectionLevel) {
         int k = getErrorCorrectionCodewordCount(errorCorrectionLevel);
-        char[] e = new char[k];
         int sld = dataCodewords.length();
-        int t1, t2, t3;
+        int[] codewords = new int[sld + k];
         for (int i = 0; i < sld; i++) {
-            t1 = (dataCodewords.charAt(i) + e[e.length - 1]) % 929;
-            for (int j = k - 1; j >= 1; j--) {
-                t2 = (t1 * EC_COEFFICIENTS[errorCorrectionLevel][j]) % 929;
-                t3 = 929 - t2;
-                e[j] = (char)((e[j - 1] + t3) % 929);
+            codewords[i] = dataCodewords.charAt(i) % MODULUS;
+        }
+        generateErrorCorrection(codewords, sld, errorCorrectionLevel);
+        char[] e = new char[k];
+        for (int j = 0; j < k; j++) {
+            e[j] = (char)codewords[sld + j];
+        }
+        return new String(e);
+    }
+
+    /**
+     * Generates the error correction codewords according to 4.10 in ISO/IEC 15438:2001(E) and
+     * stores them directly after the data codewords.
+     * @param codewords the data codewords (0-928) followed by room for the error correction
+     *          codewords
+     * @param dataLength the number of data codewords
+     * @param errorCorrectionLevel the error correction level (0-8)
+     * @since 2.4.1
+     */
+    public static void generateErrorCorrection(@NotNull int[] codewords, int dataLength,
+            int errorCorrectionLevel) {
+        final int k = getErrorCorrectionCodewordCount(errorCorrectionLevel);
+        if (dataLength + k > codewords.length) {
+            throw new IllegalArgumentException("The array has no room for " + k
+                    + " error correction codewords after " + dataLength + " data codewords");
+        }
+        //The shift register lives in the target area, highest degree first, so the result
+        //needs no reversal
+        final int[] coefficientLogs = COEFFICIENT_LOGS[errorCorrectionLevel];
+        final int last = dataLength + k - 1;
+        Arrays.fill(codewords, dataLength, last + 1, 0);
+        for (int i = 0; i < dataLength; i++) {
+            if ((i & 0x3F) == 0x3F) {
+                CancellationToken.checkCurrent();
+            }
+            int t1 = codewords[i] + codewords[dataLength];
+            if (t1 >= MODULUS) {
+                t1 -= MODULUS;
+            }
+            if (t1 == 0) {
+                System.arraycopy(codewords, dataLength + 1, codewords, dataLength, k - 1);
+                codewords[last] = 0;
+                continue;
             }
-            t2 = (t1 * EC_COEFFICIENTS[errorCorrectionLevel][0]) % 929;
-            t3 = 929 - t2;
-            e[0] = (char)(t3 % 929);
-            //System.out.println(HighLevelEncoderTest.visualize(new String(e)));
+            final int logT1 = LOG[t1];
+            for (int j = dataLength, c = 0; j < last; j++, c++) {
+                final int e = codewords[j + 1] - ALOG[logT1 + coefficientLogs[c]];
+                codewords[j] = (e < 0 ? e + MODULUS : e);
+            }
+            //The product of two non-zero values is non-zero
+            codewords[last] = MODULUS - ALOG[logT1 + coefficientLogs[k - 1]];
         }
-        StringBuffer sb = new StringBuffer(k);
-        for (int j = k - 1; j >= 0; j--) {
-            if (e[j] != 0) {
-                e[j] = (char)(929 - e[j]);
+        for (int j = dataLength; j <= last; j++) {
+            if (codewords[j] != 0) {
+                codewords[j] = MODULUS - codewords[j];
             }
-            sb.append(e[j]);
         }
-        return sb.toString();
     }
-    
+
 }
@@ -23,6 +23,7 @@ import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
 import java.util.Arrays;
 
+import org.krysalis.barcode4j.output.CancellationToken;
 import org.krysalis.barcode4j.tools.ECIUtil;
 import org.krysalis.barcode4j.tools.URLUtil;
 
@@ -133,6 +134,7 @@ public class PDF417HighLevelEncoder implements PDF417Constants {
         int encodingMode = TEXT_COMPACTION; //Default mode, see 4.4.2.1
         int textSubMode = SUBMODE_ALPHA;
         while (p < len) {
+            CancellationToken.checkCurrent();
             int n = determineConsecutiveDigitCount(msg, p);
             if (n >= 13) {
                 sb.append((char)LATCH_TO_NUMERIC);
@@ -190,6 +192,9 @@ public class PDF417HighLevelEncoder implements PDF417Constants {
         int submode = initialSubmode;
         int idx = 0;
         while (true) {
+            if ((idx & 0xFF) == 0xFF) {
+                CancellationToken.checkCurrent();
+            }
             char ch = msg.charAt(startpos + idx);
             switch (submode) {
             case SUBMODE_ALPHA:
@@ -355,6 +360,7 @@ public class PDF417HighLevelEncoder implements PDF417Constants {
         final BigInteger num900 = BigInteger.valueOf(900);
         final BigInteger num0 = BigInteger.valueOf(0);
         while (idx < count - 1) {
+            CancellationToken.checkCurrent();
             tmp.setLength(0);
             int len = Math.min(44, count - idx);
             String part = "1" + msg.substring(startpos + idx, startpos + idx + len);
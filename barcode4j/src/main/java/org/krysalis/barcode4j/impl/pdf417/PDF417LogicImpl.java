@@ -19,11 +19,13 @@
 package org.krysalis.barcode4j.impl.pdf417;
 
 import java.awt.Dimension;
+import java.util.Arrays;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.krysalis.barcode4j.BarGroup;
 import org.krysalis.barcode4j.ClassicBarcodeLogicHandler;
+import org.krysalis.barcode4j.SymbolCapacity;
 import org.krysalis.barcode4j.TwoDimBarcodeLogicHandler;
 
 /**
@@ -130,7 +132,7 @@ public class PDF417LogicImpl {
         logic.addBar(last, width);
     }
 
-    private static void encodeLowLevel(String fullCodewords, int c, int r,
+    private static void encodeLowLevel(int[] fullCodewords, int c, int r,
             int errorCorrectionLevel, TwoDimBarcodeLogicHandler logic) {
         int idx = 0;
         for (int y = 0; y < r; y++) {
@@ -160,7 +162,7 @@ public class PDF417LogicImpl {
 
             for (int x = 0; x < c; x++) {
                 logic.startBarGroup(BarGroup.MSG_CHARACTER, null);
-                pattern = PDF417Constants.CODEWORD_TABLE[cluster][fullCodewords.charAt(idx)];
+                pattern = PDF417Constants.CODEWORD_TABLE[cluster][fullCodewords[idx]];
                 encodeChar(pattern, 17, logic);
                 logic.endBarGroup();
                 idx++;
@@ -211,24 +213,49 @@ public class PDF417LogicImpl {
             throw new IllegalArgumentException("Encoded message contains to many code words, message to big (" + msg.length() + " bytes)");
         }
 
-        final StringBuilder sb = new StringBuilder(n);
-        sb.append((char)n);
-        sb.append(highLevel);
-        for (int i = 0; i < pad; i++) {
-            sb.append((char)900); //PAD characters
+        final int[] codewords = new int[n + errorCorrectionCodeWords];
+        codewords[0] = n;
+        for (int i = 0; i < sourceCodeWords; i++) {
+            codewords[i + 1] = highLevel.charAt(i);
         }
-        final String dataCodewords = sb.toString();
+        Arrays.fill(codewords, sourceCodeWords + 1, sourceCodeWords + 1 + pad, 900); //PAD characters
 
         //3. step: Error correction
-        final String ec = PDF417ErrorCorrection.generateErrorCorrection(dataCodewords, errorCorrectionLevel);
-        String fullCodewords = dataCodewords + ec;
+        PDF417ErrorCorrection.generateErrorCorrection(codewords, n, errorCorrectionLevel);
 
         //4. step: low-level encoding
         logic.startBarcode(msg, msg);
-        encodeLowLevel(fullCodewords, cols, rows, errorCorrectionLevel, logic);
+        encodeLowLevel(codewords, cols, rows, errorCorrectionLevel, logic);
         logic.endBarcode();
     }
 
+    /**
+     * Determines the number of columns and rows of the symbol for a message, without creating
+     * the symbol.
+     * @param msg the message
+     * @param pdf417Bean reference to the PDF417 bean for configuration access
+     * @return the symbol capacity in source codewords (excluding the Symbol Length Descriptor)
+     * @since 2.4.1
+     */
+    @NotNull
+    public static SymbolCapacity planCapacity(String msg, @NotNull final PDF417Bean pdf417Bean) {
+        int sourceCodeWords = PDF417HighLevelEncoder.encodeHighLevel(
+                msg, pdf417Bean.getEncoding(), pdf417Bean.isECIEnabled()).length();
+
+        Dimension dimension = determineDimensions(pdf417Bean, sourceCodeWords);
+        if (dimension == null) {
+            throw new IllegalArgumentException("Unable to fit message in columns");
+        }
+
+        int n = getNumberOfDataCodewords(sourceCodeWords, pdf417Bean.getErrorCorrectionLevel(),
+                dimension.width);
+        if (n > 929) {
+            throw new IllegalArgumentException("Encoded message contains to many code words, message to big (" + msg.length() + " bytes)");
+        }
+        return new SymbolCapacity(17 * dimension.width + 69, dimension.height,
+                sourceCodeWords, n - 1, SymbolCapacity.Unit.CODEWORDS);
+    }
+
     /**
      * Determine optimal nr of columns and rows for the specified number of
      * codewords.
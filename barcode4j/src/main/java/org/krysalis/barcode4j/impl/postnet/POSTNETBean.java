@@ -67,6 +67,7 @@ public class POSTNETBean extends HeightVariableBarcodeBean {
      * @param height the height of the vertical quiet zone (in mm)
      */
     public void setVerticalQuietZone(double height) {
+        checkNotFrozen();
         this.quietZoneVertical = height;
     }
 
@@ -84,6 +85,7 @@ public class POSTNETBean extends HeightVariableBarcodeBean {
      * @param mode the checksum mode
      */
     public void setChecksumMode(ChecksumMode mode) {
+        checkNotFrozen();
         this.checksumMode = mode;
     }
 
@@ -108,6 +110,7 @@ public class POSTNETBean extends HeightVariableBarcodeBean {
      * @param width the interchar gap width
      */
     public void setIntercharGapWidth(double width) {
+        checkNotFrozen();
         this.intercharGapWidth = width;
     }
 
@@ -124,6 +127,7 @@ public class POSTNETBean extends HeightVariableBarcodeBean {
      * @param height the height of a short bar
      */
     public void setShortBarHeight(double height) {
+        checkNotFrozen();
         this.shortBarHeight = height;
     }
 
@@ -167,6 +171,7 @@ public class POSTNETBean extends HeightVariableBarcodeBean {
      *   false to ignore
      */
     public void setDisplayChecksum(boolean value) {
+        checkNotFrozen();
         this.displayChecksum = value;
     }
 
@@ -211,6 +216,7 @@ public class POSTNETBean extends HeightVariableBarcodeBean {
      * @param baselinePosition the baseline position
      */
     public void setBaselinePosition(BaselineAlignment baselinePosition) {
+        checkNotFrozen();
         this.baselinePosition = baselinePosition;
     }
 
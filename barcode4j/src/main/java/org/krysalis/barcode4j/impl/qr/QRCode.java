@@ -20,6 +20,9 @@ package org.krysalis.barcode4j.impl.qr;
 
 import java.awt.Dimension;
 
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.CapacityPlanner;
+import org.krysalis.barcode4j.SymbolCapacity;
 import org.krysalis.barcode4j.impl.ConfigurableBarcodeGenerator;
 import org.krysalis.barcode4j.tools.Length;
 
@@ -32,7 +35,7 @@ import org.krysalis.barcode4j.configuration.ConfigurationException;
  *
  * @version $Id: QRCode.java,v 1.1 2012-01-27 14:36:35 jmaerki Exp $
  */
-public class QRCode extends ConfigurableBarcodeGenerator implements Configurable {
+public class QRCode extends ConfigurableBarcodeGenerator implements Configurable, CapacityPlanner {
 
     /** Create a new instance. */
     public QRCode() {
@@ -90,4 +93,11 @@ public class QRCode extends ConfigurableBarcodeGenerator implements Configurable
         }
     }
 
+    /** {@inheritDoc} */
+    @NotNull
+    @Override
+    public SymbolCapacity planCapacity(@NotNull String msg) {
+        return ((QRCodeBean) getBean()).planCapacity(msg);
+    }
+
 }
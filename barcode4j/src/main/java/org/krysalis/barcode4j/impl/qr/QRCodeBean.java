@@ -23,25 +23,20 @@ import java.awt.Dimension;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.krysalis.barcode4j.BarcodeDimension;
-import org.krysalis.barcode4j.TwoDimBarcodeLogicHandler;
+import org.krysalis.barcode4j.CapacityPlanner;
+import org.krysalis.barcode4j.SymbolCapacity;
 import org.krysalis.barcode4j.impl.AbstractBarcodeBean;
-import org.krysalis.barcode4j.impl.DefaultTwoDimCanvasLogicHandler;
-import org.krysalis.barcode4j.output.Canvas;
+import org.krysalis.barcode4j.impl.EncodedSymbol;
 import org.krysalis.barcode4j.output.CanvasProvider;
 import org.krysalis.barcode4j.tools.ECIUtil;
 import org.krysalis.barcode4j.tools.UnitConv;
 
-import com.google.zxing.WriterException;
-import com.google.zxing.qrcode.encoder.ByteMatrix;
-import com.google.zxing.qrcode.encoder.Encoder;
-import com.google.zxing.qrcode.encoder.QRCode;
-
 /**
  * This class is an implementation of QR Code (ISO 18004:2006(E)).
  *
  * @version $Id: QRCodeBean.java,v 1.3 2012-02-08 12:59:41 jmaerki Exp $
  */
-public class QRCodeBean extends AbstractBarcodeBean {
+public class QRCodeBean extends AbstractBarcodeBean implements CapacityPlanner {
 
     /** The default module width (dot size) for DataMatrix. */
     protected static final double DEFAULT_MODULE_WIDTH = UnitConv.in2mm(1.0 / 72); //1px at 72dpi
@@ -67,6 +62,7 @@ public class QRCodeBean extends AbstractBarcodeBean {
      * @param level the error correction level (one of L, M, Q and H)
      */
     public void setErrorCorrectionLevel(char level) {
+        checkNotFrozen();
         switch (level) {
         case QRConstants.ERROR_CORRECTION_LEVEL_L:
         case QRConstants.ERROR_CORRECTION_LEVEL_M:
@@ -93,6 +89,7 @@ public class QRCodeBean extends AbstractBarcodeBean {
      * @param encoding the message encoding
      */
     public void setEncoding(String encoding) {
+        checkNotFrozen();
         if (ECIUtil.getECIForEncoding(encoding) < 0) {
             throw new IllegalArgumentException("Not a valid encoding: " + encoding);
         }
@@ -113,6 +110,7 @@ public class QRCodeBean extends AbstractBarcodeBean {
      */
     @Deprecated // this isn't actually used
     public void setMinSize(Dimension minSize) {
+        checkNotFrozen();
         this.minSize = (minSize != null ? new Dimension(minSize) : null);
     }
 
@@ -137,6 +135,7 @@ public class QRCodeBean extends AbstractBarcodeBean {
      */
     @Deprecated // this isn't actually used
     public void setMaxSize(Dimension maxSize) {
+        checkNotFrozen();
         this.maxSize = (maxSize != null ? new Dimension(maxSize) : null);
     }
 
@@ -158,36 +157,44 @@ public class QRCodeBean extends AbstractBarcodeBean {
             throw new NullPointerException("Parameter msg must not be empty");
         }
 
-        final TwoDimBarcodeLogicHandler handler = new DefaultTwoDimCanvasLogicHandler(this, new Canvas(canvas));
+        generateBarcode(canvas, encodeSymbol(msg));
+    }
+
+    /**
+     * Encodes a message into a symbol which can be measured and painted without encoding the
+     * message again.
+     * @param msg the message to encode
+     * @return the encoded symbol
+     * @since 2.4.1
+     */
+    @NotNull
+    public EncodedSymbol encodeSymbol(@NotNull final String msg) {
+        final EncodedSymbol.Recorder recorder = new EncodedSymbol.Recorder();
+        new QRLogicImpl().generateBarcodeLogic(recorder, msg, encoding, errorCorrectionLevel, getMinSize(), getMaxSize());
+        return recorder.getSymbol();
+    }
 
-        final QRLogicImpl impl = new QRLogicImpl();
-        impl.generateBarcodeLogic(handler, msg, encoding, errorCorrectionLevel, getMinSize(), getMaxSize());
+    /** {@inheritDoc} */
+    @NotNull
+    @Override
+    public SymbolCapacity planCapacity(@NotNull String msg) {
+        final SymbolCapacity capacity = QRLogicImpl.planCapacity(msg, encoding, errorCorrectionLevel);
+        checkSizeConstraints(capacity.getWidth(), capacity.getRowCount());
+        return capacity;
     }
 
     /** {@inheritDoc} */
     @Override
     public BarcodeDimension calcDimensions(@NotNull String msg) {
-        QRCode code;
-        try {
-            code = Encoder.encode(msg,
-                    QRLogicImpl.getZXingErrorLevel(errorCorrectionLevel),
-                    QRLogicImpl.createHints(encoding));
-        } catch (WriterException e) {
-            throw new RuntimeException(e.getMessage(), e);
-        }
+        return calcDimensions(encodeSymbol(msg));
+    }
 
-        final ByteMatrix matrix = code.getMatrix();
-        int effWidth = matrix.getWidth();
-        int effHeight = matrix.getHeight();
-        checkSizeConstraints(effWidth, effHeight);
-
-        double width = effWidth * getModuleWidth();
-        double height = effHeight * getBarHeight();
-        double qzh = (hasQuietZone() ? getQuietZone() : 0);
-        double qzv = (hasQuietZone() ? getVerticalQuietZone() : 0);
-        return new BarcodeDimension(width, height,
-                width + (2 * qzh), height + (2 * qzv),
-                qzh, qzv);
+    /** {@inheritDoc} */
+    @NotNull
+    @Override
+    protected BarcodeDimension calcDimensions(@NotNull EncodedSymbol symbol) {
+        checkSizeConstraints(symbol.getWidth(), symbol.getRowCount());
+        return super.calcDimensions(symbol);
     }
 
     private void checkSizeConstraints(int width, int height) {
@@ -19,16 +19,21 @@
 package org.krysalis.barcode4j.impl.qr;
 
 import java.awt.Dimension;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Hashtable;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.krysalis.barcode4j.SymbolCapacity;
 import org.krysalis.barcode4j.TwoDimBarcodeLogicHandler;
 
 import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
+import com.google.zxing.common.CharacterSetECI;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.decoder.Version;
 import com.google.zxing.qrcode.encoder.ByteMatrix;
 import com.google.zxing.qrcode.encoder.Encoder;
 import com.google.zxing.qrcode.encoder.QRCode;
@@ -76,6 +81,59 @@ public class QRLogicImpl implements QRConstants {
         logic.endBarcode();
     }
 
+    /**
+     * Determines the version (size) of the symbol for a message. The version and the mode are
+     * taken from ZXing's encoder, so they always match the symbol {@link #generateBarcodeLogic}
+     * paints; only the number of data bits used is calculated here: the mode indicator, an ECI
+     * designator for byte mode if the encoding isn't ISO-8859-1, the character count and the data.
+     * @param msg the message to encode
+     * @param encoding the message encoding
+     * @param errorCorrectionLevel the error correction level (one of L, M, Q, H)
+     * @return the symbol capacity in data bits
+     * @since 2.4.1
+     */
+    @NotNull
+    public static SymbolCapacity planCapacity(String msg,
+                                              @NotNull final String encoding,
+                                              char errorCorrectionLevel) {
+        final ErrorCorrectionLevel zxingErrLevel = getZXingErrorLevel(errorCorrectionLevel);
+        final QRCode code;
+        try {
+            code = Encoder.encode(msg, zxingErrLevel, createHints(encoding));
+        } catch (WriterException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        final Version version = code.getVersion();
+        final Mode mode = code.getMode();
+
+        final boolean hasEncodingHint = !StandardCharsets.ISO_8859_1.name().equals(encoding);
+        final Charset charset = hasEncodingHint ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+        int headerBits = 4; //mode indicator
+        if (mode == Mode.BYTE && hasEncodingHint && CharacterSetECI.getCharacterSetECI(charset) != null) {
+            headerBits += 4 + 8; //ECI mode indicator and designator
+        }
+        final int bitsUsed = headerBits + mode.getCharacterCountBits(version) + getDataBits(msg, mode, charset);
+
+        final int size = version.getDimensionForVersion();
+        final int dataBytes = version.getTotalCodewords()
+                - version.getECBlocksForLevel(zxingErrLevel).getTotalECCodewords();
+        return new SymbolCapacity(size, size, bitsUsed, dataBytes * 8, SymbolCapacity.Unit.BITS);
+    }
+
+    private static int getDataBits(String msg, Mode mode, Charset charset) {
+        final int length = msg.length();
+        if (mode == Mode.NUMERIC) {
+            final int[] remainderBits = {0, 4, 7};
+            return (length / 3) * 10 + remainderBits[length % 3];
+        } else if (mode == Mode.ALPHANUMERIC) {
+            return (length / 2) * 11 + (length % 2) * 6;
+        } else if (mode == Mode.KANJI) {
+            return (msg.getBytes(charset).length / 2) * 13;
+        } else {
+            return msg.getBytes(charset).length * 8;
+        }
+    }
+
     // todo: consider changing to accept a @NotNull Charset
     static Hashtable<EncodeHintType, Object> createHints(@NotNull final String encoding) {
         final Hashtable<EncodeHintType, Object> hints = new Hashtable<>();
@@ -18,6 +18,8 @@ package org.krysalis.barcode4j.output;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 
+import org.krysalis.barcode4j.tools.DecimalFormatUtil;
+
 /**
  * Abstract base class that provides some commonly used methods for
  * generating XML representations of barcodes.
@@ -39,7 +41,9 @@ public abstract class AbstractXMLGeneratingCanvasProvider extends AbstractCanvas
     /**
      * Returns the DecimalFormat instance to use internally to format numbers.
      * @return a DecimalFormat instance
+     * @deprecated the SVG implementations format numbers using {@link #formatNumber(double)}
      */
+    @Deprecated
     protected DecimalFormat getDecimalFormat() {
         if (this.df == null) {
             DecimalFormatSymbols dfs = new DecimalFormatSymbols();
@@ -49,13 +53,24 @@ public abstract class AbstractXMLGeneratingCanvasProvider extends AbstractCanvas
         return this.df;
     }
 
+    /**
+     * Formats a number with up to four decimals.
+     * @param value the value to format
+     * @return the formatted value
+     * @see DecimalFormatUtil
+     * @since 2.4.1
+     */
+    protected String formatNumber(double value) {
+        return DecimalFormatUtil.format(value);
+    }
+
     /**
      * Formats a value and adds the unit specifier at the end.
      * @param value the value to format
      * @return the formatted value
      */
     protected String addUnit(double value) {
-        return getDecimalFormat().format(value) + "mm"; //was mm
+        return formatNumber(value) + "mm"; //was mm
     }
 
 }
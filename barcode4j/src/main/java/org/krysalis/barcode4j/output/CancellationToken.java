@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.output;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A token for abandoning the generation of barcodes: it can be cancelled from any thread and can
+ * carry a deadline. The token is bound to the thread generating the barcode, so the barcode
+ * generators need no extra parameter: the high-level encoders, the error correction and the
+ * logic handlers check the current token periodically and throw a
+ * {@link RenderCancelledException} once it is cancelled or its deadline has passed. For example:
+ * <pre>
+ * CancellationToken token = CancellationToken.withTimeout(2, TimeUnit.SECONDS);
+ * try (CancellationToken.Binding binding = token.bind()) {
+ *     generator.generateBarcode(canvas, msg);
+ * }
+ * </pre>
+ * Without a bound token, the checks cost no more than a thread-local lookup.
+ *
+ * @since 2.4.1
+ */
+public final class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    private final boolean hasDeadline;
+    private final long deadline;
+    private volatile boolean cancelled;
+
+    /**
+     * Creates a token without deadline, which is only cancelled by {@link #cancel()}.
+     */
+    public CancellationToken() {
+        this(false, 0);
+    }
+
+    private CancellationToken(boolean hasDeadline, long deadline) {
+        this.hasDeadline = hasDeadline;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Creates a token whose deadline is the given time from now.
+     * @param timeout the time until the deadline
+     * @param unit the unit of the timeout
+     * @return the token
+     */
+    public static CancellationToken withTimeout(long timeout, @NotNull TimeUnit unit) {
+        return new CancellationToken(true, System.nanoTime() + unit.toNanos(timeout));
+    }
+
+    /**
+     * Cancels the token. The barcode generated with it is abandoned at the next check.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Indicates whether the token has been cancelled or its deadline has passed.
+     * @return true if the barcode should be abandoned
+     */
+    public boolean isCancelled() {
+        return cancelled || isTimedOut();
+    }
+
+    private boolean isTimedOut() {
+        return hasDeadline && System.nanoTime() - deadline >= 0;
+    }
+
+    /**
+     * Checks the token.
+     * @throws RenderCancelledException if the token has been cancelled or its deadline has passed
+     */
+    public void check() {
+        if (cancelled) {
+            throw new RenderCancelledException("Barcode generation cancelled", false);
+        }
+        if (isTimedOut()) {
+            throw new RenderCancelledException("Barcode generation exceeded its deadline", true);
+        }
+    }
+
+    /**
+     * Binds the token to the current thread, until the returned binding is closed.
+     * @return the binding, which restores the previously bound token when it is closed
+     */
+    public Binding bind() {
+        final Binding binding = new Binding(CURRENT.get());
+        CURRENT.set(this);
+        return binding;
+    }
+
+    /**
+     * Returns the token bound to the current thread.
+     * @return the token, or null if none is bound
+     */
+    @Nullable
+    public static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Checks the token bound to the current thread, if any.
+     * @throws RenderCancelledException if the token has been cancelled or its deadline has passed
+     */
+    public static void checkCurrent() {
+        final CancellationToken token = CURRENT.get();
+        if (token != null) {
+            token.check();
+        }
+    }
+
+    /**
+     * The binding of a token to a thread, see {@link CancellationToken#bind()}.
+     */
+    public static final class Binding implements AutoCloseable {
+
+        private final CancellationToken previous;
+
+        private Binding(CancellationToken previous) {
+            this.previous = previous;
+        }
+
+        /** Unbinds the token, restoring the previously bound token. */
+        @Override
+        public void close() {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
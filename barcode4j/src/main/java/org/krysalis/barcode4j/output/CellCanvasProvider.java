@@ -0,0 +1,97 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.output;
+
+import java.util.Locale;
+
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.TextAlignment;
+
+/**
+ * CanvasProvider implementation that paints a barcode into a cell of a larger canvas, such as a
+ * label on a sheet. The barcode is centered in the cell and its coordinates are translated
+ * before they are passed on to the canvas provider of the page, which must already have been
+ * set up with the dimensions of the whole page. That way, the page's resources (the image, the
+ * document header, the PostScript procedures) are set up once for all the barcodes on it.
+ * <p>
+ * Barcodes are painted upright; the orientation of the page's canvas provider applies to the
+ * whole page.
+ * </p>
+ *
+ * @since 2.4.1
+ * @see LabelSheet
+ */
+public class CellCanvasProvider extends AbstractCanvasProvider {
+
+    /** Tolerance for rounding errors when checking whether a barcode fits into the cell (in mm) */
+    private static final double TOLERANCE = 0.001;
+
+    private final CanvasProvider page;
+    private final double x;
+    private final double y;
+    private final double width;
+    private final double height;
+    private double offsetX;
+    private double offsetY;
+
+    /**
+     * Creates a new CellCanvasProvider.
+     * @param page the canvas provider of the page, set up with the page's dimensions
+     * @param x the x coordinate of the cell's upper left corner on the page (in mm)
+     * @param y the y coordinate of the cell's upper left corner on the page (in mm)
+     * @param width the width of the cell (in mm)
+     * @param height the height of the cell (in mm)
+     */
+    public CellCanvasProvider(@NotNull CanvasProvider page, double x, double y, double width, double height) {
+        super(0);
+        this.page = page;
+        this.x = x;
+        this.y = y;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if the barcode doesn't fit into the cell
+     */
+    @Override
+    public void establishDimensions(BarcodeDimension dim) {
+        final double barcodeWidth = dim.getWidthPlusQuiet();
+        final double barcodeHeight = dim.getHeightPlusQuiet();
+        if (barcodeWidth > width + TOLERANCE || barcodeHeight > height + TOLERANCE) {
+            throw new IllegalArgumentException(String.format(Locale.ROOT,
+                "The barcode (%.2fmm x %.2fmm) doesn't fit into the cell (%.2fmm x %.2fmm)",
+                barcodeWidth, barcodeHeight, width, height));
+        }
+        super.establishDimensions(dim);
+        this.offsetX = x + (width - barcodeWidth) / 2;
+        this.offsetY = y + (height - barcodeHeight) / 2;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deviceFillRect(double x, double y, double w, double h) {
+        page.deviceFillRect(offsetX + x, offsetY + y, w, h);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deviceText(String text, double x1, double x2, double y1, String fontName, double fontSize, TextAlignment textAlign) {
+        page.deviceText(text, offsetX + x1, offsetX + x2, offsetY + y1, fontName, fontSize, textAlign);
+    }
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.output;
+
+import java.util.Iterator;
+
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.BarcodeGenerator;
+
+/**
+ * The layout of a sheet of labels: a grid of equally sized cells on a page, with a margin
+ * around the grid and gaps between the cells. Barcodes are painted into the cells by the
+ * existing barcode generators through {@link CellCanvasProvider}s, so any canvas provider can
+ * be used for the page. For example:
+ * <pre>
+ * LabelSheet sheet = new LabelSheet(LabelSheet.A4_WIDTH, LabelSheet.A4_HEIGHT, 8, 3);
+ * EPSCanvasProvider page = new EPSCanvasProvider(out, 0);
+ * page.establishDimensions(sheet.getPageDimension());
+ * sheet.drawPage(page, generator, messages);
+ * page.finish();
+ * </pre>
+ * All lengths are in mm. The cells are filled row by row.
+ *
+ * @since 2.4.1
+ */
+public class LabelSheet {
+
+    /** The width of an A4 page (in mm) */
+    public static final double A4_WIDTH = 210;
+    /** The height of an A4 page (in mm) */
+    public static final double A4_HEIGHT = 297;
+
+    private final double pageWidth;
+    private final double pageHeight;
+    private final int rows;
+    private final int columns;
+    private double margin;
+    private double horizontalGap;
+    private double verticalGap;
+
+    /**
+     * Creates a new sheet layout without margin and gaps.
+     * @param pageWidth the width of the page
+     * @param pageHeight the height of the page
+     * @param rows the number of rows of cells
+     * @param columns the number of columns of cells
+     * @throws IllegalArgumentException if a value is not positive
+     */
+    public LabelSheet(double pageWidth, double pageHeight, int rows, int columns) {
+        if (!(pageWidth > 0) || !(pageHeight > 0) || rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("The page size and the number of rows and columns must be positive");
+        }
+        this.pageWidth = pageWidth;
+        this.pageHeight = pageHeight;
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /**
+     * Sets the margin between the edges of the page and the cells.
+     * @param margin the margin
+     * @throws IllegalArgumentException if the cells would have no space left
+     */
+    public void setMargin(double margin) {
+        checkLayout(margin, horizontalGap, verticalGap);
+        this.margin = margin;
+    }
+
+    /**
+     * Sets the gaps between the cells.
+     * @param horizontal the gap between two columns
+     * @param vertical the gap between two rows
+     * @throws IllegalArgumentException if the cells would have no space left
+     */
+    public void setGaps(double horizontal, double vertical) {
+        checkLayout(margin, horizontal, vertical);
+        this.horizontalGap = horizontal;
+        this.verticalGap = vertical;
+    }
+
+    private void checkLayout(double margin, double horizontal, double vertical) {
+        if (margin < 0 || horizontal < 0 || vertical < 0
+                || !(pageWidth - 2 * margin - (columns - 1) * horizontal > 0)
+                || !(pageHeight - 2 * margin - (rows - 1) * vertical > 0)) {
+            throw new IllegalArgumentException("The margin and gaps leave no space for the cells");
+        }
+    }
+
+    /**
+     * Returns the dimensions of the page, to set up the page's canvas provider with.
+     * @return the page dimensions
+     */
+    public BarcodeDimension getPageDimension() {
+        return new BarcodeDimension(pageWidth, pageHeight);
+    }
+
+    /**
+     * Returns the number of cells on a page.
+     * @return the number of cells
+     */
+    public int getCellsPerPage() {
+        return rows * columns;
+    }
+
+    /**
+     * Returns the width of a cell.
+     * @return the width
+     */
+    public double getCellWidth() {
+        return (pageWidth - 2 * margin - (columns - 1) * horizontalGap) / columns;
+    }
+
+    /**
+     * Returns the height of a cell.
+     * @return the height
+     */
+    public double getCellHeight() {
+        return (pageHeight - 2 * margin - (rows - 1) * verticalGap) / rows;
+    }
+
+    /**
+     * Returns a canvas provider painting into one of the cells of a page.
+     * @param page the canvas provider of the page, set up with {@link #getPageDimension()}
+     * @param index the index of the cell (0 is the upper left cell, the cells are counted row
+     *      by row)
+     * @return the canvas provider of the cell
+     * @throws IndexOutOfBoundsException if there is no such cell
+     */
+    public CanvasProvider getCell(@NotNull CanvasProvider page, int index) {
+        if (index < 0 || index >= getCellsPerPage()) {
+            throw new IndexOutOfBoundsException("Cell " + index + " of " + getCellsPerPage());
+        }
+        final int row = index / columns;
+        final int column = index % columns;
+        return new CellCanvasProvider(page,
+            margin + column * (getCellWidth() + horizontalGap),
+            margin + row * (getCellHeight() + verticalGap),
+            getCellWidth(), getCellHeight());
+    }
+
+    /**
+     * Paints barcodes into the cells of a page, until the page is full or there are no more
+     * messages.
+     * @param page the canvas provider of the page, set up with {@link #getPageDimension()}
+     * @param gen the barcode generator
+     * @param messages the messages to encode. Exactly one message is taken for every cell
+     *      painted.
+     * @return the number of barcodes painted
+     * @throws IllegalArgumentException if a message cannot be encoded or its barcode doesn't fit
+     *      into a cell
+     */
+    public int drawPage(@NotNull CanvasProvider page, @NotNull BarcodeGenerator gen, @NotNull Iterator<String> messages) {
+        int count = 0;
+        while (count < getCellsPerPage() && messages.hasNext()) {
+            gen.generateBarcode(getCell(page, count), messages.next());
+            count++;
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.output;
+
+/**
+ * This exception is thrown when the generation of a barcode is abandoned because its
+ * {@link CancellationToken} was cancelled or its deadline has passed. It is unchecked, so it
+ * passes through the barcode generators unchanged.
+ *
+ * @since 2.4.1
+ */
+public class RenderCancelledException extends RuntimeException {
+
+    private static final long serialVersionUID = 6151398163634916270L;
+
+    private final boolean timeout;
+
+    /**
+     * Constructor for RenderCancelledException.
+     *
+     * @param message the detail message for this exception.
+     * @param timeout true if the deadline has passed, false if the token was cancelled
+     */
+    public RenderCancelledException(String message, boolean timeout) {
+        super(message);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Indicates whether the barcode was abandoned because its deadline has passed (rather than
+     * being cancelled explicitly).
+     * @return true for a timeout
+     */
+    public boolean isTimeout() {
+        return timeout;
+    }
+
+}
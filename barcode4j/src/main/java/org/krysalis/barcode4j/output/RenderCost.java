@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.output;
+
+import java.awt.image.BufferedImage;
+
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.BarcodeGenerator;
+import org.krysalis.barcode4j.tools.UnitConv;
+
+/**
+ * The predicted cost of rendering a barcode, computed from the barcode's dimensions before
+ * anything is painted: the size of the bitmap (if any) and the memory its image data takes up.
+ * The encoding work grows with the length of the message, which is therefore part of the cost,
+ * too.
+ *
+ * @since 2.4.1
+ * @see RenderLimits
+ */
+public final class RenderCost {
+
+    private final BarcodeDimension dimension;
+    private final int messageLength;
+    private final int width;
+    private final int height;
+    private final long imageBytes;
+
+    private RenderCost(BarcodeDimension dimension, int messageLength, int width, int height, long imageBytes) {
+        this.dimension = dimension;
+        this.messageLength = messageLength;
+        this.width = width;
+        this.height = height;
+        this.imageBytes = imageBytes;
+    }
+
+    /**
+     * Estimates the cost of rendering a barcode. Note that this calculates the barcode's
+     * dimensions, so the message must be acceptable to the generator.
+     * @param gen the barcode generator
+     * @param msg the message to encode
+     * @param orientation the orientation of the barcode (0, 90, 180, 270, -90, -180 or -270)
+     * @param resolution the resolution of the bitmap in dpi, or 0 for vector output
+     * @param imageType the type of the bitmap (one of the BufferedImage.TYPE_* constants), ignored
+     *      for vector output
+     * @return the estimated cost
+     * @throws IllegalArgumentException if the message cannot be encoded
+     */
+    public static RenderCost estimate(@NotNull BarcodeGenerator gen, @NotNull String msg,
+                                      int orientation, int resolution, int imageType) {
+        final BarcodeDimension dim = gen.calcDimensions(msg);
+        if (resolution <= 0) {
+            return new RenderCost(dim, msg.length(), 0, 0, 0);
+        }
+        final int width = UnitConv.mm2px(dim.getWidthPlusQuiet(orientation), resolution);
+        final int height = UnitConv.mm2px(dim.getHeightPlusQuiet(orientation), resolution);
+        return new RenderCost(dim, msg.length(), width, height, getImageBytes(width, height, imageType));
+    }
+
+    /**
+     * Returns the size of the image data of a bitmap.
+     * @param width the width of the bitmap in pixels
+     * @param height the height of the bitmap in pixels
+     * @param imageType the type of the bitmap (one of the BufferedImage.TYPE_* constants)
+     * @return the size in bytes
+     */
+    public static long getImageBytes(int width, int height, int imageType) {
+        switch (imageType) {
+            case BufferedImage.TYPE_BYTE_BINARY:
+                return ((width + 7L) / 8) * height; //packed, each row starts on a byte boundary
+            case BufferedImage.TYPE_BYTE_GRAY:
+            case BufferedImage.TYPE_BYTE_INDEXED:
+                return (long) width * height;
+            case BufferedImage.TYPE_USHORT_GRAY:
+            case BufferedImage.TYPE_USHORT_565_RGB:
+            case BufferedImage.TYPE_USHORT_555_RGB:
+                return 2L * width * height;
+            case BufferedImage.TYPE_3BYTE_BGR:
+                return 3L * width * height;
+            default:
+                return 4L * width * height;
+        }
+    }
+
+    /**
+     * Returns the dimensions of the barcode.
+     * @return the dimensions
+     */
+    public BarcodeDimension getDimension() {
+        return dimension;
+    }
+
+    /**
+     * Returns the length of the message.
+     * @return the number of characters in the message
+     */
+    public int getMessageLength() {
+        return messageLength;
+    }
+
+    /**
+     * Returns the width of the bitmap.
+     * @return the width in pixels (0 for vector output)
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the bitmap.
+     * @return the height in pixels (0 for vector output)
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the number of pixels of the bitmap.
+     * @return the number of pixels (0 for vector output)
+     */
+    public long getPixels() {
+        return (long) width * height;
+    }
+
+    /**
+     * Returns the size of the bitmap's image data.
+     * @return the size in bytes (0 for vector output)
+     */
+    public long getImageBytes() {
+        return imageBytes;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "RenderCost[messageLength=" + messageLength + ", width=" + width + ", height=" + height
+            + ", imageBytes=" + imageBytes + "]";
+    }
+}
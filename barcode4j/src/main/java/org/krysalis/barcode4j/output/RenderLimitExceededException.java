@@ -0,0 +1,37 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.output;
+
+/**
+ * This exception is thrown when a barcode would exceed the budgets of a {@link RenderLimits}
+ * object. It is an {@link IllegalArgumentException}, so callers that treat invalid input as a
+ * client error keep doing so, but callers that distinguish "too large" from "invalid" (e.g. with
+ * HTTP status 413 rather than 400) can catch it separately.
+ *
+ * @since 2.4.1
+ */
+public class RenderLimitExceededException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = -3604786911215430362L;
+
+    /**
+     * Constructor for RenderLimitExceededException.
+     *
+     * @param message the detail message for this exception.
+     */
+    public RenderLimitExceededException(String message) {
+        super(message);
+    }
+
+}
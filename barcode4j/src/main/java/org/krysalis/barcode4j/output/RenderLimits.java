@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.output;
+
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.BarcodeGenerator;
+
+/**
+ * Budgets for rendering a barcode, so that a single oversized request (e.g. a long PDF417 at a
+ * high resolution) is rejected before a huge bitmap is allocated. The limits are checked in
+ * order of cost: the message length and resolution first, then the size of the bitmap, which
+ * is predicted from the barcode's dimensions (see {@link RenderCost}).
+ * <p>
+ * Instances are immutable and can be shared. Use {@link #UNLIMITED} to disable all checks.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+public final class RenderLimits {
+
+    /** No limits at all */
+    public static final RenderLimits UNLIMITED = new RenderLimits(
+        Integer.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    /**
+     * Limits suitable for a shared server: messages of up to 8192 characters (more than any 2D
+     * symbology can hold), up to 2400 dpi and bitmaps of up to 25 million pixels or 32 MiB.
+     */
+    public static final RenderLimits DEFAULT = new RenderLimits(
+        8192, 2400, 25_000_000L, 32L * 1024 * 1024);
+
+    private final int maxMessageLength;
+    private final int maxResolution;
+    private final long maxPixels;
+    private final long maxImageBytes;
+
+    /**
+     * Creates a set of limits.
+     * @param maxMessageLength the maximum number of characters in a message
+     * @param maxResolution the maximum resolution of bitmaps (in dpi)
+     * @param maxPixels the maximum number of pixels of a bitmap
+     * @param maxImageBytes the maximum size of a bitmap's image data (in bytes)
+     * @throws IllegalArgumentException if a limit is not positive
+     */
+    public RenderLimits(int maxMessageLength, int maxResolution, long maxPixels, long maxImageBytes) {
+        if (maxMessageLength <= 0 || maxResolution <= 0 || maxPixels <= 0 || maxImageBytes <= 0) {
+            throw new IllegalArgumentException("Render limits must be positive");
+        }
+        this.maxMessageLength = maxMessageLength;
+        this.maxResolution = maxResolution;
+        this.maxPixels = maxPixels;
+        this.maxImageBytes = maxImageBytes;
+    }
+
+    /**
+     * Returns the maximum number of characters in a message.
+     * @return the maximum message length
+     */
+    public int getMaxMessageLength() {
+        return maxMessageLength;
+    }
+
+    /**
+     * Returns the maximum resolution of bitmaps.
+     * @return the maximum resolution in dpi
+     */
+    public int getMaxResolution() {
+        return maxResolution;
+    }
+
+    /**
+     * Returns the maximum number of pixels of a bitmap.
+     * @return the maximum number of pixels
+     */
+    public long getMaxPixels() {
+        return maxPixels;
+    }
+
+    /**
+     * Returns the maximum size of a bitmap's image data.
+     * @return the maximum size in bytes
+     */
+    public long getMaxImageBytes() {
+        return maxImageBytes;
+    }
+
+    /**
+     * Returns a copy of these limits with a different maximum message length.
+     * @param maxMessageLength the maximum number of characters in a message
+     * @return the new limits
+     */
+    public RenderLimits withMaxMessageLength(int maxMessageLength) {
+        return new RenderLimits(maxMessageLength, maxResolution, maxPixels, maxImageBytes);
+    }
+
+    /**
+     * Returns a copy of these limits with a different maximum resolution.
+     * @param maxResolution the maximum resolution of bitmaps (in dpi)
+     * @return the new limits
+     */
+    public RenderLimits withMaxResolution(int maxResolution) {
+        return new RenderLimits(maxMessageLength, maxResolution, maxPixels, maxImageBytes);
+    }
+
+    /**
+     * Returns a copy of these limits with a different maximum number of pixels.
+     * @param maxPixels the maximum number of pixels of a bitmap
+     * @return the new limits
+     */
+    public RenderLimits withMaxPixels(long maxPixels) {
+        return new RenderLimits(maxMessageLength, maxResolution, maxPixels, maxImageBytes);
+    }
+
+    /**
+     * Returns a copy of these limits with a different maximum image size.
+     * @param maxImageBytes the maximum size of a bitmap's image data (in bytes)
+     * @return the new limits
+     */
+    public RenderLimits withMaxImageBytes(long maxImageBytes) {
+        return new RenderLimits(maxMessageLength, maxResolution, maxPixels, maxImageBytes);
+    }
+
+    /**
+     * Checks the length of a message. This is cheap and should be done before the message is
+     * encoded.
+     * @param msg the message
+     * @throws RenderLimitExceededException if the message is too long
+     */
+    public void checkMessage(@NotNull String msg) {
+        if (msg.length() > maxMessageLength) {
+            throw new RenderLimitExceededException("The message is longer than "
+                + maxMessageLength + " characters: " + msg.length());
+        }
+    }
+
+    /**
+     * Checks the resolution of a bitmap.
+     * @param resolution the resolution in dpi
+     * @throws RenderLimitExceededException if the resolution is too high
+     */
+    public void checkResolution(int resolution) {
+        if (resolution > maxResolution) {
+            throw new RenderLimitExceededException("Resolutions above " + maxResolution + "dpi are not allowed");
+        }
+    }
+
+    /**
+     * Checks the size of a bitmap.
+     * @param width the width in pixels
+     * @param height the height in pixels
+     * @param imageType the type of the bitmap (one of the BufferedImage.TYPE_* constants)
+     * @throws RenderLimitExceededException if the bitmap is too large
+     */
+    public void checkImage(int width, int height, int imageType) {
+        final long pixels = (long) width * height;
+        if (pixels > maxPixels) {
+            throw new RenderLimitExceededException("The bitmap would have " + pixels
+                + " pixels (" + width + "x" + height + "), the limit is " + maxPixels);
+        }
+        final long bytes = RenderCost.getImageBytes(width, height, imageType);
+        if (bytes > maxImageBytes) {
+            throw new RenderLimitExceededException("The bitmap would take up " + bytes
+                + " bytes, the limit is " + maxImageBytes);
+        }
+    }
+
+    /**
+     * Checks whether a barcode can be rendered within these limits, without rendering it. The
+     * message length and resolution are checked before the barcode's dimensions are calculated.
+     * @param gen the barcode generator
+     * @param msg the message to encode
+     * @param orientation the orientation of the barcode (0, 90, 180, 270, -90, -180 or -270)
+     * @param resolution the resolution of the bitmap in dpi, or 0 for vector output
+     * @param imageType the type of the bitmap (one of the BufferedImage.TYPE_* constants), ignored
+     *      for vector output
+     * @return the estimated cost of rendering the barcode
+     * @throws RenderLimitExceededException if the barcode exceeds a limit
+     * @throws IllegalArgumentException if the message cannot be encoded
+     */
+    public RenderCost check(@NotNull BarcodeGenerator gen, @NotNull String msg,
+                            int orientation, int resolution, int imageType) {
+        checkMessage(msg);
+        checkResolution(resolution);
+        final RenderCost cost = RenderCost.estimate(gen, msg, orientation, resolution, imageType);
+        if (resolution > 0) {
+            checkImage(cost.getWidth(), cost.getHeight(), imageType);
+        }
+        return cost;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "RenderLimits[maxMessageLength=" + maxMessageLength + ", maxResolution=" + maxResolution
+            + ", maxPixels=" + maxPixels + ", maxImageBytes=" + maxImageBytes + "]";
+    }
+}
@@ -23,11 +23,16 @@ import org.jetbrains.annotations.Nullable;
 import org.krysalis.barcode4j.BarcodeDimension;
 import org.krysalis.barcode4j.TextAlignment;
 import org.krysalis.barcode4j.output.AbstractCanvasProvider;
+import org.krysalis.barcode4j.output.CanvasProvider;
+import org.krysalis.barcode4j.output.RenderLimits;
 import org.krysalis.barcode4j.output.java2d.Java2DCanvasProvider;
+import org.krysalis.barcode4j.tools.UnitConv;
 
 /**
  * CanvasProvider implementation for generating bitmaps. This class wraps
- * Java2DCanvasProvider to do the actual rendering.
+ * Java2DCanvasProvider to do the actual rendering. Binary and grayscale
+ * bitmaps without anti-aliasing are painted by {@link RasterCanvasProvider}
+ * instead, which writes the bars straight into the image data.
  *
  * @author Jeremias Maerki
  * @version $Id: BitmapCanvasProvider.java,v 1.4 2008-05-13 13:00:46 jmaerki Exp $
@@ -39,8 +44,9 @@ public class BitmapCanvasProvider extends AbstractCanvasProvider {
     private final int resolution;
     private final int imageType;
     private final boolean antiAlias;
+    private RenderLimits renderLimits = RenderLimits.UNLIMITED;
     private BufferedImage image;
-    private Java2DCanvasProvider delegate;
+    private CanvasProvider delegate;
 
     /**
      * Creates a new BitmapCanvasProvider.
@@ -102,16 +108,54 @@ public class BitmapCanvasProvider extends AbstractCanvasProvider {
         return this.image;
     }
 
-    /** {@inheritDoc} */
+    /**
+     * Sets the limits the bitmap is checked against before it is allocated. By default, bitmaps
+     * are not limited.
+     *
+     * @param renderLimits the limits
+     * @since 2.4.1
+     */
+    public void setRenderLimits(RenderLimits renderLimits) {
+        this.renderLimits = renderLimits;
+    }
+
+    /**
+     * Returns the limits the bitmap is checked against before it is allocated.
+     *
+     * @return the limits
+     * @since 2.4.1
+     */
+    public RenderLimits getRenderLimits() {
+        return this.renderLimits;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws org.krysalis.barcode4j.output.RenderLimitExceededException if the bitmap would
+     *      exceed the render limits
+     */
     @Override
     public void establishDimensions(BarcodeDimension dim) {
         super.establishDimensions(dim);
-        this.image = BitmapBuilder.prepareImage(dim, getOrientation(), this.resolution, this.imageType);
-        this.delegate = new Java2DCanvasProvider(
-            BitmapBuilder.prepareGraphics2D(this.image, dim, getOrientation(), this.antiAlias),
-            getOrientation()
-        );
-        this.delegate.establishDimensions(dim);
+        this.renderLimits.checkResolution(this.resolution);
+        this.renderLimits.checkImage(
+            UnitConv.mm2px(dim.getWidthPlusQuiet(getOrientation()), this.resolution),
+            UnitConv.mm2px(dim.getHeightPlusQuiet(getOrientation()), this.resolution),
+            this.imageType);
+        if (RasterCanvasProvider.isSupported(this.imageType, this.antiAlias)) {
+            final RasterCanvasProvider raster = new RasterCanvasProvider(this.resolution, this.imageType, getOrientation());
+            raster.establishDimensions(dim);
+            this.image = raster.getBufferedImage();
+            this.delegate = raster;
+        } else {
+            this.image = BitmapBuilder.prepareImage(dim, getOrientation(), this.resolution, this.imageType);
+            this.delegate = new Java2DCanvasProvider(
+                BitmapBuilder.prepareGraphics2D(this.image, dim, getOrientation(), this.antiAlias),
+                getOrientation()
+            );
+            this.delegate.establishDimensions(dim);
+        }
     }
 
     /** {@inheritDoc} */
@@ -18,7 +18,9 @@ package org.krysalis.barcode4j.output.bitmap;
 import org.jetbrains.annotations.NotNull;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.logging.Logger;
@@ -35,8 +37,12 @@ public class BitmapEncoderRegistry {
 
     private static final Set<Entry> encoders = new java.util.TreeSet<>();
 
+    /** The encoder with the highest priority for every supported MIME type, rebuilt on every registration */
+    private static volatile Map<String, BitmapEncoder> encodersByMime = Collections.emptyMap();
+
     static {
         register(new ImageIOBitmapEncoder(), 0);
+        register(new PNGBitmapEncoder(), PNGBitmapEncoder.PRIORITY);
     }
 
     /**
@@ -122,7 +128,17 @@ public class BitmapEncoderRegistry {
      * @since 2.2.3
      */
     public static synchronized <T extends BitmapEncoder> boolean register(final T bitmapEncoder, final int priority) {
-        return encoders.add(new Entry(bitmapEncoder, priority));
+        final boolean added = encoders.add(new Entry(bitmapEncoder, priority));
+        if (added) {
+            final Map<String, BitmapEncoder> byMime = new HashMap<>();
+            for (final Entry entry : encoders) {
+                for (final String mime : entry.encoder.getSupportedMIMETypes()) {
+                    byMime.putIfAbsent(mime, entry.encoder); //highest priority first
+                }
+            }
+            encodersByMime = Collections.unmodifiableMap(byMime);
+        }
+        return added;
     }
 
     /**
@@ -155,9 +171,7 @@ public class BitmapEncoderRegistry {
      * @return true if the MIME type is supported
      */
     public static boolean supports(String mimeType) {
-        return encoders.stream()
-            .map((entry) -> entry.encoder)
-            .anyMatch((encoder) -> supports(encoder, mimeType));
+        return findEncoder(mimeType) != null;
     }
 
     /**
@@ -167,11 +181,30 @@ public class BitmapEncoderRegistry {
      *      if no suitable BitmapEncoder is available)
      */
     public static BitmapEncoder getInstance(String mimeType) {
-        return encoders.stream()
-            .map((entry) -> entry.encoder)
-            .filter((encoder) -> supports(encoder, mimeType))
-            .findFirst()
-            .orElseThrow(() -> new UnsupportedOperationException("No BitmapEncoder available for " + mimeType));
+        final BitmapEncoder encoder = findEncoder(mimeType);
+        if (encoder == null) {
+            throw new UnsupportedOperationException("No BitmapEncoder available for " + mimeType);
+        }
+        return encoder;
+    }
+
+    /**
+     * Looks up the encoder for a MIME type in the table built on registration. MIME types that
+     * are not in the table (for example because an ImageIO plug-in has been added since) are
+     * searched for among the registered encoders.
+     */
+    private static BitmapEncoder findEncoder(String mimeType) {
+        final BitmapEncoder encoder = encodersByMime.get(mimeType);
+        if (encoder != null || mimeType == null) {
+            return encoder;
+        }
+        synchronized (BitmapEncoderRegistry.class) {
+            return encoders.stream()
+                .map((entry) -> entry.encoder)
+                .filter((e) -> supports(e, mimeType))
+                .findFirst()
+                .orElse(null);
+        }
     }
 
     /**
@@ -179,7 +212,7 @@ public class BitmapEncoderRegistry {
      * registered BitmapEncoders.
      * @return a Set of Strings (MIME types)
      */
-    public static Set<String> getSupportedMIMETypes() {
+    public static synchronized Set<String> getSupportedMIMETypes() {
         final Set<String> mimes = new HashSet<>();
         for (final Entry entry : encoders) {
             Collections.addAll(mimes, entry.encoder.getSupportedMIMETypes());
@@ -187,4 +220,20 @@ public class BitmapEncoderRegistry {
         return mimes;
     }
 
+    /**
+     * Releases the resources held by the registered encoders of Barcode4J (the idle ImageWriters
+     * kept for reuse). Call this when the application that uses Barcode4J is stopped, for example
+     * when a web application is undeployed. The encoders can still be used afterwards.
+     * @since 2.4.1
+     */
+    public static synchronized void disposeEncoders() {
+        for (final Entry entry : encoders) {
+            if (entry.encoder instanceof ImageIOBitmapEncoder) {
+                ((ImageIOBitmapEncoder) entry.encoder).dispose();
+            } else if (entry.encoder instanceof PNGBitmapEncoder) {
+                ((PNGBitmapEncoder) entry.encoder).dispose();
+            }
+        }
+    }
+
 }
@@ -16,9 +16,16 @@
 package org.krysalis.barcode4j.output.bitmap;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.text.MessageFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import javax.imageio.IIOImage;
@@ -28,6 +35,7 @@ import javax.imageio.ImageWriter;
 import javax.imageio.metadata.IIOMetadata;
 import javax.imageio.metadata.IIOMetadataNode;
 import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 
 import org.jetbrains.annotations.NotNull;
 import org.krysalis.barcode4j.tools.MimeTypes;
@@ -35,6 +43,11 @@ import org.krysalis.barcode4j.tools.UnitConv;
 
 /**
  * BitmapEncoder implementation using ImageIO.
+ * <p>
+ * ImageWriters are pooled: a small number of idle writers per MIME type is kept for reuse,
+ * together with the metadata set up for them. Use {@link #dispose()} (or
+ * {@link BitmapEncoderRegistry#disposeEncoders()}) to release them when the application stops.
+ * </p>
  *
  * @author Jeremias Maerki
  */
@@ -42,6 +55,15 @@ public class ImageIOBitmapEncoder implements BitmapEncoder {
 
     private static final Logger log = Logger.getLogger(ImageIOBitmapEncoder.class.getName());
 
+    /** The maximum number of idle writers kept per MIME type */
+    private static final int MAX_IDLE_WRITERS = 4;
+
+    /** The maximum number of metadata templates kept per writer */
+    private static final int MAX_CACHED_METADATA = 16;
+
+    /** Idle writers by MIME type. ImageWriters aren't thread-safe, so a writer leaves the pool while it's used */
+    private final Map<String, BlockingQueue<PooledWriter>> idleWriters = new ConcurrentHashMap<>();
+
     /** {@inheritDoc} */
     @Override
     public String[] getSupportedMIMETypes() {
@@ -51,26 +73,39 @@ public class ImageIOBitmapEncoder implements BitmapEncoder {
     /** {@inheritDoc} */
     @Override
     public void encode(@NotNull BufferedImage image, @NotNull OutputStream out, @NotNull String mime, int resolution) throws IOException {
-        //Simply get first offered writer
-        final ImageWriter writer = ImageIO.getImageWritersByMIMEType(mime).next();
+        //Reuse an idle writer for the MIME type, or simply get first offered writer
+        final BlockingQueue<PooledWriter> idle = idleWriters.get(mime);
+        PooledWriter pooled = idle != null ? idle.poll() : null;
+        if (pooled == null) {
+            final Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(mime);
+            pooled = writers.hasNext() ? new PooledWriter(writers.next()) : null;
+        }
+        final ImageWriter writer = pooled != null ? pooled.writer : null;
 
-        //Prepare output
-        final ImageOutputStream imOutput = ImageIO.createImageOutputStream(out);
+        //Prepare output (barcodes are small, so there's no need for a file cache)
+        final ImageOutputStream imOutput = new MemoryCacheImageOutputStream(out);
 
-        if (writer != null && imOutput != null) {
+        if (writer != null) {
+            boolean reusable = false;
             try {
                 writer.setOutput(imOutput);
 
                 //Prepare metadata
-                final IIOMetadata iioMeta = setupMetadata(image, writer, mime, resolution);
+                final IIOMetadata iioMeta = getMetadata(pooled, image, mime, resolution);
 
                 //Write image
                 final IIOImage iioImage = new IIOImage(image, null, iioMeta);
                 writer.write(iioImage);
+                reusable = true;
             } catch (final IllegalStateException e) {
                 log.severe(e.getMessage());
             } finally {
-                writer.dispose();
+                if (reusable) {
+                    writer.reset();
+                }
+                if (!reusable || !getIdleWriters(mime).offer(pooled)) {
+                    writer.dispose();
+                }
                 imOutput.close();
             }
         } else {
@@ -80,6 +115,56 @@ public class ImageIOBitmapEncoder implements BitmapEncoder {
         }
     }
 
+    private BlockingQueue<PooledWriter> getIdleWriters(String mime) {
+        return idleWriters.computeIfAbsent(mime, key -> new ArrayBlockingQueue<>(MAX_IDLE_WRITERS));
+    }
+
+    /**
+     * Disposes the idle ImageWriters kept for reuse, for example when a web application that
+     * uses Barcode4J is stopped. The encoder can still be used afterwards.
+     * @since 2.4.1
+     */
+    public void dispose() {
+        for (final BlockingQueue<PooledWriter> idle : idleWriters.values()) {
+            PooledWriter pooled;
+            while ((pooled = idle.poll()) != null) {
+                pooled.writer.dispose();
+            }
+        }
+    }
+
+    /**
+     * Returns the metadata for an image. The metadata only depends on the writer, the image type,
+     * the palette and the resolution, so it is set up once per pooled writer and combination of
+     * these. Images of type {@link BufferedImage#TYPE_CUSTOM} may have any color model and always
+     * get new metadata.
+     */
+    private IIOMetadata getMetadata(PooledWriter pooled, BufferedImage image, String mime, int resolution)
+            throws IOException {
+        if (image.getType() == BufferedImage.TYPE_CUSTOM) {
+            return setupMetadata(image, pooled.writer, mime, resolution);
+        }
+        final StringBuilder key = new StringBuilder(mime).append('|').append(image.getType())
+                .append('|').append(resolution);
+        if (image.getColorModel() instanceof IndexColorModel) {
+            //TYPE_BYTE_BINARY and TYPE_BYTE_INDEXED images can have any palette
+            final IndexColorModel icm = (IndexColorModel) image.getColorModel();
+            final int[] rgbs = new int[icm.getMapSize()];
+            icm.getRGBs(rgbs);
+            key.append('|').append(icm.getPixelSize());
+            for (final int rgb : rgbs) {
+                key.append(',').append(Integer.toHexString(rgb));
+            }
+        }
+        final String cacheKey = key.toString();
+        if (pooled.metadata.containsKey(cacheKey)) {
+            return pooled.metadata.get(cacheKey);
+        }
+        final IIOMetadata iioMeta = setupMetadata(image, pooled.writer, mime, resolution);
+        pooled.metadata.put(cacheKey, iioMeta);
+        return iioMeta;
+    }
+
     private IIOMetadata setupMetadata(BufferedImage image, ImageWriter writer, String mime, int resolution) throws IOException {
         IIOMetadata iiometa;
         try {
@@ -203,4 +288,19 @@ public class ImageIOBitmapEncoder implements BitmapEncoder {
 //            System.err.println(e.getMessage());
 //        }
 //    }
+
+    /** A writer and the metadata templates set up for it. */
+    private static final class PooledWriter {
+        private final ImageWriter writer;
+        private final Map<String, IIOMetadata> metadata = new LinkedHashMap<String, IIOMetadata>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, IIOMetadata> eldest) {
+                return size() > MAX_CACHED_METADATA;
+            }
+        };
+
+        PooledWriter(ImageWriter writer) {
+            this.writer = writer;
+        }
+    }
 }
@@ -0,0 +1,358 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.output.bitmap;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.jetbrains.annotations.NotNull;
+import org.krysalis.barcode4j.tools.MimeTypes;
+import org.krysalis.barcode4j.tools.UnitConv;
+
+/**
+ * BitmapEncoder that writes PNG images directly from the raster of
+ * {@link BufferedImage#TYPE_BYTE_BINARY} (as 1-bit grayscale) and
+ * {@link BufferedImage#TYPE_BYTE_GRAY} (as 8-bit grayscale) images, which is what the bitmap output
+ * of Barcode4J normally produces. The chunks written (IHDR, pHYs, tEXt, IDAT and IEND) match the
+ * ones written by ImageIO but there's no ImageWriter lookup and no metadata tree per image.
+ * <p>
+ * The encoder keeps no state between images, so an instance can be shared. The {@link Deflater}
+ * used for an image is ended as soon as the image is written, so no native memory stays
+ * allocated between calls. Very large images are compressed in chunks on the common fork/join
+ * pool. All other images are passed on to {@link ImageIOBitmapEncoder}.
+ * </p>
+ * <p>
+ * The encoder is registered with the {@link BitmapEncoderRegistry} with a priority of
+ * {@value #PRIORITY}, so encoders that are registered with a priority of 100 or higher still
+ * take precedence.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+public class PNGBitmapEncoder implements BitmapEncoder {
+
+    /** The priority with which this encoder is registered by default */
+    public static final int PRIORITY = 90;
+
+    /** The default compression level, the same as the JDK's PNG ImageWriter uses */
+    public static final int DEFAULT_COMPRESSION_LEVEL = 4;
+
+    /** Images with at least this many bytes of image data are compressed in parallel */
+    private static final int PARALLEL_THRESHOLD = 4 * 1024 * 1024;
+    private static final int PARALLEL_CHUNK_SIZE = 1024 * 1024;
+    /** The size of the deflate window which is carried over between parallel chunks */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final int OUTPUT_BUFFER_SIZE = 32 * 1024;
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final byte[] IHDR = chunkType("IHDR");
+    private static final byte[] PHYS = chunkType("pHYs");
+    private static final byte[] TEXT = chunkType("tEXt");
+    private static final byte[] IDAT = chunkType("IDAT");
+    private static final byte[] IEND = chunkType("IEND");
+    private static final byte[] SOFTWARE = "Software\0Barcode4J".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final int COLOR_TYPE_GRAYSCALE = 0;
+
+    private static final String[] MIME_TYPES = {MimeTypes.MIME_PNG, "image/x-png"};
+
+    private final int compressionLevel;
+    private final boolean parallel;
+    private final ImageIOBitmapEncoder fallback = new ImageIOBitmapEncoder();
+
+    /**
+     * Creates a new encoder with the default compression level which compresses very large images
+     * in parallel.
+     */
+    public PNGBitmapEncoder() {
+        this(DEFAULT_COMPRESSION_LEVEL, true);
+    }
+
+    /**
+     * Creates a new encoder.
+     * @param compressionLevel the deflate compression level (0-9)
+     * @param parallel true if very large images may be compressed using several threads
+     */
+    public PNGBitmapEncoder(int compressionLevel, boolean parallel) {
+        if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+        this.parallel = parallel;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String[] getSupportedMIMETypes() {
+        return MIME_TYPES.clone();
+    }
+
+    /**
+     * Disposes the idle ImageWriters kept for the images which are passed on to ImageIO.
+     * @see ImageIOBitmapEncoder#dispose()
+     */
+    public void dispose() {
+        fallback.dispose();
+    }
+
+    /**
+     * Indicates whether an image can be written by this class without falling back to ImageIO.
+     * @param image the image
+     * @return true if the image is written directly
+     */
+    public static boolean isSupported(@NotNull BufferedImage image) {
+        return getBitDepth(image) > 0;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void encode(@NotNull BufferedImage image, @NotNull OutputStream out, @NotNull String mime, int resolution) throws IOException {
+        final int bitDepth = getBitDepth(image);
+        if (bitDepth == 0 || !BitmapEncoderRegistry.supports(this, mime)) {
+            fallback.encode(image, out, mime, resolution);
+            return;
+        }
+        final Context ctx = new Context(new Deflater(compressionLevel));
+        try {
+            final int length = filter(image.getRaster(), bitDepth, ctx);
+
+            out.write(SIGNATURE);
+            final byte[] header = ctx.header;
+            writeInt(header, 0, image.getWidth());
+            writeInt(header, 4, image.getHeight());
+            header[8] = (byte) bitDepth;
+            header[9] = COLOR_TYPE_GRAYSCALE;
+            header[10] = 0; //deflate
+            header[11] = 0; //adaptive filtering
+            header[12] = 0; //no interlace
+            writeChunk(out, ctx, IHDR, header, 0, 13);
+            if (resolution > 0) {
+                final int pixelsPerMeter = (int) Math.round(resolution / UnitConv.in2mm(1) * 1000);
+                writeInt(header, 0, pixelsPerMeter);
+                writeInt(header, 4, pixelsPerMeter);
+                header[8] = 1; //meter
+                writeChunk(out, ctx, PHYS, header, 0, 9);
+            }
+            writeChunk(out, ctx, TEXT, SOFTWARE, 0, SOFTWARE.length);
+            if (parallel && length >= PARALLEL_THRESHOLD) {
+                writeImageDataParallel(out, ctx, length);
+            } else {
+                writeImageData(out, ctx, length);
+            }
+            writeChunk(out, ctx, IEND, header, 0, 0);
+        } finally {
+            ctx.deflater.end();
+        }
+    }
+
+    /**
+     * Returns the PNG bit depth with which an image can be written directly.
+     * @return 1 or 8, 0 if the image has to be written through ImageIO
+     */
+    private static int getBitDepth(BufferedImage image) {
+        final Raster raster = image.getRaster();
+        if (!(raster.getDataBuffer() instanceof DataBufferByte)
+                || raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0
+                || (long) (image.getWidth() + 1) * image.getHeight() > Integer.MAX_VALUE - 8) {
+            return 0;
+        }
+        final SampleModel sm = raster.getSampleModel();
+        if (image.getType() == BufferedImage.TYPE_BYTE_BINARY) {
+            final IndexColorModel cm = (IndexColorModel) image.getColorModel();
+            if (sm instanceof MultiPixelPackedSampleModel
+                    && ((MultiPixelPackedSampleModel) sm).getPixelBitStride() == 1
+                    && ((MultiPixelPackedSampleModel) sm).getDataBitOffset() % 8 == 0
+                    && cm.getMapSize() == 2 && cm.getRGB(0) == 0xFF000000 && cm.getRGB(1) == 0xFFFFFFFF) {
+                return 1; //the same values as PNG grayscale: 0 = black, 1 = white
+            }
+        } else if (image.getType() == BufferedImage.TYPE_BYTE_GRAY) {
+            if (sm instanceof ComponentSampleModel && ((ComponentSampleModel) sm).getPixelStride() == 1
+                    && image.getColorModel() instanceof ComponentColorModel) {
+                return 8;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Copies the rows of the image to the raw buffer of the context, each row preceded by the
+     * filter type "None". Barcodes mostly consist of repeated rows which deflate handles well
+     * without filtering.
+     * @return the number of bytes of image data
+     */
+    private static int filter(Raster raster, int bitDepth, Context ctx) {
+        final int width = raster.getWidth();
+        final int height = raster.getHeight();
+        final int rowBytes = bitDepth == 1 ? (width + 7) / 8 : width;
+        final int length = (rowBytes + 1) * height;
+        if (ctx.raw.length < length) {
+            ctx.raw = new byte[length];
+        }
+        final byte[] raw = ctx.raw;
+        final SampleModel sm = raster.getSampleModel();
+        final DataBufferByte buffer = (DataBufferByte) raster.getDataBuffer();
+        final byte[] data = buffer.getData();
+        final int scanlineStride = sm instanceof MultiPixelPackedSampleModel
+            ? ((MultiPixelPackedSampleModel) sm).getScanlineStride()
+            : ((ComponentSampleModel) sm).getScanlineStride();
+        final int offset = buffer.getOffset() + (sm instanceof MultiPixelPackedSampleModel
+            ? ((MultiPixelPackedSampleModel) sm).getDataBitOffset() / 8
+            : ((ComponentSampleModel) sm).getBandOffsets()[0]);
+        for (int row = 0, src = offset, dst = 0; row < height; row++, src += scanlineStride, dst += rowBytes) {
+            raw[dst++] = 0;
+            System.arraycopy(data, src, raw, dst, rowBytes);
+        }
+        return length;
+    }
+
+    private void writeImageData(OutputStream out, Context ctx, int length) throws IOException {
+        final Deflater deflater = ctx.deflater;
+        final byte[] buffer = ctx.output;
+        deflater.setInput(ctx.raw, 0, length);
+        deflater.finish();
+        while (!deflater.finished()) {
+            int count = 0;
+            while (count < buffer.length && !deflater.finished()) {
+                count += deflater.deflate(buffer, count, buffer.length - count);
+            }
+            writeChunk(out, ctx, IDAT, buffer, 0, count);
+        }
+    }
+
+    /**
+     * Compresses the image data in chunks on several threads, in the same way as pigz does: every
+     * chunk is a raw deflate stream which ends on a byte boundary and uses the end of the previous
+     * chunk as dictionary. Together with the zlib header and the checksum over all data, the chunks
+     * form a single zlib stream.
+     */
+    private void writeImageDataParallel(OutputStream out, Context ctx, int length) throws IOException {
+        final byte[] raw = ctx.raw;
+        final int chunks = (length + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        final byte[][] compressed = IntStream.range(0, chunks).parallel()
+            .mapToObj(i -> deflateChunk(raw, i * PARALLEL_CHUNK_SIZE,
+                Math.min(PARALLEL_CHUNK_SIZE, length - i * PARALLEL_CHUNK_SIZE), i == chunks - 1))
+            .toArray(byte[][]::new);
+
+        final byte[] buffer = ctx.output;
+        buffer[0] = 0x78; //deflate with a 32K window
+        buffer[1] = (byte) getZlibFlags(compressionLevel);
+        writeChunk(out, ctx, IDAT, buffer, 0, 2);
+        for (final byte[] chunk : compressed) {
+            writeChunk(out, ctx, IDAT, chunk, 0, chunk.length);
+        }
+        final Adler32 adler = new Adler32();
+        adler.update(raw, 0, length);
+        writeInt(buffer, 0, (int) adler.getValue());
+        writeChunk(out, ctx, IDAT, buffer, 0, 4);
+    }
+
+    private byte[] deflateChunk(byte[] data, int offset, int length, boolean last) {
+        final Deflater deflater = new Deflater(compressionLevel, true);
+        try {
+            if (offset > 0) {
+                final int dictionary = Math.min(offset, DICTIONARY_SIZE);
+                deflater.setDictionary(data, offset - dictionary, dictionary);
+            }
+            deflater.setInput(data, offset, length);
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(length / 8 + 64);
+            final byte[] buffer = new byte[OUTPUT_BUFFER_SIZE];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    out.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /** Returns the second byte of the zlib header (FLEVEL and FCHECK) like zlib writes it. */
+    private static int getZlibFlags(int level) {
+        final int flags;
+        if (level < 2) {
+            flags = 0;
+        } else if (level < 6) {
+            flags = 1 << 6;
+        } else if (level == 6) {
+            flags = 2 << 6;
+        } else {
+            flags = 3 << 6;
+        }
+        return flags + 31 - (0x7800 + flags) % 31;
+    }
+
+    private static void writeChunk(OutputStream out, Context ctx, byte[] type, byte[] data, int offset, int length)
+            throws IOException {
+        final byte[] buffer = ctx.chunkBuffer;
+        final CRC32 crc = ctx.crc;
+        writeInt(buffer, 0, length);
+        out.write(buffer);
+        out.write(type);
+        out.write(data, offset, length);
+        crc.reset();
+        crc.update(type);
+        crc.update(data, offset, length);
+        writeInt(buffer, 0, (int) crc.getValue());
+        out.write(buffer);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private static byte[] chunkType(String type) {
+        return type.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** The state of the encoder while writing one image. */
+    private static final class Context {
+        private final Deflater deflater;
+        private final CRC32 crc = new CRC32();
+        private final byte[] header = new byte[13];
+        private final byte[] chunkBuffer = new byte[4];
+        private final byte[] output = new byte[OUTPUT_BUFFER_SIZE];
+        private byte[] raw = new byte[0];
+
+        private Context(Deflater deflater) {
+            this.deflater = deflater;
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.output.bitmap;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.SampleModel;
+import java.util.Arrays;
+
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.TextAlignment;
+import org.krysalis.barcode4j.output.AbstractCanvasProvider;
+import org.krysalis.barcode4j.output.java2d.Java2DCanvasProvider;
+
+/**
+ * CanvasProvider implementation that paints bars directly into the pixel data of a
+ * {@link BufferedImage#TYPE_BYTE_BINARY} or {@link BufferedImage#TYPE_BYTE_GRAY} image. Each
+ * rectangle is converted to a pixel span once and written to the image's byte buffer, rotation is
+ * done by mapping the coordinates rather than through a Java2D transform. Java2D is only used to
+ * paint human-readable text.
+ * <p>
+ * Pixel coverage follows the rules Java2D uses for non anti-aliased fills with the default stroke
+ * control (including the precision it calculates in for each image type), so the output is the same
+ * as painting through {@link Java2DCanvasProvider}.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+public class RasterCanvasProvider extends AbstractCanvasProvider {
+
+    /** The bias Java2D applies to coordinates when normalizing non anti-aliased shapes */
+    private static final double NORMALIZE_BIAS = 0.25;
+
+    private final int resolution;
+    private final int imageType;
+    private BufferedImage image;
+    private byte[] data;
+    private int scanlineStride;
+    private int dataOffset;
+    /** pixels per mm along the device x and y axis */
+    private double scaleX;
+    private double scaleY;
+    /** the transformation from barcode coordinates (mm) to pixels, including the rotation */
+    private double m00;
+    private double m01;
+    private double m02;
+    private double m10;
+    private double m11;
+    private double m12;
+    private Java2DCanvasProvider textDelegate;
+
+    /**
+     * Creates a new RasterCanvasProvider.
+     *
+     * @param resolution the desired image resolution (dots per inch)
+     * @param imageType the desired image type ({@link BufferedImage#TYPE_BYTE_BINARY} or
+     *      {@link BufferedImage#TYPE_BYTE_GRAY})
+     * @param orientation Orientation must be 0, 90, 180, 270, -90, -180 or -270
+     * @see BarcodeDimension#normalizeOrientation(int)
+     * @throws IllegalArgumentException if the image type is not supported
+     */
+    public RasterCanvasProvider(int resolution, int imageType, int orientation) {
+        super(orientation);
+        if (!isSupported(imageType, false)) {
+            throw new IllegalArgumentException("Unsupported image type for raster output: " + imageType);
+        }
+        this.resolution = resolution;
+        this.imageType = imageType;
+    }
+
+    /**
+     * Indicates whether bitmaps with the given settings can be painted by this class.
+     * @param imageType the desired image type (Values: BufferedImage.TYPE_*)
+     * @param antiAlias true if antialiasing should be enabled
+     * @return true if the settings are supported
+     */
+    public static boolean isSupported(int imageType, boolean antiAlias) {
+        return !antiAlias
+            && (imageType == BufferedImage.TYPE_BYTE_BINARY || imageType == BufferedImage.TYPE_BYTE_GRAY);
+    }
+
+    /**
+     * Returns the buffered image that is used to paint the barcode on.
+     *
+     * @return the image (null before the dimensions have been established)
+     */
+    public BufferedImage getBufferedImage() {
+        return this.image;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void establishDimensions(BarcodeDimension dim) {
+        super.establishDimensions(dim);
+        final int orientation = getOrientation();
+        this.image = BitmapBuilder.prepareImage(dim, orientation, this.resolution, this.imageType);
+        this.scaleX = this.image.getWidth() / dim.getWidthPlusQuiet(orientation);
+        this.scaleY = this.image.getHeight() / dim.getHeightPlusQuiet(orientation);
+        // the same mapping Java2DCanvasProvider sets up with Graphics2D.rotate() and translate()
+        final double w = dim.getWidthPlusQuiet();
+        final double h = dim.getHeightPlusQuiet();
+        switch (orientation) {
+            case 90:
+                setTransform(0, scaleX, 0, -scaleY, 0, w * scaleY);
+                break;
+            case 180:
+                setTransform(-scaleX, 0, w * scaleX, 0, -scaleY, h * scaleY);
+                break;
+            case 270:
+                setTransform(0, -scaleX, h * scaleX, scaleY, 0, 0);
+                break;
+            default:
+                setTransform(scaleX, 0, 0, 0, scaleY, 0);
+        }
+        this.textDelegate = null;
+
+        final SampleModel sm = this.image.getRaster().getSampleModel();
+        final DataBufferByte buffer = (DataBufferByte) this.image.getRaster().getDataBuffer();
+        this.data = buffer.getData();
+        if (sm instanceof MultiPixelPackedSampleModel) {
+            final MultiPixelPackedSampleModel packed = (MultiPixelPackedSampleModel) sm;
+            this.scanlineStride = packed.getScanlineStride();
+            this.dataOffset = buffer.getOffset() + packed.getDataBitOffset() / 8;
+        } else {
+            final PixelInterleavedSampleModel interleaved = (PixelInterleavedSampleModel) sm;
+            this.scanlineStride = interleaved.getScanlineStride();
+            this.dataOffset = buffer.getOffset() + interleaved.getOffset(0, 0);
+        }
+        // both the default binary palette and the gray ramp use all bits set for white
+        Arrays.fill(this.data, (byte) 0xFF);
+    }
+
+    private void setTransform(double m00, double m01, double m02, double m10, double m11, double m12) {
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m02 = m02;
+        this.m10 = m10;
+        this.m11 = m11;
+        this.m12 = m12;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deviceFillRect(double x, double y, double w, double h) {
+        final int px1;
+        final int py1;
+        final int px2;
+        final int py2;
+        if (imageType == BufferedImage.TYPE_BYTE_GRAY) {
+            // Java2D converts the rectangle into a parallelogram and normalizes it in double precision
+            final double px = x * m00 + y * m01 + m02;
+            final double py = x * m10 + y * m11 + m12;
+            px1 = toPixel(px);
+            py1 = toPixel(py);
+            px2 = toPixel(px + w * m00 + h * m01);
+            py2 = toPixel(py + w * m10 + h * m11);
+        } else {
+            // binary images have no parallelogram loop, Java2D iterates the outline in single precision
+            final float left = (float) x;
+            final float top = (float) y;
+            final float right = left + (float) w;
+            final float bottom = top + (float) h;
+            px1 = toPixel((float) (left * m00 + top * m01 + m02));
+            py1 = toPixel((float) (left * m10 + top * m11 + m12));
+            px2 = toPixel((float) (right * m00 + bottom * m01 + m02));
+            py2 = toPixel((float) (right * m10 + bottom * m11 + m12));
+        }
+        fillPixels(Math.min(px1, px2), Math.max(px1, px2), Math.min(py1, py2), Math.max(py1, py2));
+    }
+
+    /**
+     * Converts a device coordinate to the index of the first pixel whose center lies at or beyond it,
+     * after normalizing the coordinate like Java2D does for non anti-aliased fills.
+     */
+    private static int toPixel(double coord) {
+        return (int) Math.floor(coord + NORMALIZE_BIAS);
+    }
+
+    private static int toPixel(float coord) {
+        return (int) Math.floor(coord + (float) NORMALIZE_BIAS);
+    }
+
+    private void fillPixels(int px1, int px2, int py1, int py2) {
+        final int left = Math.max(px1, 0);
+        final int right = Math.min(px2, image.getWidth());
+        final int top = Math.max(py1, 0);
+        final int bottom = Math.min(py2, image.getHeight());
+        if (left >= right || top >= bottom) {
+            return;
+        }
+        if (imageType == BufferedImage.TYPE_BYTE_GRAY) {
+            for (int row = top, offset = dataOffset + top * scanlineStride; row < bottom; row++, offset += scanlineStride) {
+                Arrays.fill(data, offset + left, offset + right, (byte) 0);
+            }
+        } else {
+            final int firstByte = left >> 3;
+            final int lastByte = (right - 1) >> 3;
+            // masks of the bits to keep (1 = white) in the first and last byte of the span
+            final int firstKeep = 0xFF00 >> (left & 7);
+            final int lastKeep = 0xFF >> (((right - 1) & 7) + 1);
+            for (int row = top, offset = dataOffset + top * scanlineStride; row < bottom; row++, offset += scanlineStride) {
+                if (firstByte == lastByte) {
+                    data[offset + firstByte] &= (byte) ((firstKeep | lastKeep) & 0xFF);
+                } else {
+                    data[offset + firstByte] &= (byte) (firstKeep & 0xFF);
+                    Arrays.fill(data, offset + firstByte + 1, offset + lastByte, (byte) 0);
+                    data[offset + lastByte] &= (byte) lastKeep;
+                }
+            }
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deviceText(String text, double x1, double x2, double y1, String fontName, double fontSize, TextAlignment textAlign) {
+        if (this.textDelegate == null) {
+            this.textDelegate = new Java2DCanvasProvider(prepareTextGraphics(), getOrientation());
+            this.textDelegate.establishDimensions(getDimensions());
+        }
+        this.textDelegate.deviceText(text, x1, x2, y1, fontName, fontSize, textAlign);
+    }
+
+    /**
+     * Sets up a Graphics2D like {@link BitmapBuilder#prepareGraphics2D(BufferedImage, BarcodeDimension, int, boolean)}
+     * but without clearing the bars that have already been painted.
+     */
+    private Graphics2D prepareTextGraphics() {
+        final Graphics2D g2d = this.image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_FRACTIONALMETRICS, RenderingHints.VALUE_FRACTIONALMETRICS_ON);
+        g2d.setColor(Color.black);
+        g2d.scale(this.scaleX, this.scaleY);
+        return g2d;
+    }
+
+}
@@ -26,6 +26,7 @@ import java.text.SimpleDateFormat;
 import org.krysalis.barcode4j.BarcodeDimension;
 import org.krysalis.barcode4j.TextAlignment;
 import org.krysalis.barcode4j.output.AbstractCanvasProvider;
+import org.krysalis.barcode4j.tools.DecimalFormatUtil;
 import org.krysalis.barcode4j.tools.UnitConv;
 
 /**
@@ -36,6 +37,8 @@ import org.krysalis.barcode4j.tools.UnitConv;
 public class EPSCanvasProvider extends AbstractCanvasProvider {
 
     private final Writer writer;
+    /** holds one "x y w h rf" line while it is being formatted */
+    private final char[] line = new char[4 * (DecimalFormatUtil.MAX_LENGTH + 1) + 3];
     private DecimalFormat df;
     private IOException firstError;
     private double height;
@@ -48,13 +51,15 @@ public class EPSCanvasProvider extends AbstractCanvasProvider {
      */
     public EPSCanvasProvider(OutputStream out, int orientation) throws IOException {
         super(orientation);
-        this.writer = new java.io.OutputStreamWriter(out, StandardCharsets.US_ASCII);
+        this.writer = new java.io.BufferedWriter(new java.io.OutputStreamWriter(out, StandardCharsets.US_ASCII));
     }
 
     /**
      * Returns the DecimalFormat instance to use internally to format numbers.
      * @return a DecimalFormat instance
+     * @deprecated numbers are formatted using {@link DecimalFormatUtil}
      */
+    @Deprecated
     protected DecimalFormat getDecimalFormat() {
         if (this.df == null) {
             DecimalFormatSymbols dfs = new DecimalFormatSymbols();
@@ -65,11 +70,11 @@ public class EPSCanvasProvider extends AbstractCanvasProvider {
     }
 
     private String format(double coord) {
-        return getDecimalFormat().format(coord);
+        return DecimalFormatUtil.format(coord);
     }
 
     private String formatmm(double coord) {
-        return getDecimalFormat().format(UnitConv.mm2pt(coord));
+        return DecimalFormatUtil.format(UnitConv.mm2pt(coord));
     }
 
     private String formatmm(double x, double y) {
@@ -193,7 +198,15 @@ public class EPSCanvasProvider extends AbstractCanvasProvider {
             return;
         }
         try {
-            writer.write(formatmm(x, y) + " " + formatmm(w) + " " + formatmm(h) + " rf\n");
+            int pos = DecimalFormatUtil.format(UnitConv.mm2pt(x), line, 0);
+            line[pos++] = ' ';
+            pos = DecimalFormatUtil.format(UnitConv.mm2pt(this.height - y), line, pos);
+            line[pos++] = ' ';
+            pos = DecimalFormatUtil.format(UnitConv.mm2pt(w), line, pos);
+            line[pos++] = ' ';
+            pos = DecimalFormatUtil.format(UnitConv.mm2pt(h), line, pos);
+            writer.write(line, 0, pos);
+            writer.write(" rf\n");
         } catch (IOException ioe) {
             firstError = ioe;
         }
@@ -38,6 +38,9 @@ public class SVGCanvasProvider extends AbstractSVGGeneratingCanvasProvider {
     private DOMImplementation domImpl;
     private Document doc;
     private Element detailGroup;
+    private boolean compact;
+    private SVGPathBuilder pathBuilder;
+    private Element path;
 
     /**
      * Creates a new SVGCanvasProvider with namespaces enabled.
@@ -147,11 +150,32 @@ public class SVGCanvasProvider extends AbstractSVGGeneratingCanvasProvider {
         }
     }
 
+    /**
+     * Enables or disables the compact output mode. In compact mode all bars are painted using a
+     * single path element instead of one rect element per bar. Human-readable text is still
+     * written as text elements. Must be set before the barcode is painted.
+     * @param compact true to enable the compact mode
+     * @since 2.4.1
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    /**
+     * Indicates whether the compact output mode is enabled.
+     * @return true if all bars are painted using a single path element
+     * @since 2.4.1
+     */
+    public boolean isCompact() {
+        return this.compact;
+    }
+
     /**
      * Returns the DOM document containing the SVG barcode.
      * @return the DOM document
      */
     public org.w3c.dom.Document getDOM() {
+        updatePath();
         return this.doc;
     }
 
@@ -160,6 +184,7 @@ public class SVGCanvasProvider extends AbstractSVGGeneratingCanvasProvider {
      * @return the DOM fragment
      */
     public org.w3c.dom.DocumentFragment getDOMFragment() {
+        updatePath();
         final DocumentFragment frag = doc.createDocumentFragment();
         frag.appendChild(doc.importNode(doc.getFirstChild(), true));
         return frag;
@@ -172,8 +197,8 @@ public class SVGCanvasProvider extends AbstractSVGGeneratingCanvasProvider {
         Element svg = (Element)doc.getDocumentElement();
         svg.setAttribute("width", addUnit(dim.getWidthPlusQuiet(orientation)));
         svg.setAttribute("height", addUnit(dim.getHeightPlusQuiet(orientation)));
-        String w = getDecimalFormat().format(dim.getWidthPlusQuiet(orientation));
-        String h = getDecimalFormat().format(dim.getHeightPlusQuiet(orientation));
+        String w = formatNumber(dim.getWidthPlusQuiet(orientation));
+        String h = formatNumber(dim.getHeightPlusQuiet(orientation));
         svg.setAttribute("viewBox", "0 0 " + w + " " + h);
 
         String transform;
@@ -197,14 +222,34 @@ public class SVGCanvasProvider extends AbstractSVGGeneratingCanvasProvider {
 
     /** {@inheritDoc} */
     public void deviceFillRect(double x, double y, double w, double h) {
+        if (compact) {
+            if (path == null) {
+                path = createElement("path");
+                detailGroup.appendChild(path);
+                pathBuilder = new SVGPathBuilder();
+            }
+            pathBuilder.addRect(x, y, w, h);
+            return;
+        }
         Element el = createElement("rect");
-        el.setAttribute("x", getDecimalFormat().format(x));
-        el.setAttribute("y", getDecimalFormat().format(y));
-        el.setAttribute("width", getDecimalFormat().format(w));
-        el.setAttribute("height", getDecimalFormat().format(h));
+        el.setAttribute("x", formatNumber(x));
+        el.setAttribute("y", formatNumber(y));
+        el.setAttribute("width", formatNumber(w));
+        el.setAttribute("height", formatNumber(h));
         detailGroup.appendChild(el);
     }
 
+    /** Writes the bars collected in compact mode to the path element. */
+    private void updatePath() {
+        if (path != null) {
+            final String[] data = pathBuilder.build();
+            path.setAttribute("d", data[0]);
+            if (data[1] != null) {
+                path.setAttribute("transform", data[1]);
+            }
+        }
+    }
+
     /** {@inheritDoc} */
     public void deviceText(String text, double x1, double x2, double y1, String fontName, double fontSize, TextAlignment textAlign) {
         final String anchor;
@@ -226,12 +271,12 @@ public class SVGCanvasProvider extends AbstractSVGGeneratingCanvasProvider {
 
         final Element el = createElement("text");
         el.setAttribute("font-family", fontName);
-        el.setAttribute("font-size", getDecimalFormat().format(fontSize));
+        el.setAttribute("font-size", formatNumber(fontSize));
         el.setAttribute("text-anchor", anchor);
-        el.setAttribute("x", getDecimalFormat().format(tx));
-        el.setAttribute("y", getDecimalFormat().format(y1));
+        el.setAttribute("x", formatNumber(tx));
+        el.setAttribute("y", formatNumber(y1));
         if (textAlign == TextAlignment.TA_JUSTIFY) {
-            el.setAttribute("textLength", getDecimalFormat().format(x2 - x1));
+            el.setAttribute("textLength", formatNumber(x2 - x1));
         }
         el.appendChild(doc.createTextNode(text));
         detailGroup.appendChild(el);
@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.output.svg;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+import org.krysalis.barcode4j.tools.DecimalFormatUtil;
+
+/**
+ * Collects the bars of a barcode and turns them into the data of a single SVG path using relative
+ * commands. Along each axis on which all bars lie on a common grid (normally the module grid), the
+ * path is written in whole grid units together with a transform that scales it back to millimeters.
+ * Along an axis without such a grid (e.g. the heights of the guard bars in EAN-13) the coordinates
+ * are written in millimeters.
+ *
+ * @since 2.4.1
+ */
+final class SVGPathBuilder {
+
+    /** Maximum deviation from a whole number of modules that is still considered to be on the grid */
+    private static final double GRID_TOLERANCE = 1e-6;
+    /** Number of fixed point units per millimeter when the bars are not on a grid */
+    private static final double MM_SCALE = Math.pow(10, DecimalFormatUtil.FRACTION_DIGITS);
+
+    private double[] rects = new double[64];
+    private int count;
+
+    /**
+     * Adds a bar.
+     * @param x the x coordinate (mm)
+     * @param y the y coordinate (mm)
+     * @param w the width (mm)
+     * @param h the height (mm)
+     */
+    void addRect(double x, double y, double w, double h) {
+        if (count + 4 > rects.length) {
+            rects = Arrays.copyOf(rects, rects.length * 2);
+        }
+        rects[count++] = x;
+        rects[count++] = y;
+        rects[count++] = w;
+        rects[count++] = h;
+    }
+
+    /**
+     * Builds the path.
+     * @return the path data (index 0) and the transform attribute for it (index 1, null if none)
+     */
+    String[] build() {
+        double ux = Double.MAX_VALUE;
+        double uy = Double.MAX_VALUE;
+        double ox = Double.MAX_VALUE;
+        double oy = Double.MAX_VALUE;
+        for (int i = 0; i < count; i += 4) {
+            ox = Math.min(ox, rects[i]);
+            oy = Math.min(oy, rects[i + 1]);
+            ux = Math.min(ux, rects[i + 2]);
+            uy = Math.min(uy, rects[i + 3]);
+        }
+        final boolean gridX = ux > 0 && isOnGrid(0, ox, ux);
+        final boolean gridY = uy > 0 && isOnGrid(1, oy, uy);
+        if (!gridX) {
+            // fixed point coordinates with 4 decimals, like the other SVG output
+            ox = 0;
+            ux = 1.0 / MM_SCALE;
+        }
+        if (!gridY) {
+            oy = 0;
+            uy = 1.0 / MM_SCALE;
+        }
+
+        final StringBuilder sb = new StringBuilder(count * 4);
+        long lastX = 0;
+        long lastY = 0;
+        for (int i = 0; i < count; i += 4) {
+            // relative coordinates are calculated from the rounded values so no rounding errors add up
+            final long x = Math.round((rects[i] - ox) / ux);
+            final long y = Math.round((rects[i + 1] - oy) / uy);
+            final long w = Math.round(rects[i + 2] / ux);
+            final long h = Math.round(rects[i + 3] / uy);
+            sb.append(i == 0 ? 'M' : 'm');
+            append(sb, x - lastX, gridX);
+            sb.append(' ');
+            append(sb, y - lastY, gridY);
+            sb.append('h');
+            append(sb, w, gridX);
+            sb.append('v');
+            append(sb, h, gridY);
+            sb.append('h');
+            append(sb, -w, gridX);
+            sb.append('z');
+            lastX = x;
+            lastY = y;
+        }
+        String transform = null;
+        if (gridX || gridY) {
+            final String scale = "scale(" + (gridX ? toString(ux) : "1") + ' ' + (gridY ? toString(uy) : "1") + ')';
+            transform = ox == 0 && oy == 0 ? scale : "translate(" + toString(ox) + ' ' + toString(oy) + ") " + scale;
+        }
+        return new String[] {sb.toString(), transform};
+    }
+
+    /** Appends a whole number of modules, or a number of 1/10000 mm as a decimal number. */
+    private static void append(StringBuilder sb, long value, boolean modules) {
+        if (modules) {
+            sb.append(value);
+        } else {
+            DecimalFormatUtil.appendFixedPoint(sb, value);
+        }
+    }
+
+    /**
+     * Checks whether all bars lie on a grid along one axis.
+     * @param axis 0 for the x axis, 1 for the y axis
+     * @param origin the grid origin
+     * @param unit the grid spacing
+     */
+    private boolean isOnGrid(int axis, double origin, double unit) {
+        for (int i = axis; i < count; i += 4) {
+            if (!isWhole((rects[i] - origin) / unit) || !isWhole(rects[i + 2] / unit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhole(double modules) {
+        return Math.abs(modules - Math.rint(modules)) < GRID_TOLERANCE;
+    }
+
+    /** Formats the transform values with more precision than usual as the scale applies to the whole path. */
+    private static String toString(double value) {
+        final BigDecimal rounded = new BigDecimal(value).setScale(6, RoundingMode.HALF_EVEN);
+        return rounded.signum() == 0 ? "0" : rounded.stripTrailingZeros().toPlainString();
+    }
+
+}
@@ -0,0 +1,352 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.output.svg;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.TextAlignment;
+import org.krysalis.barcode4j.output.BarcodeCanvasSetupException;
+import org.krysalis.barcode4j.tools.DecimalFormatUtil;
+
+/**
+ * Implementation that writes SVG markup directly to a stream while the barcode is being painted.
+ * Unlike {@link SVGCanvasProvider} no DOM is built, so there is no need to serialize the result
+ * afterwards. The output can optionally be gzip compressed (SVGZ) and, using {@link #setCompact(boolean)},
+ * all bars can be written as a single path element.
+ * <p>
+ * {@link #finish()} has to be called once the barcode has been generated to complete the document.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+public class StreamingSVGCanvasProvider extends AbstractSVGGeneratingCanvasProvider {
+
+    private final Writer writer;
+    private final boolean xmlDeclaration;
+    @Nullable
+    private final GZIPOutputStream gzip;
+    private IOException firstError;
+    private boolean compact;
+    @Nullable
+    private String symbolId;
+    private final char[] numberBuffer = new char[DecimalFormatUtil.MAX_LENGTH];
+    private SVGPathBuilder pathBuilder;
+
+    /**
+     * Creates a new StreamingSVGCanvasProvider which writes a UTF-8 encoded SVG document.
+     * @param out OutputStream to write the SVG to
+     * @param compress true to gzip compress the output (SVGZ)
+     * @param namespacePrefix the namespace prefix to use, null for no prefix
+     * @param orientation the barcode orientation (0, 90, 180, 270)
+     * @throws IOException in case of an I/O problem
+     * @throws BarcodeCanvasSetupException if setting up the provider fails
+     */
+    public StreamingSVGCanvasProvider(@NotNull OutputStream out, boolean compress, @Nullable String namespacePrefix, int orientation)
+            throws IOException, BarcodeCanvasSetupException {
+        super(namespacePrefix, orientation);
+        this.gzip = compress ? new GZIPOutputStream(out) : null;
+        this.writer = new BufferedWriter(new OutputStreamWriter(compress ? this.gzip : out, StandardCharsets.UTF_8));
+        this.xmlDeclaration = true;
+    }
+
+    /**
+     * Creates a new StreamingSVGCanvasProvider which writes a UTF-8 encoded SVG document.
+     * @param out OutputStream to write the SVG to
+     * @param compress true to gzip compress the output (SVGZ)
+     * @param orientation the barcode orientation (0, 90, 180, 270)
+     * @throws IOException in case of an I/O problem
+     * @throws BarcodeCanvasSetupException if setting up the provider fails
+     */
+    public StreamingSVGCanvasProvider(@NotNull OutputStream out, boolean compress, int orientation)
+            throws IOException, BarcodeCanvasSetupException {
+        this(out, compress, null, orientation);
+    }
+
+    /**
+     * Creates a new StreamingSVGCanvasProvider which writes an uncompressed, UTF-8 encoded SVG document.
+     * @param out OutputStream to write the SVG to
+     * @param orientation the barcode orientation (0, 90, 180, 270)
+     * @throws IOException in case of an I/O problem
+     * @throws BarcodeCanvasSetupException if setting up the provider fails
+     */
+    public StreamingSVGCanvasProvider(@NotNull OutputStream out, int orientation)
+            throws IOException, BarcodeCanvasSetupException {
+        this(out, false, null, orientation);
+    }
+
+    /**
+     * Creates a new StreamingSVGCanvasProvider which writes the svg element to a Writer. No XML
+     * declaration is written so the SVG can be embedded in other markup.
+     * @param writer Writer to write the SVG to
+     * @param namespacePrefix the namespace prefix to use, null for no prefix
+     * @param orientation the barcode orientation (0, 90, 180, 270)
+     * @throws BarcodeCanvasSetupException if setting up the provider fails
+     */
+    public StreamingSVGCanvasProvider(@NotNull Writer writer, @Nullable String namespacePrefix, int orientation)
+            throws BarcodeCanvasSetupException {
+        super(namespacePrefix, orientation);
+        this.gzip = null;
+        this.writer = writer;
+        this.xmlDeclaration = false;
+    }
+
+    /**
+     * Enables or disables the compact output mode. In compact mode all bars are written as a
+     * single path element (once {@link #finish()} is called) instead of one rect element per bar.
+     * Human-readable text is still written as text elements. Must be set before the barcode is
+     * painted.
+     * @param compact true to enable the compact mode
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    /**
+     * Indicates whether the compact output mode is enabled.
+     * @return true if all bars are written as a single path element
+     */
+    public boolean isCompact() {
+        return this.compact;
+    }
+
+    /**
+     * Writes the barcode as a symbol element with the given ID and a viewBox (but no width, height
+     * or namespace declaration) instead of an svg element. This allows collecting several barcodes
+     * in one SVG document (a sprite sheet) from which they can be referenced with use elements.
+     * Must be set before the barcode is painted.
+     * @param symbolId the ID of the symbol element, null to write an svg element
+     */
+    public void setSymbolId(@Nullable String symbolId) {
+        this.symbolId = symbolId;
+    }
+
+    /**
+     * Returns the ID of the symbol element the barcode is written as.
+     * @return the ID or null if the barcode is written as an svg element
+     */
+    @Nullable
+    public String getSymbolId() {
+        return this.symbolId;
+    }
+
+    /**
+     * Completes the SVG document and flushes the output. Must be called after the barcode
+     * painting call returns. The underlying stream is not closed.
+     * @throws IOException if an I/O error happened during SVG generation
+     */
+    public void finish() throws IOException {
+        if (firstError != null) {
+            throw firstError;
+        }
+        if (pathBuilder != null) {
+            final String[] data = pathBuilder.build();
+            writer.write('<');
+            writer.write(getQualifiedName("path"));
+            if (data[1] != null) {
+                writeAttribute("transform", data[1]);
+            }
+            writeAttribute("d", data[0]);
+            writer.write("/>");
+            pathBuilder = null;
+        }
+        writer.write("</");
+        writer.write(getQualifiedName("g"));
+        writer.write("></");
+        writer.write(getQualifiedName(symbolId != null ? "symbol" : "svg"));
+        writer.write(">\n");
+        writer.flush();
+        if (gzip != null) {
+            gzip.finish();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void establishDimensions(BarcodeDimension dim) {
+        super.establishDimensions(dim);
+        if (firstError != null) {
+            return;
+        }
+        final int orientation = BarcodeDimension.normalizeOrientation(getOrientation());
+        final String w = formatNumber(dim.getWidthPlusQuiet(orientation));
+        final String h = formatNumber(dim.getHeightPlusQuiet(orientation));
+        try {
+            if (xmlDeclaration) {
+                writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            }
+            writer.write('<');
+            if (symbolId != null) {
+                writer.write(getQualifiedName("symbol"));
+                writeAttribute("id", symbolId);
+            } else {
+                writer.write(getQualifiedName("svg"));
+                if (isNamespaceEnabled()) {
+                    final String prefix = getNamespacePrefix();
+                    writer.write(prefix == null || prefix.isEmpty() ? " xmlns" : " xmlns:" + prefix);
+                    writeAttributeValue(SVG_NAMESPACE);
+                }
+                writeAttribute("width", w + "mm");
+                writeAttribute("height", h + "mm");
+            }
+            writeAttribute("viewBox", "0 0 " + w + " " + h);
+            writer.write("><");
+            writer.write(getQualifiedName("g"));
+            writeAttribute("fill", "black");
+            writeAttribute("stroke", "none");
+            switch (orientation) {
+                case 90:
+                    writeAttribute("transform", "rotate(-90) translate(-" + h + ")");
+                    break;
+                case 180:
+                    writeAttribute("transform", "rotate(-180) translate(-" + w + " -" + h + ")");
+                    break;
+                case 270:
+                    writeAttribute("transform", "rotate(-270) translate(0 -" + w + ")");
+                    break;
+                default:
+                    //nop
+            }
+            writer.write('>');
+        } catch (IOException ioe) {
+            firstError = ioe;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deviceFillRect(double x, double y, double w, double h) {
+        if (firstError != null) {
+            return;
+        }
+        if (compact) {
+            if (pathBuilder == null) {
+                pathBuilder = new SVGPathBuilder();
+            }
+            pathBuilder.addRect(x, y, w, h);
+            return;
+        }
+        try {
+            writer.write('<');
+            writer.write(getQualifiedName("rect"));
+            writeAttribute("x", x);
+            writeAttribute("y", y);
+            writeAttribute("width", w);
+            writeAttribute("height", h);
+            writer.write("/>");
+        } catch (IOException ioe) {
+            firstError = ioe;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void deviceText(String text, double x1, double x2, double y1, String fontName, double fontSize, TextAlignment textAlign) {
+        if (firstError != null) {
+            return;
+        }
+        final String anchor;
+        final double tx;
+
+        switch (textAlign) {
+            case TA_LEFT:
+                anchor = "start";
+                tx = x1;
+                break;
+            case TA_RIGHT:
+                anchor = "end";
+                tx = x2;
+                break;
+            default:
+                anchor = "middle";
+                tx = x1 + (x2 - x1) / 2;
+        }
+
+        try {
+            writer.write('<');
+            writer.write(getQualifiedName("text"));
+            writeAttribute("font-family", fontName);
+            writeAttribute("font-size", fontSize);
+            writeAttribute("text-anchor", anchor);
+            writeAttribute("x", tx);
+            writeAttribute("y", y1);
+            if (textAlign == TextAlignment.TA_JUSTIFY) {
+                writeAttribute("textLength", x2 - x1);
+            }
+            writer.write('>');
+            writeEscaped(text);
+            writer.write("</");
+            writer.write(getQualifiedName("text"));
+            writer.write('>');
+        } catch (IOException ioe) {
+            firstError = ioe;
+        }
+    }
+
+    private void writeAttribute(String name, double value) throws IOException {
+        writer.write(' ');
+        writer.write(name);
+        writer.write("=\"");
+        writer.write(numberBuffer, 0, DecimalFormatUtil.format(value, numberBuffer, 0));
+        writer.write('"');
+    }
+
+    private void writeAttribute(String name, String value) throws IOException {
+        writer.write(' ');
+        writer.write(name);
+        writeAttributeValue(value);
+    }
+
+    private void writeAttributeValue(String value) throws IOException {
+        writer.write("=\"");
+        writeEscaped(value);
+        writer.write('"');
+    }
+
+    private void writeEscaped(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            final char c = s.charAt(i);
+            switch (c) {
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                case '"':
+                    writer.write("&quot;");
+                    break;
+                default:
+                    if (c < 0x20 && c != '\t' && c != '\n' && c != '\r') {
+                        // not allowed in XML 1.0
+                        writer.write("&#xFFFD;");
+                    } else {
+                        writer.write(c);
+                    }
+            }
+        }
+    }
+
+}
@@ -29,6 +29,7 @@ import org.krysalis.barcode4j.configuration.Configuration;
 import org.krysalis.barcode4j.configuration.ConfigurationException;
 import org.krysalis.barcode4j.configuration.DefaultConfiguration;
 
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
@@ -112,6 +113,57 @@ public class ConfigurationUtil {
         return cfg;
     }
 
+    /**
+     * Builds a canonical string representation of a Configuration tree. Two configurations with the
+     * same names, values, attributes (in any order) and children (in the same order) produce the
+     * same string, which makes it suitable as a cache key.
+     * @param cfg the configuration
+     * @return the canonical form of the configuration
+     * @throws UnsupportedOperationException if the configuration cannot enumerate its attributes
+     * @since 2.4.1
+     */
+    @NotNull
+    public static String toCanonicalString(@NotNull final Configuration cfg) {
+        final StringBuilder sb = new StringBuilder(128);
+        appendCanonical(sb, cfg);
+        return sb.toString();
+    }
+
+    private static void appendCanonical(@NotNull final StringBuilder sb, @NotNull final Configuration cfg) {
+        appendQuoted(sb, cfg.getName());
+        final String[] attrs = cfg.getAttributeNames().clone();
+        Arrays.sort(attrs);
+        sb.append('[');
+        for (final String attr : attrs) {
+            appendQuoted(sb, attr);
+            sb.append('=');
+            appendQuoted(sb, cfg.getAttribute(attr, null));
+        }
+        sb.append(']');
+        appendQuoted(sb, cfg.getValue(null));
+        sb.append('(');
+        for (final Configuration child : cfg.getChildren()) {
+            appendCanonical(sb, child);
+        }
+        sb.append(')');
+    }
+
+    private static void appendQuoted(@NotNull final StringBuilder sb, @Nullable final String value) {
+        if (value == null) {
+            sb.append('-');
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
     /**
      * Extracts the message from the barcode XML. Escaped Unicode characters are unescaped.
      * @param cfg the configuration object containing the barcode XML
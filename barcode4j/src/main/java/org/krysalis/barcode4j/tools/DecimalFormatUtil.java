@@ -0,0 +1,225 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.tools;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Formats numbers with up to four decimals the same way as
+ * <code>new DecimalFormat("0.####")</code> (with '.' as decimal separator and half-even rounding)
+ * which is what the SVG and EPS output uses for coordinates. The methods are thread-safe and do
+ * not allocate any objects for values below 10<sup>11</sup>, the digits are appended directly
+ * to the given buffer.
+ * <p>
+ * Unlike DecimalFormat, negative values that round to zero are formatted as "0" rather than "-0"
+ * and non-finite values are formatted like {@link Double#toString(double)}.
+ * </p>
+ *
+ * @since 2.4.1
+ */
+public class DecimalFormatUtil {
+
+    /** The number of fraction digits (at most) */
+    public static final int FRACTION_DIGITS = 4;
+
+    /** The maximum number of characters written by {@link #format(double, char[], int)} */
+    public static final int MAX_LENGTH = 310;
+
+    private static final long SCALE = 10000;
+
+    /** Values from here on are formatted through BigDecimal */
+    private static final double FAST_PATH_LIMIT = 1e11;
+
+    /** 2^27 + 1, used to split a double into two halves that can be multiplied exactly */
+    private static final double SPLITTER = 134217729.0;
+
+    /**
+     * Utility class: Constructor prevents instantiating when subclassed.
+     */
+    protected DecimalFormatUtil() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Formats a number.
+     * @param value the value
+     * @return the formatted value
+     */
+    public static String format(double value) {
+        final char[] buffer = new char[24];
+        if (isFastPath(value)) {
+            return new String(buffer, 0, format(value, buffer, 0));
+        }
+        return formatSlow(value);
+    }
+
+    /**
+     * Formats a number into a char array.
+     * @param value the value
+     * @param buffer the buffer to write to. At most {@link #MAX_LENGTH} characters are written.
+     * @param offset the index of the first character to write
+     * @return the index after the last character written
+     */
+    public static int format(double value, char[] buffer, int offset) {
+        if (!isFastPath(value)) {
+            final String s = formatSlow(value);
+            s.getChars(0, s.length(), buffer, offset);
+            return offset + s.length();
+        }
+        final long scaled = scale(Math.abs(value));
+        int pos = offset;
+        if (scaled != 0 && value < 0) {
+            buffer[pos++] = '-';
+        }
+        final long integer = scaled / SCALE;
+        final int digits = countDigits(integer);
+        long rest = integer;
+        for (int i = pos + digits - 1; i >= pos; i--) {
+            buffer[i] = (char) ('0' + rest % 10);
+            rest /= 10;
+        }
+        pos += digits;
+        long fraction = scaled % SCALE;
+        if (fraction != 0) {
+            buffer[pos++] = '.';
+            for (long digit = SCALE / 10; fraction != 0; digit /= 10) {
+                buffer[pos++] = (char) ('0' + fraction / digit);
+                fraction %= digit;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Appends a formatted number to a StringBuilder.
+     * @param sb the StringBuilder
+     * @param value the value
+     * @return the StringBuilder
+     */
+    public static StringBuilder append(StringBuilder sb, double value) {
+        if (!isFastPath(value)) {
+            return sb.append(formatSlow(value));
+        }
+        final long scaled = scale(Math.abs(value));
+        appendFixedPoint(sb, scaled != 0 && value < 0 ? -scaled : scaled);
+        return sb;
+    }
+
+    /**
+     * Appends a formatted number to an Appendable (for example a Writer).
+     * @param out the Appendable
+     * @param value the value
+     * @throws IOException if an I/O error occurs
+     */
+    public static void append(Appendable out, double value) throws IOException {
+        if (out instanceof StringBuilder) {
+            append((StringBuilder) out, value);
+        } else if (!isFastPath(value)) {
+            out.append(formatSlow(value));
+        } else {
+            final long scaled = scale(Math.abs(value));
+            appendFixedPoint(out, scaled != 0 && value < 0 ? -scaled : scaled);
+        }
+    }
+
+    /**
+     * Appends a fixed point number, given in units of 10<sup>-{@value #FRACTION_DIGITS}</sup>, in
+     * the same format as the other methods. This allows callers to calculate with values that have
+     * already been rounded.
+     * @param sb the StringBuilder
+     * @param fixedPoint the value in units of 0.0001
+     * @return the StringBuilder
+     */
+    public static StringBuilder appendFixedPoint(StringBuilder sb, long fixedPoint) {
+        try {
+            appendFixedPoint((Appendable) sb, fixedPoint);
+        } catch (IOException ioe) {
+            throw new IllegalStateException(ioe); //StringBuilder doesn't throw IOExceptions
+        }
+        return sb;
+    }
+
+    private static void appendFixedPoint(Appendable out, long fixedPoint) throws IOException {
+        long value = fixedPoint;
+        if (value < 0) {
+            out.append('-');
+            value = -value;
+        }
+        final long integer = value / SCALE;
+        for (long digit = pow10(countDigits(integer) - 1); digit > 0; digit /= 10) {
+            out.append((char) ('0' + integer / digit % 10));
+        }
+        long fraction = value % SCALE;
+        if (fraction != 0) {
+            out.append('.');
+            for (long digit = SCALE / 10; fraction != 0; digit /= 10) {
+                out.append((char) ('0' + fraction / digit));
+                fraction %= digit;
+            }
+        }
+    }
+
+    private static boolean isFastPath(double value) {
+        return Math.abs(value) < FAST_PATH_LIMIT; //false for NaN
+    }
+
+    /**
+     * Rounds a non-negative value to a whole number of 0.0001 units using half-even rounding on the
+     * exact binary value, like DecimalFormat does.
+     */
+    private static long scale(double value) {
+        final double product = value * SCALE;
+        // Dekker's algorithm: value * SCALE == product + error exactly
+        final double split = value * SPLITTER;
+        final double high = split - (split - value);
+        final double low = value - high;
+        final double error = (high * SCALE - product) + low * SCALE;
+
+        final double floor = Math.floor(product);
+        // the sign of (exact fraction - 0.5), both subtractions are exact where it matters
+        final double tie = ((product - floor) - 0.5) + error;
+        final long result = (long) floor;
+        if (tie > 0 || (tie == 0 && (result & 1) != 0)) {
+            return result + 1;
+        }
+        return result;
+    }
+
+    private static int countDigits(long value) {
+        int digits = 1;
+        for (long limit = 10; digits < 19 && value >= limit; limit *= 10) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    private static String formatSlow(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return Double.toString(value);
+        }
+        final BigDecimal rounded = BigDecimal.valueOf(value).setScale(FRACTION_DIGITS, RoundingMode.HALF_EVEN);
+        return rounded.signum() == 0 ? "0" : rounded.stripTrailingZeros().toPlainString();
+    }
+
+}
@@ -21,6 +21,9 @@ package org.krysalis.barcode4j.tools;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Utility functions for I/O operations.
@@ -41,4 +44,29 @@ public class IOUtil {
         }
     }
 
+    /**
+     * Writes an entry into a ZIP archive. Formats that are compressed already (see
+     * {@link MimeTypes#isCompressedFormat(String)}) are stored rather than deflated.
+     * @param zip the ZIP archive
+     * @param name the name of the entry
+     * @param format the short format name or MIME type of the data
+     * @param data the data
+     * @throws IOException if an I/O error occurs
+     * @since 2.4.1
+     */
+    public static void writeZipEntry(ZipOutputStream zip, String name, String format, byte[] data)
+            throws IOException {
+        final ZipEntry entry = new ZipEntry(name);
+        if (MimeTypes.isCompressedFormat(format)) {
+            final CRC32 crc = new CRC32();
+            crc.update(data);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(data.length);
+            entry.setCrc(crc.getValue());
+        }
+        zip.putNextEntry(entry);
+        zip.write(data);
+        zip.closeEntry();
+    }
+
 }
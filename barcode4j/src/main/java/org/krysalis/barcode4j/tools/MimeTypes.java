@@ -28,6 +28,13 @@ public class MimeTypes {
      */
     public static final String MIME_SVG  = "image/svg+xml";
 
+    /**
+     * Gzip compressed SVG (SVGZ) MIME type: <code>image/svg+xml-compressed</code>.
+     * When served over HTTP the content type is {@link #MIME_SVG} with a gzip content encoding.
+     * @since 2.4.1
+     */
+    public static final String MIME_SVGZ = "image/svg+xml-compressed";
+
     /**
      * PostScript (EPS) MIME type: <code>image/eps</code>
      */
@@ -58,8 +65,16 @@ public class MimeTypes {
      */
     public static final String MIME_BMP  = "image/bmp";
 
+    /**
+     * Short format names which select SVG output with all bars painted as a single path.
+     */
+    private static final String[] COMPACT_SVG_FORMATS = {"svg-compact", "svgz-compact"};
+
     private static final String[][] FORMAT_MAPPINGS = {
         {"svg", MIME_SVG},
+        {"svgz", MIME_SVGZ},
+        {COMPACT_SVG_FORMATS[0], MIME_SVG},
+        {COMPACT_SVG_FORMATS[1], MIME_SVGZ},
         {"eps", MIME_EPS},
         {"image/x-eps", MIME_EPS},
         {"tif", MIME_TIFF},
@@ -99,6 +114,68 @@ public class MimeTypes {
         return format.toLowerCase();
     }
 
+    /**
+     * Indicates whether a format is one of the short format names for compact SVG output
+     * ("svg-compact" or "svgz-compact"). {@link #expandFormat(String)} expands them to
+     * {@link #MIME_SVG} and {@link #MIME_SVGZ} respectively.
+     * @param format short format name or MIME type
+     * @return true if the format selects compact SVG output
+     * @since 2.4.1
+     */
+    public static boolean isCompactSVGFormat(String format) {
+        for (final String compact : COMPACT_SVG_FORMATS) {
+            if (compact.equalsIgnoreCase(format)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the usual file extension for an output format.
+     * @param format short format name or MIME type
+     * @return the file extension without the dot ("bin" for unknown formats)
+     * @since 2.4.1
+     */
+    public static String getFileExtension(String format) {
+        final String fmt = expandFormat(format);
+        if (fmt == null) {
+            return "bin";
+        }
+        switch (fmt) {
+            case MIME_SVG:
+                return "svg";
+            case MIME_SVGZ:
+                return "svgz";
+            case MIME_EPS:
+                return "eps";
+            case MIME_TIFF:
+                return "tif";
+            case MIME_JPEG:
+                return "jpg";
+            case MIME_PNG:
+                return "png";
+            case MIME_GIF:
+                return "gif";
+            case MIME_BMP:
+                return "bmp";
+            default:
+                return "bin";
+        }
+    }
+
+    /**
+     * Indicates whether a format is compressed already, so compressing it again (for example
+     * in a ZIP archive) gains nothing.
+     * @param format short format name or MIME type
+     * @return true for PNG, JPEG, GIF and compressed SVG
+     * @since 2.4.1
+     */
+    public static boolean isCompressedFormat(String format) {
+        final String fmt = expandFormat(format);
+        return MIME_PNG.equals(fmt) || MIME_JPEG.equals(fmt) || MIME_GIF.equals(fmt) || MIME_SVGZ.equals(fmt);
+    }
+
     /**
      * Indicates whether a format is a bitmap format.
      * @param format short format name or MIME type
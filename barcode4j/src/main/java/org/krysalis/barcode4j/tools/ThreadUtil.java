@@ -0,0 +1,48 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.tools;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Utilities concerning threads.
+ *
+ * @since 2.4.1
+ */
+public final class ThreadUtil {
+
+    private ThreadUtil() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     * @return the executor or null if virtual threads are not available (before Java 21)
+     */
+    @Nullable
+    public static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            //Java 21+, looked up reflectively as Barcode4J is built for older releases
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (final NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            //not available (or a preview feature on Java 19 and 20)
+            return null;
+        }
+    }
+
+}
@@ -73,6 +73,15 @@ public class BarcodeSchemaTest {
         validate(xml);
     }
 
+    @Test
+    void testCompactAttribute() throws IOException {
+        final String xml = "<barcode:barcode message=\"3216455597\" orientation=\"90\" compact=\"true\" xmlns:barcode=\"http://barcode4j.krysalis.org/ns\">\n" +
+            "    <barcode:qr/>\n" +
+            "</barcode:barcode>";
+
+        validate(xml);
+    }
+
     // Supported values for encodings are the strings defined in org.krysalis.barcode4j.tools.ECIUtil
     // These should match up to the canonical name values that are in Charset. eg;
     // StandardCharsets.UTF_8.name()
@@ -0,0 +1,105 @@
+package org.krysalis.barcode4j;
+
+import org.junit.jupiter.api.Test;
+import org.krysalis.barcode4j.configuration.DefaultConfiguration;
+import org.krysalis.barcode4j.output.eps.EPSCanvasProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Renders barcodes from many threads using the shared generators returned by
+ * {@link BarcodeUtil#getSharedGenerator(org.krysalis.barcode4j.configuration.Configuration)}
+ * and checks that every result matches the single-threaded output.
+ */
+class BarcodeUtilConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ITERATIONS = 50;
+
+    private static final Map<String, String[]> MESSAGES = new LinkedHashMap<>();
+
+    static {
+        MESSAGES.put("code128", new String[] {"Ab12", "Hello World! 0123456789"});
+        MESSAGES.put("ean-128", new String[] {"00123456789012345675", "0112345678901231" + "10ABC123"});
+        MESSAGES.put("ean-13", new String[] {"781248714120", "400638133393"});
+        MESSAGES.put("intl2of5", new String[] {"1234", "0123456789012345"});
+        MESSAGES.put("usps4cb", new String[] {"01234567094987654321", "0123456709498765432101234"});
+        MESSAGES.put("pdf417", new String[] {"PDF417", "Barcode4J PDF417 sample message 0123456789"});
+        MESSAGES.put("datamatrix", new String[] {"DM", "Barcode4J DataMatrix sample message 0123456789"});
+    }
+
+    @Test
+    void testSharedGeneratorsProduceTheSameOutput() throws Exception {
+        final BarcodeUtil util = new BarcodeUtil();
+
+        final Map<String, String> expected = new LinkedHashMap<>();
+        for (final Map.Entry<String, String[]> entry : MESSAGES.entrySet()) {
+            final BarcodeGenerator gen = BarcodeUtil.createBarcodeGenerator(
+                configuration(entry.getKey()), new DefaultBarcodeClassResolver());
+            for (final String msg : entry.getValue()) {
+                expected.put(entry.getKey() + '|' + msg, render(gen, msg));
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t;
+                results.add(executor.submit((Callable<Integer>) () -> {
+                    start.await();
+                    final List<String> keys = new ArrayList<>(expected.keySet());
+                    int checked = 0;
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        final String key = keys.get((i + offset) % keys.size());
+                        final String symbology = key.substring(0, key.indexOf('|'));
+                        final String msg = key.substring(key.indexOf('|') + 1);
+
+                        final BarcodeGenerator gen = util.getSharedGenerator(configuration(symbology));
+                        assertEquals(expected.get(key), render(gen, msg), key);
+                        checked++;
+                    }
+                    return checked;
+                }));
+            }
+            start.countDown();
+
+            for (final Future<Integer> result : results) {
+                assertEquals(ITERATIONS, result.get(60, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static DefaultConfiguration configuration(String symbology) {
+        final DefaultConfiguration cfg = new DefaultConfiguration("barcode");
+        cfg.addChild(new DefaultConfiguration(symbology));
+        return cfg;
+    }
+
+    private static String render(BarcodeGenerator gen, String msg) throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final EPSCanvasProvider canvas = new EPSCanvasProvider(out, 0);
+        gen.generateBarcode(canvas, msg);
+        canvas.finish();
+        final BarcodeDimension dim = gen.calcDimensions(msg);
+        final String eps = new String(out.toByteArray(), StandardCharsets.US_ASCII)
+            .replaceFirst("%%CreationDate: [^\\n]*", "");
+        return dim.getWidthPlusQuiet() + "x" + dim.getHeightPlusQuiet() + '\n' + eps;
+    }
+}
@@ -3,6 +3,7 @@ package org.krysalis.barcode4j;
 import org.junit.jupiter.api.Test;
 import org.krysalis.barcode4j.configuration.ConfigurationException;
 import org.krysalis.barcode4j.configuration.DefaultConfiguration;
+import org.krysalis.barcode4j.impl.ConfigurableBarcodeGenerator;
 import org.krysalis.barcode4j.impl.int2of5.Interleaved2Of5;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -44,4 +45,96 @@ class BarcodeUtilTest {
             new DefaultBarcodeClassResolver()
         ));
     }
+
+    @Test
+    void testCachedBarcodeGeneratorIsShared() throws ConfigurationException, BarcodeException {
+        final BarcodeUtil util = new BarcodeUtil();
+
+        final BarcodeGenerator first = util.getSharedGenerator(datamatrix("force-square", "10"));
+        final BarcodeGenerator second = util.getSharedGenerator(datamatrix("force-square", "10"));
+        assertSame(first, second);
+
+        final BarcodeGenerator other = util.getSharedGenerator(datamatrix("force-rectangle", "10"));
+        assertNotSame(first, other);
+    }
+
+    @Test
+    void testCachedBarcodeGeneratorIsFrozen() throws ConfigurationException, BarcodeException {
+        final BarcodeGenerator gen = new BarcodeUtil().getSharedGenerator(datamatrix("force-square", "10"));
+
+        final ConfigurableBarcodeGenerator configurable = (ConfigurableBarcodeGenerator) gen;
+        assertTrue(configurable.getBean().isFrozen());
+        assertThrows(IllegalStateException.class, () -> configurable.getBean().setModuleWidth(1.0));
+    }
+
+    @Test
+    void testCreateBarcodeGeneratorIsNotFrozen() throws ConfigurationException, BarcodeException {
+        final BarcodeGenerator gen = BarcodeUtil.createBarcodeGenerator(
+            datamatrix("force-square", "10"),
+            new DefaultBarcodeClassResolver()
+        );
+
+        assertFalse(((ConfigurableBarcodeGenerator) gen).getBean().isFrozen());
+    }
+
+    @Test
+    void testInstanceCreateBarcodeGeneratorIsNotShared() throws ConfigurationException, BarcodeException {
+        final BarcodeUtil util = new BarcodeUtil();
+        final BarcodeGenerator shared = util.getSharedGenerator(datamatrix("force-square", "10"));
+
+        final BarcodeGenerator first = util.createBarcodeGenerator(datamatrix("force-square", "10"));
+        final BarcodeGenerator second = util.createBarcodeGenerator(datamatrix("force-square", "10"));
+        assertNotSame(first, second);
+        assertNotSame(shared, first);
+
+        final ConfigurableBarcodeGenerator configurable = (ConfigurableBarcodeGenerator) first;
+        assertFalse(configurable.getBean().isFrozen());
+        configurable.getBean().setModuleWidth(1.0);
+        assertEquals(1.0, configurable.getBean().getModuleWidth());
+    }
+
+    @Test
+    void testGeneratorCacheCanBeDisabled() throws ConfigurationException, BarcodeException {
+        final BarcodeUtil util = new BarcodeUtil();
+        assertEquals(BarcodeUtil.DEFAULT_GENERATOR_CACHE_SIZE, util.getGeneratorCacheSize());
+
+        util.setGeneratorCacheSize(0);
+        final BarcodeGenerator first = util.getSharedGenerator(datamatrix("force-square", "10"));
+        final BarcodeGenerator second = util.getSharedGenerator(datamatrix("force-square", "10"));
+        assertNotSame(first, second);
+        assertTrue(((ConfigurableBarcodeGenerator) first).getBean().isFrozen());
+
+        assertThrows(IllegalArgumentException.class, () -> util.setGeneratorCacheSize(-1));
+    }
+
+    @Test
+    void testGeneratorCacheEvictsLeastRecentlyUsed() throws ConfigurationException, BarcodeException {
+        final BarcodeUtil util = new BarcodeUtil();
+        util.setGeneratorCacheSize(2);
+
+        final BarcodeGenerator a = util.getSharedGenerator(datamatrix("force-square", "1"));
+        final BarcodeGenerator b = util.getSharedGenerator(datamatrix("force-square", "2"));
+        assertSame(a, util.getSharedGenerator(datamatrix("force-square", "1")));
+
+        util.getSharedGenerator(datamatrix("force-square", "3"));
+        assertSame(a, util.getSharedGenerator(datamatrix("force-square", "1")));
+        assertNotSame(b, util.getSharedGenerator(datamatrix("force-square", "2")));
+
+        util.clearGeneratorCache();
+        assertNotSame(a, util.getSharedGenerator(datamatrix("force-square", "1")));
+    }
+
+    private static DefaultConfiguration datamatrix(String shape, String quietZone) {
+        final DefaultConfiguration cfg = new DefaultConfiguration("barcode");
+        cfg.setAttribute("message", "ignored by the cache");
+        final DefaultConfiguration dm = new DefaultConfiguration("datamatrix");
+        final DefaultConfiguration shapeCfg = new DefaultConfiguration("shape");
+        shapeCfg.setValue(shape);
+        dm.addChild(shapeCfg);
+        final DefaultConfiguration qz = new DefaultConfiguration("quiet-zone");
+        qz.setValue(quietZone);
+        dm.addChild(qz);
+        cfg.addChild(dm);
+        return cfg;
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.impl;
+
+import java.util.Random;
+import java.util.function.Function;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.krysalis.barcode4j.CapacityPlanner;
+import org.krysalis.barcode4j.SymbolCapacity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Assertions shared by the tests of the {@link CapacityPlanner} implementations: the planned
+ * size has to match the symbol that is actually generated.
+ *
+ * @since 2.4.1
+ */
+public final class CapacityPlannerAssertions {
+
+    private CapacityPlannerAssertions() {
+    }
+
+    /**
+     * Asserts that the planned capacity for a message matches the generated symbol, or that
+     * planning and generating both fail.
+     * @param planner the capacity planner
+     * @param encoder generates the symbol with the same settings as the planner
+     * @param encodeFailure the exception generating throws for a message that cannot be encoded
+     * @param msg the message
+     * @param context a description of the settings for the assertion messages
+     * @return the planned capacity for symbology-specific checks or null if planning failed
+     */
+    @Nullable
+    public static SymbolCapacity assertPlanMatchesSymbol(@NotNull CapacityPlanner planner,
+                                                         @NotNull Function<String, EncodedSymbol> encoder,
+                                                         @NotNull Class<? extends RuntimeException> encodeFailure,
+                                                         @NotNull String msg,
+                                                         @NotNull String context) {
+        final SymbolCapacity capacity;
+        try {
+            capacity = planner.planCapacity(msg);
+        } catch (IllegalArgumentException iae) {
+            assertThrows(encodeFailure, () -> encoder.apply(msg), context);
+            return null;
+        }
+        final EncodedSymbol symbol = encoder.apply(msg);
+
+        assertEquals(symbol.getWidth(), capacity.getWidth(), context);
+        assertEquals(symbol.getRowCount(), capacity.getRowCount(), context);
+        assertTrue(capacity.getHeadroom() >= 0, context);
+        return capacity;
+    }
+
+    /**
+     * Creates a random message from one of the alphabets, mostly short but sometimes long.
+     * @param rnd the random number generator
+     * @param alphabets the alphabets to choose the characters from
+     * @param maxShortLength the maximum length of a short message
+     * @param maxLongLength the maximum length of a long message
+     * @return the message
+     */
+    @NotNull
+    public static String randomMessage(@NotNull Random rnd, @NotNull String[] alphabets,
+                                       int maxShortLength, int maxLongLength) {
+        final String alphabet = alphabets[rnd.nextInt(alphabets.length)];
+        final int length = 1 + rnd.nextInt(rnd.nextBoolean() ? maxShortLength : maxLongLength);
+        final StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(alphabet.charAt(rnd.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+}
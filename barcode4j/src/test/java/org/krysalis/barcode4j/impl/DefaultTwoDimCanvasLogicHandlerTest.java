@@ -0,0 +1,157 @@
+package org.krysalis.barcode4j.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.krysalis.barcode4j.BarGroup;
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.TextAlignment;
+import org.krysalis.barcode4j.TwoDimBarcodeLogicHandler;
+import org.krysalis.barcode4j.impl.aztec.AztecBean;
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixBean;
+import org.krysalis.barcode4j.impl.pdf417.PDF417Bean;
+import org.krysalis.barcode4j.impl.qr.QRCodeBean;
+import org.krysalis.barcode4j.output.AbstractCanvasProvider;
+import org.krysalis.barcode4j.output.Canvas;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefaultTwoDimCanvasLogicHandlerTest {
+
+    private static Stream<Arguments> symbols() {
+        final DataMatrixBean dataMatrix = new DataMatrixBean();
+        final QRCodeBean qr = new QRCodeBean();
+        final AztecBean aztec = new AztecBean();
+        final PDF417Bean pdf417 = new PDF417Bean();
+        return Stream.of(
+            Arguments.of(dataMatrix, dataMatrix.encodeSymbol("Barcode4J DataMatrix 0123456789")),
+            Arguments.of(qr, qr.encodeSymbol("https://github.com/singingbush/barcode4j")),
+            Arguments.of(aztec, aztec.encodeSymbol("Barcode4J Aztec 0123456789")),
+            Arguments.of(pdf417, pdf417.encodeSymbol("Barcode4J PDF417 0123456789"))
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("symbols")
+    void testRectanglesCoverExactlyTheBlackModules(AbstractBarcodeBean bean, EncodedSymbol symbol) {
+        final ModuleGrid expected = new ModuleGrid();
+        symbol.generateBarcodeLogic(expected);
+
+        final RectRecorder rects = new RectRecorder();
+        symbol.generateBarcodeLogic(new DefaultTwoDimCanvasLogicHandler(bean, new Canvas(rects)));
+
+        final int[][] coverage = new int[expected.rows.size()][symbol.getWidth()];
+        int blackModules = 0;
+        for (final double[] r : rects.rects) {
+            final int col = toModule(r[0] - bean.getQuietZone(), bean.getModuleWidth());
+            final int row = toModule(r[1] - bean.getVerticalQuietZone(), bean.getBarHeight());
+            final int cols = toModule(r[2], bean.getModuleWidth());
+            final int rows = toModule(r[3], bean.getBarHeight());
+            assertTrue(cols > 0 && rows > 0, "empty rectangle");
+            for (int y = row; y < row + rows; y++) {
+                for (int x = col; x < col + cols; x++) {
+                    coverage[y][x]++;
+                }
+            }
+        }
+        for (int y = 0; y < coverage.length; y++) {
+            final boolean[] modules = expected.rows.get(y);
+            for (int x = 0; x < modules.length; x++) {
+                assertEquals(modules[x] ? 1 : 0, coverage[y][x], "module " + x + "," + y);
+                if (modules[x]) {
+                    blackModules++;
+                }
+            }
+        }
+        assertTrue(rects.rects.size() * 2 < blackModules,
+            rects.rects.size() + " rectangles for " + blackModules + " black modules");
+    }
+
+    @Test
+    void testRowsWithTheSameSpansAreMerged() {
+        final DataMatrixBean bean = new DataMatrixBean();
+        bean.setQuietZone(0);
+        final RectRecorder rects = new RectRecorder();
+        final TwoDimBarcodeLogicHandler handler = new DefaultTwoDimCanvasLogicHandler(
+            bean, new Canvas(rects), new BarcodeDimension(4, 4));
+
+        handler.startBarcode("msg", "msg");
+        for (int row = 0; row < 3; row++) {
+            handler.startRow();
+            handler.addBar(true, 1);
+            handler.addBar(row < 2, 1);
+            handler.addBar(false, 1);
+            handler.addBar(true, 1);
+            handler.endRow();
+        }
+        handler.endBarcode();
+
+        final double mw = bean.getModuleWidth();
+        assertEquals(3, rects.rects.size());
+        assertArrayEquals(new double[] {0, 0, 2 * mw, 2 * mw}, rects.rects.get(0), 0.00001);
+        assertArrayEquals(new double[] {0, 2 * mw, mw, mw}, rects.rects.get(1), 0.00001);
+        assertArrayEquals(new double[] {3 * mw, 0, mw, 3 * mw}, rects.rects.get(2), 0.00001);
+    }
+
+    private static int toModule(double mm, double moduleSize) {
+        return (int) Math.round(mm / moduleSize);
+    }
+
+    private static class ModuleGrid implements TwoDimBarcodeLogicHandler {
+
+        private final List<boolean[]> rows = new ArrayList<>();
+        private final List<Boolean> row = new ArrayList<>();
+
+        public void startRow() {
+            row.clear();
+        }
+
+        public void endRow() {
+            final boolean[] modules = new boolean[row.size()];
+            for (int i = 0; i < modules.length; i++) {
+                modules[i] = row.get(i);
+            }
+            rows.add(modules);
+        }
+
+        public void startBarcode(String msg, String formattedMsg) {
+        }
+
+        public void startBarGroup(BarGroup type, String submsg) {
+        }
+
+        public void addBar(boolean black, int width) {
+            for (int i = 0; i < width; i++) {
+                row.add(black);
+            }
+        }
+
+        public void endBarGroup() {
+        }
+
+        public void endBarcode() {
+        }
+    }
+
+    private static class RectRecorder extends AbstractCanvasProvider {
+
+        private final List<double[]> rects = new ArrayList<>();
+
+        RectRecorder() {
+            super(0);
+        }
+
+        public void deviceFillRect(double x, double y, double w, double h) {
+            rects.add(new double[] {x, y, w, h});
+        }
+
+        public void deviceText(String text, double x1, double x2, double y1, String fontName, double fontSize, TextAlignment textAlign) {
+            fail("2D symbols have no human-readable text");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.krysalis.barcode4j.impl;
+
+import org.junit.jupiter.api.Test;
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.impl.aztec.AztecBean;
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixBean;
+import org.krysalis.barcode4j.impl.datamatrix.SymbolShapeHint;
+import org.krysalis.barcode4j.impl.pdf417.PDF417Bean;
+import org.krysalis.barcode4j.impl.qr.QRCodeBean;
+import org.krysalis.barcode4j.output.CanvasProvider;
+import org.mockito.ArgumentCaptor;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class EncodedSymbolTest {
+
+    @Test
+    void testRecorderReplaysTheSameBars() {
+        final EncodedSymbol.Recorder recorder = new EncodedSymbol.Recorder();
+        assertNull(recorder.getSymbol());
+
+        recorder.startBarcode("msg", "formatted");
+        recorder.startRow();
+        recorder.addBar(true, 2);
+        recorder.addBar(false, 1);
+        recorder.addBar(true, 1);
+        recorder.endRow();
+        recorder.startRow();
+        recorder.addBar(false, 4);
+        recorder.endRow();
+        recorder.endBarcode();
+
+        final EncodedSymbol symbol = recorder.getSymbol();
+        assertNotNull(symbol);
+        assertEquals("msg", symbol.getMessage());
+        assertEquals("formatted", symbol.getFormattedMessage());
+        assertEquals(4, symbol.getWidth());
+        assertEquals(2, symbol.getRowCount());
+
+        final EncodedSymbol.Recorder copy = new EncodedSymbol.Recorder();
+        symbol.generateBarcodeLogic(copy);
+        final EncodedSymbol replayed = copy.getSymbol();
+        assertNotNull(replayed);
+        assertEquals(symbol.getWidth(), replayed.getWidth());
+        assertEquals(symbol.getRowCount(), replayed.getRowCount());
+
+        final BarcodeDimension dim = symbol.calcDimensions(0.5, 1.0, 2.0, 3.0);
+        assertEquals(2.0, dim.getWidth(), 0.0001);
+        assertEquals(2.0, dim.getHeight(), 0.0001);
+        assertEquals(6.0, dim.getWidthPlusQuiet(), 0.0001);
+        assertEquals(8.0, dim.getHeightPlusQuiet(), 0.0001);
+    }
+
+    @Test
+    void testRecorderRejectsEmptyBars() {
+        final EncodedSymbol.Recorder recorder = new EncodedSymbol.Recorder();
+        recorder.startBarcode("msg", "msg");
+        recorder.startRow();
+        assertThrows(IllegalArgumentException.class, () -> recorder.addBar(true, 0));
+    }
+
+    @Test
+    void testDataMatrixIsEncodedOnce() {
+        final String msg = "This is a larger message that requires 24x24";
+        final DataMatrixBean bean = spy(new DataMatrixBean());
+        bean.setShape(SymbolShapeHint.FORCE_SQUARE);
+        final BarcodeDimension dim = generateBarcode(bean, msg);
+        verify(bean, times(1)).encodeSymbol(anyString());
+        assertSameSize(bean.calcDimensions(msg), dim);
+
+        final EncodedSymbol symbol = bean.encodeSymbol(msg);
+        assertEquals(24, symbol.getWidth());
+        assertEquals(24, symbol.getRowCount());
+    }
+
+    @Test
+    void testQRCodeIsEncodedOnce() {
+        final String msg = "https://github.com/singingbush/barcode4j";
+        final QRCodeBean bean = spy(new QRCodeBean());
+        final BarcodeDimension dim = generateBarcode(bean, msg);
+        verify(bean, times(1)).encodeSymbol(anyString());
+        assertSameSize(bean.calcDimensions(msg), dim);
+    }
+
+    @Test
+    void testAztecIsEncodedOnce() {
+        final String msg = "Hello Aztec Barcodes!";
+        final AztecBean bean = spy(new AztecBean());
+        final BarcodeDimension dim = generateBarcode(bean, msg);
+        verify(bean, times(1)).encodeSymbol(anyString());
+        assertSameSize(bean.calcDimensions(msg), dim);
+    }
+
+    @Test
+    void testPDF417IsEncodedOnce() {
+        final String msg = "Barcode4J PDF417 sample message 0123456789";
+        final PDF417Bean bean = spy(new PDF417Bean());
+        final BarcodeDimension dim = generateBarcode(bean, msg);
+        verify(bean, times(1)).encodeSymbol(anyString());
+        assertSameSize(bean.calcDimensions(msg), dim);
+    }
+
+    /**
+     * Generates a barcode, checking that the dimensions did not require encoding the message again.
+     * @return the dimensions that were established on the canvas
+     */
+    private static BarcodeDimension generateBarcode(AbstractBarcodeBean bean, String msg) {
+        final CanvasProvider canvas = mock(CanvasProvider.class);
+
+        bean.generateBarcode(canvas, msg);
+
+        verify(bean, never()).calcDimensions(anyString());
+
+        final ArgumentCaptor<BarcodeDimension> dim = ArgumentCaptor.forClass(BarcodeDimension.class);
+        verify(canvas).establishDimensions(dim.capture());
+        return dim.getValue();
+    }
+
+    private static void assertSameSize(BarcodeDimension expected, BarcodeDimension actual) {
+        assertEquals(expected.getWidthPlusQuiet(), actual.getWidthPlusQuiet(), 0.0001);
+        assertEquals(expected.getHeightPlusQuiet(), actual.getHeightPlusQuiet(), 0.0001);
+    }
+
+}
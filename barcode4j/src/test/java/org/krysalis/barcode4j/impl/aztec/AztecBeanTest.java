@@ -4,11 +4,15 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.krysalis.barcode4j.SymbolCapacity;
 import org.krysalis.barcode4j.output.CanvasProvider;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.krysalis.barcode4j.impl.CapacityPlannerAssertions.assertPlanMatchesSymbol;
+import static org.krysalis.barcode4j.impl.CapacityPlannerAssertions.randomMessage;
 import static org.mockito.Mockito.*;
 
 class AztecBeanTest {
@@ -55,7 +59,34 @@ class AztecBeanTest {
         bean.generateBarcode(provider, "Hello Aztec Barcodes!");
 
         // we can verify that DefaultTwoDimCanvasLogicHandler::addBar was invoked by checking the provider's deviceFillRect is called
+        // (adjacent black modules are merged, so there are fewer rectangles than the symbol's 179 black modules)
         verify(provider, times(1)).establishDimensions(any());
-        verify(provider, times(179)).deviceFillRect(anyDouble(), anyDouble(), anyDouble(), anyDouble());
+        verify(provider, times(79)).deviceFillRect(anyDouble(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void testPlanCapacity() {
+        final String[] alphabets = {
+            "0123456789",
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZ ",
+            "abcdefghijklmnopqrstuvwxyz0123456789 .,:-\r\n",
+            "\u00e4\u00f6\u00fc\u00e9\u00e8\u0000\u0001abc"
+        };
+        final int[] layerSettings = {0, 0, -2, -4, 3, 8, 23};
+        final Random rnd = new Random(33);
+        for (int i = 0; i < 300; i++) {
+            final String msg = randomMessage(rnd, alphabets, 30, 600);
+
+            final AztecBean bean = new AztecBean();
+            bean.setErrorCorrectionLevel(23 + rnd.nextInt(60));
+            bean.setLayers(layerSettings[rnd.nextInt(layerSettings.length)]);
+
+            final String context = msg + " (" + bean.getErrorCorrectionLevel() + "%, " + bean.getLayers() + " layers)";
+            final SymbolCapacity capacity = assertPlanMatchesSymbol(
+                    bean, bean::encodeSymbol, IllegalArgumentException.class, msg, context);
+            if (capacity != null) {
+                assertEquals(SymbolCapacity.Unit.BITS, capacity.getUnit());
+            }
+        }
     }
 }
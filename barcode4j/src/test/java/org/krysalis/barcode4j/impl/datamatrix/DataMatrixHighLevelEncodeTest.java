@@ -356,6 +356,37 @@ public class DataMatrixHighLevelEncodeTest {
         assertEquals("236 185 185 29 196 196 129 56", visualized);
     }
 
+    @Test
+    void testMinimalEncodation() throws Exception {
+        String visualized;
+
+        //C40 without the final unlatch, 8 instead of 10 codewords
+        visualized = encodeHighLevelMinimal("CC5B8CFA 01");
+        assertEquals("230 102 138 95 177 120 244 131", visualized);
+
+        //Text followed by ASCII, 8 instead of 10 codewords
+        visualized = encodeHighLevelMinimal("2cbe0x2AA");
+        assertEquals("239 40 16 113 70 37 210 66", visualized);
+
+        //ASCII followed by C40, 8 instead of 10 codewords
+        visualized = encodeHighLevelMinimal("IEC20ECJA4");
+        assertEquals("74 230 115 7 27 225 145 249", visualized);
+
+        //Macro header and trailer
+        visualized = encodeHighLevelMinimal("[)>\u001E05\u001D5555\u001C6666\u001E\u0004");
+        assertEquals("236 185 185 29 196 196 129 56", visualized);
+
+        String[] messages = new String[] {"AIMAIMAIM", "aimaimaim{txt}\u0004", "ABC>ABC123>ABCDE",
+                ".A.C1.3.DATA.123DATA.123DATA", "«äöüé» 23£ 1234567890123456789",
+                createBinaryMessage(277), "Hello World!", "CREX-TAN:hhh"};
+        for (String msg : messages) {
+            int annexP = DataMatrixHighLevelEncoder.encodeHighLevel(msg).length();
+            int minimal = DataMatrixHighLevelEncoder.encodeHighLevel(msg,
+                    SymbolShapeHint.FORCE_NONE, null, null, true).length();
+            assertTrue(minimal <= annexP, msg);
+        }
+    }
+
     @Test
     void testDataURL() throws Exception {
         String visualized;
@@ -372,6 +403,12 @@ public class DataMatrixHighLevelEncodeTest {
         assertEquals("127 85 102 116 117 127 129 56", visualized);
     }
 
+    private String encodeHighLevelMinimal(String msg) throws IOException {
+        String encoded = DataMatrixHighLevelEncoder.encodeHighLevel(msg,
+                SymbolShapeHint.FORCE_NONE, null, null, true);
+        return TestHelper.visualize(encoded);
+    }
+
     private String encodeHighLevel(String msg) throws IOException {
         String encoded = DataMatrixHighLevelEncoder.encodeHighLevel(msg);
         //DecodeHighLevel.decode(encoded);
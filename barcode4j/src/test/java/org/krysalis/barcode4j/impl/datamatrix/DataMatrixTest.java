@@ -9,6 +9,7 @@ import org.krysalis.barcode4j.*;
 import org.krysalis.barcode4j.output.CanvasProvider;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.krysalis.barcode4j.impl.CapacityPlannerAssertions.assertPlanMatchesSymbol;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
@@ -97,4 +98,27 @@ class DataMatrixTest {
 
         assertThrows(IllegalArgumentException.class, () -> logic.generateBarcodeLogic(mockHandler, message, SymbolShapeHint.FORCE_NONE, null, null));
     }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        VALID_NUMERIC_MESSAGE,
+        VALID_ASCII_MESSAGE,
+        VALID_TEXT_MESSAGE_FR
+    })
+    @DisplayName("The planned capacity should match the generated symbol")
+    void testPlanCapacity(final String message) {
+        final SymbolShapeHint[] shapes = {
+            SymbolShapeHint.FORCE_NONE, SymbolShapeHint.FORCE_SQUARE, SymbolShapeHint.FORCE_RECTANGLE
+        };
+        for (SymbolShapeHint shape : shapes) {
+            final DataMatrix impl = new DataMatrix();
+            impl.getDataMatrixBean().setShape(shape);
+
+            final SymbolCapacity capacity = assertPlanMatchesSymbol(impl, impl.getDataMatrixBean()::encodeSymbol,
+                    IllegalArgumentException.class, message, shape.getName());
+            assertNotNull(capacity, shape.getName());
+            assertEquals(SymbolCapacity.Unit.CODEWORDS, capacity.getUnit());
+            assertEquals(DataMatrixSymbolInfo.lookup(capacity.getUsed(), shape).dataCapacity, capacity.getCapacity());
+        }
+    }
 }
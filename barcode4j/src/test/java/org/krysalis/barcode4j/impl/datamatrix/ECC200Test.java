@@ -17,9 +17,12 @@
 /* $Id: ECC200Test.java,v 1.3 2006-12-22 15:58:27 jmaerki Exp $ */
 package org.krysalis.barcode4j.impl.datamatrix;
 
+import java.util.Arrays;
+
 import org.junit.jupiter.api.Test;
 import org.krysalis.barcode4j.tools.TestHelper;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 /**
@@ -42,5 +45,31 @@ public class ECC200Test {
         s = DataMatrixErrorCorrection.encodeECC200(String.valueOf(cw), symbolInfo);
         assertEquals("66 129 70 138 234 82 82 95", TestHelper.visualize(s));
     }
+
+    @Test
+    void testInterleavedBlocks() throws Exception {
+        //144x144 uses 10 interleaved blocks of different data lengths
+        DataMatrixSymbolInfo symbolInfo = DataMatrixSymbolInfo.lookup(1558);
+        assertEquals(10, symbolInfo.getInterleavedBlockCount());
+        int[] cw = new int[1558];
+        char[] chars = new char[cw.length];
+        for (int i = 0; i < cw.length; i++) {
+            cw[i] = (i * 7) % 256;
+            chars[i] = (char)cw[i];
+        }
+        int[] result = DataMatrixErrorCorrection.encodeECC200(cw, symbolInfo);
+        assertEquals(1558 + 620, result.length);
+        assertArrayEquals(cw, Arrays.copyOf(result, cw.length));
+        assertArrayEquals(new int[] {0, 176, 138, 116, 19, 177, 126, 13, 96, 132,
+                129, 60, 169, 152, 74, 187, 201, 187, 135, 150},
+                Arrays.copyOfRange(result, 1558, 1578));
+        assertArrayEquals(new int[] {51, 0, 214, 209, 105, 160, 98, 117, 77, 91},
+                Arrays.copyOfRange(result, result.length - 10, result.length));
+
+        String s = DataMatrixErrorCorrection.encodeECC200(String.valueOf(chars), symbolInfo);
+        for (int i = 0; i < result.length; i++) {
+            assertEquals(result[i], s.charAt(i), "Codeword " + i);
+        }
+    }
     
 }
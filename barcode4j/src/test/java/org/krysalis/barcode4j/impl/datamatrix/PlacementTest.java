@@ -18,10 +18,13 @@
 
 package org.krysalis.barcode4j.impl.datamatrix;
 
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 import org.krysalis.barcode4j.tools.TestHelper;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 /**
  * Tests the DataMatrix placement algorithm.
@@ -58,6 +61,36 @@ public class PlacementTest {
         }
     }
     
+    @Test
+    void testPlacementMapMatchesPlacement() throws Exception {
+        Random rnd = new Random(22);
+        for (DataMatrixSymbolInfo symbolInfo : DataMatrixSymbolInfo.PROD_SYMBOLS) {
+            int numcols = symbolInfo.getSymbolDataWidth();
+            int numrows = symbolInfo.getSymbolDataHeight();
+            DataMatrixPlacementMap map = DataMatrixPlacementMap.getInstance(numcols, numrows);
+            assertEquals(symbolInfo.getCodewordCount(), map.getCodewordCount(),
+                    "Codewords for " + numcols + "x" + numrows);
+            assertSame(map, DataMatrixPlacementMap.getInstance(numcols, numrows));
+
+            int[] codewords = new int[map.getCodewordCount()];
+            char[] chars = new char[codewords.length];
+            for (int i = 0; i < codewords.length; i++) {
+                codewords[i] = rnd.nextInt(256);
+                chars[i] = (char)codewords[i];
+            }
+            DefaultDataMatrixPlacement placement = new DefaultDataMatrixPlacement(
+                    String.valueOf(chars), numcols, numrows);
+            placement.place();
+            long[] matrix = map.place(codewords);
+            for (int row = 0; row < numrows; row++) {
+                for (int col = 0; col < numcols; col++) {
+                    assertEquals(placement.getBit(col, row), map.getBit(matrix, col, row),
+                            "Module " + col + "/" + row + " in " + numcols + "x" + numrows);
+                }
+            }
+        }
+    }
+
     private class DebugPlacement extends DefaultDataMatrixPlacement {
 
         public DebugPlacement(String codewords, int numcols, int numrows) {
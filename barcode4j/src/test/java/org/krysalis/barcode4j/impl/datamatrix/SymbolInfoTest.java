@@ -109,4 +109,47 @@ public class SymbolInfoTest {
         assertNull(info);
     }
 
+    @Test
+    void testIndexedLookupMatchesLinearScan() throws Exception {
+        final Dimension[] sizes = {null, new Dimension(12, 12), new Dimension(20, 20),
+                new Dimension(26, 12), new Dimension(48, 48), new Dimension(144, 144)};
+        final SymbolShapeHint[] shapes = {SymbolShapeHint.FORCE_NONE,
+                SymbolShapeHint.FORCE_SQUARE, SymbolShapeHint.FORCE_RECTANGLE};
+        for (SymbolShapeHint shape : shapes) {
+            for (Dimension minSize : sizes) {
+                for (Dimension maxSize : sizes) {
+                    for (int n = 0; n <= 1560; n++) {
+                        assertSame(linearLookup(n, shape, minSize, maxSize),
+                                DataMatrixSymbolInfo.lookup(n, shape, minSize, maxSize, false),
+                                n + " codewords, " + shape + ", " + minSize + " - " + maxSize);
+                    }
+                }
+            }
+        }
+    }
+
+    private static DataMatrixSymbolInfo linearLookup(int dataCodewords, SymbolShapeHint shape,
+            Dimension minSize, Dimension maxSize) {
+        for (DataMatrixSymbolInfo symbol : DataMatrixSymbolInfo.PROD_SYMBOLS) {
+            if (shape == SymbolShapeHint.FORCE_SQUARE && symbol.rectangular) {
+                continue;
+            }
+            if (shape == SymbolShapeHint.FORCE_RECTANGLE && !symbol.rectangular) {
+                continue;
+            }
+            if (minSize != null && (symbol.getSymbolWidth() < minSize.width
+                    || symbol.getSymbolHeight() < minSize.height)) {
+                continue;
+            }
+            if (maxSize != null && (symbol.getSymbolWidth() > maxSize.width
+                    || symbol.getSymbolHeight() > maxSize.height)) {
+                continue;
+            }
+            if (dataCodewords <= symbol.dataCapacity) {
+                return symbol;
+            }
+        }
+        return null;
+    }
+
 }
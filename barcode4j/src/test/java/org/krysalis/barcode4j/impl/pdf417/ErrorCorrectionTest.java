@@ -18,10 +18,15 @@
 
 package org.krysalis.barcode4j.impl.pdf417;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import org.junit.jupiter.api.Test;
 import org.krysalis.barcode4j.tools.TestHelper;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Tests for the error correction code.
@@ -40,4 +45,53 @@ public class ErrorCorrectionTest {
         assertEquals(expected, TestHelper.visualize(ec));
     }
 
+    @Test
+    void testErrorCorrectionInPlace() throws Exception {
+        int[] codewords = {5, 453, 178, 121, 239, -1, -1, -1, -1, 42};
+        PDF417ErrorCorrection.generateErrorCorrection(codewords, 5, 1);
+        assertArrayEquals(new int[] {5, 453, 178, 121, 239, 452, 327, 657, 619, 42}, codewords);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PDF417ErrorCorrection.generateErrorCorrection(new int[8], 5, 1));
+    }
+
+    @Test
+    void testErrorCorrectionAgainstReference() throws Exception {
+        Random rnd = new Random(929);
+        for (int level = 0; level <= 8; level++) {
+            for (int len : new int[] {1, 2, 17, 300, 929}) {
+                int[] data = new int[len];
+                for (int i = 0; i < len; i++) {
+                    //include runs of zeros, which skip the multiplication
+                    data[i] = rnd.nextInt(4) == 0 ? 0 : rnd.nextInt(929);
+                }
+                int k = PDF417ErrorCorrection.getErrorCorrectionCodewordCount(level);
+                int[] codewords = Arrays.copyOf(data, len + k);
+                PDF417ErrorCorrection.generateErrorCorrection(codewords, len, level);
+                assertArrayEquals(generateReference(data, level),
+                        Arrays.copyOfRange(codewords, len, len + k), "level " + level + ", " + len + " codewords");
+            }
+        }
+    }
+
+    /** The straightforward implementation of 4.10 in ISO/IEC 15438:2001(E). */
+    private static int[] generateReference(int[] data, int errorCorrectionLevel) {
+        int k = PDF417ErrorCorrection.getErrorCorrectionCodewordCount(errorCorrectionLevel);
+        int[] e = new int[k];
+        for (int d : data) {
+            int t1 = (d + e[k - 1]) % 929;
+            for (int j = k - 1; j >= 1; j--) {
+                int t2 = (t1 * PDF417Constants.EC_COEFFICIENTS[errorCorrectionLevel][j]) % 929;
+                e[j] = (e[j - 1] + 929 - t2) % 929;
+            }
+            int t2 = (t1 * PDF417Constants.EC_COEFFICIENTS[errorCorrectionLevel][0]) % 929;
+            e[0] = (929 - t2) % 929;
+        }
+        int[] result = new int[k];
+        for (int j = 0; j < k; j++) {
+            result[j] = e[k - 1 - j] != 0 ? 929 - e[k - 1 - j] : 0;
+        }
+        return result;
+    }
+
 }
@@ -2,10 +2,12 @@ package org.krysalis.barcode4j.impl.pdf417;
 
 import org.junit.jupiter.api.Test;
 import org.krysalis.barcode4j.BarGroup;
+import org.krysalis.barcode4j.SymbolCapacity;
 import org.krysalis.barcode4j.TwoDimBarcodeLogicHandler;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.krysalis.barcode4j.impl.CapacityPlannerAssertions.assertPlanMatchesSymbol;
 
 /**
  * @author Samael Bate (singingbush)
@@ -45,6 +47,30 @@ class PDF417Test {
         assertEquals(expected, handler.toString());
     }
 
+    @Test
+    void testPlanCapacity() {
+        final StringBuilder sb = new StringBuilder();
+        for (int len = 1; len <= 400; len += 13) {
+            while (sb.length() < len) {
+                sb.append((char)('A' + sb.length() % 26)).append(sb.length() % 10);
+            }
+            final String msg = sb.substring(0, len);
+            for (int ecLevel = 0; ecLevel <= 4; ecLevel += 2) {
+                final PDF417Bean bean = new PDF417Bean();
+                bean.setErrorCorrectionLevel(ecLevel);
+                if (len % 2 == 0) {
+                    bean.setColumns(12);
+                }
+
+                final SymbolCapacity capacity = assertPlanMatchesSymbol(
+                        bean, bean::encodeSymbol, IllegalArgumentException.class, msg, msg);
+                if (capacity != null) {
+                    assertEquals(SymbolCapacity.Unit.CODEWORDS, capacity.getUnit());
+                }
+            }
+        }
+    }
+
     private static final class MockTwoDimBarcodeLogicHandler implements TwoDimBarcodeLogicHandler {
         private final StringBuffer sb;
 
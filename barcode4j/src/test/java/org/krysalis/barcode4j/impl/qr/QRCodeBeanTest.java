@@ -18,10 +18,18 @@
 package org.krysalis.barcode4j.impl.qr;
 
 import org.junit.jupiter.api.Test;
+import org.krysalis.barcode4j.SymbolCapacity;
+
+import com.google.zxing.qrcode.decoder.Mode;
+import com.google.zxing.qrcode.decoder.Version;
+import com.google.zxing.qrcode.encoder.Encoder;
 
 import java.awt.Dimension;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.krysalis.barcode4j.impl.CapacityPlannerAssertions.assertPlanMatchesSymbol;
+import static org.krysalis.barcode4j.impl.CapacityPlannerAssertions.randomMessage;
 
 /**
  * Tests the QR Code bean.
@@ -65,4 +73,107 @@ public class QRCodeBeanTest {
         assertEquals('M', bean.getErrorCorrectionLevel());
     }
 
+
+    @Test
+    void testPlanCapacity() {
+        final String[] alphabets = {
+            "0123456789",
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ $%*+-./:",
+            "abcdefghijklmnopqrstuvwxyz0123456789 .,;-",
+            "\u00e4\u00f6\u00fc\u00e9\u00e8abc123",
+            "\u65e5\u672c\u8a9e\u6f22\u5b57",
+            "\u20ac\u4e2d\u6587 abc 123"
+        };
+        final String[] encodings = {"ISO-8859-1", "UTF-8", "SJIS"};
+        final char[] levels = {'L', 'M', 'Q', 'H'};
+        final Random rnd = new Random(40);
+        for (int i = 0; i < 300; i++) {
+            final String msg = randomMessage(rnd, alphabets, 40, 400);
+
+            final QRCodeBean bean = new QRCodeBean();
+            bean.setEncoding(encodings[rnd.nextInt(encodings.length)]);
+            bean.setErrorCorrectionLevel(levels[rnd.nextInt(levels.length)]);
+
+            final String context = msg + " (" + bean.getEncoding() + ", " + bean.getErrorCorrectionLevel() + ")";
+            final SymbolCapacity capacity = assertPlanMatchesSymbol(
+                    bean, bean::encodeSymbol, RuntimeException.class, msg, context);
+            if (capacity != null) {
+                assertEquals(SymbolCapacity.Unit.BITS, capacity.getUnit());
+            }
+        }
+    }
+
+    @Test
+    void testPlanCapacityBitsAgainstZXingVersion() {
+        //one repeated character per mode: numeric, alphanumeric, byte, byte with ECI and Kanji
+        final String[][] modes = {
+            {"7", "ISO-8859-1"},
+            {"A", "ISO-8859-1"},
+            {"a", "ISO-8859-1"},
+            {"\u00e9", "UTF-8"},
+            {"\u65e5", "SJIS"}
+        };
+        for (final String[] mode : modes) {
+            for (final char level : new char[] {'L', 'M', 'Q', 'H'}) {
+                //ZXing chooses the smallest version the message fits in, so at the length where the
+                //version grows the planned bits must exceed the previous version's capacity; checked
+                //for version 2 and where the character count indicator gets longer (versions 10 and 27)
+                int length = 1;
+                for (final int versionNumber : new int[] {2, 10, 27}) {
+                    length = findFirstLength(mode[0], mode[1], level, versionNumber, length);
+                    final String context = length + " x " + mode[0] + " (" + mode[1] + ", " + level + ")";
+                    final SymbolCapacity capacity = planCapacity(mode[0], length, mode[1], level);
+                    final SymbolCapacity previous = planCapacity(mode[0], length - 1, mode[1], level);
+                    assertEquals(getVersionNumber(capacity) - 1, getVersionNumber(previous), context);
+                    assertTrue(previous.getUsed() <= previous.getCapacity(), context);
+
+                    final Version version = Version.getVersionForNumber(getVersionNumber(capacity));
+                    final Version previousVersion = Version.getVersionForNumber(getVersionNumber(previous));
+                    final Mode zxingMode = "SJIS".equals(mode[1]) ? Mode.KANJI : Encoder.chooseMode(mode[0]);
+                    final int usedInPreviousVersion = capacity.getUsed()
+                            - zxingMode.getCharacterCountBits(version) + zxingMode.getCharacterCountBits(previousVersion);
+                    assertTrue((usedInPreviousVersion + 7) / 8 * 8 > previous.getCapacity(), context);
+                }
+            }
+        }
+    }
+
+    /** Binary search for the shortest repetition of the character that needs at least the version. */
+    private static int findFirstLength(String ch, String encoding, char level, int versionNumber, int from) {
+        int low = from;
+        int high = from;
+        while (fitsBelow(ch, high, encoding, level, versionNumber)) {
+            low = high + 1;
+            high *= 2;
+        }
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (fitsBelow(ch, mid, encoding, level, versionNumber)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static boolean fitsBelow(String ch, int length, String encoding, char level, int versionNumber) {
+        try {
+            return getVersionNumber(planCapacity(ch, length, encoding, level)) < versionNumber;
+        } catch (IllegalArgumentException iae) {
+            return false; //too big for version 40
+        }
+    }
+
+    private static SymbolCapacity planCapacity(String ch, int length, String encoding, char level) {
+        final StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(ch);
+        }
+        return QRLogicImpl.planCapacity(sb.toString(), encoding, level);
+    }
+
+    private static int getVersionNumber(SymbolCapacity capacity) {
+        return (capacity.getWidth() - 17) / 4;
+    }
 }
@@ -0,0 +1,28 @@
+package org.krysalis.barcode4j.output;
+
+import org.junit.jupiter.api.Test;
+import org.krysalis.barcode4j.TextAlignment;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AbstractXMLGeneratingCanvasProviderTest {
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void testNumberFormatting() {
+        final AbstractXMLGeneratingCanvasProvider provider = new AbstractXMLGeneratingCanvasProvider(0) {
+            @Override
+            public void deviceFillRect(double x, double y, double w, double h) {
+            }
+
+            @Override
+            public void deviceText(String text, double x1, double x2, double y1, String fontName,
+                                   double fontSize, TextAlignment textAlign) {
+            }
+        };
+        assertEquals("1.2346mm", provider.addUnit(1.23456));
+        assertEquals("-0.5", provider.formatNumber(-0.5));
+        assertEquals("0", provider.formatNumber(-0.00001));
+        assertEquals(provider.formatNumber(12.5), provider.getDecimalFormat().format(12.5));
+    }
+}
@@ -0,0 +1,80 @@
+package org.krysalis.barcode4j.output;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.krysalis.barcode4j.BarcodeGenerator;
+import org.krysalis.barcode4j.impl.code128.Code128Bean;
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixBean;
+import org.krysalis.barcode4j.impl.pdf417.PDF417Bean;
+import org.krysalis.barcode4j.impl.postnet.POSTNETBean;
+import org.krysalis.barcode4j.output.svg.SVGCanvasProvider;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CancellationTokenTest {
+
+    @Test
+    void testCancel() {
+        final CancellationToken token = new CancellationToken();
+        assertFalse(token.isCancelled());
+        token.check();
+        token.cancel();
+        assertTrue(token.isCancelled());
+        final RenderCancelledException e = assertThrows(RenderCancelledException.class, token::check);
+        assertFalse(e.isTimeout());
+    }
+
+    @Test
+    void testDeadline() {
+        final CancellationToken expired = CancellationToken.withTimeout(0, TimeUnit.MILLISECONDS);
+        assertTrue(expired.isCancelled());
+        assertTrue(assertThrows(RenderCancelledException.class, expired::check).isTimeout());
+
+        final CancellationToken later = CancellationToken.withTimeout(1, TimeUnit.HOURS);
+        assertFalse(later.isCancelled());
+        later.check();
+    }
+
+    @Test
+    void testBinding() {
+        assertNull(CancellationToken.current());
+        CancellationToken.checkCurrent();
+        final CancellationToken outer = new CancellationToken();
+        final CancellationToken inner = new CancellationToken();
+        try (CancellationToken.Binding binding = outer.bind()) {
+            assertSame(outer, CancellationToken.current());
+            try (CancellationToken.Binding nested = inner.bind()) {
+                assertSame(inner, CancellationToken.current());
+                inner.cancel();
+                assertThrows(RenderCancelledException.class, CancellationToken::checkCurrent);
+            }
+            assertSame(outer, CancellationToken.current());
+            CancellationToken.checkCurrent();
+        }
+        assertNull(CancellationToken.current());
+    }
+
+    @Test
+    void testGeneratorsCheckToken() throws Exception {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            text.append("Mixed text, 123 numbers! ");
+        }
+        assertCancelled(new DataMatrixBean(), text.toString());
+        assertCancelled(new PDF417Bean(), text.toString());
+        assertCancelled(new Code128Bean(), "123456");
+        assertCancelled(new POSTNETBean(), "12345");
+
+        // without a token, the same barcodes are generated as usual
+        new DataMatrixBean().generateBarcode(new SVGCanvasProvider(0), text.toString());
+    }
+
+    private static void assertCancelled(BarcodeGenerator gen, String msg) {
+        final CancellationToken token = new CancellationToken();
+        token.cancel();
+        try (CancellationToken.Binding binding = token.bind()) {
+            assertThrows(RenderCancelledException.class, () -> gen.generateBarcode(new SVGCanvasProvider(0), msg));
+        }
+    }
+}
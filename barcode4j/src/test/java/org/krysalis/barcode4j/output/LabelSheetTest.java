@@ -0,0 +1,115 @@
+package org.krysalis.barcode4j.output;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.TextAlignment;
+import org.krysalis.barcode4j.impl.code128.Code128Bean;
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixBean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LabelSheetTest {
+
+    @Test
+    void testLayout() {
+        final LabelSheet sheet = new LabelSheet(LabelSheet.A4_WIDTH, LabelSheet.A4_HEIGHT, 8, 3);
+        sheet.setMargin(10);
+        sheet.setGaps(5, 2);
+        assertEquals(24, sheet.getCellsPerPage());
+        assertEquals((210 - 20 - 10) / 3.0, sheet.getCellWidth(), 0.0001);
+        assertEquals((297 - 20 - 14) / 8.0, sheet.getCellHeight(), 0.0001);
+        assertEquals(210, sheet.getPageDimension().getWidthPlusQuiet());
+        assertEquals(297, sheet.getPageDimension().getHeightPlusQuiet());
+
+        assertThrows(IllegalArgumentException.class, () -> new LabelSheet(210, 297, 0, 3));
+        assertThrows(IllegalArgumentException.class, () -> new LabelSheet(0, 297, 8, 3));
+        assertThrows(IllegalArgumentException.class, () -> sheet.setMargin(105));
+        assertThrows(IllegalArgumentException.class, () -> sheet.setGaps(-1, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> sheet.getCell(new RecordingCanvasProvider(), 24));
+    }
+
+    @Test
+    void testDrawPage() {
+        final DataMatrixBean bean = new DataMatrixBean();
+        final RecordingCanvasProvider single = new RecordingCanvasProvider();
+        bean.generateBarcode(single, "A");
+        final BarcodeDimension dim = single.getDimensions();
+
+        final LabelSheet sheet = new LabelSheet(100, 50, 2, 2);
+        sheet.setMargin(5);
+        sheet.setGaps(10, 0);
+        final RecordingCanvasProvider page = new RecordingCanvasProvider();
+        page.establishDimensions(sheet.getPageDimension());
+        final Iterator<String> messages = Arrays.asList("A", "A", "A", "A", "A").iterator();
+        assertEquals(4, sheet.drawPage(page, bean, messages));
+        assertTrue(messages.hasNext());
+
+        //the page is set up once, the barcodes are painted centered into the cells
+        assertEquals(100, page.getDimensions().getWidthPlusQuiet());
+        final int rects = single.rects.size();
+        assertEquals(4 * rects, page.rects.size());
+        final double offsetX = (40 - dim.getWidthPlusQuiet()) / 2;
+        final double offsetY = (20 - dim.getHeightPlusQuiet()) / 2;
+        final double[][] cells = {{5, 5}, {55, 5}, {5, 25}, {55, 25}};
+        for (int cell = 0; cell < cells.length; cell++) {
+            for (int i = 0; i < rects; i++) {
+                final double[] expected = single.rects.get(i);
+                final double[] actual = page.rects.get(cell * rects + i);
+                assertEquals(expected[0] + cells[cell][0] + offsetX, actual[0], 0.0001);
+                assertEquals(expected[1] + cells[cell][1] + offsetY, actual[1], 0.0001);
+                assertEquals(expected[2], actual[2], 0.0001);
+                assertEquals(expected[3], actual[3], 0.0001);
+            }
+        }
+
+        assertEquals(1, sheet.drawPage(page, bean, messages));
+        assertEquals(0, sheet.drawPage(page, bean, messages));
+    }
+
+    @Test
+    void testBarcodeTooLarge() {
+        final LabelSheet sheet = new LabelSheet(100, 50, 5, 2);
+        final RecordingCanvasProvider page = new RecordingCanvasProvider();
+        page.establishDimensions(sheet.getPageDimension());
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> sheet.drawPage(page, new Code128Bean(), Arrays.asList("1234567890").iterator()));
+        assertTrue(e.getMessage().contains("doesn't fit into the cell"), e.getMessage());
+        assertTrue(page.rects.isEmpty());
+    }
+
+    @Test
+    void testText() {
+        final RecordingCanvasProvider page = new RecordingCanvasProvider();
+        final CellCanvasProvider cell = new CellCanvasProvider(page, 10, 20, 30, 40);
+        cell.establishDimensions(new BarcodeDimension(10, 20));
+        cell.deviceText("1", 1, 2, 3, "Helvetica", 2, TextAlignment.TA_CENTER);
+        assertArrayEquals(new double[] {21, 22, 33}, page.texts.get(0), 0.0001);
+        assertEquals(0, cell.getOrientation());
+    }
+
+    private static class RecordingCanvasProvider extends AbstractCanvasProvider {
+
+        private final List<double[]> rects = new ArrayList<>();
+        private final List<double[]> texts = new ArrayList<>();
+
+        RecordingCanvasProvider() {
+            super(0);
+        }
+
+        @Override
+        public void deviceFillRect(double x, double y, double w, double h) {
+            rects.add(new double[] {x, y, w, h});
+        }
+
+        @Override
+        public void deviceText(String text, double x1, double x2, double y1, String fontName, double fontSize,
+                               TextAlignment textAlign) {
+            texts.add(new double[] {x1, x2, y1});
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.krysalis.barcode4j.output;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.krysalis.barcode4j.impl.code128.Code128Bean;
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixBean;
+import org.krysalis.barcode4j.output.bitmap.BitmapBuilder;
+import org.krysalis.barcode4j.output.bitmap.BitmapCanvasProvider;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderLimitsTest {
+
+    @Test
+    void testEstimate() {
+        final Code128Bean bean = new Code128Bean();
+        final RenderCost cost = RenderCost.estimate(bean, "123456", 0, 300, BufferedImage.TYPE_BYTE_GRAY);
+        final BufferedImage image = BitmapBuilder.prepareImage(cost.getDimension(), 300, BufferedImage.TYPE_BYTE_GRAY);
+        assertEquals(image.getWidth(), cost.getWidth());
+        assertEquals(image.getHeight(), cost.getHeight());
+        assertEquals((long) image.getWidth() * image.getHeight(), cost.getPixels());
+        assertEquals(cost.getPixels(), cost.getImageBytes());
+        assertEquals(6, cost.getMessageLength());
+
+        final RenderCost rotated = RenderCost.estimate(bean, "123456", 90, 300, BufferedImage.TYPE_BYTE_GRAY);
+        assertEquals(cost.getWidth(), rotated.getHeight());
+
+        final RenderCost vector = RenderCost.estimate(bean, "123456", 0, 0, BufferedImage.TYPE_BYTE_GRAY);
+        assertEquals(0, vector.getPixels());
+        assertEquals(0, vector.getImageBytes());
+    }
+
+    @Test
+    void testImageBytes() {
+        assertEquals(2 * 10, RenderCost.getImageBytes(9, 10, BufferedImage.TYPE_BYTE_BINARY));
+        assertEquals(90, RenderCost.getImageBytes(9, 10, BufferedImage.TYPE_BYTE_GRAY));
+        assertEquals(180, RenderCost.getImageBytes(9, 10, BufferedImage.TYPE_USHORT_GRAY));
+        assertEquals(270, RenderCost.getImageBytes(9, 10, BufferedImage.TYPE_3BYTE_BGR));
+        assertEquals(360, RenderCost.getImageBytes(9, 10, BufferedImage.TYPE_INT_ARGB));
+    }
+
+    @Test
+    void testCheck() {
+        final DataMatrixBean bean = new DataMatrixBean();
+        final RenderLimits limits = RenderLimits.DEFAULT;
+        assertTrue(limits.check(bean, "Hello World", 0, 600, BufferedImage.TYPE_BYTE_BINARY).getPixels() > 0);
+        assertEquals(0, limits.check(bean, "Hello World", 0, 0, 0).getPixels());
+
+        final RenderLimitExceededException tooLong = assertThrows(RenderLimitExceededException.class,
+            () -> limits.withMaxMessageLength(5).check(bean, "Hello World", 0, 0, 0));
+        assertTrue(tooLong.getMessage().contains("longer than 5 characters"), tooLong.getMessage());
+        assertThrows(RenderLimitExceededException.class,
+            () -> limits.check(bean, "Hello World", 0, 4800, BufferedImage.TYPE_BYTE_BINARY));
+        assertThrows(RenderLimitExceededException.class,
+            () -> limits.withMaxPixels(1000).check(bean, "Hello World", 0, 600, BufferedImage.TYPE_BYTE_BINARY));
+        // a binary bitmap takes up an eighth of a grayscale one
+        final RenderLimits bytes = limits.withMaxImageBytes(2000);
+        bytes.check(bean, "Hello World", 0, 300, BufferedImage.TYPE_BYTE_BINARY);
+        assertThrows(RenderLimitExceededException.class,
+            () -> bytes.check(bean, "Hello World", 0, 300, BufferedImage.TYPE_BYTE_GRAY));
+
+    }
+
+    @Test
+    void testLimits() {
+        final RenderLimits limits = RenderLimits.UNLIMITED.withMaxMessageLength(10).withMaxResolution(600)
+            .withMaxPixels(1000).withMaxImageBytes(100);
+        assertEquals(10, limits.getMaxMessageLength());
+        assertEquals(600, limits.getMaxResolution());
+        assertEquals(1000, limits.getMaxPixels());
+        assertEquals(100, limits.getMaxImageBytes());
+        assertEquals(Integer.MAX_VALUE, RenderLimits.UNLIMITED.getMaxMessageLength());
+        assertTrue(limits.toString().contains("maxPixels=1000"));
+        assertThrows(IllegalArgumentException.class, () -> limits.withMaxPixels(0));
+    }
+
+    @Test
+    void testBitmapCanvasProvider() {
+        final Code128Bean bean = new Code128Bean();
+        final BitmapCanvasProvider canvas = new BitmapCanvasProvider(
+            new ByteArrayOutputStream(), "image/png", 2400, BufferedImage.TYPE_BYTE_GRAY, true, 0);
+        assertSame(RenderLimits.UNLIMITED, canvas.getRenderLimits());
+        canvas.setRenderLimits(RenderLimits.DEFAULT.withMaxPixels(10000));
+        assertThrows(RenderLimitExceededException.class, () -> bean.generateBarcode(canvas, "123456"));
+        assertNull(canvas.getBufferedImage());
+    }
+}
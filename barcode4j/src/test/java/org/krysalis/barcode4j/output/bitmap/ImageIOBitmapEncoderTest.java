@@ -0,0 +1,115 @@
+package org.krysalis.barcode4j.output.bitmap;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixBean;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageIOBitmapEncoderTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"image/png", "image/jpeg", "image/gif", "image/bmp"})
+    void testReusedWriterAndMetadataProduceTheSameOutput(String mime) throws Exception {
+        final BitmapCanvasProvider provider = new BitmapCanvasProvider(300, BufferedImage.TYPE_BYTE_GRAY, false, 0);
+        new DataMatrixBean().generateBarcode(provider, "Barcode4J DataMatrix 0123456789");
+        provider.finish();
+        final BufferedImage image = provider.getBufferedImage();
+
+        final ImageIOBitmapEncoder encoder = new ImageIOBitmapEncoder();
+        final byte[] first = encode(encoder, image, mime, 300);
+        assertArrayEquals(first, encode(encoder, image, mime, 300));
+        assertArrayEquals(first, encode(new ImageIOBitmapEncoder(), image, mime, 300));
+
+        encoder.dispose();
+        assertArrayEquals(first, encode(encoder, image, mime, 300));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"image/png", "image/jpeg"})
+    void testPooledWritersFromSeveralThreads(String mime) throws Exception {
+        final BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_BYTE_GRAY);
+        final ImageIOBitmapEncoder encoder = new ImageIOBitmapEncoder();
+        final byte[] expected = encode(new ImageIOBitmapEncoder(), image, mime, 300);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> encode(encoder, image, mime, 300)));
+            }
+            for (final Future<byte[]> result : results) {
+                assertArrayEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdown();
+            encoder.dispose();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {72, 300, 600})
+    void testResolutionPerImage(int resolution) throws Exception {
+        final BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_BYTE_GRAY);
+        final ImageIOBitmapEncoder encoder = new ImageIOBitmapEncoder();
+        encode(encoder, image, "image/png", 150);
+        final byte[] png = encode(encoder, image, "image/png", resolution);
+
+        final ImageReader reader = ImageIO.getImageReadersByMIMEType("image/png").next();
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(png))) {
+            reader.setInput(in);
+            final IIOMetadataNode root = (IIOMetadataNode) reader.getImageMetadata(0).getAsTree("javax_imageio_1.0");
+            final IIOMetadataNode pixelSize = (IIOMetadataNode) root.getElementsByTagName("HorizontalPixelSize").item(0);
+            assertEquals(25.4 / resolution, Double.parseDouble(pixelSize.getAttribute("value")), 0.0001);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_BYTE_BINARY, BufferedImage.TYPE_BYTE_INDEXED})
+    void testPaletteOfEveryImageIsWritten(int type) throws Exception {
+        final ImageIOBitmapEncoder encoder = new ImageIOBitmapEncoder();
+        final byte[] blackWhite = encode(encoder, createIndexedImage(type, 0x000000, 0xffffff), "image/gif", 300);
+        final byte[] redBlue = encode(encoder, createIndexedImage(type, 0xff0000, 0x0000ff), "image/gif", 300);
+
+        final BufferedImage first = ImageIO.read(new ByteArrayInputStream(blackWhite));
+        assertEquals(0x000000, first.getRGB(0, 0) & 0xffffff);
+        assertEquals(0xffffff, first.getRGB(1, 0) & 0xffffff);
+        final BufferedImage second = ImageIO.read(new ByteArrayInputStream(redBlue));
+        assertEquals(0xff0000, second.getRGB(0, 0) & 0xffffff);
+        assertEquals(0x0000ff, second.getRGB(1, 0) & 0xffffff);
+    }
+
+    private static BufferedImage createIndexedImage(int type, int color0, int color1) {
+        final byte[] r = {(byte) (color0 >> 16), (byte) (color1 >> 16)};
+        final byte[] g = {(byte) (color0 >> 8), (byte) (color1 >> 8)};
+        final byte[] b = {(byte) color0, (byte) color1};
+        final int bits = type == BufferedImage.TYPE_BYTE_BINARY ? 1 : 8;
+        final BufferedImage image = new BufferedImage(2, 1, type, new IndexColorModel(bits, 2, r, g, b));
+        image.getRaster().setSample(0, 0, 0, 0);
+        image.getRaster().setSample(1, 0, 0, 1);
+        return image;
+    }
+
+    private static byte[] encode(BitmapEncoder encoder, BufferedImage image, String mime, int resolution) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(image, out, mime, resolution);
+        return out.toByteArray();
+    }
+}
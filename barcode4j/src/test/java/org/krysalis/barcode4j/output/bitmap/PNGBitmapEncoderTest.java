@@ -0,0 +1,109 @@
+package org.krysalis.barcode4j.output.bitmap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixBean;
+import org.krysalis.barcode4j.tools.MimeTypes;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PNGBitmapEncoderTest {
+
+    @Test
+    void testRegisteredForPNG() {
+        assertEquals(PNGBitmapEncoder.class, BitmapEncoderRegistry.getInstance(MimeTypes.MIME_PNG).getClass());
+        assertEquals(PNGBitmapEncoder.class, BitmapEncoderRegistry.getInstance("image/x-png").getClass());
+        assertEquals(ImageIOBitmapEncoder.class, BitmapEncoderRegistry.getInstance(MimeTypes.MIME_JPEG).getClass());
+    }
+
+    @Test
+    void testInvalidCompressionLevel() {
+        assertThrows(IllegalArgumentException.class, () -> new PNGBitmapEncoder(10, false));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {BufferedImage.TYPE_BYTE_BINARY, BufferedImage.TYPE_BYTE_GRAY})
+    void testSameImageAsImageIO(int imageType) throws Exception {
+        final BitmapCanvasProvider provider = new BitmapCanvasProvider(300, imageType, false, 0);
+        new DataMatrixBean().generateBarcode(provider, "Barcode4J DataMatrix 0123456789");
+        provider.finish();
+        final BufferedImage image = provider.getBufferedImage();
+        assertTrue(PNGBitmapEncoder.isSupported(image));
+
+        final byte[] png = encode(new PNGBitmapEncoder(), image, 300);
+        final byte[] imageIO = encode(new ImageIOBitmapEncoder(), image, 300);
+        assertPixelsEqual(image, ImageIO.read(new ByteArrayInputStream(png)));
+        assertEquals(chunks(imageIO), chunks(png));
+    }
+
+    @Test
+    void testLargeImageCompressedInParallel() throws Exception {
+        final BufferedImage image = new BufferedImage(2500, 2000, BufferedImage.TYPE_BYTE_GRAY);
+        final Random random = new Random(7);
+        for (int y = 0; y < image.getHeight(); y += 10) {
+            final int gray = random.nextInt(256);
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.getRaster().setSample(x, y + random.nextInt(10), 0, random.nextInt(4) == 0 ? gray : 255 - gray);
+            }
+        }
+        final byte[] parallel = encode(new PNGBitmapEncoder(PNGBitmapEncoder.DEFAULT_COMPRESSION_LEVEL, true), image, 72);
+        assertPixelsEqual(image, ImageIO.read(new ByteArrayInputStream(parallel)));
+
+        final byte[] sequential = encode(new PNGBitmapEncoder(PNGBitmapEncoder.DEFAULT_COMPRESSION_LEVEL, false), image, 72);
+        assertPixelsEqual(image, ImageIO.read(new ByteArrayInputStream(sequential)));
+    }
+
+    @Test
+    void testOtherImagesUseImageIO() throws Exception {
+        final BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(3, 4, 0xFF336699);
+        assertFalse(PNGBitmapEncoder.isSupported(image));
+        assertFalse(PNGBitmapEncoder.isSupported(image.getSubimage(1, 1, 8, 8)));
+
+        assertPixelsEqual(image, ImageIO.read(new ByteArrayInputStream(encode(new PNGBitmapEncoder(), image, 72))));
+    }
+
+    private static byte[] encode(BitmapEncoder encoder, BufferedImage image, int resolution) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(image, out, MimeTypes.MIME_PNG, resolution);
+        return out.toByteArray();
+    }
+
+    private static void assertPixelsEqual(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    /** Lists the chunks of a PNG file with their contents, except for the image data. */
+    private static String chunks(byte[] png) {
+        final StringBuilder sb = new StringBuilder();
+        int pos = 8;
+        while (pos < png.length) {
+            final int length = ((png[pos] & 0xFF) << 24) | ((png[pos + 1] & 0xFF) << 16)
+                | ((png[pos + 2] & 0xFF) << 8) | (png[pos + 3] & 0xFF);
+            final String type = new String(png, pos + 4, 4, java.nio.charset.StandardCharsets.US_ASCII);
+            sb.append(type);
+            if (!"IDAT".equals(type)) {
+                for (int i = 0; i < length; i++) {
+                    sb.append(' ').append(png[pos + 8 + i] & 0xFF);
+                }
+            }
+            sb.append('\n');
+            pos += 12 + length;
+        }
+        return sb.toString();
+    }
+}
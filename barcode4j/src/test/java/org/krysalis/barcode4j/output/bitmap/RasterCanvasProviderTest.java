@@ -0,0 +1,108 @@
+package org.krysalis.barcode4j.output.bitmap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.krysalis.barcode4j.BarcodeDimension;
+import org.krysalis.barcode4j.HumanReadablePlacement;
+import org.krysalis.barcode4j.impl.AbstractBarcodeBean;
+import org.krysalis.barcode4j.impl.code128.Code128Bean;
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixBean;
+import org.krysalis.barcode4j.impl.fourstate.USPSIntelligentMailBean;
+import org.krysalis.barcode4j.impl.pdf417.PDF417Bean;
+import org.krysalis.barcode4j.impl.qr.QRCodeBean;
+import org.krysalis.barcode4j.impl.upcean.EAN13Bean;
+import org.krysalis.barcode4j.output.java2d.Java2DCanvasProvider;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RasterCanvasProviderTest {
+
+    private static final int[] ORIENTATIONS = {0, 90, 180, 270};
+    private static final int[] IMAGE_TYPES = {BufferedImage.TYPE_BYTE_BINARY, BufferedImage.TYPE_BYTE_GRAY};
+    private static final int[] RESOLUTIONS = {96, 300};
+
+    private static Stream<Arguments> barcodes() {
+        final List<Arguments> args = new ArrayList<>();
+        for (final int orientation : ORIENTATIONS) {
+            for (final int imageType : IMAGE_TYPES) {
+                for (final int resolution : RESOLUTIONS) {
+                    args.add(Arguments.of(new DataMatrixBean(), "Barcode4J DataMatrix 0123456789", orientation, imageType, resolution));
+                    args.add(Arguments.of(new PDF417Bean(), "Barcode4J PDF417 0123456789", orientation, imageType, resolution));
+                    args.add(Arguments.of(new QRCodeBean(), "https://github.com/singingbush/barcode4j", orientation, imageType, resolution));
+                    args.add(Arguments.of(withoutText(new Code128Bean()), "Hello World! 0123456789", orientation, imageType, resolution));
+                    args.add(Arguments.of(withoutText(new EAN13Bean()), "781248714120", orientation, imageType, resolution));
+                    args.add(Arguments.of(withoutText(new USPSIntelligentMailBean()), "01234567094987654321", orientation, imageType, resolution));
+                    args.add(Arguments.of(new EAN13Bean(), "781248714120", orientation, imageType, resolution));
+                }
+            }
+        }
+        return args.stream();
+    }
+
+    private static AbstractBarcodeBean withoutText(AbstractBarcodeBean bean) {
+        bean.setMsgPosition(HumanReadablePlacement.HRP_NONE);
+        return bean;
+    }
+
+    @ParameterizedTest
+    @MethodSource("barcodes")
+    void testSameOutputAsJava2D(AbstractBarcodeBean bean, String msg, int orientation, int imageType, int resolution) {
+        final RasterCanvasProvider raster = new RasterCanvasProvider(resolution, imageType, orientation);
+        bean.generateBarcode(raster, msg);
+        final BufferedImage actual = raster.getBufferedImage();
+
+        final BarcodeDimension dim = bean.calcDimensions(msg);
+        final BufferedImage expected = BitmapBuilder.prepareImage(dim, orientation, resolution, imageType);
+        final Graphics2D g2d = BitmapBuilder.prepareGraphics2D(expected, dim, orientation, false);
+        bean.generateBarcode(new Java2DCanvasProvider(g2d, orientation), msg);
+        g2d.dispose();
+
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        int differences = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y)) {
+                    differences++;
+                }
+            }
+        }
+        assertEquals(0, differences, "pixels that differ from the Java2D output");
+    }
+
+    @ParameterizedTest
+    @MethodSource("barcodes")
+    void testBitmapCanvasProviderUsesRasterOutput(AbstractBarcodeBean bean, String msg, int orientation, int imageType, int resolution) throws Exception {
+        final BitmapCanvasProvider bitmap = new BitmapCanvasProvider(resolution, imageType, false, orientation);
+        bean.generateBarcode(bitmap, msg);
+        bitmap.finish();
+
+        final RasterCanvasProvider raster = new RasterCanvasProvider(resolution, imageType, orientation);
+        bean.generateBarcode(raster, msg);
+
+        final BufferedImage expected = raster.getBufferedImage();
+        final BufferedImage actual = bitmap.getBufferedImage();
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    void testUnsupportedImageType() {
+        assertFalse(RasterCanvasProvider.isSupported(BufferedImage.TYPE_BYTE_GRAY, true));
+        assertFalse(RasterCanvasProvider.isSupported(BufferedImage.TYPE_INT_RGB, false));
+        assertTrue(RasterCanvasProvider.isSupported(BufferedImage.TYPE_BYTE_BINARY, false));
+        assertThrows(IllegalArgumentException.class,
+            () -> new RasterCanvasProvider(300, BufferedImage.TYPE_INT_RGB, 0));
+    }
+}
@@ -22,6 +22,7 @@ import org.krysalis.barcode4j.BarcodeGenerator;
 import org.krysalis.barcode4j.BarcodeUtil;
 import org.w3c.dom.Document;
 import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
 import javax.xml.transform.Transformer;
@@ -67,6 +68,27 @@ public class DOMSVGOutputTest {
         assertNotNull(frag);
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = {"ean-13", "datamatrix", "code39"})
+    void testCompactDOMSVG(final String symbology) throws Exception {
+        final DefaultConfiguration cfg = new DefaultConfiguration("cfg");
+        cfg.addChild(new DefaultConfiguration(symbology));
+
+        final BarcodeGenerator gen = BarcodeUtil.getInstance().createBarcodeGenerator(cfg);
+        final SVGCanvasProvider svg = new SVGCanvasProvider(false, 0);
+        svg.setCompact(true);
+        gen.generateBarcode(svg, "012345678905");
+
+        final Document dom = svg.getDOM();
+        assertEquals(0, dom.getElementsByTagName("rect").getLength());
+        assertEquals(1, dom.getElementsByTagName("path").getLength());
+        final Element path = (Element) dom.getElementsByTagName("path").item(0);
+        assertTrue(path.getAttribute("d").startsWith("M"));
+
+        final DocumentFragment frag = svg.getDOMFragment();
+        assertTrue(transformToXmlString(frag).contains("<path"));
+    }
+
     private String transformToXmlString(final Node node) throws TransformerException {
         final Transformer trans = TransformerFactory.newInstance().newTransformer();
         final StringWriter sw = new StringWriter();
@@ -0,0 +1,223 @@
+package org.krysalis.barcode4j.output.svg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.krysalis.barcode4j.HumanReadablePlacement;
+import org.krysalis.barcode4j.impl.AbstractBarcodeBean;
+import org.krysalis.barcode4j.impl.code128.Code128Bean;
+import org.krysalis.barcode4j.impl.code39.Code39Bean;
+import org.krysalis.barcode4j.impl.datamatrix.DataMatrixBean;
+import org.krysalis.barcode4j.impl.upcean.EAN13Bean;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingSVGCanvasProviderTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 90, 180, 270})
+    void testSameContentAsDOM(int orientation) throws Exception {
+        final DataMatrixBean bean = new DataMatrixBean();
+        final String msg = "Barcode4J DataMatrix 0123456789";
+
+        final SVGCanvasProvider dom = new SVGCanvasProvider(false, orientation);
+        bean.generateBarcode(dom, msg);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final StreamingSVGCanvasProvider streaming = new StreamingSVGCanvasProvider(out, orientation);
+        bean.generateBarcode(streaming, msg);
+        streaming.finish();
+
+        final Document expected = dom.getDOM();
+        final Document actual = parse(new ByteArrayInputStream(out.toByteArray()));
+        final Element expectedSvg = expected.getDocumentElement();
+        final Element actualSvg = actual.getDocumentElement();
+        assertEquals(AbstractSVGGeneratingCanvasProvider.SVG_NAMESPACE, actualSvg.getNamespaceURI());
+        assertEquals("svg", actualSvg.getLocalName());
+        for (final String attr : new String[] {"width", "height", "viewBox"}) {
+            assertEquals(expectedSvg.getAttribute(attr), actualSvg.getAttribute(attr), attr);
+        }
+
+        final Element expectedGroup = (Element) expectedSvg.getFirstChild();
+        final Element actualGroup = (Element) actualSvg.getFirstChild();
+        assertEquals(expectedGroup.getAttribute("transform"), actualGroup.getAttribute("transform"));
+
+        final NodeList expectedRects = expectedGroup.getElementsByTagName("rect");
+        final NodeList actualRects = actualGroup.getElementsByTagNameNS(AbstractSVGGeneratingCanvasProvider.SVG_NAMESPACE, "rect");
+        assertEquals(expectedRects.getLength(), actualRects.getLength());
+        for (int i = 0; i < expectedRects.getLength(); i++) {
+            final Element e = (Element) expectedRects.item(i);
+            final Element a = (Element) actualRects.item(i);
+            for (final String attr : new String[] {"x", "y", "width", "height"}) {
+                assertEquals(e.getAttribute(attr), a.getAttribute(attr), attr);
+            }
+        }
+    }
+
+    @Test
+    void testTextIsEscaped() throws Exception {
+        final Code128Bean bean = new Code128Bean();
+        bean.setMsgPosition(HumanReadablePlacement.HRP_BOTTOM);
+        final String msg = "<A&B>\"";
+
+        final StringWriter writer = new StringWriter();
+        final StreamingSVGCanvasProvider svg = new StreamingSVGCanvasProvider(writer, "svg", 0);
+        bean.generateBarcode(svg, msg);
+        svg.finish();
+
+        final String markup = writer.toString();
+        assertTrue(markup.startsWith("<svg:svg xmlns:svg=\""), markup);
+        assertTrue(markup.contains("&lt;A&amp;B&gt;&quot;"), markup);
+
+        final Document doc = parse(new ByteArrayInputStream(markup.getBytes(StandardCharsets.UTF_8)));
+        final NodeList texts = doc.getElementsByTagNameNS(AbstractSVGGeneratingCanvasProvider.SVG_NAMESPACE, "text");
+        assertEquals(1, texts.getLength());
+        assertEquals(msg, texts.item(0).getTextContent());
+    }
+
+    @Test
+    void testSymbol() throws Exception {
+        final StringWriter writer = new StringWriter();
+        final StreamingSVGCanvasProvider svg = new StreamingSVGCanvasProvider(writer, null, 0);
+        svg.setSymbolId("item-1");
+        assertEquals("item-1", svg.getSymbolId());
+        new DataMatrixBean().generateBarcode(svg, "Sprite");
+        svg.finish();
+
+        final String markup = writer.toString();
+        assertTrue(markup.startsWith("<symbol id=\"item-1\" viewBox=\"0 0 "), markup);
+        assertTrue(markup.endsWith("</symbol>\n"), markup);
+
+        final String sprite = "<svg xmlns=\"" + AbstractSVGGeneratingCanvasProvider.SVG_NAMESPACE + "\">" + markup + "</svg>";
+        final Element symbol = (Element) parse(new ByteArrayInputStream(sprite.getBytes(StandardCharsets.UTF_8)))
+            .getDocumentElement().getFirstChild();
+        assertEquals(AbstractSVGGeneratingCanvasProvider.SVG_NAMESPACE, symbol.getNamespaceURI());
+        assertEquals("symbol", symbol.getLocalName());
+        assertFalse(symbol.hasAttribute("width"));
+    }
+
+    @Test
+    void testCompressedOutput() throws Exception {
+        final AbstractBarcodeBean bean = new DataMatrixBean();
+
+        final ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        final StreamingSVGCanvasProvider svg = new StreamingSVGCanvasProvider(plain, false, 0);
+        bean.generateBarcode(svg, "SVGZ");
+        svg.finish();
+
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final StreamingSVGCanvasProvider svgz = new StreamingSVGCanvasProvider(compressed, true, 0);
+        bean.generateBarcode(svgz, "SVGZ");
+        svgz.finish();
+
+        assertTrue(compressed.size() < plain.size());
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertArrayEquals(plain.toByteArray(), in.readAllBytes());
+        }
+    }
+
+    private static Stream<Arguments> compactBarcodes() {
+        final Code39Bean code39 = new Code39Bean();
+        code39.setWideFactor(2.5); // wide bars are not on the module grid
+        return Stream.of(
+            Arguments.of(new DataMatrixBean(), "Barcode4J DataMatrix 0123456789", 0),
+            Arguments.of(new DataMatrixBean(), "Barcode4J DataMatrix 0123456789", 90),
+            Arguments.of(new EAN13Bean(), "781248714120", 0),
+            Arguments.of(code39, "CODE39", 0)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("compactBarcodes")
+    void testCompactPathCoversTheSameBars(AbstractBarcodeBean bean, String msg, int orientation) throws Exception {
+        final ByteArrayOutputStream rectOut = new ByteArrayOutputStream();
+        final StreamingSVGCanvasProvider rectSvg = new StreamingSVGCanvasProvider(rectOut, orientation);
+        bean.generateBarcode(rectSvg, msg);
+        rectSvg.finish();
+
+        final ByteArrayOutputStream compactOut = new ByteArrayOutputStream();
+        final StreamingSVGCanvasProvider compactSvg = new StreamingSVGCanvasProvider(compactOut, orientation);
+        compactSvg.setCompact(true);
+        assertTrue(compactSvg.isCompact());
+        bean.generateBarcode(compactSvg, msg);
+        compactSvg.finish();
+
+        assertTrue(compactOut.size() < rectOut.size(), compactOut.size() + " vs. " + rectOut.size());
+
+        final Document rectDoc = parse(new ByteArrayInputStream(rectOut.toByteArray()));
+        final Document compactDoc = parse(new ByteArrayInputStream(compactOut.toByteArray()));
+        assertEquals(0, compactDoc.getElementsByTagNameNS(AbstractSVGGeneratingCanvasProvider.SVG_NAMESPACE, "rect").getLength());
+        final NodeList paths = compactDoc.getElementsByTagNameNS(AbstractSVGGeneratingCanvasProvider.SVG_NAMESPACE, "path");
+        assertEquals(1, paths.getLength());
+        assertEquals(
+            rectDoc.getElementsByTagNameNS(AbstractSVGGeneratingCanvasProvider.SVG_NAMESPACE, "text").getLength(),
+            compactDoc.getElementsByTagNameNS(AbstractSVGGeneratingCanvasProvider.SVG_NAMESPACE, "text").getLength());
+        assertEquals(rectDoc.getDocumentElement().getAttribute("viewBox"), compactDoc.getDocumentElement().getAttribute("viewBox"));
+
+        final NodeList rects = rectDoc.getElementsByTagNameNS(AbstractSVGGeneratingCanvasProvider.SVG_NAMESPACE, "rect");
+        final List<double[]> decoded = decodePath((Element) paths.item(0));
+        assertEquals(rects.getLength(), decoded.size());
+        for (int i = 0; i < rects.getLength(); i++) {
+            final Element rect = (Element) rects.item(i);
+            final double[] expected = {
+                Double.parseDouble(rect.getAttribute("x")), Double.parseDouble(rect.getAttribute("y")),
+                Double.parseDouble(rect.getAttribute("width")), Double.parseDouble(rect.getAttribute("height"))};
+            assertArrayEquals(expected, decoded.get(i), 0.0002, "bar " + i);
+        }
+    }
+
+    /** Converts a path written by the compact mode back into rectangles (x, y, width, height in mm). */
+    private static List<double[]> decodePath(Element path) {
+        double tx = 0;
+        double ty = 0;
+        double sx = 1;
+        double sy = 1;
+        final String transform = path.getAttribute("transform");
+        if (!transform.isEmpty()) {
+            final Matcher m = Pattern.compile("(?:translate\\((\\S+) (\\S+)\\) )?scale\\((\\S+) (\\S+)\\)").matcher(transform);
+            assertTrue(m.matches(), transform);
+            if (m.group(1) != null) {
+                tx = Double.parseDouble(m.group(1));
+                ty = Double.parseDouble(m.group(2));
+            }
+            sx = Double.parseDouble(m.group(3));
+            sy = Double.parseDouble(m.group(4));
+        }
+        final Matcher m = Pattern.compile("[Mm](-?[0-9.]+) (-?[0-9.]+)h(-?[0-9.]+)v(-?[0-9.]+)h(-?[0-9.]+)z").matcher(path.getAttribute("d"));
+        final List<double[]> rects = new ArrayList<>();
+        double x = 0;
+        double y = 0;
+        while (m.find()) {
+            x += Double.parseDouble(m.group(1));
+            y += Double.parseDouble(m.group(2));
+            final double w = Double.parseDouble(m.group(3));
+            assertEquals(-w, Double.parseDouble(m.group(5)));
+            rects.add(new double[] {tx + x * sx, ty + y * sy, w * sx, Double.parseDouble(m.group(4)) * sy});
+        }
+        return rects;
+    }
+
+    private static Document parse(InputStream in) throws Exception {
+        final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        dbf.setNamespaceAware(true);
+        return dbf.newDocumentBuilder().parse(in);
+    }
+}
@@ -19,6 +19,7 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 
 import org.krysalis.barcode4j.configuration.Configuration;
+import org.krysalis.barcode4j.configuration.DefaultConfiguration;
 import org.junit.jupiter.api.Test;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -76,6 +77,39 @@ public class ConfigurationUtilTestCase {
         checkCfgTree(cfg);
     }
 
+    @Test
+    void testCanonicalStringIgnoresAttributeOrder() {
+        final DefaultConfiguration a = new DefaultConfiguration("datamatrix");
+        a.setAttribute("shape", "force-square");
+        a.setAttribute("min-symbol-size", "24x24");
+        final DefaultConfiguration b = new DefaultConfiguration("datamatrix");
+        b.setAttribute("min-symbol-size", "24x24");
+        b.setAttribute("shape", "force-square");
+
+        assertEquals(ConfigurationUtil.toCanonicalString(a), ConfigurationUtil.toCanonicalString(b));
+    }
+
+    @Test
+    void testCanonicalStringDistinguishesValuesAndChildren() {
+        final DefaultConfiguration a = new DefaultConfiguration("code128");
+        final DefaultConfiguration height = new DefaultConfiguration("height");
+        height.setValue("15mm");
+        a.addChild(height);
+
+        final DefaultConfiguration b = new DefaultConfiguration("code128");
+        final DefaultConfiguration otherHeight = new DefaultConfiguration("height");
+        otherHeight.setValue("16mm");
+        b.addChild(otherHeight);
+
+        final DefaultConfiguration c = new DefaultConfiguration("code128");
+        c.setValue("height15mm");
+
+        final String canonical = ConfigurationUtil.toCanonicalString(a);
+        assertNotEquals(canonical, ConfigurationUtil.toCanonicalString(b));
+        assertNotEquals(canonical, ConfigurationUtil.toCanonicalString(c));
+        assertNotEquals(canonical, ConfigurationUtil.toCanonicalString(new DefaultConfiguration("code128")));
+    }
+
     private void checkCfgTree(final Configuration cfg) throws Exception {
         assertNotNull(cfg);
         assertEquals("root", cfg.getName());
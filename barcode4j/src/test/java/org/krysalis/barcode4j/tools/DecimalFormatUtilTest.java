@@ -0,0 +1,83 @@
+package org.krysalis.barcode4j.tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecimalFormatUtilTest {
+
+    private static final DecimalFormat DF = new DecimalFormat("0.####", new DecimalFormatSymbols(java.util.Locale.ROOT));
+
+    @Test
+    void testFormat() {
+        assertEquals("0", DecimalFormatUtil.format(0));
+        assertEquals("0", DecimalFormatUtil.format(-0.0));
+        assertEquals("0", DecimalFormatUtil.format(-0.00001));
+        assertEquals("1", DecimalFormatUtil.format(1));
+        assertEquals("-1.5", DecimalFormatUtil.format(-1.5));
+        assertEquals("0.21", DecimalFormatUtil.format(0.21));
+        assertEquals("0.3528", DecimalFormatUtil.format(0.352777));
+        assertEquals("1234567.8901", DecimalFormatUtil.format(1234567.89009));
+        assertEquals("0.0312", DecimalFormatUtil.format(0.03125)); // exact tie, rounds to even
+        assertEquals("0.0938", DecimalFormatUtil.format(0.09375));
+        assertEquals("100000000000", DecimalFormatUtil.format(1e11));
+        assertEquals("NaN", DecimalFormatUtil.format(Double.NaN));
+    }
+
+    @Test
+    void testSameAsDecimalFormat() {
+        final Random random = new Random(42);
+        final char[] buffer = new char[DecimalFormatUtil.MAX_LENGTH];
+        for (int i = 0; i < 200000; i++) {
+            final double value;
+            switch (i % 4) {
+                case 0:
+                    value = random.nextDouble() * 100;
+                    break;
+                case 1:
+                    // close to the rounding boundary
+                    value = (random.nextInt(1000000) + 0.5) / 10000 + (random.nextInt(3) - 1) * Math.ulp(1.0);
+                    break;
+                case 2:
+                    value = random.nextInt(100000) / 32.0;
+                    break;
+                default:
+                    value = (random.nextDouble() - 0.5) * 1e9;
+            }
+            final String expected = DF.format(value);
+            if ("-0".equals(expected)) {
+                continue;
+            }
+            assertEquals(expected, DecimalFormatUtil.format(value), "value: " + value);
+            assertEquals(expected, new String(buffer, 0, DecimalFormatUtil.format(value, buffer, 0)), "value: " + value);
+        }
+    }
+
+    @Test
+    void testAppend() throws Exception {
+        final StringBuilder sb = new StringBuilder("x=");
+        DecimalFormatUtil.append(sb, 2.83465);
+        assertEquals("x=2.8346", sb.toString());
+
+        final StringWriter writer = new StringWriter();
+        DecimalFormatUtil.append(writer, -10.00006);
+        writer.append(' ');
+        DecimalFormatUtil.append(writer, 1e20);
+        assertEquals("-10.0001 100000000000000000000", writer.toString());
+
+        assertEquals("-12.05", DecimalFormatUtil.appendFixedPoint(new StringBuilder(), -120500).toString());
+        assertEquals("0.0007", DecimalFormatUtil.appendFixedPoint(new StringBuilder(), 7).toString());
+    }
+
+    @Test
+    void testLargeValuesFitTheBuffer() {
+        final char[] buffer = new char[DecimalFormatUtil.MAX_LENGTH];
+        final int length = DecimalFormatUtil.format(-Double.MAX_VALUE, buffer, 0);
+        assertEquals(DF.format(-Double.MAX_VALUE), new String(buffer, 0, length));
+    }
+}
@@ -32,6 +32,9 @@ public class MimeTypesTest {
         assertEquals(MimeTypes.MIME_SVG, MimeTypes.expandFormat("svg"));
         assertEquals(MimeTypes.MIME_SVG, MimeTypes.expandFormat("sVG"));
         assertEquals(MimeTypes.MIME_SVG, MimeTypes.expandFormat(MimeTypes.MIME_SVG));
+        assertEquals(MimeTypes.MIME_SVGZ, MimeTypes.expandFormat("svgz"));
+        assertEquals(MimeTypes.MIME_SVG, MimeTypes.expandFormat("svg-compact"));
+        assertEquals(MimeTypes.MIME_SVGZ, MimeTypes.expandFormat("SVGZ-Compact"));
 
         assertEquals(MimeTypes.MIME_EPS, MimeTypes.expandFormat("EPS"));
         assertEquals(MimeTypes.MIME_EPS, MimeTypes.expandFormat("image/x-eps"));
@@ -50,6 +53,27 @@ public class MimeTypesTest {
         assertNull(MimeTypes.expandFormat(null));
     }
 
+    @Test
+    void testIsCompressedFormat() {
+        assertTrue(MimeTypes.isCompressedFormat("png"));
+        assertTrue(MimeTypes.isCompressedFormat(MimeTypes.MIME_JPEG));
+        assertTrue(MimeTypes.isCompressedFormat("gif"));
+        assertTrue(MimeTypes.isCompressedFormat("svgz-compact"));
+        assertFalse(MimeTypes.isCompressedFormat("svg"));
+        assertFalse(MimeTypes.isCompressedFormat(MimeTypes.MIME_EPS));
+        assertFalse(MimeTypes.isCompressedFormat("bmp"));
+        assertFalse(MimeTypes.isCompressedFormat(null));
+    }
+
+    @Test
+    void testIsCompactSVGFormat() {
+        assertTrue(MimeTypes.isCompactSVGFormat("svg-compact"));
+        assertTrue(MimeTypes.isCompactSVGFormat("SVGZ-compact"));
+        assertFalse(MimeTypes.isCompactSVGFormat("svg"));
+        assertFalse(MimeTypes.isCompactSVGFormat(MimeTypes.MIME_SVG));
+        assertFalse(MimeTypes.isCompactSVGFormat(null));
+    }
+
     @Test
     void testIsBitmapFormat() throws Exception {
         assertTrue(MimeTypes.isBitmapFormat("tiff"));
@@ -67,4 +91,15 @@ public class MimeTypesTest {
         assertFalse(MimeTypes.isBitmapFormat(MimeTypes.MIME_EPS));
     }
 
+    @Test
+    void testGetFileExtension() {
+        assertEquals("svg", MimeTypes.getFileExtension("svg-compact"));
+        assertEquals("svgz", MimeTypes.getFileExtension(MimeTypes.MIME_SVGZ));
+        assertEquals("png", MimeTypes.getFileExtension("image/x-png"));
+        assertEquals("jpg", MimeTypes.getFileExtension("jpeg"));
+        assertEquals("tif", MimeTypes.getFileExtension(MimeTypes.MIME_TIFF));
+        assertEquals("bin", MimeTypes.getFileExtension("application/octet-stream"));
+        assertEquals("bin", MimeTypes.getFileExtension(null));
+    }
+
 }
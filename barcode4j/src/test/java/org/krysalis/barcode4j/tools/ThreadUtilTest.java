@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.krysalis.barcode4j.tools;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ThreadUtil class.
+ */
+class ThreadUtilTest {
+
+    @Test
+    void testNewVirtualThreadPerTaskExecutor() throws Exception {
+        final ExecutorService executor = ThreadUtil.newVirtualThreadPerTaskExecutor();
+        if (Runtime.version().feature() < 21) {
+            assertNull(executor);
+            return;
+        }
+        assertNotNull(executor);
+        try {
+            assertEquals(Boolean.TRUE, executor.submit(
+                    () -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread())).get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}